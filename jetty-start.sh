@@ -27,4 +27,8 @@ cd jetty-base
 java -jar $JETTY_HOME/start.jar --add-module=annotations,server,http,deploy,servlet,webapp,resources,jsp
 
 mv ../target/bertok-1.0-SNAPSHOT.war webapps/ROOT.war
-java -jar $JETTY_HOME/start.jar
+if [ "$EXECUTION_MODE" == "VIRTUAL" ]; then
+    java -jar $JETTY_HOME/start.jar jetty.threadPool.useVirtualThreads=true
+else
+    java -jar $JETTY_HOME/start.jar
+fi
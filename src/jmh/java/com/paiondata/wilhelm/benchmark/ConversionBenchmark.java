@@ -0,0 +1,81 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.benchmark;
+
+import org.neo4j.driver.internal.InternalNode;
+import org.neo4j.driver.internal.InternalRelationship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.paiondata.wilhelm.Link;
+import com.paiondata.wilhelm.Node;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the conversion of Neo4J driver entities into {@link Node}s and {@link Link}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({ "0", "4", "16" })
+    private int attributeCount;
+
+    private InternalNode node;
+    private InternalRelationship relationship;
+
+    /**
+     * Builds the driver entities under test.
+     */
+    @Setup
+    public void setUp() {
+        node = SyntheticGraphs.node(0, attributeCount);
+        relationship = SyntheticGraphs.relationship(0, 0, 1, attributeCount);
+    }
+
+    /**
+     * Converts a driver node.
+     *
+     * @return the converted node
+     */
+    @Benchmark
+    public Node nodeValueOf() {
+        return Node.valueOf(node);
+    }
+
+    /**
+     * Converts a driver relationship.
+     *
+     * @return the converted link
+     */
+    @Benchmark
+    public Link linkValueOf() {
+        return Link.valueOf(relationship);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.paiondata.wilhelm.Graph;
+import com.paiondata.wilhelm.Node;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks of {@link Graph} operations and of its JSON serialization over synthetic graphs of 100 to 1M nodes.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation rate next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class GraphBenchmark {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final int PARTS = 10;
+
+    @Param({ "100", "1000", "10000", "100000", "1000000" })
+    private int nodeCount;
+
+    private Graph graph;
+    private Graph left;
+    private Graph right;
+    private Node node;
+    private List<Graph> parts;
+
+    /**
+     * Builds the graphs under test.
+     * <p>
+     * {@code left} and {@code right} are two sub-graphs overlapping on a fifth of the nodes, so that merging them
+     * exercises deduplication.
+     */
+    @Setup
+    public void setUp() {
+        graph = SyntheticGraphs.graph(nodeCount);
+        left = SyntheticGraphs.subGraph(nodeCount, id -> id < nodeCount * 3 / 5);
+        right = SyntheticGraphs.subGraph(nodeCount, id -> id >= nodeCount * 2 / 5);
+        node = graph.getNodes().iterator().next();
+        parts = IntStream.range(0, PARTS)
+                .mapToObj(part -> SyntheticGraphs.subGraph(nodeCount, id -> id % PARTS == part))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Merges two overlapping halves of the graph.
+     *
+     * @return the merged graph
+     */
+    @Benchmark
+    public Graph merge() {
+        return left.merge(right);
+    }
+
+    /**
+     * Folds {@value #PARTS} disjoint parts of the graph with pairwise merges.
+     *
+     * @return the merged graph
+     */
+    @Benchmark
+    public Graph foldMerge() {
+        return parts.stream().reduce(Graph.emptyGraph(), Graph::merge);
+    }
+
+    /**
+     * Merges {@value #PARTS} disjoint parts of the graph at once.
+     *
+     * @return the merged graph
+     */
+    @Benchmark
+    public Graph mergeAll() {
+        return Graph.mergeAll(parts);
+    }
+
+    /**
+     * Finds the neighbors of a single node.
+     *
+     * @return the neighbors
+     */
+    @Benchmark
+    public Set<Node> getUndirectedNeighborsOf() {
+        return graph.getUndirectedNeighborsOf(node);
+    }
+
+    /**
+     * Serializes the graph into the JSON response body of the expand endpoints.
+     *
+     * @return the JSON bytes
+     *
+     * @throws JsonProcessingException if the graph cannot be serialized
+     */
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return JSON_MAPPER.writeValueAsBytes(graph);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.benchmark;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.internal.InternalNode;
+import org.neo4j.driver.internal.InternalRelationship;
+import com.paiondata.wilhelm.Graph;
+import com.paiondata.wilhelm.Link;
+import com.paiondata.wilhelm.Node;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Deterministic synthetic vocabulary graphs and Neo4J driver entities for benchmarks.
+ * <p>
+ * A graph of {@code n} nodes is a random tree, so that it is connected, plus {@code n / 2} random extra links, which
+ * roughly matches the link density of the vocabulary database.
+ */
+public final class SyntheticGraphs {
+
+    private static final long SEED = 42;
+    private static final String LINK_TYPE = "LINK";
+
+    /**
+     * Constructor.
+     * <p>
+     * Suppress default constructor for noninstantiability.
+     *
+     * @throws AssertionError when called
+     */
+    private SyntheticGraphs() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Creates a driver node with a label and a number of other properties.
+     *
+     * @param id  The numeric ID of the node; its element ID is {@code "n" + id}
+     * @param attributeCount  The number of properties besides the label
+     *
+     * @return a new driver node
+     */
+    @NotNull
+    public static InternalNode node(final long id, final int attributeCount) {
+        return new InternalNode(id, "n" + id, List.of("Term"), properties("word" + id, attributeCount));
+    }
+
+    /**
+     * Creates a driver relationship with a label and a number of other properties.
+     *
+     * @param id  The numeric ID of the relationship; its element ID is {@code "r" + id}
+     * @param source  The numeric ID of the start node
+     * @param target  The numeric ID of the end node
+     * @param attributeCount  The number of properties besides the label
+     *
+     * @return a new driver relationship
+     */
+    @NotNull
+    public static InternalRelationship relationship(
+            final long id,
+            final long source,
+            final long target,
+            final int attributeCount
+    ) {
+        return new InternalRelationship(
+                id,
+                "r" + id,
+                source,
+                "n" + source,
+                target,
+                "n" + target,
+                LINK_TYPE,
+                properties("definition", attributeCount)
+        );
+    }
+
+    /**
+     * Creates a connected graph.
+     *
+     * @param nodeCount  The number of nodes
+     *
+     * @return a new graph of {@code nodeCount} nodes and about {@code 1.5 * nodeCount} links
+     */
+    @NotNull
+    public static Graph graph(final int nodeCount) {
+        return subGraph(nodeCount, id -> true);
+    }
+
+    /**
+     * Creates the sub-graph of {@link #graph(int)} induced by a subset of its nodes.
+     *
+     * @param nodeCount  The number of nodes of the whole graph
+     * @param includes  Whether a node, by numeric ID, belongs to the sub-graph
+     *
+     * @return a new graph with the included nodes and all links between them
+     */
+    @NotNull
+    public static Graph subGraph(final int nodeCount, @NotNull final IntPredicate includes) {
+        final Random random = new Random(SEED);
+
+        final Set<Node> nodes = new HashSet<>();
+        for (int id = 0; id < nodeCount; id++) {
+            if (includes.test(id)) {
+                nodes.add(Node.valueOf(node(id, 2)));
+            }
+        }
+
+        final Set<Link> links = new HashSet<>();
+        int linkId = 0;
+        for (int id = 1; id < nodeCount; id++) {
+            final int parent = random.nextInt(id);
+            if (includes.test(id) && includes.test(parent)) {
+                links.add(Link.valueOf(relationship(linkId, parent, id, 1)));
+            }
+            linkId++;
+        }
+        for (int i = 0; i < nodeCount / 2; i++) {
+            final int source = random.nextInt(nodeCount);
+            final int target = random.nextInt(nodeCount);
+            if (includes.test(source) && includes.test(target)) {
+                links.add(Link.valueOf(relationship(linkId, source, target, 1)));
+            }
+            linkId++;
+        }
+
+        return new Graph(nodes, links);
+    }
+
+    /**
+     * Creates the properties of a driver entity.
+     *
+     * @param label  The value of the label property
+     * @param attributeCount  The number of properties besides the label
+     *
+     * @return a map of {@code attributeCount + 1} properties
+     */
+    @NotNull
+    private static Map<String, Value> properties(@NotNull final String label, final int attributeCount) {
+        final Map<String, Value> properties = new HashMap<>();
+        properties.put(Node.LABEL_ATTRIBUTE, Values.value(label));
+        for (int i = 0; i < attributeCount; i++) {
+            properties.put("attribute" + i, Values.value("value" + i));
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.benchmark;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.internal.value.NodeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.paiondata.wilhelm.neo4j.RecordMapper;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link RecordMapper#expand(Value)}, which converts every value of a non-path query result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValueExpansionBenchmark {
+
+    @Param({ "0", "4", "16" })
+    private int attributeCount;
+
+    private Value terminal;
+    private Value node;
+    private Value nested;
+
+    /**
+     * Builds the values under test.
+     */
+    @Setup
+    public void setUp() {
+        terminal = Values.value("Haus");
+        node = new NodeValue(SyntheticGraphs.node(0, attributeCount));
+        nested = Values.value(Map.of("node", node.asMap(), "score", 1.5));
+    }
+
+    /**
+     * Expands a plain string, like a term or definition of a vocabulary page.
+     *
+     * @return the expanded value
+     */
+    @Benchmark
+    public Object expandTerminal() {
+        return RecordMapper.expand(terminal);
+    }
+
+    /**
+     * Expands a node, like a search result.
+     *
+     * @return the expanded value
+     */
+    @Benchmark
+    public Object expandNode() {
+        return RecordMapper.expand(node);
+    }
+
+    /**
+     * Expands a map that nests another map.
+     *
+     * @return the expanded value
+     */
+    @Benchmark
+    public Object expandNested() {
+        return RecordMapper.expand(nested);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.paiondata.wilhelm.benchmark.SyntheticGraphs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmarks of gzipping {@code /expand} response bodies, i.e. serialized graphs, by {@link CompressionFilter}.
+ * <p>
+ * The setup prints the size of the body before and after compression at each level, which is what goes over the wire.
+ * {@link #gzipUnpooled()} is the baseline of a {@link GZIPOutputStream}, which creates a new deflater every time.
+ * <p>
+ * This lives in the package of {@link CompressionFilter} because the benchmarked stream is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    @Param({ "10", "100", "1000", "10000" })
+    private int nodeCount;
+
+    @Param({ "1", "6", "9" })
+    private int level;
+
+    private byte[] body;
+    private DeflaterPool pool;
+
+    /**
+     * Serializes the graph under test and reports its compressed size.
+     *
+     * @throws IOException if the graph cannot be serialized or compressed
+     */
+    @Setup
+    public void setUp() throws IOException {
+        body = JSON_MAPPER.writeValueAsBytes(SyntheticGraphs.graph(nodeCount));
+        pool = new DeflaterPool(level, 1);
+
+        final int compressed = gzipPooled().length;
+        System.out.printf(
+                "%n%d nodes: %d bytes, %d bytes gzipped at level %d (%.1f%%)%n",
+                nodeCount,
+                body.length,
+                compressed,
+                level,
+                100.0 * compressed / body.length
+        );
+    }
+
+    /**
+     * Gzips the body the way {@link CompressionFilter} does, with a pooled deflater.
+     *
+     * @return the compressed body
+     *
+     * @throws IOException never, because the body is written to memory
+     */
+    @Benchmark
+    public byte[] gzipPooled() throws IOException {
+        final ByteArrayOutputStream wire = new ByteArrayOutputStream(body.length);
+        final ThresholdGzipOutputStream output = new ThresholdGzipOutputStream(wire, pool, 0, () -> { });
+        output.write(body);
+        output.finish();
+        return wire.toByteArray();
+    }
+
+    /**
+     * Gzips the body with a new {@link GZIPOutputStream}, and thus a new deflater, at the same level.
+     *
+     * @return the compressed body
+     *
+     * @throws IOException never, because the body is written to memory
+     */
+    @Benchmark
+    public byte[] gzipUnpooled() throws IOException {
+        final ByteArrayOutputStream wire = new ByteArrayOutputStream(body.length);
+        try (GZIPOutputStream output = new GZIPOutputStream(wire) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            output.write(body);
+        }
+        return wire.toByteArray();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm;
+
+import com.github.benmanes.caffeine.cache.Interner;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A compact, immutable attribute map of a {@link Node} or {@link Link}.
+ * <p>
+ * Attributes are stored as two flat arrays instead of a hash table. The key array is a table shared by all maps with
+ * the same set of keys, which in a vocabulary graph is almost every node and every link, so each map only pays for its
+ * own values. Keys, string values, and IDs of nodes and links are {@link #intern(String) interned}, so the same
+ * language, label, or element ID is held in memory once no matter how many cached graphs contain it.
+ * <p>
+ * Lookups scan the keys linearly, which is fast for the handful of attributes graph elements have.
+ */
+@Immutable
+@ThreadSafe
+final class Attributes extends AbstractMap<String, Object> {
+
+    private static final Interner<String> STRINGS = Interner.newWeakInterner();
+    private static final Interner<KeyTable> KEY_TABLES = Interner.newWeakInterner();
+    private static final Attributes EMPTY = new Attributes(
+            KEY_TABLES.intern(new KeyTable(new String[0])),
+            new Object[0]
+    );
+
+    private final KeyTable keyTable;
+    private final Object[] values;
+
+    /**
+     * All-args constructor.
+     *
+     * @param keyTable  The shared, sorted keys
+     * @param values  The values, in the order of their keys
+     */
+    private Attributes(@NotNull final KeyTable keyTable, @NotNull final Object[] values) {
+        this.keyTable = keyTable;
+        this.values = values;
+    }
+
+    /**
+     * Creates a compact copy of an attribute map, leaving out some keys.
+     *
+     * @param attributes  The attributes to copy; {@code null} values are not supported
+     * @param excludedKeys  The keys to leave out, such as the label property; none to copy all attributes
+     *
+     * @return an immutable map
+     *
+     * @throws NullPointerException if {@code attributes} or any of its values is {@code null}
+     */
+    @NotNull
+    static Attributes of(@NotNull final Map<String, ?> attributes, @NotNull final String... excludedKeys) {
+        final Set<String> excluded = Set.of(excludedKeys);
+        final String[] keys = attributes.keySet().stream()
+                .filter(key -> !excluded.contains(key))
+                .sorted()
+                .map(Attributes::intern)
+                .toArray(String[]::new);
+        if (keys.length == 0) {
+            return EMPTY;
+        }
+
+        final Object[] values = new Object[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            final Object value = Objects.requireNonNull(attributes.get(keys[i]), keys[i]);
+            values[i] = value instanceof String ? intern((String) value) : value;
+        }
+
+        return new Attributes(KEY_TABLES.intern(new KeyTable(keys)), values);
+    }
+
+    /**
+     * Returns the canonical instance of a string, which is weakly held so that strings no longer used anywhere can be
+     * garbage collected.
+     *
+     * @param value  The string to intern
+     *
+     * @return a string equal to {@code value}
+     */
+    @NotNull
+    static String intern(@NotNull final String value) {
+        return STRINGS.intern(value);
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(final Object key) {
+        final int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    @NotNull
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return values.length;
+            }
+
+            @Override
+            @NotNull
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final int index = next++;
+                        return new SimpleImmutableEntry<>(keyTable.keys[index], values[index]);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Finds the position of a key.
+     *
+     * @param key  The key to look for
+     *
+     * @return the index of the key, or a negative number if this map does not contain it
+     */
+    private int indexOf(final Object key) {
+        final String[] keys = keyTable.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A sorted set of attribute keys, shared by all attribute maps having exactly these keys.
+     */
+    @Immutable
+    @ThreadSafe
+    private static final class KeyTable {
+
+        private final String[] keys;
+        private final int hashCode;
+
+        /**
+         * All-args constructor.
+         *
+         * @param keys  The sorted keys
+         */
+        private KeyTable(@NotNull final String[] keys) {
+            this.keys = keys;
+            this.hashCode = Arrays.hashCode(keys);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return this == other || other instanceof KeyTable && Arrays.equals(keys, ((KeyTable) other).keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm;
+
+import com.paiondata.wilhelm.web.filters.AdmissionControlFilter;
+import com.paiondata.wilhelm.web.filters.EndpointClass;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation that marks a resource method whose requests are admitted under the adaptive concurrency limit of an
+ * {@link EndpointClass}, so that one class of endpoints being overloaded does not starve the others.
+ *
+ * @see AdmissionControlFilter
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    /**
+     * The endpoint class whose concurrency limit the requests of the annotated method count toward.
+     *
+     * @return an endpoint class
+     */
+    EndpointClass value();
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A JSON-serializable result of expanding many words at once.
+ * <p>
+ * The sub-graphs of the words usually overlap, so their nodes and links are sent once, in shared node and link
+ * tables, and the sub-graph of each word is only the list of the IDs of its nodes and links in these tables.
+ */
+@Immutable
+@ThreadSafe
+@SuppressWarnings("ClassCanBeRecord")
+@JsonIncludeProperties({ "nodes", "links", "words" })
+public class ExpansionBatch {
+
+    private final Graph graph;
+    private final Map<String, Expansion> words;
+
+    /**
+     * All-args constructor.
+     *
+     * @param nodes  The nodes of all sub-graphs, cannot be {@code null}
+     * @param links  The links of all sub-graphs, cannot be {@code null}
+     * @param words  The sub-graph of each word, in request order, cannot be {@code null}
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    @JsonCreator
+    public ExpansionBatch(
+            @NotNull @JsonProperty("nodes") final Set<Node> nodes,
+            @NotNull @JsonProperty("links") final Set<Link> links,
+            @NotNull @JsonProperty("words") final Map<String, Expansion> words
+    ) {
+        this.graph = new Graph(nodes, links);
+        this.words = Collections.unmodifiableMap(new LinkedHashMap<>(Objects.requireNonNull(words)));
+    }
+
+    /**
+     * Combines the sub-graphs of many words.
+     *
+     * @param graphs  The sub-graph of each word, in request order
+     *
+     * @return a new instance
+     */
+    @NotNull
+    public static ExpansionBatch of(@NotNull final Map<String, Graph> graphs) {
+        final Map<String, Expansion> words = new LinkedHashMap<>();
+        graphs.forEach((word, graph) -> words.put(word, Expansion.of(graph)));
+
+        final Graph merged = Graph.mergeAll(graphs.values());
+        return new ExpansionBatch(merged.getNodes(), merged.getLinks(), words);
+    }
+
+    @NotNull
+    public Set<Node> getNodes() {
+        return graph.getNodes();
+    }
+
+    @NotNull
+    public Set<Link> getLinks() {
+        return graph.getLinks();
+    }
+
+    /**
+     * Returns the nodes and links of all sub-graphs as a single graph.
+     *
+     * @return a graph of the shared node and link tables
+     */
+    @NotNull
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the sub-graph of each word.
+     *
+     * @return an unmodifiable map from each requested word to the IDs of the nodes and links of its sub-graph, which
+     * are empty if the word is unknown
+     */
+    @NotNull
+    public Map<String, Expansion> getWords() {
+        return words;
+    }
+
+    /**
+     * The sub-graph of a single word, by the IDs of its nodes and links.
+     */
+    @Immutable
+    @ThreadSafe
+    @SuppressWarnings("ClassCanBeRecord")
+    @JsonIncludeProperties({ "nodeIds", "linkIds" })
+    public static final class Expansion {
+
+        private final List<String> nodeIds;
+        private final List<String> linkIds;
+
+        /**
+         * All-args constructor.
+         *
+         * @param nodeIds  The {@link Node#getId() IDs} of the nodes of the sub-graph, cannot be {@code null}
+         * @param linkIds  The {@link Link#getId() IDs} of the links of the sub-graph, cannot be {@code null}
+         *
+         * @throws NullPointerException if any argument is {@code null}
+         */
+        @JsonCreator
+        public Expansion(
+                @NotNull @JsonProperty("nodeIds") final List<String> nodeIds,
+                @NotNull @JsonProperty("linkIds") final List<String> linkIds
+        ) {
+            this.nodeIds = List.copyOf(Objects.requireNonNull(nodeIds));
+            this.linkIds = List.copyOf(Objects.requireNonNull(linkIds));
+        }
+
+        /**
+         * Refers to the nodes and links of a sub-graph.
+         *
+         * @param graph  The sub-graph
+         *
+         * @return a new instance
+         */
+        @NotNull
+        static Expansion of(@NotNull final Graph graph) {
+            return new Expansion(
+                    graph.getNodes().stream().map(Node::getId).collect(Collectors.toList()),
+                    graph.getLinks().stream().map(Link::getId).collect(Collectors.toList())
+            );
+        }
+
+        @NotNull
+        public List<String> getNodeIds() {
+            return nodeIds;
+        }
+
+        @NotNull
+        public List<String> getLinkIds() {
+            return linkIds;
+        }
+    }
+}
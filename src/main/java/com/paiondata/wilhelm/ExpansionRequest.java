@@ -0,0 +1,75 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A JSON-deserializable request to expand many words at once.
+ * <p>
+ * Each word is expanded like a single {@code /expandApoc/{word}} with the same {@link #getMaxHops() max hops}.
+ */
+@Immutable
+@ThreadSafe
+@SuppressWarnings("ClassCanBeRecord")
+@JsonIncludeProperties({ "words", "maxHops" })
+public class ExpansionRequest {
+
+    /**
+     * The max length of expanded paths if a request does not specify one, which is the same as that of
+     * {@code /expand/{word}}.
+     */
+    public static final int DEFAULT_MAX_HOPS = 3;
+
+    private final List<String> words;
+    private final int maxHops;
+
+    /**
+     * All-args constructor.
+     *
+     * @param words  The words to expand, cannot be {@code null} or contain {@code null}
+     * @param maxHops  The max length of expanded paths, {@code -1} for unlimitedly long paths, or {@code null} for
+     * {@link #DEFAULT_MAX_HOPS the default}
+     *
+     * @throws NullPointerException if {@code words} is or contains {@code null}
+     */
+    @JsonCreator
+    public ExpansionRequest(
+            @NotNull @JsonProperty("words") final List<String> words,
+            @JsonProperty("maxHops") final Integer maxHops
+    ) {
+        this.words = List.copyOf(Objects.requireNonNull(words));
+        this.maxHops = maxHops == null ? DEFAULT_MAX_HOPS : maxHops;
+    }
+
+    @NotNull
+    public List<String> getWords() {
+        return words;
+    }
+
+    public int getMaxHops() {
+        return maxHops;
+    }
+}
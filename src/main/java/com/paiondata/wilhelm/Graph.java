@@ -15,7 +15,9 @@
  */
 package com.paiondata.wilhelm;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -24,17 +26,30 @@ import org.slf4j.LoggerFactory;
 
 import jakarta.validation.constraints.NotNull;
 import net.jcip.annotations.Immutable;
+import net.jcip.annotations.NotThreadSafe;
 import net.jcip.annotations.ThreadSafe;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * A JSON-serializable object representation of a knowledge graph in bertok.
+ * <p>
+ * Structural queries, such as {@link #getUndirectedNeighborsOf(Node) neighbors}, {@link #getDegree(Node) degree}, and
+ * {@link #getInducedSubgraph(Collection) induced subgraphs}, are answered from an adjacency index of node ID to
+ * incident links. The index is built on the first such query and reused afterwards, so each query costs
+ * {@code O(degree)} instead of a scan of the whole graph, and graphs that are only serialized never pay for it.
+ * <p>
+ * Graphs assembled step by step, or from several other graphs, should be collected with a {@link Builder}, which hands
+ * its nodes and links over to the built {@link Graph} without copying them.
  */
 @Immutable
 @ThreadSafe
@@ -45,18 +60,46 @@ public class Graph {
     private static final Logger LOG = LoggerFactory.getLogger(Graph.class);
     private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
 
+    /**
+     * An unmodifiable view of the nodes, owned by this {@link Graph}.
+     */
     private final Set<Node> nodes;
+
+    /**
+     * An unmodifiable view of the links, owned by this {@link Graph}.
+     */
     private final Set<Link> links;
 
+    /**
+     * The lazily built adjacency index; see {@link #getAdjacency()}.
+     */
+    private volatile Adjacency adjacency;
+
     /**
      * All-args constructor.
+     * <p>
+     * Both sets are copied; use a {@link Builder} to avoid that.
      *
      * @param nodes  The set of all nodes contained in this Graph, cannot be {@code null}
      * @param links  The set of all links contained in this Graph, cannot be {@code null}
      */
-    public Graph(@NotNull final Set<Node> nodes, @NotNull final Set<Link> links) {
-        this.nodes = new HashSet<>(Objects.requireNonNull(nodes));
-        this.links = new HashSet<>(Objects.requireNonNull(links));
+    @JsonCreator
+    public Graph(
+            @NotNull @JsonProperty("nodes") final Set<Node> nodes,
+            @NotNull @JsonProperty("links") final Set<Link> links
+    ) {
+        this.nodes = Collections.unmodifiableSet(new HashSet<>(Objects.requireNonNull(nodes)));
+        this.links = Collections.unmodifiableSet(new HashSet<>(Objects.requireNonNull(links)));
+    }
+
+    /**
+     * Constructor that takes over the sets of a builder without copying them.
+     *
+     * @param builder  The builder being {@link Builder#build() built}, which must not touch its sets afterwards
+     */
+    private Graph(@NotNull final Builder builder) {
+        this.nodes = Collections.unmodifiableSet(builder.nodes);
+        this.links = Collections.unmodifiableSet(builder.links);
     }
 
     /**
@@ -65,7 +108,34 @@ public class Graph {
      * @return a new instance
      */
     public static Graph emptyGraph() {
-        return new Graph(new HashSet<>(), new HashSet<>());
+        return builder().build();
+    }
+
+    /**
+     * Returns a new, empty {@link Builder}.
+     *
+     * @return a new instance
+     */
+    @NotNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Combines the nodes and links of any number of graphs into a new {@link Graph}.
+     * <p>
+     * This takes time linear in the total size of all graphs, whereas folding them with {@link #merge(Graph)} copies
+     * the accumulated nodes and links at every step.
+     *
+     * @param graphs  The graphs to combine
+     *
+     * @return a new instance
+     */
+    @NotNull
+    public static Graph mergeAll(@NotNull final Collection<Graph> graphs) {
+        final Builder builder = builder();
+        graphs.forEach(builder::addGraph);
+        return builder.build();
     }
 
     /**
@@ -88,31 +158,101 @@ public class Graph {
      */
     @NotNull
     public Set<Node> getUndirectedNeighborsOf(final Node node) {
-        final Set<String> neighborIds = getLinks().stream()
-                .filter(link ->
-                        node.getId().equals(link.getSourceNodeId()) || node.getId().equals(link.getTargetNodeId())
-                )
-                .flatMap(link -> Stream.of(link.getSourceNodeId(), link.getTargetNodeId()))
-                .filter(id -> !node.getId().equals(id))
-                .collect(Collectors.toUnmodifiableSet());
+        final Set<Node> neighbors = new HashSet<>();
+        for (final Link link : getAdjacency().getIncidentLinks(node.getId())) {
+            final String neighborId = node.getId().equals(link.getSourceNodeId())
+                    ? link.getTargetNodeId()
+                    : link.getSourceNodeId();
+            if (!node.getId().equals(neighborId)) {
+                getNodeById(neighborId).ifPresent(neighbors::add);
+            }
+        }
+
+        return Collections.unmodifiableSet(neighbors);
+    }
+
+    /**
+     * Returns the node of this {@link Graph} with a specified ID.
+     *
+     * @param id  The {@link Node#getId() ID} of the node
+     *
+     * @return the node, or {@link Optional#empty()} if this {@link Graph} has no node with the ID
+     */
+    @NotNull
+    public Optional<Node> getNodeById(@NotNull final String id) {
+        return Optional.ofNullable(getAdjacency().nodesById.get(id));
+    }
 
-        return getNodes().stream()
-                .filter(it -> neighborIds.contains(it.getId()))
-                .collect(Collectors.toUnmodifiableSet());
+    /**
+     * Returns all links of this {@link Graph} that start or end at a specified node.
+     *
+     * @param node  A node from this {@link Graph}
+     *
+     * @return an unmodifiable set, which is empty if the node has no links
+     */
+    @NotNull
+    public Set<Link> getIncidentLinksOf(@NotNull final Node node) {
+        return Collections.unmodifiableSet(new HashSet<>(getAdjacency().getIncidentLinks(node.getId())));
+    }
+
+    /**
+     * Returns the number of links of this {@link Graph} that start or end at a specified node.
+     * <p>
+     * A link from the node to itself counts once.
+     *
+     * @param node  A node from this {@link Graph}
+     *
+     * @return a non-negative number
+     */
+    public int getDegree(@NotNull final Node node) {
+        return getAdjacency().getIncidentLinks(node.getId()).size();
+    }
+
+    /**
+     * Returns the subgraph induced by a set of nodes, i.e. those nodes together with all links between them.
+     * <p>
+     * IDs of nodes that are not in this {@link Graph} are ignored.
+     *
+     * @param nodeIds  The {@link Node#getId() IDs} of the nodes of the subgraph
+     *
+     * @return a new instance
+     */
+    @NotNull
+    public Graph getInducedSubgraph(@NotNull final Collection<String> nodeIds) {
+        final Adjacency index = getAdjacency();
+        final Set<String> ids = new HashSet<>(nodeIds);
+
+        final Builder subgraph = builder();
+        for (final String id : ids) {
+            final Node node = index.nodesById.get(id);
+            if (node == null) {
+                continue;
+            }
+            subgraph.addNode(node);
+            for (final Link link : index.getIncidentLinks(id)) {
+                if (ids.contains(link.getSourceNodeId())
+                        && ids.contains(link.getTargetNodeId())
+                        && index.nodesById.containsKey(link.getSourceNodeId())
+                        && index.nodesById.containsKey(link.getTargetNodeId())) {
+                    subgraph.addLink(link);
+                }
+            }
+        }
+
+        return subgraph.build();
     }
 
     /**
      * Combines the nodes and links from this {@link Graph} instance and the other one and returns a new {@link Graph}.
+     * <p>
+     * To combine more than two graphs, use {@link #mergeAll(Collection)} or a {@link Builder}.
      *
      * @param that the other {@link Graph} instance to be merged with this {@link Graph}
      *
      * @return a new instance
      */
     public Graph merge(@NotNull final Graph that) {
-        return new Graph(
-                Stream.of(this.getNodes(), that.getNodes()).flatMap(Set::stream).collect(Collectors.toSet()),
-                Stream.of(this.getLinks(), that.getLinks()).flatMap(Set::stream).collect(Collectors.toSet())
-        );
+        return builder().addGraph(this).addGraph(that).build();
     }
 
     /**
@@ -122,7 +262,7 @@ public class Graph {
      */
     @NotNull
     public Set<Node> getNodes() {
-        return Collections.unmodifiableSet(nodes);
+        return nodes;
     }
 
     /**
@@ -132,7 +272,25 @@ public class Graph {
      */
     @NotNull
     public Set<Link> getLinks() {
-        return Collections.unmodifiableSet(links);
+        return links;
+    }
+
+    /**
+     * Returns the adjacency index of this {@link Graph}, building it on first use.
+     * <p>
+     * Nodes and links never change after construction, so concurrent first uses may each build an equal index; only
+     * one of them is kept.
+     *
+     * @return the index
+     */
+    @NotNull
+    private Adjacency getAdjacency() {
+        Adjacency index = adjacency;
+        if (index == null) {
+            index = new Adjacency(nodes, links);
+            adjacency = index;
+        }
+        return index;
     }
 
     /**
@@ -152,4 +310,173 @@ public class Graph {
             throw new IllegalStateException(exception);
         }
     }
+
+    /**
+     * A mutable collector of nodes and links that is frozen into a {@link Graph} once.
+     * <p>
+     * {@link #build()} hands the collected sets over to the new {@link Graph} without copying them. The builder cannot
+     * be used afterwards, which keeps the built {@link Graph} immutable.
+     */
+    @NotThreadSafe
+    public static final class Builder {
+
+        private final Set<Node> nodes = new HashSet<>();
+        private final Set<Link> links = new HashSet<>();
+        private boolean built;
+
+        /**
+         * Constructor.
+         * <p>
+         * Use {@link Graph#builder()}.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Adds a node, unless an equal one has been added before.
+         *
+         * @param node  The node to add
+         *
+         * @return this builder
+         *
+         * @throws IllegalStateException if this builder has been built
+         */
+        @NotNull
+        public Builder addNode(@NotNull final Node node) {
+            checkNotBuilt();
+            nodes.add(Objects.requireNonNull(node));
+            return this;
+        }
+
+        /**
+         * Adds a link, unless an equal one has been added before.
+         *
+         * @param link  The link to add
+         *
+         * @return this builder
+         *
+         * @throws IllegalStateException if this builder has been built
+         */
+        @NotNull
+        public Builder addLink(@NotNull final Link link) {
+            checkNotBuilt();
+            links.add(Objects.requireNonNull(link));
+            return this;
+        }
+
+        /**
+         * Adds a number of nodes.
+         *
+         * @param nodesToAdd  The nodes to add
+         *
+         * @return this builder
+         *
+         * @throws IllegalStateException if this builder has been built
+         */
+        @NotNull
+        public Builder addNodes(@NotNull final Collection<Node> nodesToAdd) {
+            checkNotBuilt();
+            nodes.addAll(nodesToAdd);
+            return this;
+        }
+
+        /**
+         * Adds a number of links.
+         *
+         * @param linksToAdd  The links to add
+         *
+         * @return this builder
+         *
+         * @throws IllegalStateException if this builder has been built
+         */
+        @NotNull
+        public Builder addLinks(@NotNull final Collection<Link> linksToAdd) {
+            checkNotBuilt();
+            links.addAll(linksToAdd);
+            return this;
+        }
+
+        /**
+         * Adds all nodes and links of a graph, in time linear in the size of that graph.
+         *
+         * @param graph  The graph to merge into this builder
+         *
+         * @return this builder
+         *
+         * @throws IllegalStateException if this builder has been built
+         */
+        @NotNull
+        public Builder addGraph(@NotNull final Graph graph) {
+            return addNodes(graph.getNodes()).addLinks(graph.getLinks());
+        }
+
+        /**
+         * Freezes the collected nodes and links into a {@link Graph}.
+         *
+         * @return a new instance that owns the collected sets
+         *
+         * @throws IllegalStateException if this builder has been built before
+         */
+        @NotNull
+        public Graph build() {
+            checkNotBuilt();
+            built = true;
+            return new Graph(this);
+        }
+
+        /**
+         * Makes sure the collected sets have not been handed over to a {@link Graph} yet.
+         *
+         * @throws IllegalStateException if this builder has been built
+         */
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("Graph has already been built");
+            }
+        }
+    }
+
+    /**
+     * An index of the nodes of a {@link Graph} by ID and of its links by the IDs of their ends.
+     */
+    @Immutable
+    @ThreadSafe
+    private static final class Adjacency {
+
+        private final Map<String, Node> nodesById;
+        private final Map<String, List<Link>> incidentLinks;
+
+        /**
+         * Indexes the nodes and links of a graph.
+         *
+         * @param nodes  The nodes of the graph
+         * @param links  The links of the graph
+         */
+        private Adjacency(@NotNull final Set<Node> nodes, @NotNull final Set<Link> links) {
+            this.nodesById = new HashMap<>(nodes.size() * 2);
+            for (final Node node : nodes) {
+                nodesById.put(node.getId(), node);
+            }
+
+            this.incidentLinks = new HashMap<>(nodes.size() * 2);
+            for (final Link link : links) {
+                incidentLinks.computeIfAbsent(link.getSourceNodeId(), id -> new ArrayList<>()).add(link);
+                if (!link.getSourceNodeId().equals(link.getTargetNodeId())) {
+                    incidentLinks.computeIfAbsent(link.getTargetNodeId(), id -> new ArrayList<>()).add(link);
+                }
+            }
+        }
+
+        /**
+         * Returns the links starting or ending at a node.
+         *
+         * @param nodeId  The ID of the node
+         *
+         * @return a list that must not be modified
+         */
+        @NotNull
+        private List<Link> getIncidentLinks(@NotNull final String nodeId) {
+            return incidentLinks.getOrDefault(nodeId, Collections.emptyList());
+        }
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm;
+
+import com.paiondata.wilhelm.web.filters.HttpCacheFilter;
+import com.paiondata.wilhelm.web.filters.HttpCachePolicy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation that marks a resource method whose responses may be cached by clients and shared caches under a
+ * configurable {@link HttpCachePolicy}.
+ *
+ * @see HttpCacheFilter
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HttpCacheable {
+
+    /**
+     * The policy whose configured {@code Cache-Control} applies to the responses of the annotated method.
+     *
+     * @return an HTTP cache policy
+     */
+    HttpCachePolicy value();
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A JSON-serializable page of results retrieved by keyset pagination.
+ * <p>
+ * Besides the {@link #getItems() items} of the page, it carries an opaque {@link #getNext() cursor} which, sent back as
+ * is, resumes right after the last item of this page.
+ */
+@Immutable
+@ThreadSafe
+@SuppressWarnings("ClassCanBeRecord")
+@JsonIncludeProperties({ "items", "next" })
+public class KeysetPage {
+
+    private final List<Map<String, Object>> items;
+    private final String next;
+
+    /**
+     * All-args constructor.
+     *
+     * @param items  The items of this page, cannot be {@code null}
+     * @param next  The cursor of the next page, or {@code null} if this is the last page
+     *
+     * @throws NullPointerException if {@code items} is {@code null}
+     */
+    @JsonCreator
+    public KeysetPage(
+            @NotNull @JsonProperty("items") final List<Map<String, Object>> items,
+            @JsonProperty("next") final String next
+    ) {
+        this.items = List.copyOf(Objects.requireNonNull(items));
+        this.next = next;
+    }
+
+    @NotNull
+    public List<Map<String, Object>> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the opaque cursor of the page right after this one.
+     *
+     * @return a cursor string or {@code null} if there are no more items
+     */
+    public String getNext() {
+        return next;
+    }
+}
@@ -15,7 +15,9 @@
  */
 package com.paiondata.wilhelm;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import org.neo4j.driver.types.Relationship;
 import org.slf4j.Logger;
@@ -25,17 +27,16 @@ import jakarta.validation.constraints.NotNull;
 import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * A JSON-serializable object representation of a directed link of knowledge graph in bertok.
  * <p>
- * A {@link Link} has 4 public attributes:
+ * A {@link Link} has 5 public attributes:
  * <ol>
+ *     <li> The unique identifier of the link, i.e. the element ID of its Neo4J relationship, which is what two links
+ *          are compared by
  *     <li> A string used as the caption for rendering the link
  *     <li> The {@link Node#getId() unique identifier of node} originating this link
  *     <li> The {@link Node#getId() unique identifier of node} pointed to by this link
@@ -44,7 +45,7 @@ import java.util.stream.Collectors;
  */
 @Immutable
 @ThreadSafe
-@JsonIncludeProperties({ "label", "sourceNodeId", "targetNodeId", "attributes" })
+@JsonIncludeProperties({ "id", "label", "sourceNodeId", "targetNodeId", "attributes" })
 public class Link {
 
     /**
@@ -56,37 +57,43 @@ public class Link {
 
     private static final Logger LOG = LoggerFactory.getLogger(Link.class);
 
+    private final String id;
     private final String label;
     private final String sourceNodeId;
     private final String targetNodeId;
-    private final Map<String, Object> attributes;
+    private final Attributes attributes;
 
     /**
      * All-args constructor.
      *
+     * @param id  The unique identifier of a link within a graph
      * @param label  The caption for the rendering of the link
      * @param sourceNodeId  The {@link Node#getId() ID} of the node originating this directed {@link Link}
      * @param targetNodeId  The {@link Node#getId() ID} of the node pointed to by this directed {@link Link}
-     * @param attributes  The fields attached to this node other than label
+     * @param attributes  The fields attached to this link other than label
      *
      * @throws NullPointerException if any argument is {@code null}
      */
+    @JsonCreator
     private Link(
-            @NotNull final String label,
-            @NotNull final String sourceNodeId,
-            @NotNull final String targetNodeId,
-            @NotNull final Map<String, Object> attributes
+            @NotNull @JsonProperty("id") final String id,
+            @NotNull @JsonProperty("label") final String label,
+            @NotNull @JsonProperty("sourceNodeId") final String sourceNodeId,
+            @NotNull @JsonProperty("targetNodeId") final String targetNodeId,
+            @NotNull @JsonProperty("attributes") final Map<String, Object> attributes
     ) {
-        this.label = Objects.requireNonNull(label);
-        this.sourceNodeId = Objects.requireNonNull(sourceNodeId);
-        this.targetNodeId = Objects.requireNonNull(targetNodeId);
-        this.attributes = new HashMap<>(Objects.requireNonNull(attributes)); // defensive copy
+        this.id = Attributes.intern(Objects.requireNonNull(id));
+        this.label = Attributes.intern(Objects.requireNonNull(label));
+        this.sourceNodeId = Attributes.intern(Objects.requireNonNull(sourceNodeId));
+        this.targetNodeId = Attributes.intern(Objects.requireNonNull(targetNodeId));
+        this.attributes = Attributes.of(Objects.requireNonNull(attributes)); // compact defensive copy
     }
 
     /**
      * Converts a Neo4J API relationship to a bertok {@link Link}.
      * <p>
      * The Neo4J relationship must contain a property called "name", otherwise an unchecked exception is thrown. The
+     * {@link Relationship#elementId()} would be the {@link #getId() ID of this link}; the
      * {@link Relationship#startNodeElementId()} would be the {@link Node#getId() source node ID}; the
      * {@link Relationship#endNodeElementId()} would be the {@link Node#getId() target node ID} the "name" property
      * would be the {@link #getLabel() label of this node.}; the rest of the properties would be the
@@ -100,20 +107,52 @@ public class Link {
      * @throws IllegalStateException if {@code relationship} is missing a "name" property
      */
     public static Link valueOf(final Relationship relationship) {
-        if (!Objects.requireNonNull(relationship).asMap().containsKey(LABEL_ATTRIBUTE)) {
-            LOG.error("Neo4J relationship does not contain '{}' attribute: {}", LABEL_ATTRIBUTE, relationship.asMap());
+        final Map<String, Object> properties = Objects.requireNonNull(relationship).asMap();
+        if (!properties.containsKey(LABEL_ATTRIBUTE)) {
+            LOG.error("Neo4J relationship does not contain '{}' attribute: {}", LABEL_ATTRIBUTE, properties);
             throw new IllegalStateException(
                     "There seems to be a data format mismatch between Wilhelm webservice and Neo4J database. " +
                             "Please file an issue at https://github.com/paion-data/bertok/issues for a fix"
             );
         }
 
-        final String label = relationship.asMap().get(LABEL_ATTRIBUTE).toString();
-        final Map<String, Object> attributes = relationship.asMap().entrySet().stream()
-                .filter(entry -> !LABEL_ATTRIBUTE.equals(entry.getKey()))
-                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+        return new Link(
+                relationship.elementId(),
+                properties.get(LABEL_ATTRIBUTE).toString(),
+                relationship.startNodeElementId(),
+                relationship.endNodeElementId(),
+                Attributes.of(properties, LABEL_ATTRIBUTE)
+        );
+    }
 
-        return new Link(label, relationship.startNodeElementId(), relationship.endNodeElementId(), attributes);
+    /**
+     * Creates a {@link Link} out of its fields, for example when reading it back from a
+     * {@link com.paiondata.wilhelm.graph.GraphSnapshot graph snapshot}.
+     *
+     * @param id  The unique identifier of the link within a graph
+     * @param label  The caption for the rendering of the link
+     * @param sourceNodeId  The {@link Node#getId() ID} of the node originating the link
+     * @param targetNodeId  The {@link Node#getId() ID} of the node pointed to by the link
+     * @param attributes  The fields attached to the link other than label
+     *
+     * @return a new instance
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    @NotNull
+    public static Link of(
+            @NotNull final String id,
+            @NotNull final String label,
+            @NotNull final String sourceNodeId,
+            @NotNull final String targetNodeId,
+            @NotNull final Map<String, Object> attributes
+    ) {
+        return new Link(id, label, sourceNodeId, targetNodeId, attributes);
+    }
+
+    @NotNull
+    public String getId() {
+        return id;
     }
 
     @NotNull
@@ -132,13 +171,13 @@ public class Link {
     }
 
     /**
-     * Returns an immutable view of the attributes of this Link.
+     * Returns the attributes of this Link.
      *
      * @return an unmodifiable map
      */
     @NotNull
     public Map<String, Object> getAttributes() {
-        return Collections.unmodifiableMap(attributes);
+        return attributes;
     }
 
     @Override
@@ -150,18 +189,12 @@ public class Link {
             return false;
         }
         final Link that = (Link) other;
-        return Objects.equals(getLabel(), that.getLabel()) && Objects.equals(
-                getSourceNodeId(),
-                that.getSourceNodeId()
-        ) && Objects.equals(
-                getTargetNodeId(),
-                that.getTargetNodeId()
-        ) && Objects.equals(getAttributes(), that.getAttributes());
+        return Objects.equals(getId(), that.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getLabel(), getSourceNodeId(), getTargetNodeId(), getAttributes());
+        return getId().hashCode();
     }
 
     @Override
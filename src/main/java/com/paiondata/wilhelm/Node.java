@@ -15,7 +15,9 @@
  */
 package com.paiondata.wilhelm;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,11 +26,8 @@ import jakarta.validation.constraints.NotNull;
 import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * A JSON-serializable object representation of a knowledge graph node in bertok.
@@ -52,11 +51,18 @@ public class Node {
      */
     public static final String LABEL_ATTRIBUTE = "label";
 
+    /**
+     * The database node attribute name whose value is the diacritic-folded {@link #LABEL_ATTRIBUTE label}, which is
+     * only indexed for {@link com.paiondata.wilhelm.neo4j.FullTextSearch full-text search} and never exposed as an
+     * attribute.
+     */
+    public static final String FOLDED_LABEL_ATTRIBUTE = "foldedLabel";
+
     private static final Logger LOG = LoggerFactory.getLogger(Node.class);
 
     private final String id;
     private final String label;
-    private final Map<String, Object> attributes;
+    private final Attributes attributes;
 
     /**
      * All-args constructor.
@@ -67,10 +73,15 @@ public class Node {
      *
      * @throws NullPointerException if any argument is {@code null}
      */
-    private Node(@NotNull final String id, @NotNull final String label, @NotNull final Map<String, Object> attributes) {
-        this.id = Objects.requireNonNull(id);
-        this.label = Objects.requireNonNull(label);
-        this.attributes = new HashMap<>(Objects.requireNonNull(attributes)); // defensive copy
+    @JsonCreator
+    private Node(
+            @NotNull @JsonProperty("id") final String id,
+            @NotNull @JsonProperty("label") final String label,
+            @NotNull @JsonProperty("attributes") final Map<String, Object> attributes
+    ) {
+        this.id = Attributes.intern(Objects.requireNonNull(id));
+        this.label = Attributes.intern(Objects.requireNonNull(label));
+        this.attributes = Attributes.of(Objects.requireNonNull(attributes)); // compact defensive copy
     }
 
     /**
@@ -79,7 +90,7 @@ public class Node {
      * The Neo4J node must contain a property called "name", otherwise an unchecked exception is thrown. The
      * {@link org.neo4j.driver.types.Node#elementId()} would be the {@link #getId() ID of this node}; the "name"
      * property would be the {@link #getLabel() label of this node.}; the rest of the properties would be the
-     * {@link #getAttributes() attributes} of this node
+     * {@link #getAttributes() attributes} of this node, except for the {@link #FOLDED_LABEL_ATTRIBUTE folded label}
      *
      * @param node  A Neo4J Java driver API node
      *
@@ -89,20 +100,41 @@ public class Node {
      * @throws IllegalStateException if {@code node} is missing a "name" property
      */
     public static Node valueOf(@NotNull final org.neo4j.driver.types.Node node) {
-        if (!Objects.requireNonNull(node).asMap().containsKey(LABEL_ATTRIBUTE)) {
-            LOG.error("Neo4J node does not contain '{}' attribute: {}", LABEL_ATTRIBUTE, node.asMap());
+        final Map<String, Object> properties = Objects.requireNonNull(node).asMap();
+        if (!properties.containsKey(LABEL_ATTRIBUTE)) {
+            LOG.error("Neo4J node does not contain '{}' attribute: {}", LABEL_ATTRIBUTE, properties);
             throw new IllegalStateException(
                     "There seems to be a data format mismatch between Wilhelm webservice and Neo4J database. " +
                             "Please file an issue at https://github.com/paion-data/bertok/issues for a fix"
             );
         }
 
-        final String label = node.asMap().get(LABEL_ATTRIBUTE).toString();
-        final Map<String, Object> attributes = node.asMap().entrySet().stream()
-                .filter(entry -> !LABEL_ATTRIBUTE.equals(entry.getKey()))
-                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+        return new Node(
+                node.elementId(),
+                properties.get(LABEL_ATTRIBUTE).toString(),
+                Attributes.of(properties, LABEL_ATTRIBUTE, FOLDED_LABEL_ATTRIBUTE)
+        );
+    }
 
-        return new Node(node.elementId(), label, attributes);
+    /**
+     * Creates a {@link Node} out of its fields, for example when reading it back from a
+     * {@link com.paiondata.wilhelm.graph.GraphSnapshot graph snapshot}.
+     *
+     * @param id  The unique identifier of the node within a graph
+     * @param label  The caption for the rendering of the node
+     * @param attributes  The fields attached to the node other than label
+     *
+     * @return a new instance
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    @NotNull
+    public static Node of(
+            @NotNull final String id,
+            @NotNull final String label,
+            @NotNull final Map<String, Object> attributes
+    ) {
+        return new Node(id, label, attributes);
     }
 
     @NotNull
@@ -116,13 +148,13 @@ public class Node {
     }
 
     /**
-     * Returns an immutable view of the attributes of this Node.
+     * Returns the attributes of this Node.
      *
      * @return an unmodifiable map
      */
     @NotNull
     public Map<String, Object> getAttributes() {
-        return Collections.unmodifiableMap(attributes);
+        return attributes;
     }
 
     @Override
@@ -139,7 +171,7 @@ public class Node {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getId());
+        return getId().hashCode();
     }
 
     /**
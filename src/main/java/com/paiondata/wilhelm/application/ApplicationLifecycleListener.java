@@ -0,0 +1,82 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application;
+
+import org.glassfish.jersey.internal.inject.InjectionManager;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+import org.neo4j.driver.exceptions.Neo4jException;
+import com.paiondata.wilhelm.cache.ResultCache;
+import com.paiondata.wilhelm.graph.InMemoryGraphEngine;
+import com.paiondata.wilhelm.neo4j.FullTextSearch;
+import com.paiondata.wilhelm.neo4j.LanguageStatistics;
+import com.paiondata.wilhelm.neo4j.VocabularyPaginator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * {@link ApplicationLifecycleListener} prepares the webservice for serving once the Jersey application has started.
+ * <p>
+ * On startup it makes sure the Neo4J indexes behind keyword search and keyset pagination exist. A failure at this
+ * point is logged but does not prevent the application from starting; endpoints that do not depend on the failed step
+ * keep working. It then starts counting the terms of each language, and loading the in-memory vocabulary graph if
+ * enabled, in the background and schedules their refresh, which it cancels on shutdown. On shutdown it also stops the
+ * threads of the {@link ResultCache}.
+ */
+@Immutable
+@ThreadSafe
+public class ApplicationLifecycleListener implements ContainerLifecycleListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ApplicationLifecycleListener.class);
+
+    @Override
+    public void onStartup(@NotNull final Container container) {
+        final InjectionManager injectionManager = container.getApplicationHandler().getInjectionManager();
+
+        try {
+            injectionManager.getInstance(FullTextSearch.class).ensureIndex();
+        } catch (final Neo4jException | IllegalStateException exception) {
+            LOG.error("Unable to prepare full-text index '{}'", FullTextSearch.INDEX_NAME, exception);
+        }
+
+        try {
+            injectionManager.getInstance(VocabularyPaginator.class).ensureIndex();
+        } catch (final Neo4jException exception) {
+            LOG.error("Unable to prepare the index for keyset pagination", exception);
+        }
+
+        injectionManager.getInstance(LanguageStatistics.class).start();
+        injectionManager.getInstance(InMemoryGraphEngine.class).start();
+    }
+
+    @Override
+    public void onReload(@NotNull final Container container) {
+        // intentionally left blank
+    }
+
+    @Override
+    public void onShutdown(@NotNull final Container container) {
+        final InjectionManager injectionManager = container.getApplicationHandler().getInjectionManager();
+
+        injectionManager.getInstance(LanguageStatistics.class).stop();
+        injectionManager.getInstance(InMemoryGraphEngine.class).stop();
+        injectionManager.getInstance(ResultCache.class).stop();
+    }
+}
@@ -17,7 +17,20 @@ package com.paiondata.wilhelm.application;
 
 import org.glassfish.hk2.utilities.Binder;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
+import org.neo4j.driver.Driver;
+import com.paiondata.wilhelm.cache.RemoteCache;
+import com.paiondata.wilhelm.cache.ResultCache;
+import com.paiondata.wilhelm.graph.InMemoryGraphEngine;
+import com.paiondata.wilhelm.neo4j.BreadthFirstExpander;
+import com.paiondata.wilhelm.neo4j.ExpansionCoalescer;
+import com.paiondata.wilhelm.neo4j.FullTextSearch;
+import com.paiondata.wilhelm.neo4j.LanguageStatistics;
+import com.paiondata.wilhelm.neo4j.QueryExecutor;
+import com.paiondata.wilhelm.neo4j.VocabularyPaginator;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import jakarta.inject.Singleton;
 import jakarta.validation.constraints.NotNull;
 import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
@@ -35,7 +48,10 @@ public class BinderFactory {
     /**
      * Builds a hk2 Binder instance.
      * <p>
-     * This binder should bind all relevant resources for runtime dependency injection.
+     * This binder should bind all relevant resources for runtime dependency injection. Among them is the single,
+     * application-scoped Neo4J {@link Driver} which is shared by all endpoints and closed when the application shuts
+     * down. Another is the {@link PrometheusMeterRegistry} that all metrics are recorded in, which is also injectable
+     * as a plain {@link MeterRegistry}.
      *
      * @return a binder instance that will be registered by putting as a parameter to
      * {@link org.glassfish.jersey.server.ResourceConfig#register(Object)}
@@ -45,7 +61,20 @@ public class BinderFactory {
         return new AbstractBinder() {
             @Override
             protected void configure() {
-                // intentionally left blank
+                bindFactory(MeterRegistryFactory.class)
+                        .to(PrometheusMeterRegistry.class)
+                        .to(MeterRegistry.class)
+                        .in(Singleton.class);
+                bindFactory(Neo4JDriverFactory.class).to(Driver.class).in(Singleton.class);
+                bindAsContract(QueryExecutor.class).in(Singleton.class);
+                bindAsContract(BreadthFirstExpander.class).in(Singleton.class);
+                bindAsContract(ExpansionCoalescer.class).in(Singleton.class);
+                bindAsContract(FullTextSearch.class).in(Singleton.class);
+                bindAsContract(VocabularyPaginator.class).in(Singleton.class);
+                bindAsContract(LanguageStatistics.class).in(Singleton.class);
+                bindAsContract(InMemoryGraphEngine.class).in(Singleton.class);
+                bindFactory(RemoteCacheFactory.class).to(RemoteCache.class).in(Singleton.class);
+                bindAsContract(ResultCache.class).in(Singleton.class);
             }
         };
     }
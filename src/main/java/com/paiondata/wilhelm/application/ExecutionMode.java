@@ -0,0 +1,117 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The kind of threads resource methods run on.
+ * <p>
+ * Resource methods annotated with {@link org.glassfish.jersey.server.ManagedAsync} are handed off from the container
+ * thread to an executor created by the configured mode. With {@link #VIRTUAL}, each request gets its own virtual
+ * thread, so thousands of concurrent slow requests do not need thousands of OS threads.
+ * <p>
+ * Virtual threads require a JDK 21 runtime. On an older runtime {@link #VIRTUAL} falls back to {@link #PLATFORM} with
+ * a warning, so the same build can be deployed on both.
+ */
+public enum ExecutionMode {
+
+    /**
+     * A bounded pool of platform threads; requests beyond the pool size wait in a queue.
+     */
+    PLATFORM,
+
+    /**
+     * A new virtual thread for every request.
+     */
+    VIRTUAL;
+
+    /**
+     * The first Java release in which virtual threads are a final feature.
+     */
+    public static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutionMode.class);
+
+    /**
+     * Returns whether this mode runs on the current JVM as configured, without falling back.
+     *
+     * @return {@code true} if this is {@link #PLATFORM} or if the JVM supports virtual threads
+     */
+    public boolean isSupported() {
+        return this == PLATFORM || Runtime.version().feature() >= VIRTUAL_THREADS_JAVA_VERSION;
+    }
+
+    /**
+     * Creates a new executor of this mode.
+     * <p>
+     * The caller owns the executor and is responsible for shutting it down.
+     *
+     * @param platformThreads  The number of threads of the {@link #PLATFORM} pool, which is also used when
+     * {@link #VIRTUAL} is not supported
+     *
+     * @return a new executor service
+     *
+     * @throws IllegalArgumentException if {@code platformThreads} is not positive
+     */
+    @NotNull
+    public ExecutorService newExecutorService(final int platformThreads) {
+        if (platformThreads <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Number of platform threads must be positive: %d", platformThreads)
+            );
+        }
+
+        if (this == VIRTUAL) {
+            if (isSupported()) {
+                return newVirtualThreadPerTaskExecutor();
+            }
+
+            LOG.warn(
+                    "Virtual threads are not supported by Java {}; falling back to {} platform threads",
+                    Runtime.version(),
+                    platformThreads
+            );
+        }
+
+        return Executors.newFixedThreadPool(platformThreads);
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * <p>
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} is looked up reflectively because the webservice is compiled
+     * against Java 17.
+     *
+     * @return a new executor service
+     *
+     * @throws IllegalStateException if the JVM does not provide the executor
+     */
+    @NotNull
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException exception) {
+            throw new IllegalStateException("Unable to create a virtual-thread executor", exception);
+        }
+    }
+}
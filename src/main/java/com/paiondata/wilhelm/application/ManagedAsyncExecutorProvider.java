@@ -0,0 +1,93 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.glassfish.jersey.server.ManagedAsyncExecutor;
+import org.glassfish.jersey.spi.ExecutorServiceProvider;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * {@link ManagedAsyncExecutorProvider} supplies the executor that Jersey runs
+ * {@link org.glassfish.jersey.server.ManagedAsync managed asynchronous} resource methods on, according to the
+ * configured {@link ExecutionMode}.
+ */
+@Immutable
+@ThreadSafe
+@ManagedAsyncExecutor
+public class ManagedAsyncExecutorProvider implements ExecutorServiceProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ManagedAsyncExecutorProvider.class);
+
+    private final ExecutionMode executionMode;
+    private final int platformThreads;
+
+    /**
+     * Constructor.
+     * <p>
+     * The execution mode and the platform pool size are loaded from {@link ApplicationConfig}.
+     */
+    public ManagedAsyncExecutorProvider() {
+        this(
+                ConfigFactory.create(ApplicationConfig.class).executionMode(),
+                ConfigFactory.create(ApplicationConfig.class).executionPlatformThreads()
+        );
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param executionMode  The kind of threads resource methods run on
+     * @param platformThreads  The number of threads in {@link ExecutionMode#PLATFORM} mode
+     *
+     * @throws NullPointerException if {@code executionMode} is {@code null}
+     * @throws IllegalArgumentException if {@code platformThreads} is not positive
+     */
+    public ManagedAsyncExecutorProvider(@NotNull final ExecutionMode executionMode, final int platformThreads) {
+        if (platformThreads <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Number of platform threads must be positive: %d", platformThreads)
+            );
+        }
+
+        this.executionMode = Objects.requireNonNull(executionMode);
+        this.platformThreads = platformThreads;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    @Override
+    public ExecutorService getExecutorService() {
+        LOG.info("Running managed asynchronous resource methods in {} mode", executionMode);
+        return executionMode.newExecutorService(platformThreads);
+    }
+
+    @Override
+    public void dispose(@NotNull final ExecutorService executorService) {
+        executorService.shutdown();
+    }
+}
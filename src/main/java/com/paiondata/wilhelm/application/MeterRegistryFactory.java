@@ -0,0 +1,65 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application;
+
+import org.glassfish.hk2.api.Factory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * An HK2 {@link Factory} that manages the lifecycle of the application-scoped {@link PrometheusMeterRegistry}, which
+ * holds all metrics of the webservice and is scraped through {@code /metrics}.
+ * <p>
+ * The registry is also added to Micrometer's {@link Metrics#globalRegistry global registry}, because that is where the
+ * Neo4J driver publishes its connection pool metrics; see {@link Neo4JDriverFactory}. It is removed from there and
+ * closed when the Jersey application shuts down.
+ */
+@Immutable
+@ThreadSafe
+public class MeterRegistryFactory implements Factory<PrometheusMeterRegistry> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MeterRegistryFactory.class);
+
+    @Override
+    public PrometheusMeterRegistry provide() {
+        LOG.info("Creating shared Prometheus meter registry");
+
+        final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        new ClassLoaderMetrics().bindTo(registry);
+        new ProcessorMetrics().bindTo(registry);
+
+        Metrics.addRegistry(registry);
+        return registry;
+    }
+
+    @Override
+    public void dispose(final PrometheusMeterRegistry registry) {
+        Metrics.removeRegistry(registry);
+        registry.close();
+    }
+}
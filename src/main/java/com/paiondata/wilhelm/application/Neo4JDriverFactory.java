@@ -0,0 +1,122 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.glassfish.hk2.api.Factory;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Config;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.MetricsAdapter;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HK2 {@link Factory} that manages the lifecycle of the single, application-scoped Neo4J {@link Driver}.
+ * <p>
+ * A {@link Driver} owns a connection pool and its own I/O threads, which makes it expensive to create and safe to
+ * share. This factory is bound in {@link jakarta.inject.Singleton} scope by {@link BinderFactory} so that exactly one
+ * driver is created on first injection and is {@link #dispose(Driver) closed} when the Jersey application shuts down,
+ * i.e. when the webapp is undeployed.
+ * <p>
+ * The driver publishes the metrics of its connection pool, such as the number of connections in use and idle and the
+ * time spent acquiring one, to Micrometer's global registry, which includes the one built by
+ * {@link MeterRegistryFactory}.
+ */
+@Immutable
+@ThreadSafe
+public class Neo4JDriverFactory implements Factory<Driver> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Neo4JDriverFactory.class);
+
+    private final ApplicationConfig applicationConfig;
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * The connection settings are loaded from {@link ApplicationConfig}.
+     */
+    @Inject
+    public Neo4JDriverFactory() {
+        this(ConfigFactory.create(ApplicationConfig.class));
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param applicationConfig  The source of the Neo4J connection and pool settings
+     *
+     * @throws NullPointerException if {@code applicationConfig} is {@code null}
+     */
+    public Neo4JDriverFactory(@NotNull final ApplicationConfig applicationConfig) {
+        this.applicationConfig = Objects.requireNonNull(applicationConfig);
+    }
+
+    @Override
+    public Driver provide() {
+        LOG.info("Creating shared Neo4J driver against {}", applicationConfig.neo4jUrl());
+
+        return GraphDatabase.driver(
+                applicationConfig.neo4jUrl(),
+                AuthTokens.basic(applicationConfig.neo4jUsername(), applicationConfig.neo4jPassword()),
+                buildDriverConfig(applicationConfig)
+        );
+    }
+
+    @Override
+    public void dispose(final Driver driver) {
+        LOG.info("Closing shared Neo4J driver");
+        driver.close();
+    }
+
+    /**
+     * Translates the connection pool settings of {@link ApplicationConfig} into a Neo4J driver {@link Config}.
+     *
+     * @param applicationConfig  The source of the pool settings
+     *
+     * @return a new driver config
+     */
+    @NotNull
+    static Config buildDriverConfig(@NotNull final ApplicationConfig applicationConfig) {
+        final Config.ConfigBuilder builder = Config.builder()
+                .withMaxConnectionPoolSize(applicationConfig.neo4jMaxConnectionPoolSize())
+                .withConnectionAcquisitionTimeout(
+                        applicationConfig.neo4jConnectionAcquisitionTimeoutSeconds(),
+                        TimeUnit.SECONDS
+                )
+                .withMaxConnectionLifetime(applicationConfig.neo4jMaxConnectionLifetimeSeconds(), TimeUnit.SECONDS)
+                .withMetricsAdapter(MetricsAdapter.MICROMETER);
+
+        if (applicationConfig.neo4jIdleTimeBeforeConnectionTestSeconds() >= 0) {
+            builder.withConnectionLivenessCheckTimeout(
+                    applicationConfig.neo4jIdleTimeBeforeConnectionTestSeconds(),
+                    TimeUnit.SECONDS
+            );
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.glassfish.hk2.api.Factory;
+import com.paiondata.wilhelm.cache.RedisRemoteCache;
+import com.paiondata.wilhelm.cache.RemoteCache;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * An HK2 {@link Factory} that manages the lifecycle of the application-scoped {@link RemoteCache}.
+ * <p>
+ * If {@link ApplicationConfig#redisUri()} is set, the remote cache is a {@link RedisRemoteCache} whose connection pool
+ * is {@link #dispose(RemoteCache) closed} when the Jersey application shuts down. Otherwise there is no remote cache
+ * and {@link RemoteCache#NONE} is provided.
+ */
+@Immutable
+@ThreadSafe
+public class RemoteCacheFactory implements Factory<RemoteCache> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteCacheFactory.class);
+    private static final String UNKNOWN_HOST = "<unknown host>";
+
+    private final ApplicationConfig applicationConfig;
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * The Redis URI is loaded from {@link ApplicationConfig}.
+     */
+    @Inject
+    public RemoteCacheFactory() {
+        this(ConfigFactory.create(ApplicationConfig.class));
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param applicationConfig  The source of the Redis URI
+     *
+     * @throws NullPointerException if {@code applicationConfig} is {@code null}
+     */
+    public RemoteCacheFactory(@NotNull final ApplicationConfig applicationConfig) {
+        this.applicationConfig = Objects.requireNonNull(applicationConfig);
+    }
+
+    @Override
+    public RemoteCache provide() {
+        final String redisUri = applicationConfig.redisUri();
+        if (redisUri == null || redisUri.isBlank()) {
+            LOG.info("REDIS_URI is not set; results are cached locally only");
+            return RemoteCache.NONE;
+        }
+
+        LOG.info("Creating shared Redis cache client against {}", hostAndPort(redisUri));
+        return new RedisRemoteCache(redisUri);
+    }
+
+    @Override
+    public void dispose(final RemoteCache remoteCache) {
+        remoteCache.close();
+    }
+
+    /**
+     * Returns the host and port of a Redis URI for logging, leaving out its user info, which usually carries the Redis
+     * password, as well as its path and query.
+     *
+     * @param redisUri  The Redis URI, such as {@code redis://:secret@localhost:6379/0}
+     *
+     * @return the host and port, such as {@code localhost:6379}, or a placeholder if the URI has no host
+     */
+    @NotNull
+    static String hostAndPort(@NotNull final String redisUri) {
+        final URI uri;
+        try {
+            uri = URI.create(redisUri.strip());
+        } catch (final IllegalArgumentException exception) {
+            return UNKNOWN_HOST;
+        }
+
+        if (uri.getHost() == null) {
+            return UNKNOWN_HOST;
+        }
+
+        return uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+}
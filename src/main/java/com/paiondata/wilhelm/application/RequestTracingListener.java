@@ -0,0 +1,102 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import com.paiondata.wilhelm.tracing.RequestTrace;
+import com.paiondata.wilhelm.web.filters.TracingFilter;
+import org.slf4j.MDC;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.NotThreadSafe;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * {@link RequestTracingListener} binds the {@link RequestTrace} of each request to the thread its resource method runs
+ * on, while it runs.
+ * <p>
+ * {@link org.glassfish.jersey.server.ManagedAsync Managed asynchronous} resource methods run on another thread than
+ * the request filters, so the trace started by {@link TracingFilter} is bound when Jersey starts the resource method
+ * and unbound when the method returns. The request ID is put into the logging {@link MDC} for the same time, so that
+ * everything logged by the resource method can be correlated with the request.
+ */
+@Immutable
+@ThreadSafe
+public class RequestTracingListener implements ApplicationEventListener {
+
+    @Override
+    public void onEvent(@NotNull final ApplicationEvent event) {
+        // intentionally left blank
+    }
+
+    @Override
+    public RequestEventListener onRequest(@NotNull final RequestEvent requestEvent) {
+        return new ResourceMethodListener();
+    }
+
+    /**
+     * The listener of a single request.
+     * <p>
+     * The start and the end of a resource method are reported on the thread that runs it, one after the other.
+     */
+    @NotThreadSafe
+    private static final class ResourceMethodListener implements RequestEventListener {
+
+        private RequestTrace.Scope scope;
+        private String previousRequestId;
+
+        @Override
+        public void onEvent(@NotNull final RequestEvent event) {
+            if (event.getType() == RequestEvent.Type.RESOURCE_METHOD_START) {
+                bind(TracingFilter.getTrace(event.getContainerRequest()));
+            } else if (event.getType() == RequestEvent.Type.RESOURCE_METHOD_FINISHED) {
+                unbind();
+            }
+        }
+
+        /**
+         * Binds a trace and its request ID to the calling thread.
+         *
+         * @param trace  The trace of the request whose resource method starts
+         */
+        private void bind(@NotNull final RequestTrace trace) {
+            scope = trace.bind();
+            previousRequestId = MDC.get(TracingFilter.REQUEST_ID);
+            MDC.put(TracingFilter.REQUEST_ID, trace.getId());
+        }
+
+        /**
+         * Restores the trace and the request ID that were bound to the calling thread before the resource method.
+         */
+        private void unbind() {
+            if (scope == null) {
+                return;
+            }
+
+            scope.close();
+            scope = null;
+            if (previousRequestId == null) {
+                MDC.remove(TracingFilter.REQUEST_ID);
+            } else {
+                MDC.put(TracingFilter.REQUEST_ID, previousRequestId);
+            }
+        }
+    }
+}
@@ -15,10 +15,17 @@
  */
 package com.paiondata.wilhelm.application;
 
+import com.paiondata.wilhelm.web.filters.AdminAuthenticationFilter;
+import com.paiondata.wilhelm.web.filters.AdmissionControlFilter;
+import com.paiondata.wilhelm.web.filters.CompressionFilter;
 import com.paiondata.wilhelm.web.filters.CorsFilter;
+import com.paiondata.wilhelm.web.filters.HttpCacheFilter;
+import com.paiondata.wilhelm.web.filters.MetricsFilter;
+import com.paiondata.wilhelm.web.filters.TracingFilter;
 
 import org.glassfish.hk2.utilities.Binder;
 import com.paiondata.wilhelm.web.filters.LanguageCheckFilter;
+import com.paiondata.wilhelm.web.providers.WireFormatWriter;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.ApplicationPath;
@@ -43,7 +50,17 @@ public class ResourceConfig extends org.glassfish.jersey.server.ResourceConfig {
         packages(ENDPOINT_PACKAGE);
 
         register(CorsFilter.class);
+        register(MetricsFilter.class);
+        register(TracingFilter.class);
+        register(AdminAuthenticationFilter.class);
+        register(AdmissionControlFilter.class);
+        register(HttpCacheFilter.class);
+        register(CompressionFilter.class);
         register(LanguageCheckFilter.class);
+        register(WireFormatWriter.class);
+        register(ApplicationLifecycleListener.class);
+        register(RequestTracingListener.class);
+        register(new ManagedAsyncExecutorProvider());
 
         final Binder binder = new BinderFactory().buildBinder();
         register(binder);
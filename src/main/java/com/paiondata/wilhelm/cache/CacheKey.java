@@ -0,0 +1,115 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.cache;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The identity of a cached result: which endpoint computed it from which arguments.
+ */
+@Immutable
+@ThreadSafe
+public final class CacheKey {
+
+    /**
+     * The prefix of all {@link #toRemoteKey() remote keys}, which keeps them apart from other data in a shared Redis.
+     */
+    public static final String REMOTE_KEY_PREFIX = "bertok";
+
+    private final CachedEndpoint endpoint;
+    private final List<Object> arguments;
+
+    /**
+     * All-args constructor.
+     *
+     * @param endpoint  The endpoint that computes the result
+     * @param arguments  The arguments the result is computed from, such as the expanded word. Each argument must have
+     * a value-based {@code equals}, {@code hashCode}, and {@code toString}
+     *
+     * @throws NullPointerException if {@code endpoint} or any argument is {@code null}
+     */
+    public CacheKey(@NotNull final CachedEndpoint endpoint, @NotNull final Object... arguments) {
+        this.endpoint = Objects.requireNonNull(endpoint);
+        this.arguments = List.of(arguments);
+    }
+
+    @NotNull
+    public CachedEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the argument at a position.
+     *
+     * @param index  The position of the argument
+     *
+     * @return the argument
+     *
+     * @throws IndexOutOfBoundsException if there is no argument at {@code index}
+     */
+    @NotNull
+    public Object getArgument(final int index) {
+        return arguments.get(index);
+    }
+
+    /**
+     * Returns the key of this result in a remote cache, e.g. {@code bertok:EXPAND_APOC:Hund:3}.
+     * <p>
+     * Arguments are URL-encoded, so an argument containing a ':' cannot be mistaken for two arguments.
+     *
+     * @return a string that is unique to this key
+     */
+    @NotNull
+    public String toRemoteKey() {
+        final Stream<String> encodedArguments = arguments.stream()
+                .map(argument -> URLEncoder.encode(argument.toString(), StandardCharsets.UTF_8));
+
+        return Stream.concat(Stream.of(REMOTE_KEY_PREFIX, endpoint.name()), encodedArguments)
+                .collect(Collectors.joining(":"));
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CacheKey)) {
+            return false;
+        }
+
+        final CacheKey that = (CacheKey) other;
+        return getEndpoint() == that.getEndpoint() && arguments.equals(that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getEndpoint(), arguments);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s%s", getEndpoint(), arguments);
+    }
+}
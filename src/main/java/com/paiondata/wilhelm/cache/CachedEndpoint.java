@@ -0,0 +1,75 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.cache;
+
+import com.paiondata.wilhelm.config.ApplicationConfig;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Duration;
+import java.util.function.ToLongFunction;
+
+/**
+ * The endpoints whose results are cached, each with its own configurable TTL.
+ * <p>
+ * The same arguments given to different endpoints yield different results, so the endpoint is part of every
+ * {@link CacheKey}.
+ */
+public enum CachedEndpoint {
+
+    /**
+     * {@code /expandApoc/{word}}, which {@code /expand/{word}} delegates to.
+     */
+    EXPAND_APOC(ApplicationConfig::cacheTtlSecondsExpandApoc),
+
+    /**
+     * {@code /expandDfs/{word}}.
+     */
+    EXPAND_DFS(ApplicationConfig::cacheTtlSecondsExpandDfs),
+
+    /**
+     * {@code /languages/{language}} in offset mode.
+     */
+    VOCABULARY_PAGE(ApplicationConfig::cacheTtlSecondsVocabularyByLanguage),
+
+    /**
+     * {@code /languages/{language}} in cursor mode.
+     */
+    VOCABULARY_CURSOR(ApplicationConfig::cacheTtlSecondsVocabularyByLanguage);
+
+    private final ToLongFunction<ApplicationConfig> ttlSeconds;
+
+    /**
+     * All-args constructor.
+     *
+     * @param ttlSeconds  The config value of the TTL, in seconds, of this endpoint's results
+     */
+    CachedEndpoint(@NotNull final ToLongFunction<ApplicationConfig> ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * Returns the configured amount of time results of this endpoint are cached.
+     *
+     * @param applicationConfig  The source of the configured TTL
+     *
+     * @return a duration
+     */
+    @NotNull
+    public Duration getTimeToLive(@NotNull final ApplicationConfig applicationConfig) {
+        return Duration.ofSeconds(ttlSeconds.applyAsLong(applicationConfig));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.ThreadSafe;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link RemoteCache} that keeps everything in the memory of the current process.
+ * <p>
+ * It behaves like a Redis {@code GET}/{@code SET PX} pair, without eviction and without being shared, and serves as a
+ * stand-in for Redis in tests and single-instance development setups.
+ */
+@ThreadSafe
+public class InMemoryRemoteCache implements RemoteCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Ticker ticker;
+
+    /**
+     * Constructor that expires entries by the system clock.
+     */
+    public InMemoryRemoteCache() {
+        this(Ticker.systemTicker());
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param ticker  The time source of entry expiration
+     *
+     * @throws NullPointerException if {@code ticker} is {@code null}
+     */
+    public InMemoryRemoteCache(@NotNull final Ticker ticker) {
+        this.ticker = Objects.requireNonNull(ticker);
+    }
+
+    @NotNull
+    @Override
+    public Optional<byte[]> get(@NotNull final String key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt - ticker.read() <= 0) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+
+        return Optional.of(Arrays.copyOf(entry.value, entry.value.length));
+    }
+
+    @Override
+    public void put(@NotNull final String key, @NotNull final byte[] value, @NotNull final Duration timeToLive) {
+        entries.put(key, new Entry(Arrays.copyOf(value, value.length), ticker.read() + timeToLive.toNanos()));
+    }
+
+    /**
+     * Returns the number of entries, including expired ones that have not been read since they expired.
+     *
+     * @return a non-negative number
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * A cached value and the {@link Ticker#read() time} at which it expires.
+     */
+    private static final class Entry {
+
+        private final byte[] value;
+        private final long expiresAt;
+
+        /**
+         * All-args constructor.
+         *
+         * @param value  The cached value
+         * @param expiresAt  The time at which the value expires
+         */
+        private Entry(@NotNull final byte[] value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.ThreadSafe;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.SetParams;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A {@link RemoteCache} backed by a Redis instance shared by all webservice instances.
+ * <p>
+ * Each value is stored with {@code SET key value PX ttl}, so Redis expires it on its own. Redis errors are logged and
+ * otherwise ignored: a failed read is a miss and a failed write is dropped.
+ */
+@ThreadSafe
+public class RedisRemoteCache implements RemoteCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RedisRemoteCache.class);
+
+    private final JedisPooled jedis;
+
+    /**
+     * Constructor that connects to a Redis instance by URI.
+     *
+     * @param uri  The Redis URI, for example {@code redis://localhost:6379}
+     */
+    public RedisRemoteCache(@NotNull final String uri) {
+        this(new JedisPooled(uri));
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param jedis  A pooled Redis client
+     *
+     * @throws NullPointerException if {@code jedis} is {@code null}
+     */
+    public RedisRemoteCache(@NotNull final JedisPooled jedis) {
+        this.jedis = Objects.requireNonNull(jedis);
+    }
+
+    @NotNull
+    @Override
+    public Optional<byte[]> get(@NotNull final String key) {
+        try {
+            return Optional.ofNullable(jedis.get(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (final JedisException exception) {
+            LOG.warn("Unable to read '{}' from Redis", key, exception);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(@NotNull final String key, @NotNull final byte[] value, @NotNull final Duration timeToLive) {
+        try {
+            jedis.set(key.getBytes(StandardCharsets.UTF_8), value, SetParams.setParams().px(timeToLive.toMillis()));
+        } catch (final JedisException exception) {
+            LOG.warn("Unable to write '{}' to Redis", key, exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        jedis.close();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.cache;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A cache shared by all instances of the webservice, which sits behind each instance's local {@link ResultCache}.
+ * <p>
+ * Values are opaque, serialized results. Implementations must be thread-safe. They should treat the remote cache as
+ * best-effort: when it is unreachable, reads should miss and writes should be dropped rather than fail the request.
+ */
+public interface RemoteCache extends AutoCloseable {
+
+    /**
+     * A remote cache that stores nothing, used when no remote cache is configured.
+     */
+    RemoteCache NONE = new RemoteCache() {
+        @Override
+        public Optional<byte[]> get(@NotNull final String key) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void put(@NotNull final String key, @NotNull final byte[] value, @NotNull final Duration timeToLive) {
+            // intentionally left blank
+        }
+    };
+
+    /**
+     * Returns the value of a key, if it is cached and has not expired.
+     *
+     * @param key  The key of the value
+     *
+     * @return the serialized value or {@link Optional#empty()} on a miss
+     */
+    @NotNull
+    Optional<byte[]> get(@NotNull String key);
+
+    /**
+     * Caches the value of a key for a limited amount of time, replacing any value it had before.
+     *
+     * @param key  The key of the value
+     * @param value  The serialized value
+     * @param timeToLive  The amount of time after which the value expires
+     */
+    void put(@NotNull String key, @NotNull byte[] value, @NotNull Duration timeToLive);
+
+    /**
+     * Releases all resources, such as connections, held by this remote cache.
+     */
+    @Override
+    default void close() {
+        // intentionally left blank
+    }
+}
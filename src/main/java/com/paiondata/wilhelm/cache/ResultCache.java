@@ -0,0 +1,474 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.aeonbits.owner.ConfigFactory;
+import com.paiondata.wilhelm.Graph;
+import com.paiondata.wilhelm.KeysetPage;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.tracing.RequestTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * A two-tier cache of endpoint results, such as expanded sub-graphs, counts, and pages.
+ * <p>
+ * The vocabulary changes rarely while popular words are requested over and over, so each result is kept for the
+ * {@link CachedEndpoint#getTimeToLive(ApplicationConfig) TTL of its endpoint}:
+ * <ol>
+ *     <li> the local tier lives in the memory of this webservice instance and is backed by Caffeine. It is bounded by
+ *          weight, where the weight of a sub-graph is its number of nodes plus its number of links and the weight of
+ *          a list or page is its number of items, and evicts by W-TinyLFU. Loading is asynchronous and single-flight:
+ *          concurrent misses on the same {@link CacheKey} share one pending load instead of each going to Neo4J
+ *     <li> the remote tier is a {@link RemoteCache}, e.g. Redis, shared by all instances. Results are stored there as
+ *          JSON, so one instance's load serves the local misses of all others
+ * </ol>
+ * A local miss reads the remote tier before running the actual load, and a load writes to both tiers. Remote reads and
+ * writes may block, so they run on the cache's own, fixed number of threads rather than on the caller's, the driver's,
+ * or the common pool's threads, which a slow remote tier would otherwise exhaust. Only a bounded number of them wait
+ * for a thread; once that many are waiting, further remote reads and writes are skipped, as if the remote tier missed,
+ * rather than queued without limit. A failed load is not cached anywhere; the next request for the same key tries
+ * again. Remote cache failures only cost a reload.
+ * <p>
+ * Since the remaining remote TTL is not transferred to the local tier, a result may be served for up to its endpoint
+ * TTL plus the local TTL after it was loaded from Neo4J.
+ */
+@Singleton
+@ThreadSafe
+public class ResultCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResultCache.class);
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private final RemoteCache remoteCache;
+    private final Map<CachedEndpoint, Duration> timeToLives;
+    private final ExecutorService executor;
+    private final AsyncCache<CacheKey, Object> localCache;
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder remoteSkips = new LongAdder();
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * The bounds of the local tier, the TTLs of all endpoints, and the number of remote cache threads and the capacity
+     * of their queue are loaded from {@link ApplicationConfig}.
+     *
+     * @param remoteCache  The remote tier, or {@link RemoteCache#NONE} if there is none
+     *
+     * @throws NullPointerException if {@code remoteCache} is {@code null}
+     */
+    @Inject
+    public ResultCache(@NotNull final RemoteCache remoteCache) {
+        this(
+                remoteCache,
+                ConfigFactory.create(ApplicationConfig.class).localCacheMaxWeight(),
+                Duration.ofSeconds(ConfigFactory.create(ApplicationConfig.class).localCacheTtlSeconds()),
+                Arrays.stream(CachedEndpoint.values())
+                        .collect(Collectors.toMap(
+                                Function.identity(),
+                                endpoint -> endpoint.getTimeToLive(ConfigFactory.create(ApplicationConfig.class))
+                        )),
+                ConfigFactory.create(ApplicationConfig.class).remoteCacheThreads(),
+                ConfigFactory.create(ApplicationConfig.class).remoteCacheQueueCapacity(),
+                Ticker.systemTicker()
+        );
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param remoteCache  The remote tier, or {@link RemoteCache#NONE} if there is none
+     * @param localMaxWeight  The maximum total weight of all results in the local tier
+     * @param localTimeToLive  The maximum amount of time a result is kept in the local tier
+     * @param timeToLives  The amount of time results of each endpoint are cached
+     * @param remoteThreads  The number of threads that run the remote reads and writes
+     * @param remoteQueueCapacity  The maximum number of remote reads and writes that wait for a thread
+     * @param ticker  The time source of local entry expiration
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if {@code localMaxWeight} is negative, if any TTL is missing or not positive, or
+     * if {@code remoteThreads} or {@code remoteQueueCapacity} is not positive
+     */
+    public ResultCache(
+            @NotNull final RemoteCache remoteCache,
+            final long localMaxWeight,
+            @NotNull final Duration localTimeToLive,
+            @NotNull final Map<CachedEndpoint, Duration> timeToLives,
+            final int remoteThreads,
+            final int remoteQueueCapacity,
+            @NotNull final Ticker ticker
+    ) {
+        requirePositive("local", localTimeToLive);
+        for (final CachedEndpoint endpoint : CachedEndpoint.values()) {
+            requirePositive(endpoint.name(), timeToLives.get(endpoint));
+        }
+        if (remoteThreads <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Number of remote cache threads must be positive: %d", remoteThreads)
+            );
+        }
+        if (remoteQueueCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Remote cache queue capacity must be positive: %d", remoteQueueCapacity)
+            );
+        }
+
+        this.remoteCache = Objects.requireNonNull(remoteCache);
+        this.timeToLives = new EnumMap<>(timeToLives);
+        this.executor = newRemoteExecutor(remoteThreads, remoteQueueCapacity);
+        this.localCache = Caffeine.newBuilder()
+                .maximumWeight(localMaxWeight)
+                .weigher(ResultCache::weigh)
+                .expireAfter(new Expiry<CacheKey, Object>() {
+                    @Override
+                    public long expireAfterCreate(final CacheKey key, final Object value, final long currentTime) {
+                        return Math.min(localTimeToLive.toNanos(), getTimeToLive(key).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(
+                            final CacheKey key,
+                            final Object value,
+                            final long currentTime,
+                            final long currentDuration
+                    ) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(
+                            final CacheKey key,
+                            final Object value,
+                            final long currentTime,
+                            final long currentDuration
+                    ) {
+                        return currentDuration;
+                    }
+                })
+                .ticker(Objects.requireNonNull(ticker))
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached result of a key, loading and caching it first if it is absent from both tiers.
+     * <p>
+     * Concurrent calls with the same key that is absent locally go to the remote tier, and possibly run
+     * {@code loader}, only once; all of them receive the same result.
+     *
+     * @param key  The identity of the result
+     * @param type  The class of the result, which must be JSON-serializable and -deserializable
+     * @param loader  The asynchronous computation of the result on a miss
+     * @param <T>  The type of the result
+     *
+     * @return a stage that completes with the cached or freshly loaded result, or with the exception of the load
+     */
+    @NotNull
+    public <T> CompletionStage<T> get(
+            @NotNull final CacheKey key,
+            @NotNull final Class<T> type,
+            @NotNull final Supplier<? extends CompletionStage<T>> loader
+    ) {
+        return localCache.get(key, (ignoredKey, ignoredExecutor) -> loadThroughRemote(key, type, loader))
+                .thenApply(type::cast);
+    }
+
+    /**
+     * Drops all results from the local tier, for example after the vocabulary has been updated.
+     * <p>
+     * The remote tier is left to expire on its own.
+     */
+    public void invalidateAll() {
+        localCache.synchronous().invalidateAll();
+    }
+
+    /**
+     * Stops the threads that run the remote reads and writes.
+     * <p>
+     * This is meant to be called once at application shutdown; pending remote writes are dropped.
+     */
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss, load and eviction counts of the local tier since application start.
+     *
+     * @return local cache statistics
+     */
+    @NotNull
+    public CacheStats getStatistics() {
+        return localCache.synchronous().stats();
+    }
+
+    /**
+     * Returns the number of local misses that were served by the remote tier since application start.
+     *
+     * @return a non-negative number
+     */
+    public long getRemoteHitCount() {
+        return remoteHits.sum();
+    }
+
+    /**
+     * Returns the number of local misses that were not served by the remote tier since application start.
+     *
+     * @return a non-negative number
+     */
+    public long getRemoteMissCount() {
+        return remoteMisses.sum();
+    }
+
+    /**
+     * Returns the number of remote reads and writes that were skipped because too many were waiting for a thread,
+     * since application start.
+     *
+     * @return a non-negative number
+     */
+    public long getRemoteSkipCount() {
+        return remoteSkips.sum();
+    }
+
+    /**
+     * Returns the approximate number of results in the local tier.
+     *
+     * @return a non-negative number
+     */
+    public long size() {
+        return localCache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Runs pending maintenance of the local tier, such as evictions, immediately instead of on a later access.
+     */
+    void cleanUp() {
+        localCache.synchronous().cleanUp();
+    }
+
+    /**
+     * Returns the amount of time the result of a key is cached.
+     *
+     * @param key  The identity of the result
+     *
+     * @return the TTL of the key's endpoint
+     */
+    @NotNull
+    private Duration getTimeToLive(@NotNull final CacheKey key) {
+        return timeToLives.get(key.getEndpoint());
+    }
+
+    /**
+     * Reads a result from the remote tier or, if it is not there, loads it and writes it to the remote tier.
+     * <p>
+     * The load runs with the {@link RequestTrace} of the request that missed, so its queries count toward that
+     * request even though they are sent from another thread.
+     *
+     * @param key  The identity of the result
+     * @param type  The class of the result
+     * @param loader  The asynchronous computation of the result
+     * @param <T>  The type of the result
+     *
+     * @return a future that completes with the result
+     */
+    @NotNull
+    @SuppressWarnings("try")
+    private <T> CompletableFuture<Object> loadThroughRemote(
+            @NotNull final CacheKey key,
+            @NotNull final Class<T> type,
+            @NotNull final Supplier<? extends CompletionStage<T>> loader
+    ) {
+        final RequestTrace trace = RequestTrace.current();
+
+        return runRemote(() -> readRemote(key, type), Optional.empty())
+                .thenCompose(cached -> {
+                    if (cached.isPresent()) {
+                        return CompletableFuture.completedFuture(cached.get());
+                    }
+
+                    try (RequestTrace.Scope ignored = trace.bind()) {
+                        return loader.get().thenCompose(value -> runRemote(() -> writeRemote(key, value), value));
+                    }
+                });
+    }
+
+    /**
+     * Runs a remote read or write on the remote cache threads, unless too many are waiting for one already.
+     *
+     * @param operation  The blocking remote read or write
+     * @param skipped  The result of the operation if it is skipped
+     * @param <R>  The type of the result of the operation
+     *
+     * @return a future that completes with the result of the operation, or with {@code skipped}
+     */
+    @NotNull
+    private <R> CompletableFuture<R> runRemote(@NotNull final Supplier<R> operation, final R skipped) {
+        try {
+            return CompletableFuture.supplyAsync(operation, executor);
+        } catch (final RejectedExecutionException exception) {
+            remoteSkips.increment();
+            LOG.debug("Skipping a remote cache operation; too many are waiting for a thread");
+            return CompletableFuture.completedFuture(skipped);
+        }
+    }
+
+    /**
+     * Reads a result from the remote tier.
+     *
+     * @param key  The identity of the result
+     * @param type  The class of the result
+     * @param <T>  The type of the result
+     *
+     * @return the result, or {@link Optional#empty()} if it is absent or unreadable
+     */
+    @NotNull
+    private <T> Optional<Object> readRemote(@NotNull final CacheKey key, @NotNull final Class<T> type) {
+        final String remoteKey = key.toRemoteKey();
+
+        final Optional<byte[]> cached = remoteCache.get(remoteKey);
+        if (cached.isPresent()) {
+            try {
+                final T value = JSON_MAPPER.readValue(cached.get(), type);
+                remoteHits.increment();
+                return Optional.of(value);
+            } catch (final IOException exception) {
+                LOG.warn("Discarding unreadable remote cache entry '{}'", remoteKey, exception);
+            }
+        }
+
+        remoteMisses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Writes a freshly loaded result to the remote tier.
+     *
+     * @param key  The identity of the result
+     * @param value  The result
+     *
+     * @return {@code value}
+     *
+     * @throws NullPointerException if {@code value} is {@code null}
+     */
+    @NotNull
+    private Object writeRemote(@NotNull final CacheKey key, final Object value) {
+        Objects.requireNonNull(value);
+
+        try {
+            remoteCache.put(key.toRemoteKey(), JSON_MAPPER.writeValueAsBytes(value), getTimeToLive(key));
+        } catch (final IOException exception) {
+            LOG.warn("Unable to serialize '{}' for the remote cache", key.toRemoteKey(), exception);
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the weight of a cached result in the local tier.
+     *
+     * @param key  The identity of the result
+     * @param value  The result
+     *
+     * @return the number of nodes plus links of a {@link Graph}, the number of items of a {@link KeysetPage} or a
+     * collection, and 1 for anything else; but at least 1 so that empty results are bounded as well
+     */
+    static int weigh(@NotNull final CacheKey key, @NotNull final Object value) {
+        final int weight;
+        if (value instanceof Graph) {
+            weight = ((Graph) value).getNodes().size() + ((Graph) value).getLinks().size();
+        } else if (value instanceof KeysetPage) {
+            weight = ((KeysetPage) value).getItems().size();
+        } else if (value instanceof Collection) {
+            weight = ((Collection<?>) value).size();
+        } else {
+            weight = 1;
+        }
+
+        return Math.max(1, weight);
+    }
+
+    /**
+     * Creates the executor of the remote reads and writes.
+     *
+     * @param threads  The number of threads
+     * @param queueCapacity  The maximum number of tasks that wait for a thread
+     *
+     * @return a fixed pool of daemon threads that rejects tasks once {@code queueCapacity} tasks are waiting
+     */
+    @NotNull
+    private static ExecutorService newRemoteExecutor(final int threads, final int queueCapacity) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "result-cache-remote-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * Verifies that a TTL is present and positive.
+     *
+     * @param name  The owner of the TTL, for the error message
+     * @param timeToLive  The TTL
+     *
+     * @throws IllegalArgumentException if {@code timeToLive} is {@code null} or not positive
+     */
+    private static void requirePositive(@NotNull final String name, final Duration timeToLive) {
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException(String.format("%s cache TTL must be positive: %s", name, timeToLive));
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.paiondata.wilhelm.config;
 
 import org.aeonbits.owner.Config;
+import com.paiondata.wilhelm.application.ExecutionMode;
 
 import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
@@ -81,4 +82,536 @@ public interface ApplicationConfig extends Config {
      */
     @Key("NEO4J_DATABASE")
     String neo4jDatabase();
+
+    /**
+     * The maximum number of connections, both in-use and idle, the shared Neo4J driver keeps in its connection pool.
+     *
+     * @return a positive integer
+     */
+    @Key("NEO4J_MAX_CONNECTION_POOL_SIZE")
+    @DefaultValue("100")
+    int neo4jMaxConnectionPoolSize();
+
+    /**
+     * The maximum amount of time, in seconds, a query waits to acquire a connection from the Neo4J connection pool
+     * before failing.
+     *
+     * @return a number of seconds
+     */
+    @Key("NEO4J_CONNECTION_ACQUISITION_TIMEOUT_SECONDS")
+    @DefaultValue("60")
+    long neo4jConnectionAcquisitionTimeoutSeconds();
+
+    /**
+     * The maximum age, in seconds, of a pooled Neo4J connection. Connections older than this are closed instead of
+     * being handed out again.
+     *
+     * @return a number of seconds
+     */
+    @Key("NEO4J_MAX_CONNECTION_LIFETIME_SECONDS")
+    @DefaultValue("3600")
+    long neo4jMaxConnectionLifetimeSeconds();
+
+    /**
+     * The idle time, in seconds, after which a pooled Neo4J connection is tested for liveness before being handed out.
+     * <p>
+     * A negative value disables the liveness check; {@code 0} tests every connection on each acquisition.
+     *
+     * @return a number of seconds
+     */
+    @Key("NEO4J_IDLE_TIME_BEFORE_CONNECTION_TEST_SECONDS")
+    @DefaultValue("-1")
+    long neo4jIdleTimeBeforeConnectionTestSeconds();
+
+    /**
+     * The maximum number of hops a breadth-first {@code /expandDfs} traversal goes from the expanded word.
+     *
+     * @return a positive integer
+     */
+    @Key("EXPAND_DFS_MAX_DEPTH")
+    @DefaultValue("32")
+    int expandDfsMaxDepth();
+
+    /**
+     * The maximum number of nodes a breadth-first {@code /expandDfs} traversal collects before it stops.
+     *
+     * @return a positive integer
+     */
+    @Key("EXPAND_DFS_MAX_NODES")
+    @DefaultValue("10000")
+    int expandDfsMaxNodes();
+
+    /**
+     * The maximum number of distinct words a single batch {@code POST /expand} request may ask for.
+     *
+     * @return a positive integer
+     */
+    @Key("EXPAND_BATCH_MAX_WORDS")
+    @DefaultValue("100")
+    int expandBatchMaxWords();
+
+    /**
+     * The maximum amount of time, in milliseconds, an {@code /expand} or {@code /expandApoc} query waits for concurrent
+     * expansions of other words to be sent together with.
+     * <p>
+     * {@code 0} sends every expansion right away on its own.
+     *
+     * @return a non-negative number of milliseconds
+     */
+    @Key("EXPAND_COALESCING_WINDOW_MILLIS")
+    @DefaultValue("0")
+    long expandCoalescingWindowMillis();
+
+    /**
+     * The number of distinct words at which coalesced expansions are sent without waiting for the rest of their window.
+     *
+     * @return a positive integer
+     */
+    @Key("EXPAND_COALESCING_MAX_BATCH_SIZE")
+    @DefaultValue("32")
+    int expandCoalescingMaxBatchSize();
+
+    /**
+     * The maximum number of results a single {@code /search} request may ask for.
+     *
+     * @return a positive integer
+     */
+    @Key("SEARCH_MAX_LIMIT")
+    @DefaultValue("100")
+    int searchMaxLimit();
+
+    /**
+     * The maximum amount of time, in seconds, the webservice waits at startup for the label full-text index to come
+     * online.
+     *
+     * @return a number of seconds
+     */
+    @Key("SEARCH_INDEX_AWAIT_TIMEOUT_SECONDS")
+    @DefaultValue("300")
+    long searchIndexAwaitTimeoutSeconds();
+
+    /**
+     * The maximum total weight of the local, in-process result cache, where the weight of a cached sub-graph is its
+     * number of nodes plus its number of links and the weight of any other cached result is its number of items.
+     * <p>
+     * {@code 0} disables local caching.
+     *
+     * @return a non-negative number
+     */
+    @Key("LOCAL_CACHE_MAX_WEIGHT")
+    @DefaultValue("1000000")
+    long localCacheMaxWeight();
+
+    /**
+     * The maximum amount of time, in seconds, a result is served from the local cache after it has been loaded.
+     * <p>
+     * A result is never cached locally for longer than the TTL of its endpoint. Keeping this shorter bounds how long
+     * instances of a multi-instance deployment can disagree.
+     *
+     * @return a positive number of seconds
+     */
+    @Key("LOCAL_CACHE_TTL_SECONDS")
+    @DefaultValue("600")
+    long localCacheTtlSeconds();
+
+    /**
+     * The URI of the Redis instance shared by all webservice instances as the remote result cache, for example
+     * {@code redis://cache.example.com:6379}.
+     * <p>
+     * The remote cache is disabled if this is not set.
+     *
+     * @return a string or {@code null}
+     */
+    @Key("REDIS_URI")
+    String redisUri();
+
+    /**
+     * The number of threads that run the blocking reads and writes of the remote result cache.
+     * <p>
+     * The default matches the default size of the Redis connection pool, so that no thread waits for a connection.
+     *
+     * @return a positive number of threads
+     */
+    @Key("REMOTE_CACHE_THREADS")
+    @DefaultValue("8")
+    int remoteCacheThreads();
+
+    /**
+     * The maximum number of reads and writes of the remote result cache that wait for a thread.
+     * <p>
+     * Once that many are waiting, for example because Redis is slow or unreachable, further reads and writes are
+     * skipped instead of queued.
+     *
+     * @return a positive number of reads and writes
+     */
+    @Key("REMOTE_CACHE_QUEUE_CAPACITY")
+    @DefaultValue("1000")
+    int remoteCacheQueueCapacity();
+
+    /**
+     * The amount of time, in seconds, an {@code /expand} or {@code /expandApoc} result is cached.
+     *
+     * @return a positive number of seconds
+     */
+    @Key("CACHE_TTL_SECONDS_EXPAND_APOC")
+    @DefaultValue("3600")
+    long cacheTtlSecondsExpandApoc();
+
+    /**
+     * The amount of time, in seconds, an {@code /expandDfs} result is cached.
+     *
+     * @return a positive number of seconds
+     */
+    @Key("CACHE_TTL_SECONDS_EXPAND_DFS")
+    @DefaultValue("3600")
+    long cacheTtlSecondsExpandDfs();
+
+    /**
+     * The amount of time, in seconds, clients and shared caches may reuse an {@code /expand}, {@code /expandApoc}, or
+     * {@code /expandDfs} response without revalidating it.
+     * <p>
+     * {@code 0} makes them revalidate it on every use.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("HTTP_CACHE_MAX_AGE_SECONDS_EXPAND")
+    @DefaultValue("3600")
+    long httpCacheMaxAgeSecondsExpand();
+
+    /**
+     * The amount of time, in seconds, clients and shared caches may keep serving an {@code /expand},
+     * {@code /expandApoc}, or {@code /expandDfs} response after it has become stale, while they revalidate it in the
+     * background.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("HTTP_CACHE_STALE_WHILE_REVALIDATE_SECONDS_EXPAND")
+    @DefaultValue("600")
+    long httpCacheStaleWhileRevalidateSecondsExpand();
+
+    /**
+     * The amount of time, in seconds, clients and shared caches may reuse a page of {@code /languages/{language}}
+     * without revalidating it.
+     * <p>
+     * {@code 0} makes them revalidate it on every use.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("HTTP_CACHE_MAX_AGE_SECONDS_VOCABULARY")
+    @DefaultValue("600")
+    long httpCacheMaxAgeSecondsVocabulary();
+
+    /**
+     * The amount of time, in seconds, clients and shared caches may keep serving a page of
+     * {@code /languages/{language}} after it has become stale, while they revalidate it in the background.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("HTTP_CACHE_STALE_WHILE_REVALIDATE_SECONDS_VOCABULARY")
+    @DefaultValue("600")
+    long httpCacheStaleWhileRevalidateSecondsVocabulary();
+
+    /**
+     * The amount of time, in seconds, clients and shared caches may reuse a {@code /languages/{language}/count}
+     * response without revalidating it.
+     * <p>
+     * {@code 0} makes them revalidate it on every use.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("HTTP_CACHE_MAX_AGE_SECONDS_COUNT")
+    @DefaultValue("300")
+    long httpCacheMaxAgeSecondsCount();
+
+    /**
+     * The amount of time, in seconds, clients and shared caches may keep serving a {@code /languages/{language}/count}
+     * response after it has become stale, while they revalidate it in the background.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("HTTP_CACHE_STALE_WHILE_REVALIDATE_SECONDS_COUNT")
+    @DefaultValue("300")
+    long httpCacheStaleWhileRevalidateSecondsCount();
+
+    /**
+     * The amount of time, in seconds, clients and shared caches may reuse a {@code /search} response without
+     * revalidating it.
+     * <p>
+     * {@code 0} makes them revalidate it on every use.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("HTTP_CACHE_MAX_AGE_SECONDS_SEARCH")
+    @DefaultValue("300")
+    long httpCacheMaxAgeSecondsSearch();
+
+    /**
+     * The amount of time, in seconds, clients and shared caches may keep serving a {@code /search} response after it
+     * has become stale, while they revalidate it in the background.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("HTTP_CACHE_STALE_WHILE_REVALIDATE_SECONDS_SEARCH")
+    @DefaultValue("60")
+    long httpCacheStaleWhileRevalidateSecondsSearch();
+
+    /**
+     * The gzip compression level of responses to clients that accept gzip, from {@code 1} (fastest) to {@code 9}
+     * (smallest).
+     * <p>
+     * {@code 0} disables response compression.
+     *
+     * @return a number between {@code 0} and {@code 9}
+     */
+    @Key("COMPRESSION_LEVEL")
+    @DefaultValue("6")
+    int compressionLevel();
+
+    /**
+     * The minimum size, in bytes, of a response body to be compressed.
+     * <p>
+     * Smaller bodies are sent as they are, because the gzip header and trailer and the CPU spent would outweigh the
+     * bytes saved.
+     *
+     * @return a non-negative number of bytes
+     */
+    @Key("COMPRESSION_MIN_SIZE_BYTES")
+    @DefaultValue("1024")
+    int compressionMinSizeBytes();
+
+    /**
+     * The maximum number of idle compressors kept for reuse by later responses.
+     *
+     * @return a positive number
+     */
+    @Key("COMPRESSION_POOL_SIZE")
+    @DefaultValue("64")
+    int compressionPoolSize();
+
+    /**
+     * Whether responses carry a {@code Server-Timing} header with the time their request spent in each phase, such as
+     * Neo4J queries and serialization.
+     * <p>
+     * The header discloses how the webservice works internally, so it is off by default.
+     *
+     * @return {@code true} to send the header
+     */
+    @Key("TRACING_SERVER_TIMING_ENABLED")
+    @DefaultValue("false")
+    boolean tracingServerTimingEnabled();
+
+    /**
+     * The amount of time, in milliseconds, above which a request is logged as slow together with the Cypher
+     * statements, parameters, and result sizes of all its queries.
+     * <p>
+     * {@code 0} disables the slow request log.
+     *
+     * @return a non-negative number of milliseconds
+     */
+    @Key("SLOW_REQUEST_THRESHOLD_MILLIS")
+    @DefaultValue("1000")
+    long slowRequestThresholdMillis();
+
+    /**
+     * The bearer token that operators send in the {@code Authorization} header of requests to endpoints marked
+     * {@link com.paiondata.wilhelm.AdminOnly}, such as {@code /admin/statistics/refresh} and {@code /metrics}.
+     * <p>
+     * These endpoints are disabled, and answer 404, if this is not set.
+     *
+     * @return a string or {@code null}
+     */
+    @Key("ADMIN_TOKEN")
+    String adminToken();
+
+    /**
+     * The amount of time, in seconds, between two scheduled recounts of the precomputed per-language term counts
+     * behind {@code /languages/{language}/count}.
+     * <p>
+     * {@code 0} disables scheduled recounts; counts are then only taken at startup and on an explicit
+     * {@code /admin/statistics/refresh}.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("STATISTICS_REFRESH_INTERVAL_SECONDS")
+    @DefaultValue("3600")
+    long statisticsRefreshIntervalSeconds();
+
+    /**
+     * Whether {@code /expand}, {@code /expandApoc}, and {@code /expandDfs} are answered from an in-memory snapshot of
+     * the whole vocabulary graph instead of Neo4J.
+     * <p>
+     * The snapshot is loaded in the background at startup; requests are answered by Neo4J until it is ready.
+     *
+     * @return {@code true} to load the vocabulary graph into memory
+     */
+    @Key("GRAPH_ENGINE_ENABLED")
+    @DefaultValue("false")
+    boolean graphEngineEnabled();
+
+    /**
+     * The amount of time, in seconds, between two scheduled reloads of the in-memory vocabulary graph.
+     * <p>
+     * {@code 0} disables scheduled reloads; the graph is then only loaded at startup and on an explicit
+     * {@code /admin/graph/reload}.
+     *
+     * @return a non-negative number of seconds
+     */
+    @Key("GRAPH_ENGINE_REFRESH_INTERVAL_SECONDS")
+    @DefaultValue("3600")
+    long graphEngineRefreshIntervalSeconds();
+
+    /**
+     * The path of the vocabulary graph snapshot file written by
+     * {@link com.paiondata.wilhelm.graph.GraphSnapshotExporter}, for example
+     * {@code /var/lib/bertok/vocabulary.graph}.
+     * <p>
+     * If set, the in-memory vocabulary graph is memory-mapped from this file instead of read from Neo4J.
+     *
+     * @return a string or {@code null}
+     */
+    @Key("GRAPH_ENGINE_SNAPSHOT_PATH")
+    String graphEngineSnapshotPath();
+
+    /**
+     * The amount of time, in seconds, a page of {@code /languages/{language}} is cached.
+     *
+     * @return a positive number of seconds
+     */
+    @Key("CACHE_TTL_SECONDS_VOCABULARY_BY_LANGUAGE")
+    @DefaultValue("600")
+    long cacheTtlSecondsVocabularyByLanguage();
+
+    /**
+     * The maximum amount of time, in milliseconds, a {@code /languages/{language}/count} request may take before it is
+     * answered with 504 Gateway Timeout.
+     *
+     * @return a positive number of milliseconds
+     */
+    @Key("TIMEOUT_MILLIS_COUNT_BY_LANGUAGE")
+    @DefaultValue("5000")
+    long timeoutMillisCountByLanguage();
+
+    /**
+     * The maximum amount of time, in milliseconds, a {@code /languages/{language}} request may take before it is
+     * answered with 504 Gateway Timeout.
+     *
+     * @return a positive number of milliseconds
+     */
+    @Key("TIMEOUT_MILLIS_VOCABULARY_BY_LANGUAGE")
+    @DefaultValue("10000")
+    long timeoutMillisVocabularyByLanguage();
+
+    /**
+     * The maximum amount of time, in milliseconds, a {@code /search} request may take before it is answered with 504
+     * Gateway Timeout.
+     *
+     * @return a positive number of milliseconds
+     */
+    @Key("TIMEOUT_MILLIS_SEARCH")
+    @DefaultValue("5000")
+    long timeoutMillisSearch();
+
+    /**
+     * The maximum amount of time, in milliseconds, an {@code /expand}, {@code /expandApoc}, or {@code /expandDfs}
+     * request may take before it is answered with 504 Gateway Timeout.
+     *
+     * @return a positive number of milliseconds
+     */
+    @Key("TIMEOUT_MILLIS_EXPAND")
+    @DefaultValue("30000")
+    long timeoutMillisExpand();
+
+    /**
+     * The kind of threads resource methods run on, either {@code PLATFORM} or {@code VIRTUAL}.
+     * <p>
+     * {@code VIRTUAL} requires a JDK 21 runtime and falls back to {@code PLATFORM} otherwise.
+     *
+     * @return an execution mode
+     */
+    @Key("EXECUTION_MODE")
+    @DefaultValue("PLATFORM")
+    ExecutionMode executionMode();
+
+    /**
+     * The number of platform threads resource methods run on in the {@code PLATFORM} execution mode.
+     *
+     * @return a positive number
+     */
+    @Key("EXECUTION_PLATFORM_THREADS")
+    @DefaultValue("200")
+    int executionPlatformThreads();
+
+    /**
+     * Whether requests to {@link com.paiondata.wilhelm.Bulkhead} endpoints are rejected with 503 Service Unavailable
+     * once their endpoint class has reached its adaptive concurrency limit.
+     *
+     * @return {@code true} to shed load, or {@code false} to admit every request
+     */
+    @Key("ADMISSION_CONTROL_ENABLED")
+    @DefaultValue("true")
+    boolean admissionControlEnabled();
+
+    /**
+     * The number of concurrent requests every endpoint class admits however high its latency gets.
+     *
+     * @return a positive number
+     */
+    @Key("ADMISSION_MIN_CONCURRENCY")
+    @DefaultValue("4")
+    int admissionMinConcurrency();
+
+    /**
+     * The maximum number of concurrent {@code /expand} and {@code /expandApoc} requests, including batch ones.
+     * <p>
+     * Their concurrency limit starts at this number and adapts to their latency from there.
+     *
+     * @return a number no less than {@link #admissionMinConcurrency()}
+     */
+    @Key("ADMISSION_MAX_CONCURRENCY_EXPAND")
+    @DefaultValue("100")
+    int admissionMaxConcurrencyExpand();
+
+    /**
+     * The maximum number of concurrent {@code /expandDfs} requests.
+     * <p>
+     * Their concurrency limit starts at this number and adapts to their latency from there.
+     *
+     * @return a number no less than {@link #admissionMinConcurrency()}
+     */
+    @Key("ADMISSION_MAX_CONCURRENCY_EXPAND_DFS")
+    @DefaultValue("20")
+    int admissionMaxConcurrencyExpandDfs();
+
+    /**
+     * The maximum number of concurrent {@code /languages/{language}} requests.
+     * <p>
+     * Their concurrency limit starts at this number and adapts to their latency from there.
+     *
+     * @return a number no less than {@link #admissionMinConcurrency()}
+     */
+    @Key("ADMISSION_MAX_CONCURRENCY_VOCABULARY")
+    @DefaultValue("50")
+    int admissionMaxConcurrencyVocabulary();
+
+    /**
+     * The maximum number of concurrent {@code /languages/{language}/count} requests.
+     * <p>
+     * Their concurrency limit starts at this number and adapts to their latency from there.
+     *
+     * @return a number no less than {@link #admissionMinConcurrency()}
+     */
+    @Key("ADMISSION_MAX_CONCURRENCY_COUNT")
+    @DefaultValue("100")
+    int admissionMaxConcurrencyCount();
+
+    /**
+     * The maximum number of concurrent {@code /search} requests.
+     * <p>
+     * Their concurrency limit starts at this number and adapts to their latency from there.
+     *
+     * @return a number no less than {@link #admissionMinConcurrency()}
+     */
+    @Key("ADMISSION_MAX_CONCURRENCY_SEARCH")
+    @DefaultValue("50")
+    int admissionMaxConcurrencySearch();
 }
@@ -0,0 +1,600 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.graph;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import com.paiondata.wilhelm.Link;
+import com.paiondata.wilhelm.Node;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * A versioned binary file format of a {@link VocabularyGraph}, which is memory-mapped instead of read.
+ * <p>
+ * {@link #open(Path) Opening} a snapshot takes the same time no matter how large the graph is: nothing is parsed up
+ * front, and traversals read the CSR adjacency straight from the mapped file. Only the nodes and links of an expansion
+ * result are decoded. The pages of the file live in the operating system's page cache rather than in the Java heap,
+ * so all webservice instances on a host that open the same snapshot share one copy of it.
+ * <p>
+ * All numbers are big-endian {@code int}s, except for the {@code long} load time. The sections of numbers come before
+ * the sections of bytes, so each of them is 4-byte aligned. A snapshot consists of
+ * <ol>
+ *     <li> a header: the {@value #MAGIC} magic number, the format {@value #VERSION}, the time the graph was read from
+ *          Neo4J in epoch milliseconds, and the number of nodes, links, adjacency entries, dictionary strings, and
+ *          distinct node labels, and the lengths of the string and attribute data
+ *     <li> the string dictionary: the start of each string in the string data, followed by the end of the last one
+ *     <li> the node table: the ID and label of each node, as dictionary indexes, and the start and length of its
+ *          attribute blob
+ *     <li> the link table: the ID, label, source node ID, and target node ID of each link, as dictionary indexes, and
+ *          the start and length of its attribute blob
+ *     <li> the CSR offsets, neighbors, and incident links of {@link VocabularyGraph}
+ *     <li> the label index: each distinct node label, as a dictionary index, in {@link String#compareTo(String)
+ *          order}, and the start and number of its nodes in the label nodes
+ *     <li> the label nodes: the numbers of all nodes, grouped by label
+ *     <li> the string data: all strings in UTF-8
+ *     <li> the attribute data: the attributes of each node and link that has any, as a CBOR map
+ * </ol>
+ * A snapshot is limited to 2 GiB, the most a single {@link MappedByteBuffer} can map.
+ */
+@Immutable
+@ThreadSafe
+public final class GraphSnapshot {
+
+    /**
+     * The first 4 bytes of every snapshot, "WVGS" in ASCII.
+     */
+    public static final int MAGIC = 0x57564753;
+
+    /**
+     * The version of the format written by {@link #write(VocabularyGraph, Path)}; no other version can be opened.
+     */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 48;
+    private static final int NODE_RECORD_INTS = 4;
+    private static final int LINK_RECORD_INTS = 6;
+    private static final int LABEL_RECORD_INTS = 3;
+
+    private static final ObjectMapper ATTRIBUTES = CBORMapper.builder().build();
+    private static final TypeReference<Map<String, Object>> ATTRIBUTES_TYPE = new TypeReference<>() { };
+
+    /**
+     * Constructor.
+     * <p>
+     * Suppress default constructor for noninstantiability.
+     *
+     * @throws AssertionError when called
+     */
+    private GraphSnapshot() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Writes a graph to a snapshot file.
+     * <p>
+     * The snapshot is written to a temporary file next to {@code path} first, which then atomically replaces
+     * {@code path}. Instances that have the previous snapshot open keep reading it until they open the new one.
+     *
+     * @param graph  The graph to write
+     * @param path  The snapshot file, which is replaced if it exists
+     *
+     * @throws IOException if the snapshot cannot be written
+     * @throws IllegalArgumentException if the snapshot would be larger than 2 GiB
+     */
+    public static void write(@NotNull final VocabularyGraph graph, @NotNull final Path path) throws IOException {
+        final Map<String, Integer> dictionary = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+        final ByteArrayOutputStream attributeData = new ByteArrayOutputStream();
+
+        final int[] nodeTable = new int[graph.getNodeCount() * NODE_RECORD_INTS];
+        final Map<String, List<Integer>> labels = new TreeMap<>();
+        for (int number = 0; number < graph.getNodeCount(); number++) {
+            final Node node = graph.getNode(number);
+            final int record = number * NODE_RECORD_INTS;
+            nodeTable[record] = indexOf(node.getId(), dictionary, strings);
+            nodeTable[record + 1] = indexOf(node.getLabel(), dictionary, strings);
+            writeAttributes(node.getAttributes(), attributeData, nodeTable, record + 2);
+            labels.computeIfAbsent(node.getLabel(), ignored -> new ArrayList<>(1)).add(number);
+        }
+
+        final int[] linkTable = new int[graph.getLinkCount() * LINK_RECORD_INTS];
+        for (int number = 0; number < graph.getLinkCount(); number++) {
+            final Link link = graph.getLink(number);
+            final int record = number * LINK_RECORD_INTS;
+            linkTable[record] = indexOf(link.getId(), dictionary, strings);
+            linkTable[record + 1] = indexOf(link.getLabel(), dictionary, strings);
+            linkTable[record + 2] = indexOf(link.getSourceNodeId(), dictionary, strings);
+            linkTable[record + 3] = indexOf(link.getTargetNodeId(), dictionary, strings);
+            writeAttributes(link.getAttributes(), attributeData, linkTable, record + 4);
+        }
+
+        final int[] labelIndex = new int[labels.size() * LABEL_RECORD_INTS];
+        final int[] labelNodes = new int[graph.getNodeCount()];
+        int label = 0;
+        int labelNode = 0;
+        for (final Map.Entry<String, List<Integer>> entry : labels.entrySet()) {
+            labelIndex[label * LABEL_RECORD_INTS] = indexOf(entry.getKey(), dictionary, strings);
+            labelIndex[label * LABEL_RECORD_INTS + 1] = labelNode;
+            labelIndex[label * LABEL_RECORD_INTS + 2] = entry.getValue().size();
+            for (final int node : entry.getValue()) {
+                labelNodes[labelNode++] = node;
+            }
+            label++;
+        }
+
+        final ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+        final int[] stringOffsets = new int[strings.size() + 1];
+        for (int string = 0; string < strings.size(); string++) {
+            stringOffsets[string] = stringData.size();
+            stringData.writeBytes(strings.get(string).getBytes(StandardCharsets.UTF_8));
+        }
+        stringOffsets[strings.size()] = stringData.size();
+
+        final IntBuffer offsets = graph.getOffsets();
+        final Layout layout = new Layout(
+                graph.getNodeCount(),
+                graph.getLinkCount(),
+                offsets.get(graph.getNodeCount()),
+                strings.size(),
+                labels.size(),
+                stringData.size(),
+                attributeData.size()
+        );
+
+        final Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(
+                    temporary,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING
+            )) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size);
+
+                buffer.putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putLong(graph.getLoadedAt().toEpochMilli())
+                        .putInt(layout.nodeCount)
+                        .putInt(layout.linkCount)
+                        .putInt(layout.adjacencyLength)
+                        .putInt(layout.stringCount)
+                        .putInt(layout.labelCount)
+                        .putInt(layout.stringDataLength)
+                        .putInt(layout.attributeDataLength);
+
+                buffer.position(layout.stringOffsets);
+                buffer.asIntBuffer().put(stringOffsets);
+                buffer.position(layout.nodeTable);
+                buffer.asIntBuffer().put(nodeTable);
+                buffer.position(layout.linkTable);
+                buffer.asIntBuffer().put(linkTable);
+                buffer.position(layout.offsets);
+                buffer.asIntBuffer().put(offsets);
+                buffer.position(layout.neighbors);
+                buffer.asIntBuffer().put(graph.getNeighbors());
+                buffer.position(layout.incidentLinks);
+                buffer.asIntBuffer().put(graph.getIncidentLinks());
+                buffer.position(layout.labelIndex);
+                buffer.asIntBuffer().put(labelIndex);
+                buffer.position(layout.labelNodes);
+                buffer.asIntBuffer().put(labelNodes);
+                buffer.position(layout.stringData);
+                buffer.put(stringData.toByteArray());
+                buffer.position(layout.attributeData);
+                buffer.put(attributeData.toByteArray());
+
+                buffer.force();
+            }
+
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Opens a snapshot file by memory-mapping it.
+     * <p>
+     * The file stays mapped until the returned graph is garbage collected; it can be replaced, but must not be
+     * modified in place, in the meantime.
+     *
+     * @param path  The snapshot file
+     *
+     * @return a graph that reads the snapshot on demand
+     *
+     * @throws IOException if the file cannot be mapped, or is not a complete snapshot of the supported
+     * {@link #VERSION}
+     */
+    @NotNull
+    public static VocabularyGraph open(@NotNull final Path path) throws IOException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("%s is not a vocabulary graph snapshot", path));
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(String.format("%s is not a vocabulary graph snapshot", path));
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(String.format(
+                    "%s is a version %d snapshot, but only version %d is supported",
+                    path,
+                    buffer.getInt(4),
+                    VERSION
+            ));
+        }
+
+        final Layout layout;
+        try {
+            layout = new Layout(
+                    buffer.getInt(16),
+                    buffer.getInt(20),
+                    buffer.getInt(24),
+                    buffer.getInt(28),
+                    buffer.getInt(32),
+                    buffer.getInt(36),
+                    buffer.getInt(40)
+            );
+        } catch (final IllegalArgumentException exception) {
+            throw new IOException(String.format("%s has a corrupt header", path), exception);
+        }
+        if (layout.size != buffer.capacity()) {
+            throw new IOException(String.format(
+                    "%s is truncated or corrupt: expected %d bytes but found %d",
+                    path,
+                    layout.size,
+                    buffer.capacity()
+            ));
+        }
+
+        final MappedSnapshot snapshot = new MappedSnapshot(buffer, layout);
+        return new VocabularyGraph(
+                layout.nodeCount,
+                layout.linkCount,
+                snapshot::getNode,
+                snapshot::getLink,
+                snapshot.ints(layout.offsets, layout.nodeCount + 1),
+                snapshot.ints(layout.neighbors, layout.adjacencyLength),
+                snapshot.ints(layout.incidentLinks, layout.adjacencyLength),
+                snapshot::getNodesByLabel,
+                Instant.ofEpochMilli(buffer.getLong(8))
+        );
+    }
+
+    /**
+     * Returns the dictionary index of a string, adding it to the dictionary if needed.
+     *
+     * @param string  The string to look up
+     * @param dictionary  The index of each string added so far
+     * @param strings  All strings added so far, in index order
+     *
+     * @return the index of {@code string}
+     */
+    private static int indexOf(
+            @NotNull final String string,
+            @NotNull final Map<String, Integer> dictionary,
+            @NotNull final List<String> strings
+    ) {
+        return dictionary.computeIfAbsent(string, added -> {
+            strings.add(added);
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * Appends the attribute blob of a node or link to the attribute data and records where it is.
+     *
+     * @param attributes  The attributes of the node or link
+     * @param attributeData  The attribute data written so far
+     * @param table  The node or link table
+     * @param position  The position of the blob start in {@code table}, which is followed by the blob length
+     *
+     * @throws IOException if the attributes cannot be encoded
+     */
+    private static void writeAttributes(
+            @NotNull final Map<String, Object> attributes,
+            @NotNull final ByteArrayOutputStream attributeData,
+            @NotNull final int[] table,
+            final int position
+    ) throws IOException {
+        table[position] = attributeData.size();
+        if (!attributes.isEmpty()) {
+            ATTRIBUTES.writeValue(attributeData, attributes);
+        }
+        table[position + 1] = attributeData.size() - table[position];
+    }
+
+    /**
+     * The byte positions of all sections of a snapshot, which follow from the counts in its header.
+     */
+    @Immutable
+    @ThreadSafe
+    private static final class Layout {
+
+        private final int nodeCount;
+        private final int linkCount;
+        private final int adjacencyLength;
+        private final int stringCount;
+        private final int labelCount;
+        private final int stringDataLength;
+        private final int attributeDataLength;
+
+        private final int stringOffsets;
+        private final int nodeTable;
+        private final int linkTable;
+        private final int offsets;
+        private final int neighbors;
+        private final int incidentLinks;
+        private final int labelIndex;
+        private final int labelNodes;
+        private final int stringData;
+        private final int attributeData;
+        private final int size;
+
+        /**
+         * All-args constructor.
+         *
+         * @param nodeCount  The number of nodes
+         * @param linkCount  The number of links
+         * @param adjacencyLength  The number of neighbors of all nodes together
+         * @param stringCount  The number of strings in the dictionary
+         * @param labelCount  The number of distinct node labels
+         * @param stringDataLength  The number of bytes of all strings
+         * @param attributeDataLength  The number of bytes of all attribute blobs
+         *
+         * @throws IllegalArgumentException if any count is negative or the snapshot would be larger than 2 GiB
+         */
+        private Layout(
+                final int nodeCount,
+                final int linkCount,
+                final int adjacencyLength,
+                final int stringCount,
+                final int labelCount,
+                final int stringDataLength,
+                final int attributeDataLength
+        ) {
+            if (IntStream.of(
+                    nodeCount,
+                    linkCount,
+                    adjacencyLength,
+                    stringCount,
+                    labelCount,
+                    stringDataLength,
+                    attributeDataLength
+            ).anyMatch(count -> count < 0)) {
+                throw new IllegalArgumentException("Snapshot sections cannot have a negative length");
+            }
+
+            this.nodeCount = nodeCount;
+            this.linkCount = linkCount;
+            this.adjacencyLength = adjacencyLength;
+            this.stringCount = stringCount;
+            this.labelCount = labelCount;
+            this.stringDataLength = stringDataLength;
+            this.attributeDataLength = attributeDataLength;
+
+            long position = HEADER_BYTES;
+            this.stringOffsets = toPosition(position);
+            position += Integer.BYTES * (stringCount + 1L);
+            this.nodeTable = toPosition(position);
+            position += Integer.BYTES * (long) NODE_RECORD_INTS * nodeCount;
+            this.linkTable = toPosition(position);
+            position += Integer.BYTES * (long) LINK_RECORD_INTS * linkCount;
+            this.offsets = toPosition(position);
+            position += Integer.BYTES * (nodeCount + 1L);
+            this.neighbors = toPosition(position);
+            position += Integer.BYTES * (long) adjacencyLength;
+            this.incidentLinks = toPosition(position);
+            position += Integer.BYTES * (long) adjacencyLength;
+            this.labelIndex = toPosition(position);
+            position += Integer.BYTES * (long) LABEL_RECORD_INTS * labelCount;
+            this.labelNodes = toPosition(position);
+            position += Integer.BYTES * (long) nodeCount;
+            this.stringData = toPosition(position);
+            position += stringDataLength;
+            this.attributeData = toPosition(position);
+            position += attributeDataLength;
+            this.size = toPosition(position);
+        }
+
+        /**
+         * Checks that a byte position can be addressed in a single {@link MappedByteBuffer}.
+         *
+         * @param position  The byte position
+         *
+         * @return {@code position}
+         *
+         * @throws IllegalArgumentException if {@code position} is beyond 2 GiB
+         */
+        private static int toPosition(final long position) {
+            if (position > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("A vocabulary graph snapshot cannot be larger than 2 GiB");
+            }
+            return (int) position;
+        }
+    }
+
+    /**
+     * The decoder of the nodes, links, and label index of a mapped snapshot.
+     * <p>
+     * All reads are absolute, so the shared buffer is never repositioned and can be read by any number of threads.
+     */
+    @Immutable
+    @ThreadSafe
+    private static final class MappedSnapshot {
+
+        private final ByteBuffer buffer;
+        private final Layout layout;
+
+        /**
+         * All-args constructor.
+         *
+         * @param buffer  The whole mapped snapshot
+         * @param layout  The positions of its sections
+         */
+        private MappedSnapshot(@NotNull final ByteBuffer buffer, @NotNull final Layout layout) {
+            this.buffer = buffer;
+            this.layout = layout;
+        }
+
+        /**
+         * Returns a section of {@code int}s without copying it.
+         *
+         * @param position  The byte position of the section
+         * @param length  The number of {@code int}s in the section
+         *
+         * @return a read-only view of the section
+         */
+        @NotNull
+        private IntBuffer ints(final int position, final int length) {
+            return buffer.slice(position, Integer.BYTES * length).asIntBuffer().asReadOnlyBuffer();
+        }
+
+        /**
+         * Decodes a node.
+         *
+         * @param number  The number of the node
+         *
+         * @return a new node
+         */
+        @NotNull
+        private Node getNode(final int number) {
+            final int record = layout.nodeTable + Integer.BYTES * NODE_RECORD_INTS * number;
+            return Node.of(
+                    getString(buffer.getInt(record)),
+                    getString(buffer.getInt(record + 4)),
+                    getAttributes(buffer.getInt(record + 8), buffer.getInt(record + 12))
+            );
+        }
+
+        /**
+         * Decodes a link.
+         *
+         * @param number  The number of the link
+         *
+         * @return a new link
+         */
+        @NotNull
+        private Link getLink(final int number) {
+            final int record = layout.linkTable + Integer.BYTES * LINK_RECORD_INTS * number;
+            return Link.of(
+                    getString(buffer.getInt(record)),
+                    getString(buffer.getInt(record + 4)),
+                    getString(buffer.getInt(record + 8)),
+                    getString(buffer.getInt(record + 12)),
+                    getAttributes(buffer.getInt(record + 16), buffer.getInt(record + 20))
+            );
+        }
+
+        /**
+         * Looks up the nodes of a label by binary search over the label index.
+         *
+         * @param label  The label of interest
+         *
+         * @return the numbers of the nodes, or {@code null} if no node has the label
+         */
+        private int[] getNodesByLabel(@NotNull final String label) {
+            int low = 0;
+            int high = layout.labelCount - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final int record = layout.labelIndex + Integer.BYTES * LABEL_RECORD_INTS * middle;
+                final int comparison = getString(buffer.getInt(record)).compareTo(label);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    final int[] nodes = new int[buffer.getInt(record + 8)];
+                    ints(layout.labelNodes + Integer.BYTES * buffer.getInt(record + 4), nodes.length).get(nodes);
+                    return nodes;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Decodes a dictionary string.
+         *
+         * @param index  The dictionary index of the string
+         *
+         * @return a new string
+         */
+        @NotNull
+        private String getString(final int index) {
+            final int start = buffer.getInt(layout.stringOffsets + Integer.BYTES * index);
+            final int end = buffer.getInt(layout.stringOffsets + Integer.BYTES * (index + 1));
+
+            final byte[] bytes = new byte[end - start];
+            buffer.get(layout.stringData + start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Decodes an attribute blob.
+         *
+         * @param start  The position of the blob in the attribute data
+         * @param length  The length of the blob, which is {@code 0} for no attributes
+         *
+         * @return the attributes
+         */
+        @NotNull
+        private Map<String, Object> getAttributes(final int start, final int length) {
+            if (length == 0) {
+                return Collections.emptyMap();
+            }
+
+            final byte[] bytes = new byte[length];
+            buffer.get(layout.attributeData + start, bytes);
+            try {
+                return ATTRIBUTES.readValue(bytes, ATTRIBUTES_TYPE);
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.graph;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.neo4j.driver.Driver;
+import com.paiondata.wilhelm.application.Neo4JDriverFactory;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.neo4j.QueryExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * The command that exports the vocabulary graph from Neo4J into a {@link GraphSnapshot} file.
+ * <p>
+ * It connects to Neo4J with the same {@link ApplicationConfig environment variables} as the webservice and writes the
+ * snapshot to the path given as its only argument, or to {@link ApplicationConfig#graphEngineSnapshotPath()} if there
+ * is none:
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.paiondata.wilhelm.graph.GraphSnapshotExporter \
+ *     -Dexec.args=/var/lib/bertok/vocabulary.graph
+ * </pre>
+ * Running webservice instances pick the new snapshot up on their next reload of the {@link InMemoryGraphEngine}.
+ */
+@Immutable
+@ThreadSafe
+public final class GraphSnapshotExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GraphSnapshotExporter.class);
+
+    /**
+     * Constructor.
+     * <p>
+     * Suppress default constructor for noninstantiability.
+     *
+     * @throws AssertionError when called
+     */
+    private GraphSnapshotExporter() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Exports the vocabulary graph.
+     *
+     * @param args  The path of the snapshot file, optionally
+     *
+     * @throws IOException if the snapshot cannot be written
+     * @throws IllegalArgumentException if no path is given and none is configured either
+     */
+    public static void main(@NotNull final String[] args) throws IOException {
+        final ApplicationConfig applicationConfig = ConfigFactory.create(ApplicationConfig.class);
+        final Path path = InMemoryGraphEngine.toPath(
+                args.length > 0 ? args[0] : applicationConfig.graphEngineSnapshotPath()
+        );
+        if (path == null) {
+            throw new IllegalArgumentException("Pass the snapshot path or set GRAPH_ENGINE_SNAPSHOT_PATH");
+        }
+
+        final Neo4JDriverFactory driverFactory = new Neo4JDriverFactory(applicationConfig);
+        final Driver driver = driverFactory.provide();
+        try {
+            final VocabularyGraph graph = InMemoryGraphEngine.read(
+                    new QueryExecutor(driver, applicationConfig.neo4jDatabase()),
+                    Instant.now()
+            );
+            GraphSnapshot.write(graph, path);
+            LOG.info("Exported {} to {}", graph, path);
+        } finally {
+            driverFactory.dispose(driver);
+        }
+    }
+}
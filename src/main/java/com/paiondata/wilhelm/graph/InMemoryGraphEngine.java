@@ -0,0 +1,378 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.graph;
+
+import org.aeonbits.owner.ConfigFactory;
+import com.paiondata.wilhelm.Graph;
+import com.paiondata.wilhelm.Link;
+import com.paiondata.wilhelm.Node;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.neo4j.CypherStatement;
+import com.paiondata.wilhelm.neo4j.QueryExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An optional engine that answers expansions from a {@link VocabularyGraph} snapshot of the whole vocabulary held in
+ * memory, with Neo4J as the source of truth only.
+ * <p>
+ * When {@link ApplicationConfig#graphEngineEnabled() enabled}, the snapshot is loaded in the background at
+ * {@link #start() startup} and then reloaded on a configurable schedule or on demand. A reload builds a new snapshot
+ * next to the current one and swaps it in atomically, so expansions never see a partially loaded graph; a failed
+ * reload keeps the current snapshot. Concurrent reloads share one load.
+ * <p>
+ * Nodes and links are read by two separate statements, so links created between the two are left out of the snapshot
+ * until the next reload.
+ * <p>
+ * If a {@link ApplicationConfig#graphEngineSnapshotPath() snapshot file} is configured, snapshots are
+ * {@link GraphSnapshot#open(Path) memory-mapped} from that file instead of read from Neo4J, which takes the same short
+ * time however large the vocabulary is. The file is exported from Neo4J by {@link GraphSnapshotExporter}; each reload
+ * then maps the latest export, unless the file has not been modified since it was last mapped.
+ * <p>
+ * Until the first snapshot is ready, and whenever the engine is disabled, expansions return nothing and callers fall
+ * back to Neo4J.
+ */
+@Singleton
+@ThreadSafe
+public class InMemoryGraphEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryGraphEngine.class);
+
+    private final QueryExecutor queryExecutor;
+    private final boolean enabled;
+    private final Path snapshotPath;
+    private final Duration refreshInterval;
+    private final int maxDepth;
+    private final int maxNodes;
+    private final Clock clock;
+    private final AtomicReference<VocabularyGraph> snapshot = new AtomicReference<>();
+    private volatile FileTime mappedLastModified;
+    private CompletableFuture<VocabularyGraph> pendingReload;
+    private ScheduledExecutorService loader;
+    private boolean started;
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * Whether the engine is enabled, its snapshot file, its reload interval, and the budgets of {@code /expandDfs}
+     * traversals are loaded from {@link ApplicationConfig}.
+     *
+     * @param queryExecutor  The runner of the snapshot statements
+     *
+     * @throws NullPointerException if {@code queryExecutor} is {@code null}
+     */
+    @Inject
+    public InMemoryGraphEngine(@NotNull final QueryExecutor queryExecutor) {
+        this(
+                queryExecutor,
+                ConfigFactory.create(ApplicationConfig.class).graphEngineEnabled(),
+                toPath(ConfigFactory.create(ApplicationConfig.class).graphEngineSnapshotPath()),
+                Duration.ofSeconds(ConfigFactory.create(ApplicationConfig.class).graphEngineRefreshIntervalSeconds()),
+                ConfigFactory.create(ApplicationConfig.class).expandDfsMaxDepth(),
+                ConfigFactory.create(ApplicationConfig.class).expandDfsMaxNodes(),
+                Clock.systemUTC()
+        );
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param queryExecutor  The runner of the snapshot statements
+     * @param enabled  Whether the engine loads and serves snapshots at all
+     * @param snapshotPath  The snapshot file to map snapshots from, or {@code null} to read them from Neo4J
+     * @param refreshInterval  The time between two scheduled reloads; zero or negative disables scheduled reloads
+     * @param maxDepth  The maximum number of hops from the starting word of a breadth-first expansion
+     * @param maxNodes  The maximum number of nodes in the result of a breadth-first expansion
+     * @param clock  The source of the time at which snapshots are loaded
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if any of the budgets is not positive
+     */
+    public InMemoryGraphEngine(
+            @NotNull final QueryExecutor queryExecutor,
+            final boolean enabled,
+            final Path snapshotPath,
+            @NotNull final Duration refreshInterval,
+            final int maxDepth,
+            final int maxNodes,
+            @NotNull final Clock clock
+    ) {
+        if (maxDepth <= 0 || maxNodes <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Traversal budgets must be positive: maxDepth=%d, maxNodes=%d", maxDepth, maxNodes)
+            );
+        }
+
+        this.queryExecutor = Objects.requireNonNull(queryExecutor);
+        this.enabled = enabled;
+        this.snapshotPath = snapshotPath;
+        this.refreshInterval = Objects.requireNonNull(refreshInterval);
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Loads the first snapshot in the background and schedules its periodic reload, if the engine is enabled.
+     * <p>
+     * This is meant to be called once at application startup. It does not wait for the snapshot.
+     */
+    public synchronized void start() {
+        if (!enabled || started) {
+            return;
+        }
+
+        started = true;
+        reload();
+
+        if (!refreshInterval.isZero() && !refreshInterval.isNegative()) {
+            loader().scheduleWithFixedDelay(
+                    this::reload,
+                    refreshInterval.toMillis(),
+                    refreshInterval.toMillis(),
+                    TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Cancels the scheduled reloads.
+     * <p>
+     * This is meant to be called once at application shutdown.
+     */
+    public synchronized void stop() {
+        if (loader != null) {
+            loader.shutdownNow();
+            loader = null;
+        }
+        started = false;
+    }
+
+    /**
+     * Loads a new snapshot and swaps it in, joining the load that is already running, if any.
+     *
+     * @return a stage that completes with the new snapshot, or with the failure of the load
+     *
+     * @throws IllegalStateException if the engine is disabled, or is not {@link #start() started} or already
+     * {@link #stop() stopped}
+     */
+    @NotNull
+    public synchronized CompletionStage<VocabularyGraph> reload() {
+        if (!enabled) {
+            throw new IllegalStateException("The in-memory graph engine is disabled");
+        }
+        if (!started) {
+            throw new IllegalStateException("The in-memory graph engine is not running");
+        }
+        if (pendingReload != null && !pendingReload.isDone()) {
+            return pendingReload;
+        }
+
+        pendingReload = CompletableFuture.supplyAsync(this::load, loader());
+        pendingReload.whenComplete((graph, error) -> {
+            if (error != null) {
+                LOG.warn("Unable to load the vocabulary graph into memory; keeping {}", snapshot.get(), error);
+            }
+        });
+
+        return pendingReload;
+    }
+
+    /**
+     * Returns the snapshot expansions are currently answered from.
+     *
+     * @return the current snapshot, or nothing if none has been loaded yet
+     */
+    @NotNull
+    public Optional<VocabularyGraph> getSnapshot() {
+        return Optional.ofNullable(snapshot.get());
+    }
+
+    /**
+     * Expands all paths of at most {@code maxHops} links starting from the nodes of a word, like
+     * {@link CypherStatement#EXPAND_APOC}.
+     *
+     * @param word  The word to expand
+     * @param maxHops  The max length of an expanded path, or a negative number for unlimitedly long paths
+     *
+     * @return the expanded sub-graph, or nothing if there is no snapshot to expand from
+     */
+    @NotNull
+    public Optional<Graph> expand(@NotNull final String word, final int maxHops) {
+        return getSnapshot().map(graph -> graph.expand(word, maxHops));
+    }
+
+    /**
+     * Expands all paths of at most {@code maxHops} links starting from the nodes of each of many words, all from the
+     * same snapshot.
+     *
+     * @param words  The words to expand
+     * @param maxHops  The max length of an expanded path, or a negative number for unlimitedly long paths
+     *
+     * @return the expanded sub-graph of each word, in the order of {@code words}, or nothing if there is no snapshot to
+     * expand from
+     */
+    @NotNull
+    public Optional<Map<String, Graph>> expandAll(@NotNull final Collection<String> words, final int maxHops) {
+        return getSnapshot().map(graph -> {
+            final Map<String, Graph> graphs = new LinkedHashMap<>();
+            words.forEach(word -> graphs.put(word, graph.expand(word, maxHops)));
+            return graphs;
+        });
+    }
+
+    /**
+     * Expands the connected component of the nodes of a word breadth first, within the same budgets as
+     * {@link com.paiondata.wilhelm.neo4j.BreadthFirstExpander}.
+     *
+     * @param word  The word to expand
+     *
+     * @return the expanded sub-graph, or nothing if there is no snapshot to expand from
+     */
+    @NotNull
+    public Optional<Graph> expandBreadthFirst(@NotNull final String word) {
+        return getSnapshot().map(graph -> graph.expandBreadthFirst(word, maxDepth, maxNodes));
+    }
+
+    /**
+     * Reads the whole vocabulary graph from Neo4J.
+     *
+     * @param queryExecutor  The runner of the snapshot statements
+     * @param loadedAt  The time the graph is read at
+     *
+     * @return a new graph
+     */
+    @NotNull
+    static VocabularyGraph read(@NotNull final QueryExecutor queryExecutor, @NotNull final Instant loadedAt) {
+        final VocabularyGraph.Builder builder = VocabularyGraph.builder(loadedAt);
+
+        queryExecutor.stream(
+                CypherStatement.SNAPSHOT_NODES,
+                record -> builder.addNode(Node.valueOf(record.get("node").asNode()))
+        );
+        queryExecutor.stream(
+                CypherStatement.SNAPSHOT_LINKS,
+                record -> builder.addLink(Link.valueOf(record.get("link").asRelationship()))
+        );
+
+        final VocabularyGraph graph = builder.build();
+        if (builder.getDanglingLinks() > 0) {
+            LOG.warn("Left {} links to unknown nodes out of the vocabulary graph", builder.getDanglingLinks());
+        }
+        return graph;
+    }
+
+    /**
+     * Loads the vocabulary graph from the snapshot file, if there is one, or from Neo4J, and swaps it in as the current
+     * snapshot.
+     * <p>
+     * A snapshot file that has not been modified since it was last mapped is not mapped again; the current snapshot is
+     * kept instead.
+     *
+     * @return the new snapshot, or the current one if the snapshot file is unchanged
+     *
+     * @throws UncheckedIOException if the snapshot file cannot be opened
+     */
+    @NotNull
+    private VocabularyGraph load() {
+        final long start = System.nanoTime();
+
+        final VocabularyGraph graph;
+        if (snapshotPath == null) {
+            graph = read(queryExecutor, clock.instant());
+        } else {
+            try {
+                final FileTime lastModified = Files.getLastModifiedTime(snapshotPath);
+                final VocabularyGraph current = snapshot.get();
+                if (current != null && lastModified.equals(mappedLastModified)) {
+                    LOG.debug("{} is unchanged; keeping {}", snapshotPath, current);
+                    return current;
+                }
+
+                graph = GraphSnapshot.open(snapshotPath);
+                mappedLastModified = lastModified;
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        snapshot.set(graph);
+        LOG.info(
+                "Loaded {} from {} in {} ms",
+                graph,
+                snapshotPath == null ? "Neo4J" : snapshotPath,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+        return graph;
+    }
+
+    /**
+     * Converts a configured file path.
+     *
+     * @param path  The configured path, which may be {@code null} or blank
+     *
+     * @return the path, or {@code null} if none is configured
+     */
+    static Path toPath(final String path) {
+        return path == null || path.isBlank() ? null : Path.of(path);
+    }
+
+    /**
+     * Returns the single background thread snapshots are loaded on, creating it on first use.
+     *
+     * @return a scheduler with one daemon thread
+     */
+    @NotNull
+    private synchronized ScheduledExecutorService loader() {
+        if (loader == null) {
+            loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "vocabulary-graph-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return loader;
+    }
+}
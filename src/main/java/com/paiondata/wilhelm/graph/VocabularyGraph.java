@@ -0,0 +1,472 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.graph;
+
+import com.paiondata.wilhelm.Graph;
+import com.paiondata.wilhelm.Link;
+import com.paiondata.wilhelm.Node;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.NotThreadSafe;
+import net.jcip.annotations.ThreadSafe;
+
+import java.nio.IntBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * An immutable snapshot of the whole vocabulary graph held in memory, which answers expansions without Neo4J.
+ * <p>
+ * Nodes and links are numbered densely from {@code 0} and the undirected adjacency of the nodes is stored in
+ * compressed sparse row (CSR) form: the neighbors of node {@code i} are {@code neighbors[offsets[i]]} up to
+ * {@code neighbors[offsets[i + 1]]}, and {@code incidentLinks} holds the link to each of these neighbors at the same
+ * position. A traversal therefore touches only flat {@code int} buffers and a few bit sets, and looks up only the
+ * {@link Node}s and {@link Link}s of its result.
+ * <p>
+ * The buffers and the lookups are either backed by the heap, for a graph {@link #builder(Instant) built} from Neo4J
+ * records, or by a memory-mapped file, for a graph {@link GraphSnapshot#open(java.nio.file.Path) opened} from a
+ * snapshot.
+ * <p>
+ * Expansions follow links regardless of their direction, like the Cypher statements they replace.
+ */
+@Immutable
+@ThreadSafe
+public final class VocabularyGraph {
+
+    private static final int[] NO_NODES = new int[0];
+
+    private final int nodeCount;
+    private final int linkCount;
+    private final IntFunction<Node> nodes;
+    private final IntFunction<Link> links;
+    private final IntBuffer offsets;
+    private final IntBuffer neighbors;
+    private final IntBuffer incidentLinks;
+    private final Function<String, int[]> nodesByLabel;
+    private final Instant loadedAt;
+
+    /**
+     * All-args constructor.
+     *
+     * @param nodeCount  The number of nodes
+     * @param linkCount  The number of links
+     * @param nodes  The lookup of each node by its dense number
+     * @param links  The lookup of each link by its dense number
+     * @param offsets  The start of the adjacency of each node in {@code neighbors}, followed by the total length
+     * @param neighbors  The numbers of the adjacent nodes of all nodes, grouped by node
+     * @param incidentLinks  The numbers of the links to the nodes in {@code neighbors}, at the same positions
+     * @param nodesByLabel  The lookup of the numbers of all nodes of a label, which returns {@code null} if there is
+     * none
+     * @param loadedAt  The time the graph was read from Neo4J
+     */
+    VocabularyGraph(
+            final int nodeCount,
+            final int linkCount,
+            @NotNull final IntFunction<Node> nodes,
+            @NotNull final IntFunction<Link> links,
+            @NotNull final IntBuffer offsets,
+            @NotNull final IntBuffer neighbors,
+            @NotNull final IntBuffer incidentLinks,
+            @NotNull final Function<String, int[]> nodesByLabel,
+            @NotNull final Instant loadedAt
+    ) {
+        this.nodeCount = nodeCount;
+        this.linkCount = linkCount;
+        this.nodes = Objects.requireNonNull(nodes);
+        this.links = Objects.requireNonNull(links);
+        this.offsets = Objects.requireNonNull(offsets);
+        this.neighbors = Objects.requireNonNull(neighbors);
+        this.incidentLinks = Objects.requireNonNull(incidentLinks);
+        this.nodesByLabel = Objects.requireNonNull(nodesByLabel);
+        this.loadedAt = Objects.requireNonNull(loadedAt);
+    }
+
+    /**
+     * Returns a new, empty {@link Builder}.
+     *
+     * @param loadedAt  The time the graph is read from its source
+     *
+     * @return a new instance
+     */
+    @NotNull
+    public static Builder builder(@NotNull final Instant loadedAt) {
+        return new Builder(loadedAt);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    @NotNull
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Returns a node by its dense number.
+     *
+     * @param node  A number between {@code 0} and {@link #getNodeCount()}, exclusive
+     *
+     * @return the node
+     */
+    @NotNull
+    Node getNode(final int node) {
+        return nodes.apply(node);
+    }
+
+    /**
+     * Returns a link by its dense number.
+     *
+     * @param link  A number between {@code 0} and {@link #getLinkCount()}, exclusive
+     *
+     * @return the link
+     */
+    @NotNull
+    Link getLink(final int link) {
+        return links.apply(link);
+    }
+
+    /**
+     * Returns the CSR offsets of the adjacency of all nodes.
+     *
+     * @return a read-only buffer of {@link #getNodeCount()} + 1 entries
+     */
+    @NotNull
+    IntBuffer getOffsets() {
+        return offsets.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the numbers of the adjacent nodes of all nodes, grouped by node.
+     *
+     * @return a read-only buffer
+     */
+    @NotNull
+    IntBuffer getNeighbors() {
+        return neighbors.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the numbers of the links to the adjacent nodes of all nodes, at the same positions as
+     * {@link #getNeighbors()}.
+     *
+     * @return a read-only buffer
+     */
+    @NotNull
+    IntBuffer getIncidentLinks() {
+        return incidentLinks.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the numbers of all nodes of a label.
+     *
+     * @param label  The label of interest
+     *
+     * @return the node numbers, which are empty if no node has the label
+     */
+    @NotNull
+    int[] getNodesByLabel(@NotNull final String label) {
+        final int[] numbers = nodesByLabel.apply(label);
+        return numbers == null ? NO_NODES : numbers;
+    }
+
+    /**
+     * Expands all paths of at most {@code maxHops} links starting from the nodes of a label, like
+     * {@code apoc.path.expand}.
+     * <p>
+     * The result holds every node within {@code maxHops} links of a starting node, and every link on such a path. A
+     * starting node without any link is not part of any path and therefore not part of the result.
+     *
+     * @param label  The label of the starting nodes
+     * @param maxHops  The max length of a path, or a negative number for unlimitedly long paths
+     *
+     * @return the union of all paths, which is empty if no node has the label or {@code maxHops} is {@code 0}
+     */
+    @NotNull
+    public Graph expand(@NotNull final String label, final int maxHops) {
+        final int[] seeds = getNodesByLabel(label);
+        final int hops = maxHops < 0 ? Integer.MAX_VALUE : maxHops;
+        final Graph.Builder graph = Graph.builder();
+        if (hops == 0) {
+            return graph.build();
+        }
+
+        final BitSet reached = new BitSet(nodeCount);
+        final BitSet traversed = new BitSet(linkCount);
+        int[] frontier = new int[seeds.length];
+        int frontierSize = 0;
+        for (final int seed : seeds) {
+            reached.set(seed);
+            frontier[frontierSize++] = seed;
+            if (offsets.get(seed) < offsets.get(seed + 1)) {
+                graph.addNode(nodes.apply(seed));
+            }
+        }
+
+        for (int depth = 0; depth < hops && frontierSize > 0; depth++) {
+            int[] next = new int[Math.min(Math.max(frontierSize, 16), nodeCount)];
+            int nextSize = 0;
+            for (int i = 0; i < frontierSize; i++) {
+                final int node = frontier[i];
+                for (int edge = offsets.get(node); edge < offsets.get(node + 1); edge++) {
+                    final int link = incidentLinks.get(edge);
+                    if (!traversed.get(link)) {
+                        traversed.set(link);
+                        graph.addLink(links.apply(link));
+                    }
+
+                    final int neighbor = neighbors.get(edge);
+                    if (!reached.get(neighbor)) {
+                        reached.set(neighbor);
+                        graph.addNode(nodes.apply(neighbor));
+                        if (nextSize == next.length) {
+                            next = Arrays.copyOf(next, Math.min(next.length * 2, nodeCount));
+                        }
+                        next[nextSize++] = neighbor;
+                    }
+                }
+            }
+
+            frontier = next;
+            frontierSize = nextSize;
+        }
+
+        return graph.build();
+    }
+
+    /**
+     * Expands the connected component of the nodes of a label breadth first, within a depth and a node budget, like
+     * {@link com.paiondata.wilhelm.neo4j.BreadthFirstExpander}.
+     * <p>
+     * The starting nodes are always part of the result. Once the node budget is used up, no more nodes are added, and
+     * neither are the links to nodes that did not make it into the result.
+     *
+     * @param label  The label of the starting nodes
+     * @param maxDepth  The maximum number of hops from a starting node
+     * @param maxNodes  The maximum number of nodes in the result
+     *
+     * @return the expanded sub-graph, which is empty if no node has the label
+     */
+    @NotNull
+    public Graph expandBreadthFirst(@NotNull final String label, final int maxDepth, final int maxNodes) {
+        final int[] seeds = getNodesByLabel(label);
+        final Graph.Builder graph = Graph.builder();
+
+        final BitSet collected = new BitSet(nodeCount);
+        final BitSet traversed = new BitSet(linkCount);
+        int collectedCount = 0;
+        int[] frontier = new int[Math.min(seeds.length, maxNodes)];
+        int frontierSize = 0;
+        for (final int seed : seeds) {
+            if (collectedCount < maxNodes && !collected.get(seed)) {
+                collected.set(seed);
+                collectedCount++;
+                graph.addNode(nodes.apply(seed));
+                frontier[frontierSize++] = seed;
+            }
+        }
+
+        for (int depth = 0; depth < maxDepth && frontierSize > 0; depth++) {
+            int[] next = new int[Math.min(Math.max(frontierSize, 16), nodeCount)];
+            int nextSize = 0;
+            for (int i = 0; i < frontierSize; i++) {
+                final int node = frontier[i];
+                for (int edge = offsets.get(node); edge < offsets.get(node + 1); edge++) {
+                    final int neighbor = neighbors.get(edge);
+                    if (!collected.get(neighbor)) {
+                        if (collectedCount >= maxNodes) {
+                            continue;
+                        }
+                        collected.set(neighbor);
+                        collectedCount++;
+                        graph.addNode(nodes.apply(neighbor));
+                        if (nextSize == next.length) {
+                            next = Arrays.copyOf(next, Math.min(next.length * 2, nodeCount));
+                        }
+                        next[nextSize++] = neighbor;
+                    }
+
+                    final int link = incidentLinks.get(edge);
+                    if (!traversed.get(link)) {
+                        traversed.set(link);
+                        graph.addLink(links.apply(link));
+                    }
+                }
+            }
+
+            frontier = next;
+            frontierSize = nextSize;
+        }
+
+        return graph.build();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d nodes and %d links loaded at %s", getNodeCount(), getLinkCount(), loadedAt);
+    }
+
+    /**
+     * Collects the nodes and links of a {@link VocabularyGraph} and numbers them.
+     */
+    @NotThreadSafe
+    public static final class Builder {
+
+        private final Instant loadedAt;
+        private final List<Node> nodes = new ArrayList<>();
+        private final Map<String, Integer> numbers = new HashMap<>();
+        private final List<Link> links = new ArrayList<>();
+        private int danglingLinks;
+
+        /**
+         * Constructor.
+         * <p>
+         * Use {@link VocabularyGraph#builder(Instant)}.
+         *
+         * @param loadedAt  The time the graph is read from its source
+         */
+        private Builder(@NotNull final Instant loadedAt) {
+            this.loadedAt = Objects.requireNonNull(loadedAt);
+        }
+
+        /**
+         * Adds a node, unless one with the same ID has been added before.
+         *
+         * @param node  The node to add
+         *
+         * @return this builder
+         */
+        @NotNull
+        public Builder addNode(@NotNull final Node node) {
+            if (numbers.putIfAbsent(node.getId(), nodes.size()) == null) {
+                nodes.add(node);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a link.
+         * <p>
+         * Links are resolved against the nodes when the graph is {@link #build() built}, so they may be added before
+         * their ends.
+         *
+         * @param link  The link to add
+         *
+         * @return this builder
+         */
+        @NotNull
+        public Builder addLink(@NotNull final Link link) {
+            links.add(Objects.requireNonNull(link));
+            return this;
+        }
+
+        /**
+         * Returns the number of links whose ends were not both added, which the last {@link #build() built} graph left
+         * out.
+         *
+         * @return a non-negative number
+         */
+        public int getDanglingLinks() {
+            return danglingLinks;
+        }
+
+        /**
+         * Numbers the collected nodes and links and lays out their adjacency.
+         *
+         * @return a new instance
+         */
+        @NotNull
+        public VocabularyGraph build() {
+            final int nodeCount = nodes.size();
+
+            final List<Link> resolvedLinks = new ArrayList<>(links.size());
+            final List<int[]> ends = new ArrayList<>(links.size());
+            danglingLinks = 0;
+            for (final Link link : links) {
+                final Integer source = numbers.get(link.getSourceNodeId());
+                final Integer target = numbers.get(link.getTargetNodeId());
+                if (source == null || target == null) {
+                    danglingLinks++;
+                    continue;
+                }
+                resolvedLinks.add(link);
+                ends.add(new int[] { source, target });
+            }
+
+            final int[] offsets = new int[nodeCount + 1];
+            for (final int[] end : ends) {
+                offsets[end[0] + 1]++;
+                if (end[1] != end[0]) {
+                    offsets[end[1] + 1]++;
+                }
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+
+            final int[] neighbors = new int[offsets[nodeCount]];
+            final int[] incidentLinks = new int[offsets[nodeCount]];
+            final int[] positions = Arrays.copyOf(offsets, nodeCount);
+            for (int link = 0; link < ends.size(); link++) {
+                final int source = ends.get(link)[0];
+                final int target = ends.get(link)[1];
+
+                neighbors[positions[source]] = target;
+                incidentLinks[positions[source]++] = link;
+                if (target != source) {
+                    neighbors[positions[target]] = source;
+                    incidentLinks[positions[target]++] = link;
+                }
+            }
+
+            final Map<String, List<Integer>> labels = new HashMap<>();
+            for (int node = 0; node < nodeCount; node++) {
+                labels.computeIfAbsent(nodes.get(node).getLabel(), ignored -> new ArrayList<>(1)).add(node);
+            }
+            final Map<String, int[]> nodesByLabel = new HashMap<>(labels.size() * 4 / 3 + 1);
+            labels.forEach((label, numbered) ->
+                    nodesByLabel.put(label, numbered.stream().mapToInt(Integer::intValue).toArray())
+            );
+
+            final Node[] nodeArray = nodes.toArray(new Node[0]);
+            final Link[] linkArray = resolvedLinks.toArray(new Link[0]);
+            return new VocabularyGraph(
+                    nodeArray.length,
+                    linkArray.length,
+                    node -> nodeArray[node],
+                    link -> linkArray[link],
+                    IntBuffer.wrap(offsets),
+                    IntBuffer.wrap(neighbors),
+                    IntBuffer.wrap(incidentLinks),
+                    nodesByLabel::get,
+                    loadedAt
+            );
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.neo4j.driver.Record;
+import com.paiondata.wilhelm.Graph;
+import com.paiondata.wilhelm.Link;
+import com.paiondata.wilhelm.Node;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.tracing.RequestTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A breadth-first traversal engine that expands the whole connected component of a word level by level.
+ * <p>
+ * Instead of one round trip per visited node, each BFS level is sent to Neo4J as a single
+ * {@link CypherStatement#EXPAND_FRONTIER UNWIND query} over all frontier nodes, so a component of depth {@code d} costs
+ * {@code d + 1} round trips regardless of its size. All levels accumulate into the same node and link collections; no
+ * intermediate {@link Graph} is built or merged.
+ * <p>
+ * A traversal stops early when it reaches either its depth or its node budget; the graph collected so far is returned.
+ * Links are only kept if both of their ends made it into the result.
+ * <p>
+ * All levels of a traversal count toward the {@link RequestTrace} of the request that started it, including the time
+ * spent mapping records to nodes and links.
+ */
+@Singleton
+@Immutable
+@ThreadSafe
+public class BreadthFirstExpander {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BreadthFirstExpander.class);
+
+    private final QueryExecutor queryExecutor;
+    private final int maxDepth;
+    private final int maxNodes;
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * The traversal budgets are loaded from {@link ApplicationConfig}.
+     *
+     * @param queryExecutor  The runner of the traversal statements
+     *
+     * @throws NullPointerException if {@code queryExecutor} is {@code null}
+     */
+    @Inject
+    public BreadthFirstExpander(@NotNull final QueryExecutor queryExecutor) {
+        this(
+                queryExecutor,
+                ConfigFactory.create(ApplicationConfig.class).expandDfsMaxDepth(),
+                ConfigFactory.create(ApplicationConfig.class).expandDfsMaxNodes()
+        );
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param queryExecutor  The runner of the traversal statements
+     * @param maxDepth  The maximum number of hops from the starting word
+     * @param maxNodes  The maximum number of nodes in a traversal result
+     *
+     * @throws NullPointerException if {@code queryExecutor} is {@code null}
+     * @throws IllegalArgumentException if any of the budgets is not positive
+     */
+    public BreadthFirstExpander(@NotNull final QueryExecutor queryExecutor, final int maxDepth, final int maxNodes) {
+        if (maxDepth <= 0 || maxNodes <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Traversal budgets must be positive: maxDepth=%d, maxNodes=%d", maxDepth, maxNodes)
+            );
+        }
+
+        this.queryExecutor = Objects.requireNonNull(queryExecutor);
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Expands all nodes of a label into the connected component they belong to, within the traversal budgets.
+     * <p>
+     * The traversal runs asynchronously; each level is sent once the previous one has been answered, without holding
+     * any thread in between.
+     *
+     * @param label  The word to expand
+     *
+     * @return a stage that completes with the expanded sub-graph, or with an empty graph if no node has the label
+     */
+    @NotNull
+    public CompletionStage<Graph> expand(@NotNull final String label) {
+        final RequestTrace trace = RequestTrace.current();
+
+        return queryExecutor.executeAsync(CypherStatement.FIND_BY_LABEL, label)
+                .thenCompose(seeds -> new Traversal(label, seeds, trace).expandRemainingLevels());
+    }
+
+    /**
+     * The state of a single traversal.
+     * <p>
+     * The levels of a traversal run one after another, so its state is never accessed concurrently; each level's
+     * completion happens-before the next level starts.
+     */
+    private final class Traversal {
+
+        private final String label;
+        private final RequestTrace trace;
+        private final Map<String, Node> nodes = new HashMap<>();
+        private final Graph.Builder graph = Graph.builder();
+        private final Set<String> visited = new HashSet<>();
+        private Set<String> frontier = new LinkedHashSet<>();
+        private int depth;
+        private boolean truncated;
+
+        /**
+         * Starts a traversal from its seed nodes.
+         *
+         * @param label  The expanded word
+         * @param seeds  The records of all nodes having the label
+         * @param trace  The trace of the request that started the traversal
+         */
+        private Traversal(
+                @NotNull final String label,
+                @NotNull final List<Record> seeds,
+                @NotNull final RequestTrace trace
+        ) {
+            this.label = label;
+            this.trace = trace;
+
+            final long start = System.nanoTime();
+            for (final Record record : seeds) {
+                final Node node = Node.valueOf(record.get("node").asNode());
+                if (nodes.size() < maxNodes && nodes.putIfAbsent(node.getId(), node) == null) {
+                    frontier.add(node.getId());
+                }
+            }
+            trace.addPhase(RequestTrace.Phase.MAPPING, System.nanoTime() - start);
+        }
+
+        /**
+         * Expands the current frontier and all levels beyond it, one round trip per level.
+         *
+         * @return a stage that completes with the sub-graph collected once the traversal is over
+         */
+        @NotNull
+        @SuppressWarnings("try")
+        private CompletionStage<Graph> expandRemainingLevels() {
+            if (frontier.isEmpty() || depth >= maxDepth) {
+                return CompletableFuture.completedFuture(finish());
+            }
+
+            visited.addAll(frontier);
+            try (RequestTrace.Scope ignored = trace.bind()) {
+                return queryExecutor.executeAsync(CypherStatement.EXPAND_FRONTIER, new ArrayList<>(frontier))
+                        .thenCompose(records -> {
+                            visitLevel(records);
+                            return expandRemainingLevels();
+                        });
+            }
+        }
+
+        /**
+         * Collects the neighbors of the current frontier and makes the unvisited ones the next frontier.
+         *
+         * @param records  The records of all links of the current frontier
+         */
+        private void visitLevel(@NotNull final List<Record> records) {
+            final long start = System.nanoTime();
+            final Set<String> nextFrontier = new LinkedHashSet<>();
+            for (final Record record : records) {
+                final Node neighbor = Node.valueOf(record.get("neighbor").asNode());
+
+                if (!nodes.containsKey(neighbor.getId())) {
+                    if (nodes.size() >= maxNodes) {
+                        truncated = true;
+                        continue;
+                    }
+                    nodes.put(neighbor.getId(), neighbor);
+                }
+                if (!visited.contains(neighbor.getId())) {
+                    nextFrontier.add(neighbor.getId());
+                }
+
+                graph.addLink(Link.valueOf(record.get("link").asRelationship()));
+            }
+
+            frontier = nextFrontier;
+            depth++;
+            trace.addPhase(RequestTrace.Phase.MAPPING, System.nanoTime() - start);
+        }
+
+        /**
+         * Ends this traversal.
+         *
+         * @return the collected sub-graph
+         */
+        @NotNull
+        private Graph finish() {
+            if (truncated || !frontier.isEmpty()) {
+                LOG.warn(
+                        "Expansion of '{}' stopped at depth {} with {} nodes; traversal budget is {} hops and {} nodes",
+                        label,
+                        depth,
+                        nodes.size(),
+                        maxDepth,
+                        maxNodes
+                );
+            }
+
+            return graph.addNodes(nodes.values()).build();
+        }
+    }
+}
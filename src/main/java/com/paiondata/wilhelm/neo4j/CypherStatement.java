@@ -0,0 +1,331 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The complete set of Cypher statements bertok sends to Neo4J database.
+ * <p>
+ * Every statement is defined exactly once, and all request-dependent values are passed as
+ * <a href="https://neo4j.com/docs/cypher-manual/current/syntax/parameters/">parameters</a> instead of being formatted
+ * into the query text. The text of a statement therefore never changes, which lets Neo4J plan it once and serve every
+ * subsequent execution from its query plan cache. It also removes the need to escape user input.
+ * <p>
+ * The node and relationship property used as caption in the statements below is
+ * {@link com.paiondata.wilhelm.Node#LABEL_ATTRIBUTE "label"}.
+ */
+@Immutable
+@ThreadSafe
+@SuppressWarnings("MultipleStringLiterals")
+public enum CypherStatement {
+
+    /**
+     * Counts all terms of a language.
+     */
+    COUNT_BY_LANGUAGE(
+            "MATCH (term:Term {language: $language}) RETURN count(*) AS count",
+            "language"
+    ),
+
+    /**
+     * Fetches a page of term-definition pairs of a language by offset.
+     * <p>
+     * Deep pages are slow because all earlier rows are produced and thrown away; prefer
+     * {@link #VOCABULARY_BY_LANGUAGE_AFTER}.
+     */
+    VOCABULARY_BY_LANGUAGE_PAGED(
+            """
+                    MATCH (t:Term WHERE t.language = $language)-[r]->(d:Definition)
+                    RETURN t.label AS term, d.label AS definition
+                    ORDER BY t.label, elementId(r)
+                    SKIP $skip LIMIT $limit
+            """,
+            "language", "skip", "limit"
+    ),
+
+    /**
+     * Fetches a page of term-definition pairs of a language by keyset, i.e. the pairs right after a known one.
+     * <p>
+     * Pairs are ordered by term label and then by the element ID of the term-definition link, which makes the order
+     * total. The range predicate on {@code t.label} is served by the {@link #CREATE_TERM_LANGUAGE_LABEL_INDEX term
+     * index}, so a page costs the same no matter how deep it is. Pass empty strings to start from the first pair.
+     */
+    VOCABULARY_BY_LANGUAGE_AFTER(
+            """
+                    MATCH (t:Term)-[r]->(d:Definition)
+                    WHERE t.language = $language
+                      AND t.label >= $afterTerm
+                      AND (t.label > $afterTerm OR elementId(r) > $afterLink)
+                    RETURN t.label AS term, d.label AS definition, elementId(r) AS link
+                    ORDER BY t.label, elementId(r)
+                    LIMIT $limit
+            """,
+            "language", "afterTerm", "afterLink", "limit"
+    ),
+
+    /**
+     * Creates the composite range index on the language and label of terms that backs keyset pagination.
+     */
+    CREATE_TERM_LANGUAGE_LABEL_INDEX(
+            "CREATE INDEX term_language_label IF NOT EXISTS FOR (t:Term) ON (t.language, t.label)"
+    ),
+
+    /**
+     * Finds the best matching nodes of a Lucene query against the {@link FullTextSearch#INDEX_NAME label full-text
+     * index}, most relevant first.
+     * <p>
+     * The {@link com.paiondata.wilhelm.Node#FOLDED_LABEL_ATTRIBUTE folded label} is left out of the returned nodes.
+     */
+    SEARCH_FULLTEXT(
+            """
+                    CALL db.index.fulltext.queryNodes('label_fulltext', $query)
+                    YIELD node, score
+                    RETURN apoc.map.removeKey(properties(node), 'foldedLabel') AS node, score
+                    ORDER BY score DESC
+                    LIMIT $limit
+            """,
+            "query", "limit"
+    ),
+
+    /**
+     * Creates the {@link FullTextSearch#INDEX_NAME label full-text index} unless it already exists.
+     * <p>
+     * The "standard-folding" analyzer lowercases and ASCII-folds tokens, e.g. "Größe" is indexed as "grosse". As it
+     * leaves other scripts alone, the {@link com.paiondata.wilhelm.Node#FOLDED_LABEL_ATTRIBUTE folded label} is
+     * indexed as well, e.g. "λόγος" is also indexed as "λογος".
+     */
+    CREATE_FULLTEXT_INDEX(
+            """
+                    CREATE FULLTEXT INDEX label_fulltext IF NOT EXISTS
+                    FOR (node:Term|Definition) ON EACH [node.label, node.foldedLabel]
+                    OPTIONS {indexConfig: {`fulltext.analyzer`: 'standard-folding'}}
+            """
+    ),
+
+    /**
+     * Drops the {@link FullTextSearch#INDEX_NAME label full-text index}, e.g. to recreate it on other properties.
+     */
+    DROP_FULLTEXT_INDEX(
+            "DROP INDEX label_fulltext IF EXISTS"
+    ),
+
+    /**
+     * Blocks until an index is online, or fails after a timeout.
+     */
+    AWAIT_INDEX(
+            "CALL db.awaitIndex($name, $timeoutSeconds)",
+            "name", "timeoutSeconds"
+    ),
+
+    /**
+     * Describes the state, analyzer, and indexed properties of a full-text index.
+     */
+    DESCRIBE_FULLTEXT_INDEX(
+            """
+                    SHOW FULLTEXT INDEXES
+                    YIELD name, state, options, properties
+                    WHERE name = $name
+                    RETURN state, options.indexConfig['fulltext.analyzer'] AS analyzer, properties
+            """,
+            "name"
+    ),
+
+    /**
+     * Lists the label and the current folded label of all terms and definitions.
+     */
+    FIND_LABELS(
+            """
+                    MATCH (node:Term|Definition)
+                    WHERE node.label IS NOT NULL
+                    RETURN elementId(node) AS id, toString(node.label) AS label, node.foldedLabel AS foldedLabel
+            """
+    ),
+
+    /**
+     * Stores the folded labels of a list of {@code {id, foldedLabel}} maps on their nodes.
+     */
+    SET_FOLDED_LABELS(
+            """
+                    UNWIND $labels AS folded
+                    MATCH (node)
+                    WHERE elementId(node) = folded.id
+                    SET node.foldedLabel = folded.foldedLabel
+            """,
+            "labels"
+    ),
+
+    /**
+     * Expands all paths of at most {@code maxHops} links starting from the node of a label using APOC.
+     */
+    EXPAND_APOC(
+            """
+                    MATCH (node {label: $label})
+                    CALL apoc.path.expand(node, "LINK", null, 1, $maxHops)
+                    YIELD path
+                    RETURN path, length(path) AS hops
+                    ORDER BY hops
+            """,
+            "label", "maxHops"
+    ),
+
+    /**
+     * Expands the paths of many labels at once, like {@link #EXPAND_APOC} does for a single one.
+     * <p>
+     * Each record holds a path and the label it was expanded from, so the paths can be told apart by label.
+     */
+    EXPAND_APOC_BATCH(
+            """
+                    UNWIND $labels AS label
+                    MATCH (node {label: label})
+                    CALL apoc.path.expand(node, "LINK", null, 1, $maxHops)
+                    YIELD path
+                    RETURN label, path
+            """,
+            "labels", "maxHops"
+    ),
+
+    /**
+     * Returns each distinct node of the paths {@link #EXPAND_APOC} expands, one per record.
+     * <p>
+     * Together with {@link #EXPAND_APOC_LINKS}, this lets an expansion be streamed without the client deduplicating
+     * paths; the price is that Neo4J expands the paths twice.
+     */
+    EXPAND_APOC_NODES(
+            """
+                    MATCH (start {label: $label})
+                    CALL apoc.path.expand(start, "LINK", null, 1, $maxHops)
+                    YIELD path
+                    UNWIND nodes(path) AS node
+                    RETURN DISTINCT node
+            """,
+            "label", "maxHops"
+    ),
+
+    /**
+     * Returns each distinct link of the paths {@link #EXPAND_APOC} expands, one per record.
+     */
+    EXPAND_APOC_LINKS(
+            """
+                    MATCH (start {label: $label})
+                    CALL apoc.path.expand(start, "LINK", null, 1, $maxHops)
+                    YIELD path
+                    UNWIND relationships(path) AS link
+                    RETURN DISTINCT link
+            """,
+            "label", "maxHops"
+    ),
+
+    /**
+     * Finds all nodes of a label; this is the first frontier of a breadth-first traversal.
+     */
+    FIND_BY_LABEL(
+            "MATCH (node {label: $label}) RETURN node",
+            "label"
+    ),
+
+    /**
+     * Expands a whole BFS frontier, identified by node element IDs, by one hop in a single round trip.
+     * <p>
+     * Links are matched regardless of their direction. Each record holds a frontier node, one of its links, and the
+     * node at the other end of that link.
+     */
+    EXPAND_FRONTIER(
+            """
+                    UNWIND $ids AS id
+                    MATCH (node) WHERE elementId(node) = id
+                    MATCH (node)-[link:LINK]-(neighbor)
+                    RETURN node, link, neighbor
+            """,
+            "ids"
+    ),
+
+    /**
+     * Returns every node of the vocabulary, one per record; this is the first half of an in-memory snapshot.
+     */
+    SNAPSHOT_NODES(
+            "MATCH (node) RETURN node"
+    ),
+
+    /**
+     * Returns every link of the vocabulary, one per record; this is the second half of an in-memory snapshot.
+     */
+    SNAPSHOT_LINKS(
+            "MATCH ()-[link:LINK]->() RETURN link"
+    );
+
+    private final String text;
+    private final List<String> parameterNames;
+
+    /**
+     * All-args constructor.
+     *
+     * @param text  The Cypher query text with {@code $parameter} placeholders
+     * @param parameterNames  The names of all parameters referenced in {@code text}, in binding order
+     */
+    CypherStatement(@NotNull final String text, @NotNull final String... parameterNames) {
+        this.text = text;
+        this.parameterNames = List.of(parameterNames);
+    }
+
+    /**
+     * Binds a list of argument values to the parameters of this statement, by position.
+     *
+     * @param arguments  The parameter values, in the order of {@link #getParameterNames()}
+     *
+     * @return an unmodifiable map from parameter name to value
+     *
+     * @throws IllegalArgumentException if the number of arguments does not match the number of parameters
+     */
+    @NotNull
+    public Map<String, Object> bind(@NotNull final Object... arguments) {
+        if (arguments.length != parameterNames.size()) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "%s expects parameters %s but got %s",
+                            name(),
+                            parameterNames,
+                            Arrays.toString(arguments)
+                    )
+            );
+        }
+
+        final Map<String, Object> parameters = new HashMap<>(parameterNames.size());
+        for (int i = 0; i < arguments.length; i++) {
+            parameters.put(parameterNames.get(i), arguments[i]);
+        }
+
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @NotNull
+    public String getText() {
+        return text;
+    }
+
+    @NotNull
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.neo4j.driver.Value;
+import com.paiondata.wilhelm.Graph;
+import com.paiondata.wilhelm.Link;
+import com.paiondata.wilhelm.Node;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.tracing.RequestTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The query path of APOC expansions, which coalesces concurrent single-word expansions into batch queries.
+ * <p>
+ * At peak, many {@code /expandApoc/{word}} requests of different words are in flight at the same time, each costing a
+ * Neo4J round trip of its own. Instead, an expansion waits for at most a short {@link #getWindow() window} for other
+ * expansions with the same max hops; all words collected by then, or as soon as
+ * {@link ApplicationConfig#expandCoalescingMaxBatchSize() enough of them} have arrived, are expanded by a single
+ * {@link CypherStatement#EXPAND_APOC_BATCH UNWIND query} whose paths are split back by word. Concurrent expansions of
+ * the same word in a window share one result. A batch of a single word is sent as a plain
+ * {@link CypherStatement#EXPAND_APOC} query, and a zero window disables coalescing altogether.
+ * <p>
+ * The number of distinct words of each batch is recorded in the {@value #BATCH_SIZE_METRIC} distribution summary, and
+ * the time each expansion waited for its batch to be sent in the {@value #DELAY_METRIC} timer; together they show
+ * whether the window pays for itself.
+ * <p>
+ * A batch query is added to the {@link RequestTrace trace} of the first expansion of the batch; the round trip is
+ * added to the {@link RequestTrace.Phase#NEO4J} phase of all other expansions it answered.
+ */
+@Singleton
+@ThreadSafe
+public class ExpansionCoalescer {
+
+    /**
+     * The name of the distribution summary of the number of distinct words per query sent.
+     */
+    public static final String BATCH_SIZE_METRIC = "expand.coalescing.batch.size";
+
+    /**
+     * The name of the timer of the latency coalescing adds to each expansion.
+     */
+    public static final String DELAY_METRIC = "expand.coalescing.delay";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExpansionCoalescer.class);
+
+    private final QueryExecutor queryExecutor;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Executor delayedExecutor;
+    private final DistributionSummary batchSizes;
+    private final Timer delays;
+
+    @GuardedBy("this")
+    private final Map<Integer, Batch> pendingBatches = new HashMap<>();
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * The window and the batch size are loaded from {@link ApplicationConfig#expandCoalescingWindowMillis()} and
+     * {@link ApplicationConfig#expandCoalescingMaxBatchSize()}.
+     *
+     * @param queryExecutor  The runner of the expansion statements
+     * @param meterRegistry  The application-scoped registry the batch sizes and delays are recorded in
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    @Inject
+    public ExpansionCoalescer(@NotNull final QueryExecutor queryExecutor, @NotNull final MeterRegistry meterRegistry) {
+        this(
+                queryExecutor,
+                Duration.ofMillis(ConfigFactory.create(ApplicationConfig.class).expandCoalescingWindowMillis()),
+                ConfigFactory.create(ApplicationConfig.class).expandCoalescingMaxBatchSize(),
+                meterRegistry
+        );
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param queryExecutor  The runner of the expansion statements
+     * @param window  The maximum time an expansion waits for others to be batched with; zero disables coalescing
+     * @param maxBatchSize  The number of distinct words at which a batch is sent without waiting for its window to end
+     * @param meterRegistry  The registry the batch sizes and delays are recorded in
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if {@code window} is negative or {@code maxBatchSize} is not positive
+     */
+    public ExpansionCoalescer(
+            @NotNull final QueryExecutor queryExecutor,
+            @NotNull final Duration window,
+            final int maxBatchSize,
+            @NotNull final MeterRegistry meterRegistry
+    ) {
+        if (window.isNegative() || maxBatchSize <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Coalescing window must not be negative and batch size must be positive: window=%s, "
+                            + "maxBatchSize=%d",
+                    window,
+                    maxBatchSize
+            ));
+        }
+
+        this.queryExecutor = Objects.requireNonNull(queryExecutor);
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.delayedExecutor = CompletableFuture.delayedExecutor(window.toNanos(), TimeUnit.NANOSECONDS);
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC)
+                .description("Number of distinct words expanded by a single coalesced query")
+                .publishPercentileHistogram()
+                .register(Objects.requireNonNull(meterRegistry));
+        this.delays = Timer.builder(DELAY_METRIC)
+                .description("Time an expansion waited for its coalesced query to be sent")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the maximum time an expansion waits for others to be batched with.
+     *
+     * @return a non-negative duration, which is zero if coalescing is disabled
+     */
+    @NotNull
+    public Duration getWindow() {
+        return window;
+    }
+
+    /**
+     * Expands all paths of at most {@code maxHops} links starting from the nodes of a word, together with any other
+     * word expanded by the same max hops within the window.
+     *
+     * @param word  The word to expand
+     * @param maxHops  The max length of expanded path, or -1 for unlimitedly long path
+     *
+     * @return a stage that completes with the expanded sub-graph, or with the failure of the query it was sent with
+     */
+    @NotNull
+    public CompletionStage<Graph> expand(@NotNull final String word, final int maxHops) {
+        if (window.isZero() || maxBatchSize == 1) {
+            return expandOne(word, maxHops);
+        }
+
+        final Waiter waiter = new Waiter(RequestTrace.current());
+        final Batch full;
+        synchronized (this) {
+            final Batch batch = pendingBatches.computeIfAbsent(maxHops, hops -> {
+                final Batch created = new Batch(hops);
+                delayedExecutor.execute(() -> flush(created));
+                return created;
+            });
+            batch.add(word, waiter);
+            full = batch.size() >= maxBatchSize ? pendingBatches.remove(maxHops) : null;
+        }
+
+        if (full != null) {
+            send(full);
+        }
+        return waiter.result;
+    }
+
+    /**
+     * Expands many words with a single query right away, without coalescing.
+     *
+     * @param words  The distinct words to expand
+     * @param maxHops  The max length of expanded path, or -1 for unlimitedly long path
+     *
+     * @return a stage that completes with the expanded sub-graph of each word, in the order of {@code words}
+     */
+    @NotNull
+    public CompletionStage<Map<String, Graph>> expandAll(@NotNull final List<String> words, final int maxHops) {
+        LOG.info("apoc expanding {} words with max hops of {}", words.size(), maxHops);
+
+        final RequestTrace trace = RequestTrace.current();
+        return queryExecutor.executeAsync(CypherStatement.EXPAND_APOC_BATCH, words, maxHops).thenApply(records -> {
+            final long start = System.nanoTime();
+            final Map<String, Graph.Builder> builders = new LinkedHashMap<>();
+            words.forEach(word -> builders.put(word, Graph.builder()));
+
+            records.forEach(record -> addPath(
+                    builders.computeIfAbsent(record.get("label").asString(), ignored -> Graph.builder()),
+                    record.get("path")
+            ));
+
+            final Map<String, Graph> graphs = new LinkedHashMap<>();
+            builders.forEach((word, graph) -> graphs.put(word, graph.build()));
+            trace.addPhase(RequestTrace.Phase.MAPPING, System.nanoTime() - start);
+            return graphs;
+        });
+    }
+
+    /**
+     * Expands a single word with its own query.
+     *
+     * @param word  The word to expand
+     * @param maxHops  The max length of expanded path, or -1 for unlimitedly long path
+     *
+     * @return a stage that completes with the expanded sub-graph
+     */
+    @NotNull
+    private CompletionStage<Graph> expandOne(@NotNull final String word, final int maxHops) {
+        LOG.info("apoc expanding '{}' with max hops of {}", word, maxHops);
+
+        final RequestTrace trace = RequestTrace.current();
+        return queryExecutor.executeAsync(CypherStatement.EXPAND_APOC, word, maxHops).thenApply(records -> {
+            final long start = System.nanoTime();
+            final Graph.Builder graph = Graph.builder();
+
+            records.forEach(record -> addPath(graph, record.get("path")));
+
+            final Graph expanded = graph.build();
+            trace.addPhase(RequestTrace.Phase.MAPPING, System.nanoTime() - start);
+            return expanded;
+        });
+    }
+
+    /**
+     * Sends a batch once its window has ended, unless it has already been sent because it was full.
+     *
+     * @param batch  The batch whose window has ended
+     */
+    private void flush(@NotNull final Batch batch) {
+        final boolean pending;
+        synchronized (this) {
+            pending = pendingBatches.remove(batch.maxHops, batch);
+        }
+
+        if (pending) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Expands all words of a batch and hands each waiting expansion its sub-graph.
+     *
+     * @param batch  The batch, which no longer accepts words
+     */
+    @SuppressWarnings("try")
+    private void send(@NotNull final Batch batch) {
+        final long sentAt = System.nanoTime();
+        final List<String> words = new ArrayList<>(batch.waiters.keySet());
+        final Waiter first = batch.waiters.get(words.get(0)).get(0);
+        batch.waiters.values().forEach(waiters -> waiters.forEach(
+                waiter -> delays.record(sentAt - waiter.enqueuedAt, TimeUnit.NANOSECONDS)
+        ));
+        batchSizes.record(words.size());
+
+        CompletionStage<Map<String, Graph>> expanded;
+        try (RequestTrace.Scope ignored = first.trace.bind()) {
+            expanded = words.size() == 1
+                    ? expandOne(words.get(0), batch.maxHops).thenApply(graph -> Map.of(words.get(0), graph))
+                    : expandAll(words, batch.maxHops);
+        } catch (final RuntimeException exception) {
+            expanded = CompletableFuture.failedFuture(exception);
+        }
+
+        expanded.whenComplete((graphs, error) -> {
+            final long elapsed = System.nanoTime() - sentAt;
+            batch.waiters.forEach((word, waiters) -> waiters.forEach(waiter -> {
+                if (waiter != first) {
+                    waiter.trace.addPhase(RequestTrace.Phase.NEO4J, elapsed);
+                }
+                if (error == null) {
+                    waiter.result.complete(graphs.get(word));
+                } else {
+                    waiter.result.completeExceptionally(error);
+                }
+            }));
+        });
+    }
+
+    /**
+     * Adds the nodes and links of a path to a graph.
+     *
+     * @param graph  The graph to add to
+     * @param path  A path value returned by Neo4J
+     */
+    private static void addPath(@NotNull final Graph.Builder graph, @NotNull final Value path) {
+        path.asPath().nodes().forEach(node -> graph.addNode(Node.valueOf(node)));
+        path.asPath().relationships().forEach(relationship -> graph.addLink(Link.valueOf(relationship)));
+    }
+
+    /**
+     * The words of the same max hops collected within one window.
+     * <p>
+     * A batch is only modified while it is pending, under the lock of its coalescer; once removed from the pending
+     * batches, it is only read.
+     */
+    private static final class Batch {
+
+        private final int maxHops;
+        private final Map<String, List<Waiter>> waiters = new LinkedHashMap<>();
+
+        /**
+         * Constructor.
+         *
+         * @param maxHops  The max hops shared by all words of the batch
+         */
+        private Batch(final int maxHops) {
+            this.maxHops = maxHops;
+        }
+
+        /**
+         * Adds an expansion of a word to this batch.
+         *
+         * @param word  The word to expand
+         * @param waiter  The expansion waiting for the sub-graph of the word
+         */
+        private void add(@NotNull final String word, @NotNull final Waiter waiter) {
+            waiters.computeIfAbsent(word, ignored -> new ArrayList<>()).add(waiter);
+        }
+
+        /**
+         * Returns the number of distinct words of this batch.
+         *
+         * @return a positive integer
+         */
+        private int size() {
+            return waiters.size();
+        }
+    }
+
+    /**
+     * A single expansion waiting for its batch.
+     */
+    private static final class Waiter {
+
+        private final RequestTrace trace;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Graph> result = new CompletableFuture<>();
+
+        /**
+         * Constructor.
+         *
+         * @param trace  The trace of the request that expands
+         */
+        private Waiter(@NotNull final RequestTrace trace) {
+            this.trace = trace;
+        }
+    }
+}
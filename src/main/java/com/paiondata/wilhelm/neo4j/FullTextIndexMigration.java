@@ -0,0 +1,139 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Record;
+import com.paiondata.wilhelm.Node;
+import com.paiondata.wilhelm.application.Neo4JDriverFactory;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The command that prepares the vocabulary in Neo4J for {@link FullTextSearch}.
+ * <p>
+ * It recreates the {@link FullTextSearch#INDEX_NAME label full-text index} if the index predates the
+ * {@link Node#FOLDED_LABEL_ATTRIBUTE folded label}, and stores the {@link FullTextSearch#fold(String) folded} label of
+ * every term and definition whose folded label is missing or stale. It connects to Neo4J with the same
+ * {@link ApplicationConfig environment variables} as the webservice and is meant to be run once after each load of the
+ * vocabulary, by the job that loads it:
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.paiondata.wilhelm.neo4j.FullTextIndexMigration
+ * </pre>
+ * The webservice itself never writes folded labels.
+ */
+@Immutable
+@ThreadSafe
+public final class FullTextIndexMigration {
+
+    /**
+     * The maximum number of labels folded by a single statement.
+     */
+    static final int FOLD_BATCH_SIZE = 1000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(FullTextIndexMigration.class);
+
+    /**
+     * Constructor.
+     * <p>
+     * Suppress default constructor for noninstantiability.
+     *
+     * @throws AssertionError when called
+     */
+    private FullTextIndexMigration() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Migrates the full-text index and the folded labels.
+     *
+     * @param args  Ignored
+     */
+    public static void main(@NotNull final String[] args) {
+        final ApplicationConfig applicationConfig = ConfigFactory.create(ApplicationConfig.class);
+
+        final Neo4JDriverFactory driverFactory = new Neo4JDriverFactory(applicationConfig);
+        final Driver driver = driverFactory.provide();
+        try {
+            final QueryExecutor queryExecutor = new QueryExecutor(driver, applicationConfig.neo4jDatabase());
+            migrate(
+                    queryExecutor,
+                    new FullTextSearch(queryExecutor, applicationConfig.searchIndexAwaitTimeoutSeconds())
+            );
+        } finally {
+            driverFactory.dispose(driver);
+        }
+    }
+
+    /**
+     * Recreates the label full-text index if it does not index folded labels yet, and folds all labels.
+     *
+     * @param queryExecutor  The runner of the index and folding statements
+     * @param fullTextSearch  The search engine whose index is migrated
+     *
+     * @return the number of labels folded
+     *
+     * @throws IllegalStateException if the index cannot be found after being created
+     */
+    static int migrate(@NotNull final QueryExecutor queryExecutor, @NotNull final FullTextSearch fullTextSearch) {
+        if (!FullTextSearch.indexesFoldedLabels(fullTextSearch.createIndex())) {
+            LOG.info("Recreating full-text index '{}' on folded labels", FullTextSearch.INDEX_NAME);
+            queryExecutor.execute(CypherStatement.DROP_FULLTEXT_INDEX);
+            fullTextSearch.createIndex();
+        }
+
+        final int folded = foldLabels(queryExecutor);
+        LOG.info("Folded {} labels", folded);
+        return folded;
+    }
+
+    /**
+     * Stores the folded label of every term and definition whose folded label is missing or no longer matches its
+     * label, in batches of {@link #FOLD_BATCH_SIZE}.
+     *
+     * @param queryExecutor  The runner of the folding statements
+     *
+     * @return the number of labels folded
+     */
+    static int foldLabels(@NotNull final QueryExecutor queryExecutor) {
+        final List<Map<String, String>> stale = new ArrayList<>();
+        for (final Record record : queryExecutor.execute(CypherStatement.FIND_LABELS).records()) {
+            final String foldedLabel = FullTextSearch.fold(record.get("label").asString());
+            if (!foldedLabel.equals(record.get("foldedLabel").asString(null))) {
+                stale.add(Map.of("id", record.get("id").asString(), Node.FOLDED_LABEL_ATTRIBUTE, foldedLabel));
+            }
+        }
+
+        for (int from = 0; from < stale.size(); from += FOLD_BATCH_SIZE) {
+            queryExecutor.execute(
+                    CypherStatement.SET_FOLDED_LABELS,
+                    stale.subList(from, Math.min(from + FOLD_BATCH_SIZE, stale.size()))
+            );
+        }
+
+        return stale.size();
+    }
+}
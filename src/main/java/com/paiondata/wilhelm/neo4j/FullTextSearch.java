@@ -0,0 +1,236 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import com.paiondata.wilhelm.Node;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A keyword search engine backed by a Neo4J full-text (Lucene) index on the
+ * {@link com.paiondata.wilhelm.Node#LABEL_ATTRIBUTE label} and the
+ * {@link com.paiondata.wilhelm.Node#FOLDED_LABEL_ATTRIBUTE folded label} of all terms and definitions.
+ * <p>
+ * Each whitespace-separated token of a keyword is matched as a whole word, as a prefix, and as an infix, with whole
+ * word matches ranked above prefix matches and prefix matches above infix matches. All tokens must match.
+ * <p>
+ * Diacritics are handled by folding: the index uses the {@value #ANALYZER} analyzer and every token is also searched in
+ * its folded form, so "grosse", "große" and "Größe" find each other, and so do "rosa" and "rosā". Lucene's folding
+ * covers the Latin script only, so every label is also folded by {@link #fold(String)}, the same folding as that of the
+ * query, into the indexed folded label, with which "λογος" and "λόγος" find each other as well. Folded labels are
+ * written by the offline {@link FullTextIndexMigration}, never by the webservice.
+ */
+@Singleton
+@Immutable
+@ThreadSafe
+public class FullTextSearch {
+
+    /**
+     * The name of the label full-text index.
+     */
+    public static final String INDEX_NAME = "label_fulltext";
+
+    /**
+     * The Lucene analyzer of the label full-text index.
+     */
+    public static final String ANALYZER = "standard-folding";
+
+    private static final Logger LOG = LoggerFactory.getLogger(FullTextSearch.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern LUCENE_SPECIAL_CHARACTERS = Pattern.compile("([+\\-&|!(){}\\[\\]^\"~*?:\\\\/])");
+
+    private final QueryExecutor queryExecutor;
+    private final long awaitTimeoutSeconds;
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * The index await timeout is loaded from {@link ApplicationConfig#searchIndexAwaitTimeoutSeconds()}.
+     *
+     * @param queryExecutor  The runner of the search and index statements
+     *
+     * @throws NullPointerException if {@code queryExecutor} is {@code null}
+     */
+    @Inject
+    public FullTextSearch(@NotNull final QueryExecutor queryExecutor) {
+        this(queryExecutor, ConfigFactory.create(ApplicationConfig.class).searchIndexAwaitTimeoutSeconds());
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param queryExecutor  The runner of the search and index statements
+     * @param awaitTimeoutSeconds  The maximum amount of time, in seconds, to wait for the index to come online
+     *
+     * @throws NullPointerException if {@code queryExecutor} is {@code null}
+     */
+    public FullTextSearch(@NotNull final QueryExecutor queryExecutor, final long awaitTimeoutSeconds) {
+        this.queryExecutor = Objects.requireNonNull(queryExecutor);
+        this.awaitTimeoutSeconds = awaitTimeoutSeconds;
+    }
+
+    /**
+     * Creates the label full-text index if it does not exist yet, waits for it to come online, and verifies its
+     * analyzer and properties.
+     * <p>
+     * This is meant to be called once at application startup. It never drops the index or writes folded labels; an
+     * index that does not cover folded labels yet is only reported, to be recreated by {@link FullTextIndexMigration}.
+     *
+     * @throws IllegalStateException if the index cannot be found after being created
+     */
+    public void ensureIndex() {
+        final Record description = createIndex();
+
+        final String analyzer = description.get("analyzer").asString(null);
+        if (!ANALYZER.equals(analyzer)) {
+            LOG.warn(
+                    "Full-text index '{}' uses analyzer '{}' instead of '{}'; diacritic-insensitive search is degraded",
+                    INDEX_NAME,
+                    analyzer,
+                    ANALYZER
+            );
+        }
+        if (!indexesFoldedLabels(description)) {
+            LOG.warn(
+                    "Full-text index '{}' does not index folded labels; run {} to recreate it",
+                    INDEX_NAME,
+                    FullTextIndexMigration.class.getSimpleName()
+            );
+        }
+
+        LOG.info("Full-text index '{}' is {}", INDEX_NAME, description.get("state").asString());
+    }
+
+    /**
+     * Creates the label full-text index if it does not exist yet and waits for it to come online.
+     *
+     * @return the description of the index, as returned by {@link CypherStatement#DESCRIBE_FULLTEXT_INDEX}
+     *
+     * @throws IllegalStateException if the index cannot be found after being created
+     */
+    @NotNull
+    Record createIndex() {
+        queryExecutor.execute(CypherStatement.CREATE_FULLTEXT_INDEX);
+        queryExecutor.execute(CypherStatement.AWAIT_INDEX, INDEX_NAME, awaitTimeoutSeconds);
+
+        return queryExecutor.execute(CypherStatement.DESCRIBE_FULLTEXT_INDEX, INDEX_NAME)
+                .records()
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        String.format("Full-text index '%s' is missing after creation", INDEX_NAME)
+                ));
+    }
+
+    /**
+     * Returns whether or not a full-text index covers the {@link Node#FOLDED_LABEL_ATTRIBUTE folded label}.
+     *
+     * @param description  The description of the index, as returned by {@link CypherStatement#DESCRIBE_FULLTEXT_INDEX}
+     *
+     * @return {@code true} if folded labels are indexed or {@code false} if the index predates them
+     */
+    static boolean indexesFoldedLabels(@NotNull final Record description) {
+        return description.get("properties").asList(Value::asString).contains(Node.FOLDED_LABEL_ATTRIBUTE);
+    }
+
+    /**
+     * Finds the nodes whose label best matches a keyword.
+     *
+     * @param keyword  The user-provided keyword; it is not interpreted as a Lucene query
+     * @param limit  The maximum number of results
+     *
+     * @return a stage that completes with records of {@code node} and its relevance {@code score}, most relevant first
+     */
+    @NotNull
+    public CompletionStage<List<Record>> search(@NotNull final String keyword, final int limit) {
+        return queryExecutor.executeAsync(CypherStatement.SEARCH_FULLTEXT, toLuceneQuery(keyword), limit);
+    }
+
+    /**
+     * Translates a user-provided keyword into a ranked Lucene query of whole word, prefix, and infix matches.
+     * <p>
+     * For example, "Größe" becomes
+     * {@code (größe^4 OR größe*^2 OR *größe* OR grosse^4 OR grosse*^2 OR *grosse*)}.
+     *
+     * @param keyword  The user-provided keyword
+     *
+     * @return a Lucene query string, or an empty string if the keyword has no tokens
+     */
+    @NotNull
+    static String toLuceneQuery(@NotNull final String keyword) {
+        return Arrays.stream(WHITESPACE.split(keyword.strip()))
+                .filter(token -> !token.isEmpty())
+                .map(token -> {
+                    final Set<String> forms = new LinkedHashSet<>();
+                    forms.add(escape(token.toLowerCase(Locale.ENGLISH)));
+                    forms.add(escape(fold(token)));
+
+                    return forms.stream()
+                            .map(form -> String.format("%s^4 OR %s*^2 OR *%s*", form, form, form))
+                            .collect(Collectors.joining(" OR ", "(", ")"));
+                })
+                .collect(Collectors.joining(" AND "));
+    }
+
+    /**
+     * Lowercases a token and strips all its diacritics the way an ASCII-folding analyzer does for the Latin script, and
+     * for all other scripts as well.
+     *
+     * @param token  The token to fold
+     *
+     * @return a lowercase token without combining marks
+     */
+    @NotNull
+    static String fold(@NotNull final String token) {
+        return COMBINING_MARKS.matcher(Normalizer.normalize(token.toLowerCase(Locale.ENGLISH), Normalizer.Form.NFD))
+                .replaceAll("")
+                .replace("ß", "ss");
+    }
+
+    /**
+     * Escapes all characters with special meaning in the Lucene query syntax.
+     *
+     * @param token  The token to escape
+     *
+     * @return a token that is matched literally
+     */
+    @NotNull
+    private static String escape(@NotNull final String token) {
+        return LUCENE_SPECIAL_CHARACTERS.matcher(token).replaceAll("\\\\$1");
+    }
+}
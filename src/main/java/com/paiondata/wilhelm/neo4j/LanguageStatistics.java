@@ -0,0 +1,280 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.neo4j.driver.Record;
+import com.paiondata.wilhelm.Language;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precomputed statistics of the vocabulary, served from memory instead of being counted on every request.
+ * <p>
+ * The number of terms of each {@link Language} only changes when the vocabulary is reloaded, so it is counted once at
+ * {@link #start() startup} and then refreshed on a configurable schedule or on demand. Each language is refreshed on
+ * its own, so a single language can be recounted after its part of the vocabulary changed. Concurrent refreshes of
+ * the same language share one query.
+ * <p>
+ * A failed refresh keeps the previous count; every count carries the time it was taken so that callers can tell how
+ * stale it is.
+ */
+@Singleton
+@ThreadSafe
+public class LanguageStatistics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LanguageStatistics.class);
+
+    private final QueryExecutor queryExecutor;
+    private final Duration refreshInterval;
+    private final Clock clock;
+    private final ConcurrentMap<Language, TermCount> counts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Language, CompletableFuture<TermCount>> pendingRefreshes = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * The refresh interval is loaded from {@link ApplicationConfig#statisticsRefreshIntervalSeconds()}.
+     *
+     * @param queryExecutor  The runner of the counting statements
+     *
+     * @throws NullPointerException if {@code queryExecutor} is {@code null}
+     */
+    @Inject
+    public LanguageStatistics(@NotNull final QueryExecutor queryExecutor) {
+        this(
+                queryExecutor,
+                Duration.ofSeconds(ConfigFactory.create(ApplicationConfig.class).statisticsRefreshIntervalSeconds()),
+                Clock.systemUTC()
+        );
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param queryExecutor  The runner of the counting statements
+     * @param refreshInterval  The time between two scheduled refreshes of all languages; zero or negative disables
+     * scheduled refreshes
+     * @param clock  The source of the time at which counts are taken
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public LanguageStatistics(
+            @NotNull final QueryExecutor queryExecutor,
+            @NotNull final Duration refreshInterval,
+            @NotNull final Clock clock
+    ) {
+        this.queryExecutor = Objects.requireNonNull(queryExecutor);
+        this.refreshInterval = Objects.requireNonNull(refreshInterval);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Counts the terms of all languages and schedules their periodic refresh.
+     * <p>
+     * This is meant to be called once at application startup. It does not wait for the counts; a language that is
+     * requested before its first count completes waits for that count instead.
+     */
+    public synchronized void start() {
+        refresh(List.of(Language.values()));
+
+        if (scheduler == null && !refreshInterval.isZero() && !refreshInterval.isNegative()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "language-statistics-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(
+                    () -> refresh(List.of(Language.values())),
+                    refreshInterval.toMillis(),
+                    refreshInterval.toMillis(),
+                    TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Cancels the scheduled refreshes.
+     * <p>
+     * This is meant to be called once at application shutdown.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Returns the number of terms of a language.
+     *
+     * @param language  The language of interest
+     *
+     * @return a stage that completes with the last count taken, right away if there is one, or with the first count
+     * once it has been taken
+     */
+    @NotNull
+    public CompletionStage<TermCount> getCount(@NotNull final Language language) {
+        final TermCount count = counts.get(language);
+        return count == null ? refresh(language) : CompletableFuture.completedFuture(count);
+    }
+
+    /**
+     * Recounts the terms of some languages.
+     *
+     * @param languages  The languages to recount
+     *
+     * @return a stage that completes with the new count of each language, or with the first failure
+     */
+    @NotNull
+    public CompletionStage<Map<Language, TermCount>> refresh(@NotNull final Collection<Language> languages) {
+        final Map<Language, CompletableFuture<TermCount>> refreshes = new EnumMap<>(Language.class);
+        languages.forEach(language -> refreshes.put(language, refresh(language)));
+
+        return CompletableFuture.allOf(refreshes.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    final Map<Language, TermCount> refreshed = new EnumMap<>(Language.class);
+                    refreshes.forEach((language, refresh) -> refreshed.put(language, refresh.join()));
+                    return refreshed;
+                });
+    }
+
+    /**
+     * Recounts the terms of a language, joining the recount that is already running, if any.
+     *
+     * @param language  The language to recount
+     *
+     * @return a future that completes with the new count, or with the failure of the recount
+     */
+    @NotNull
+    private CompletableFuture<TermCount> refresh(@NotNull final Language language) {
+        final CompletableFuture<TermCount> created = new CompletableFuture<>();
+        final CompletableFuture<TermCount> pending = pendingRefreshes.putIfAbsent(language, created);
+        if (pending != null) {
+            return pending;
+        }
+
+        // composing instead of calling directly also turns a synchronous failure into a failed refresh
+        CompletableFuture.completedFuture(language.getDatabaseName())
+                .thenCompose(name -> queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, name))
+                .whenComplete((records, error) -> {
+                    pendingRefreshes.remove(language, created);
+
+                    if (error != null) {
+                        LOG.warn("Unable to count the terms of {}; keeping {}", language, counts.get(language), error);
+                        created.completeExceptionally(error);
+                        return;
+                    }
+
+                    final TermCount count = new TermCount(toCount(records), clock.instant());
+                    counts.put(language, count);
+                    created.complete(count);
+                });
+
+        return created;
+    }
+
+    /**
+     * Extracts the count out of the result of {@link CypherStatement#COUNT_BY_LANGUAGE}.
+     *
+     * @param records  The records of the counting statement
+     *
+     * @return the count, or {@code 0} if there are no records
+     */
+    private static long toCount(@NotNull final List<Record> records) {
+        return records.isEmpty() ? 0 : records.get(0).get("count").asLong();
+    }
+
+    /**
+     * The number of terms of a language at a point in time.
+     */
+    @Immutable
+    @ThreadSafe
+    public static final class TermCount {
+
+        private final long count;
+        private final Instant takenAt;
+
+        /**
+         * All-args constructor.
+         *
+         * @param count  The number of terms
+         * @param takenAt  The time at which the terms were counted
+         *
+         * @throws NullPointerException if {@code takenAt} is {@code null}
+         */
+        public TermCount(final long count, @NotNull final Instant takenAt) {
+            this.count = count;
+            this.takenAt = Objects.requireNonNull(takenAt);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @NotNull
+        public Instant getTakenAt() {
+            return takenAt;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof TermCount)) {
+                return false;
+            }
+
+            final TermCount that = (TermCount) other;
+            return count == that.count && takenAt.equals(that.takenAt);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, takenAt);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d terms counted at %s", count, takenAt);
+        }
+    }
+}
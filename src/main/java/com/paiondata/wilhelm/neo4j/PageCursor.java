@@ -0,0 +1,148 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * The position of a term-definition pair in the total order used by
+ * {@link CypherStatement#VOCABULARY_BY_LANGUAGE_AFTER keyset pagination}.
+ * <p>
+ * A cursor is handed to clients {@link #encode() encoded} as an opaque URL-safe string so that the ordering key can
+ * change without breaking the API contract.
+ */
+@Immutable
+@ThreadSafe
+@SuppressWarnings("ClassCanBeRecord")
+public final class PageCursor {
+
+    /**
+     * The position before the very first pair.
+     */
+    public static final PageCursor FIRST = new PageCursor("", "");
+
+    private static final char LENGTH_DELIMITER = ':';
+
+    private final String term;
+    private final String link;
+
+    /**
+     * All-args constructor.
+     *
+     * @param term  The label of the term of the last pair seen
+     * @param link  The element ID of the link between the term and the definition of the last pair seen
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public PageCursor(@NotNull final String term, @NotNull final String link) {
+        this.term = Objects.requireNonNull(term);
+        this.link = Objects.requireNonNull(link);
+    }
+
+    /**
+     * Restores a cursor from its {@link #encode() opaque representation}.
+     *
+     * @param encoded  A string previously returned by {@link #encode()}
+     *
+     * @return a new instance
+     *
+     * @throws IllegalArgumentException if {@code encoded} is not a valid cursor
+     */
+    @NotNull
+    public static PageCursor decode(@NotNull final String encoded) {
+        final String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        } catch (final IllegalArgumentException exception) {
+            throw invalid(encoded);
+        }
+
+        final int delimiter = decoded.indexOf(LENGTH_DELIMITER);
+        if (delimiter < 0) {
+            throw invalid(encoded);
+        }
+
+        final int termLength;
+        try {
+            termLength = Integer.parseInt(decoded.substring(0, delimiter));
+        } catch (final NumberFormatException exception) {
+            throw invalid(encoded);
+        }
+        if (termLength < 0 || delimiter + 1 + termLength > decoded.length()) {
+            throw invalid(encoded);
+        }
+
+        return new PageCursor(
+                decoded.substring(delimiter + 1, delimiter + 1 + termLength),
+                decoded.substring(delimiter + 1 + termLength)
+        );
+    }
+
+    /**
+     * Returns the opaque, URL-safe representation of this cursor.
+     *
+     * @return a Base64 string
+     */
+    @NotNull
+    public String encode() {
+        final String plain = String.valueOf(term.length()) + LENGTH_DELIMITER + term + link;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @NotNull
+    public String getTerm() {
+        return term;
+    }
+
+    @NotNull
+    public String getLink() {
+        return link;
+    }
+
+    /**
+     * Creates the exception reported for a cursor that cannot be decoded.
+     *
+     * @param encoded  The offending cursor
+     *
+     * @return a new exception
+     */
+    private static IllegalArgumentException invalid(final String encoded) {
+        return new IllegalArgumentException(String.format("'%s' is not a valid cursor", encoded));
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        final PageCursor that = (PageCursor) other;
+        return term.equals(that.term) && link.equals(that.link);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(term, link);
+    }
+}
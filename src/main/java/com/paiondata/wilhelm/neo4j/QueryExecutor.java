@@ -0,0 +1,352 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.EagerResult;
+import org.neo4j.driver.QueryConfig;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.summary.ResultSummary;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.tracing.RequestTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@link QueryExecutor} is the only place that sends {@link CypherStatement}s to Neo4J database.
+ * <p>
+ * It runs statements on the shared {@link Driver} against the configured database and records metrics tagged with the
+ * name of each statement: the round-trip time as the {@value #DURATION_METRIC} timer and the number of records as the
+ * {@value #RECORDS_METRIC} distribution summary. The two server-side durations that Neo4J reports in the summary of
+ * each query are recorded as well, so that the effect of the query plan cache can be observed:
+ * <ul>
+ *     <li> {@value #AVAILABLE_AFTER_METRIC} - the time until the first record is ready, which includes planning the
+ *          query. A plan cache hit makes this drop to close to the pure execution time
+ *     <li> {@value #CONSUMED_AFTER_METRIC} - the time it took to stream all records to the client
+ * </ul>
+ * Finally, each execution is added to the {@link RequestTrace#current() trace} bound to the thread that sent it, so
+ * that slow requests can be told apart by their queries.
+ * <p>
+ * Statements can be run {@link #execute(CypherStatement, Object...) blocking} or
+ * {@link #executeAsync(CypherStatement, Object...) asynchronously}. The asynchronous variant does not hold the calling
+ * thread while Neo4J works; it is what request-serving code should use. Results too large to be held in memory are
+ * {@link #stream(CypherStatement, Consumer, Object...) streamed} record by record instead.
+ */
+@Singleton
+@ThreadSafe
+public class QueryExecutor {
+
+    /**
+     * The name of the timer of statement round trips.
+     */
+    public static final String DURATION_METRIC = "neo4j.statement.duration";
+
+    /**
+     * The name of the distribution summary of the number of records returned by statements.
+     */
+    public static final String RECORDS_METRIC = "neo4j.statement.records";
+
+    /**
+     * The name of the timer of the server-side time until the first record of a statement is available.
+     */
+    public static final String AVAILABLE_AFTER_METRIC = "neo4j.statement.available.after";
+
+    /**
+     * The name of the timer of the server-side time to consume all records of a statement.
+     */
+    public static final String CONSUMED_AFTER_METRIC = "neo4j.statement.consumed.after";
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryExecutor.class);
+    private static final String STATEMENT_TAG = "statement";
+
+    private final Driver driver;
+    private final QueryConfig queryConfig;
+    private final SessionConfig sessionConfig;
+    private final Map<CypherStatement, Timer> durations;
+    private final Map<CypherStatement, Timer> availableAfters;
+    private final Map<CypherStatement, Timer> consumedAfters;
+    private final Map<CypherStatement, DistributionSummary> recordCounts;
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * The target database is loaded from {@link ApplicationConfig#neo4jDatabase()}.
+     *
+     * @param driver  The application-scoped Neo4J driver
+     * @param meterRegistry  The application-scoped registry the metrics of all statements are recorded in
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    @Inject
+    public QueryExecutor(@NotNull final Driver driver, @NotNull final MeterRegistry meterRegistry) {
+        this(driver, ConfigFactory.create(ApplicationConfig.class).neo4jDatabase(), meterRegistry);
+    }
+
+    /**
+     * Constructor whose metrics are not exported.
+     *
+     * @param driver  The application-scoped Neo4J driver
+     * @param database  The name of the Neo4J database to run all statements against
+     *
+     * @throws NullPointerException if {@code driver} is {@code null}
+     */
+    public QueryExecutor(@NotNull final Driver driver, final String database) {
+        this(driver, database, new SimpleMeterRegistry());
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param driver  The application-scoped Neo4J driver
+     * @param database  The name of the Neo4J database to run all statements against
+     * @param meterRegistry  The registry the metrics of all statements are recorded in
+     *
+     * @throws NullPointerException if {@code driver} or {@code meterRegistry} is {@code null}
+     */
+    public QueryExecutor(
+            @NotNull final Driver driver,
+            final String database,
+            @NotNull final MeterRegistry meterRegistry
+    ) {
+        Objects.requireNonNull(meterRegistry);
+
+        this.driver = Objects.requireNonNull(driver);
+        this.queryConfig = QueryConfig.builder().withDatabase(database).build();
+        this.sessionConfig = SessionConfig.forDatabase(database);
+        this.durations = perStatement(statement -> Timer.builder(DURATION_METRIC)
+                .description("Round-trip time of Cypher statements, including connection acquisition")
+                .tag(STATEMENT_TAG, statement.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+        );
+        this.availableAfters = perStatement(statement -> Timer.builder(AVAILABLE_AFTER_METRIC)
+                .description("Server-side time until the first record of Cypher statements is available")
+                .tag(STATEMENT_TAG, statement.name())
+                .register(meterRegistry)
+        );
+        this.consumedAfters = perStatement(statement -> Timer.builder(CONSUMED_AFTER_METRIC)
+                .description("Server-side time to consume all records of Cypher statements")
+                .tag(STATEMENT_TAG, statement.name())
+                .register(meterRegistry)
+        );
+        this.recordCounts = perStatement(statement -> DistributionSummary.builder(RECORDS_METRIC)
+                .description("Number of records returned by Cypher statements")
+                .tag(STATEMENT_TAG, statement.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+        );
+    }
+
+    /**
+     * Runs a statement with its parameters bound to a list of values and returns the result unmodified.
+     *
+     * @param statement  The statement to run
+     * @param arguments  The parameter values, in the order of {@link CypherStatement#getParameterNames()}
+     *
+     * @return query's native result
+     *
+     * @throws IllegalArgumentException if the arguments do not match the parameters of the statement
+     */
+    @NotNull
+    public EagerResult execute(@NotNull final CypherStatement statement, @NotNull final Object... arguments) {
+        final Map<String, Object> parameters = statement.bind(arguments);
+        final RequestTrace trace = RequestTrace.current();
+
+        final long start = System.nanoTime();
+        final EagerResult result = driver.executableQuery(statement.getText())
+                .withParameters(parameters)
+                .withConfig(queryConfig)
+                .execute();
+        record(statement, parameters, trace, result.summary(), System.nanoTime() - start, result.records().size());
+
+        return result;
+    }
+
+    /**
+     * Runs a read-only statement in its own asynchronous session and completes with all of its records.
+     * <p>
+     * The calling thread is released right away. The returned stage completes on a driver I/O thread, so dependent
+     * stages must not block. Transient failures, such as a leader switch, are retried by the driver.
+     *
+     * @param statement  The statement to run
+     * @param arguments  The parameter values, in the order of {@link CypherStatement#getParameterNames()}
+     *
+     * @return a stage that completes with the records of the query or with the driver's exception
+     *
+     * @throws IllegalArgumentException if the arguments do not match the parameters of the statement
+     */
+    @NotNull
+    public CompletionStage<List<Record>> executeAsync(
+            @NotNull final CypherStatement statement,
+            @NotNull final Object... arguments
+    ) {
+        final Map<String, Object> parameters = statement.bind(arguments);
+        final RequestTrace trace = RequestTrace.current();
+
+        final long start = System.nanoTime();
+        final AsyncSession session = driver.session(AsyncSession.class, sessionConfig);
+
+        return session
+                .executeReadAsync(transaction -> transaction.runAsync(statement.getText(), parameters)
+                        .thenCompose(cursor -> cursor.listAsync()
+                                .thenCompose(records -> cursor.consumeAsync()
+                                        .thenApply(summary -> {
+                                            record(
+                                                    statement,
+                                                    parameters,
+                                                    trace,
+                                                    summary,
+                                                    System.nanoTime() - start,
+                                                    records.size()
+                                            );
+                                            return records;
+                                        })
+                                )
+                        )
+                )
+                .handle((records, error) -> session.closeAsync()
+                        .thenCompose(closed -> error == null
+                                ? CompletableFuture.completedFuture(records)
+                                : CompletableFuture.<List<Record>>failedFuture(error)
+                        )
+                )
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Runs a read-only statement and hands its records to a consumer one at a time, as the driver fetches them.
+     * <p>
+     * Records are pulled lazily in batches of the driver's fetch size, so only that many records are held in memory at
+     * once regardless of the size of the result. The statement runs as an auto-commit transaction and is not retried,
+     * because the records handed out before a failure cannot be taken back. The calling thread is blocked until the
+     * last record has been consumed.
+     *
+     * @param statement  The statement to run
+     * @param consumer  The receiver of each record, in result order
+     * @param arguments  The parameter values, in the order of {@link CypherStatement#getParameterNames()}
+     *
+     * @throws IllegalArgumentException if the arguments do not match the parameters of the statement
+     */
+    public void stream(
+            @NotNull final CypherStatement statement,
+            @NotNull final Consumer<Record> consumer,
+            @NotNull final Object... arguments
+    ) {
+        final Map<String, Object> parameters = statement.bind(arguments);
+        final RequestTrace trace = RequestTrace.current();
+
+        final long start = System.nanoTime();
+        try (Session session = driver.session(Session.class, sessionConfig)) {
+            final Result result = session.run(statement.getText(), parameters);
+            int records = 0;
+            while (result.hasNext()) {
+                consumer.accept(result.next());
+                records++;
+            }
+            record(statement, parameters, trace, result.consume(), System.nanoTime() - start, records);
+        }
+    }
+
+    /**
+     * Adds the timing of a single execution to the metrics of its statement, and to the trace of the request it ran
+     * for.
+     * <p>
+     * A server-side duration that Neo4J did not report is left out of its timer.
+     *
+     * @param statement  The executed statement
+     * @param parameters  The parameters the statement ran with
+     * @param trace  The trace of the request the statement ran for
+     * @param summary  The server-side summary of the execution
+     * @param roundTrip  The client-side end-to-end time in nanoseconds
+     * @param records  The number of records returned
+     */
+    private void record(
+            @NotNull final CypherStatement statement,
+            @NotNull final Map<String, Object> parameters,
+            @NotNull final RequestTrace trace,
+            @NotNull final ResultSummary summary,
+            final long roundTrip,
+            final int records
+    ) {
+        final long availableAfter = summary.resultAvailableAfter(TimeUnit.MILLISECONDS);
+        final long consumedAfter = summary.resultConsumedAfter(TimeUnit.MILLISECONDS);
+        durations.get(statement).record(roundTrip, TimeUnit.NANOSECONDS);
+        if (availableAfter >= 0) {
+            availableAfters.get(statement).record(availableAfter, TimeUnit.MILLISECONDS);
+        }
+        if (consumedAfter >= 0) {
+            consumedAfters.get(statement).record(consumedAfter, TimeUnit.MILLISECONDS);
+        }
+        recordCounts.get(statement).record(records);
+        trace.addQuery(statement.name(), statement.getText(), parameters, records, roundTrip);
+
+        LOG.debug(
+                "{} available after {} ms, consumed after {} ms, round trip {} ms",
+                statement,
+                availableAfter,
+                consumedAfter,
+                TimeUnit.NANOSECONDS.toMillis(roundTrip)
+        );
+    }
+
+    /**
+     * Creates one value for each {@link CypherStatement}.
+     *
+     * @param valueOf  The creator of the value of a statement
+     * @param <T>  The type of the values
+     *
+     * @return an unmodifiable map from each statement to its value
+     */
+    @NotNull
+    private static <T> Map<CypherStatement, T> perStatement(@NotNull final Function<CypherStatement, T> valueOf) {
+        return Collections.unmodifiableMap(
+                Arrays.stream(CypherStatement.values())
+                        .collect(Collectors.toMap(
+                                Function.identity(),
+                                valueOf,
+                                (first, second) -> first,
+                                () -> new EnumMap<>(CypherStatement.class)
+                        ))
+        );
+    }
+}
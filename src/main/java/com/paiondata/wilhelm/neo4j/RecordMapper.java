@@ -0,0 +1,144 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.internal.types.InternalTypeSystem;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link RecordMapper} converts Neo4J records into Jackson-serializable Java objects.
+ * <p>
+ * Every endpoint that answers with records maps them here, so that a value has the same JSON type no matter which
+ * query or page mode produced it.
+ */
+@Immutable
+@ThreadSafe
+public final class RecordMapper {
+
+    /**
+     * Constructor.
+     * <p>
+     * Suppress default constructor for noninstantiability.
+     *
+     * @throws AssertionError when called
+     */
+    private RecordMapper() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Converts records into a JSON-serializable list with one map per record.
+     *
+     * @param records  The records of a query that does not return paths
+     *
+     * @return a list of maps from record key to {@link #expand(Value) expanded} value
+     */
+    @NotNull
+    public static List<Map<String, Object>> toMaps(@NotNull final List<Record> records) {
+        return records.stream().map(RecordMapper::toMap).collect(Collectors.toList());
+    }
+
+    /**
+     * Converts all fields of a record into a JSON-serializable map.
+     *
+     * @param record  A record of a query that does not return paths
+     *
+     * @return a map from record key to {@link #expand(Value) expanded} value, in the order of the record keys
+     */
+    @NotNull
+    public static Map<String, Object> toMap(@NotNull final Record record) {
+        return toMap(record, record.keys());
+    }
+
+    /**
+     * Converts some fields of a record into a JSON-serializable map.
+     *
+     * @param record  A record of a query that does not return paths
+     * @param keys  The keys of the fields to convert
+     *
+     * @return a map from each of the keys to its {@link #expand(Value) expanded} value, in the order of the keys
+     */
+    @NotNull
+    public static Map<String, Object> toMap(@NotNull final Record record, @NotNull final Collection<String> keys) {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        for (final String key : keys) {
+            map.put(key, expand(record.get(key)));
+        }
+        return map;
+    }
+
+    /**
+     * Transforms a Neo4J {@link Value} object into a Jackson-serializable Java object.
+     *
+     * See https://neo4j.com/docs/java-manual/current/data-types/ for more details
+     *
+     * @param value  An object graph. Cannot be {@code null}
+     *
+     * @return a {@link Map} representation of the object graph and can be Jackson-serialized
+     */
+    public static Object expand(@NotNull final Value value) {
+        if (isTerminalValue(value)) {
+            if (value.type().equals(InternalTypeSystem.TYPE_SYSTEM.INTEGER())) {
+                return value.asInt();
+            } else if (value.type().equals(InternalTypeSystem.TYPE_SYSTEM.FLOAT())) {
+                return value.asDouble();
+            } else if (value.type().equals(InternalTypeSystem.TYPE_SYSTEM.BOOLEAN())) {
+                return value.asBoolean();
+            } else {
+                return value.asString();
+            }
+        }
+
+        return StreamSupport.stream(value.keys().spliterator(), false)
+                .map(key -> new AbstractMap.SimpleImmutableEntry<>(key, expand(value.get(key))))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    /**
+     * Returns whether or not a {@link Value} object is the "leaf" node in Jackson serialization.
+     * <p>
+     * A "leaf" node is defined to be one of
+     * <ul>
+     *     <li> integer
+     *     <li> float
+     *     <li> string
+     *     <li> boolean
+     * </ul>
+     *
+     * @param value  An object graph. Cannot be {@code null}
+     *
+     * @return {@code true} if the object is simply a Jackson-serializable leaf node or {@code false} otherwise
+     */
+    static boolean isTerminalValue(@NotNull final Value value) {
+        return value.type().equals(InternalTypeSystem.TYPE_SYSTEM.INTEGER())
+                || value.type().equals(InternalTypeSystem.TYPE_SYSTEM.FLOAT())
+                || value.type().equals(InternalTypeSystem.TYPE_SYSTEM.STRING())
+                || value.type().equals(InternalTypeSystem.TYPE_SYSTEM.BOOLEAN());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j;
+
+import org.neo4j.driver.Record;
+import com.paiondata.wilhelm.KeysetPage;
+import com.paiondata.wilhelm.Language;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset pagination over the term-definition pairs of a language.
+ * <p>
+ * Instead of skipping all rows before a page, each page resumes with a range predicate right after the last pair of
+ * the previous page, which is served by a composite index on the language and label of terms. Pages are therefore
+ * equally fast at any depth and stable under a total order.
+ */
+@Singleton
+@Immutable
+@ThreadSafe
+public class VocabularyPaginator {
+
+    private static final String TERM = "term";
+    private static final String DEFINITION = "definition";
+    private static final String LINK = "link";
+    private static final List<String> ITEM_KEYS = List.of(TERM, DEFINITION);
+
+    private final QueryExecutor queryExecutor;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param queryExecutor  The runner of the pagination statements
+     *
+     * @throws NullPointerException if {@code queryExecutor} is {@code null}
+     */
+    @Inject
+    public VocabularyPaginator(@NotNull final QueryExecutor queryExecutor) {
+        this.queryExecutor = Objects.requireNonNull(queryExecutor);
+    }
+
+    /**
+     * Creates the index backing keyset pagination if it does not exist yet.
+     * <p>
+     * This is meant to be called once at application startup.
+     */
+    public void ensureIndex() {
+        queryExecutor.execute(CypherStatement.CREATE_TERM_LANGUAGE_LABEL_INDEX);
+    }
+
+    /**
+     * Fetches the page of term-definition pairs right after a cursor.
+     *
+     * @param language  The language of the terms
+     * @param after  The {@link PageCursor#encode() cursor} returned with the previous page, or {@code null} for the
+     * first page
+     * @param limit  The maximum number of pairs on the page
+     *
+     * @return a stage that completes with a page of maps with "term" and "definition" keys, plus the cursor of the next
+     * page if there is one
+     *
+     * @throws IllegalArgumentException if {@code after} is not a valid cursor or {@code limit} is not positive
+     */
+    @NotNull
+    public CompletionStage<KeysetPage> page(@NotNull final Language language, final String after, final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(String.format("Page size must be positive, got %d", limit));
+        }
+
+        final PageCursor cursor = after == null ? PageCursor.FIRST : PageCursor.decode(after);
+
+        // fetch one extra pair to learn whether there is a next page without another round trip
+        return queryExecutor.executeAsync(
+                CypherStatement.VOCABULARY_BY_LANGUAGE_AFTER,
+                language.getDatabaseName(),
+                cursor.getTerm(),
+                cursor.getLink(),
+                limit + 1
+        ).thenApply(records -> toPage(records, limit));
+    }
+
+    /**
+     * Turns the records of a page, plus the one extra record if there is a next page, into a {@link KeysetPage}.
+     * <p>
+     * Items are mapped by {@link RecordMapper}, exactly like the records of an offset page, so that both page modes
+     * answer with the same JSON types.
+     *
+     * @param records  Up to {@code limit + 1} records
+     * @param limit  The maximum number of pairs on the page
+     *
+     * @return a page with at most {@code limit} items
+     */
+    @NotNull
+    private static KeysetPage toPage(@NotNull final List<Record> records, final int limit) {
+        final boolean hasNext = records.size() > limit;
+        final List<Record> page = hasNext ? records.subList(0, limit) : records;
+
+        final List<Map<String, Object>> items = page.stream()
+                .map(record -> RecordMapper.toMap(record, ITEM_KEYS))
+                .collect(Collectors.toList());
+
+        final String next = hasNext
+                ? new PageCursor(
+                        page.get(page.size() - 1).get(TERM).asString(),
+                        page.get(page.size() - 1).get(LINK).asString()
+                ).encode()
+                : null;
+
+        return new KeysetPage(items, next);
+    }
+}
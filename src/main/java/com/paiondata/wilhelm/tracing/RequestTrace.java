@@ -0,0 +1,372 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.tracing;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The time a single request spends in each {@link Phase} of being served, and the queries it runs.
+ * <p>
+ * A request is served by several threads: a container thread, a managed asynchronous thread, and the driver's I/O
+ * threads. The trace of a request is therefore {@link #bind() bound} to the thread its resource method runs on, and
+ * to the threads that continue its work, such as cache loads and traversal levels. Code that takes part in serving a
+ * request records into the {@link #current() current} trace without having to know which request it serves. Code
+ * running outside any request, such as a scheduled job, records into a trace that discards everything.
+ * <p>
+ * The durations of a phase are summed up, so a phase whose work runs concurrently can add up to more than the
+ * {@link #getElapsedNanos() elapsed time} of the request.
+ */
+@ThreadSafe
+public final class RequestTrace {
+
+    /**
+     * The parts of serving a request that are timed separately.
+     */
+    public enum Phase {
+
+        /**
+         * Running Cypher queries, from acquiring a connection to receiving the last record.
+         */
+        NEO4J("neo4j", "Neo4J queries"),
+
+        /**
+         * Mapping Neo4J records to {@link com.paiondata.wilhelm.Node}s and {@link com.paiondata.wilhelm.Link}s.
+         */
+        MAPPING("mapping", "Mapping records"),
+
+        /**
+         * Serializing the response entity.
+         */
+        SERIALIZATION("serialization", "Serializing the response");
+
+        private final String name;
+        private final String description;
+
+        /**
+         * All-args constructor.
+         *
+         * @param name  The metric name of this phase in {@code Server-Timing}
+         * @param description  The human-readable description of this phase in {@code Server-Timing}
+         */
+        Phase(@NotNull final String name, @NotNull final String description) {
+            this.name = name;
+            this.description = description;
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        @NotNull
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * A handle that restores the trace that was bound to a thread before another one was.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    private static final RequestTrace DISCARDING = new RequestTrace(false);
+
+    private final String id;
+    private final boolean recording;
+    private final long startNanos;
+    private final Map<Phase, LongAdder> phaseNanos;
+    private final Queue<Query> queries;
+
+    /**
+     * Starts tracing a request.
+     */
+    public RequestTrace() {
+        this(true);
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param recording  Whether this trace records anything
+     */
+    private RequestTrace(final boolean recording) {
+        this.id = recording ? UUID.randomUUID().toString() : "";
+        this.recording = recording;
+        this.startNanos = System.nanoTime();
+        this.phaseNanos = Collections.unmodifiableMap(
+                Arrays.stream(Phase.values())
+                        .collect(Collectors.toMap(
+                                Function.identity(),
+                                phase -> new LongAdder(),
+                                (first, second) -> first,
+                                () -> new EnumMap<>(Phase.class)
+                        ))
+        );
+        this.queries = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Returns the trace bound to the calling thread.
+     *
+     * @return the trace of the request the calling thread works on, or a trace that discards everything if there is
+     * none
+     */
+    @NotNull
+    public static RequestTrace current() {
+        final RequestTrace trace = CURRENT.get();
+        return trace == null ? DISCARDING : trace;
+    }
+
+    /**
+     * Binds this trace to the calling thread until the returned scope is closed.
+     *
+     * @return a scope that binds the previously bound trace again when closed
+     */
+    @NotNull
+    public Scope bind() {
+        final RequestTrace previous = CURRENT.get();
+        CURRENT.set(recording ? this : null);
+
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Adds the duration of some work to a phase.
+     *
+     * @param phase  The phase the work belongs to
+     * @param nanos  The duration of the work in nanoseconds
+     */
+    public void addPhase(@NotNull final Phase phase, final long nanos) {
+        if (recording) {
+            phaseNanos.get(phase).add(nanos);
+        }
+    }
+
+    /**
+     * Adds a Cypher query to this trace and its duration to the {@link Phase#NEO4J} phase.
+     *
+     * @param statement  The name of the query's statement
+     * @param text  The Cypher text of the query
+     * @param parameters  The parameters the query ran with
+     * @param records  The number of records the query returned
+     * @param nanos  The duration of the query in nanoseconds
+     */
+    public void addQuery(
+            @NotNull final String statement,
+            @NotNull final String text,
+            @NotNull final Map<String, Object> parameters,
+            final int records,
+            final long nanos
+    ) {
+        if (recording) {
+            queries.add(new Query(statement, text, parameters, records, nanos));
+            addPhase(Phase.NEO4J, nanos);
+        }
+    }
+
+    /**
+     * Returns the ID of the traced request, which is unique within the logs of all webservice instances.
+     *
+     * @return a random UUID, or an empty string if this is the trace of code running outside any request
+     */
+    @NotNull
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns whether this trace records anything, i.e. whether it belongs to a request.
+     *
+     * @return {@code false} if this is the trace of code running outside any request
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Returns the time since this trace was started.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Returns the total duration of a phase so far.
+     *
+     * @param phase  The phase of interest
+     *
+     * @return the summed up duration in nanoseconds
+     */
+    public long getPhaseNanos(@NotNull final Phase phase) {
+        return phaseNanos.get(phase).sum();
+    }
+
+    /**
+     * Returns the queries run so far.
+     *
+     * @return a snapshot of the queries in the order they completed
+     */
+    @NotNull
+    public List<Query> getQueries() {
+        return Collections.unmodifiableList(new ArrayList<>(queries));
+    }
+
+    /**
+     * Formats the phases of this trace as the value of a {@code Server-Timing} header.
+     * <p>
+     * Only phases the request went through are included, followed by the {@code total} elapsed time.
+     *
+     * @return the header value, with durations in milliseconds
+     */
+    @NotNull
+    public String toServerTiming() {
+        final List<String> metrics = new ArrayList<>();
+        for (final Phase phase : Phase.values()) {
+            final long nanos = getPhaseNanos(phase);
+            if (nanos > 0) {
+                metrics.add(String.format(
+                        Locale.ROOT,
+                        "%s;dur=%.1f;desc=\"%s\"",
+                        phase.getName(),
+                        nanos / 1e6,
+                        phase.getDescription()
+                ));
+            }
+        }
+        metrics.add(String.format(Locale.ROOT, "total;dur=%.1f", getElapsedNanos() / 1e6));
+
+        return String.join(", ", metrics);
+    }
+
+    /**
+     * A single Cypher query run while serving a request.
+     */
+    @Immutable
+    @ThreadSafe
+    public static final class Query {
+
+        private static final int MAX_PARAMETERS_LENGTH = 512;
+
+        private final String statement;
+        private final String text;
+        private final Map<String, Object> parameters;
+        private final int records;
+        private final long nanos;
+
+        /**
+         * All-args constructor.
+         *
+         * @param statement  The name of the query's statement
+         * @param text  The Cypher text of the query
+         * @param parameters  The parameters the query ran with
+         * @param records  The number of records the query returned
+         * @param nanos  The duration of the query in nanoseconds
+         *
+         * @throws NullPointerException if any object argument is {@code null}
+         */
+        private Query(
+                @NotNull final String statement,
+                @NotNull final String text,
+                @NotNull final Map<String, Object> parameters,
+                final int records,
+                final long nanos
+        ) {
+            this.statement = Objects.requireNonNull(statement);
+            this.text = Objects.requireNonNull(text);
+            this.parameters = Objects.requireNonNull(parameters);
+            this.records = records;
+            this.nanos = nanos;
+        }
+
+        @NotNull
+        public String getStatement() {
+            return statement;
+        }
+
+        @NotNull
+        public String getText() {
+            return text;
+        }
+
+        @NotNull
+        public Map<String, Object> getParameters() {
+            return parameters;
+        }
+
+        public int getRecords() {
+            return records;
+        }
+
+        public long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        /**
+         * Describes this query for a log line.
+         * <p>
+         * Parameters, such as the frontier of a breadth-first expansion, can be arbitrarily long, so they are cut off
+         * after a few hundred characters.
+         *
+         * @return the statement, its parameters, the number of records, the duration, and the Cypher text
+         */
+        @Override
+        public String toString() {
+            final String formattedParameters = parameters.toString();
+            return String.format(
+                    "%s %s returned %d records in %d ms: %s",
+                    statement,
+                    formattedParameters.length() > MAX_PARAMETERS_LENGTH
+                            ? formattedParameters.substring(0, MAX_PARAMETERS_LENGTH) + "..."
+                            : formattedParameters,
+                    records,
+                    getMillis(),
+                    text.replaceAll("\\s+", " ").trim()
+            );
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.endpoints;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.glassfish.jersey.server.ManagedAsync;
+import org.glassfish.jersey.server.ManagedAsyncExecutor;
+import com.paiondata.wilhelm.AdminOnly;
+import com.paiondata.wilhelm.Language;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.graph.InMemoryGraphEngine;
+import com.paiondata.wilhelm.graph.VocabularyGraph;
+import com.paiondata.wilhelm.neo4j.LanguageStatistics;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Operational endpoints that are not part of the vocabulary API.
+ * <p>
+ * These endpoints are meant for operators, for example to be called by the job that reloads the vocabulary. They
+ * should not be exposed to the public. Those marked {@link AdminOnly} are only served to requests that carry the
+ * configured admin token.
+ */
+@Singleton
+@Immutable
+@ThreadSafe
+@Path("/admin")
+@Produces(MediaType.APPLICATION_JSON)
+public class AdminServlet {
+
+    private static final long REFRESH_TIMEOUT_MILLIS = ConfigFactory.create(ApplicationConfig.class)
+            .timeoutMillisCountByLanguage();
+    private static final long RELOAD_TIMEOUT_MILLIS = ConfigFactory.create(ApplicationConfig.class)
+            .timeoutMillisExpand();
+
+    private final LanguageStatistics languageStatistics;
+    private final InMemoryGraphEngine graphEngine;
+    private final ExecutorService managedAsyncExecutor;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param languageStatistics  The precomputed term counts to refresh
+     * @param graphEngine  The in-memory vocabulary graph to reload
+     * @param managedAsyncExecutor  The executor of managed asynchronous resource methods, which responses are also
+     * resumed on
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    @Inject
+    public AdminServlet(
+            @NotNull final LanguageStatistics languageStatistics,
+            @NotNull final InMemoryGraphEngine graphEngine,
+            @NotNull @ManagedAsyncExecutor final ExecutorService managedAsyncExecutor
+    ) {
+        this.languageStatistics = Objects.requireNonNull(languageStatistics);
+        this.graphEngine = Objects.requireNonNull(graphEngine);
+        this.managedAsyncExecutor = Objects.requireNonNull(managedAsyncExecutor);
+    }
+
+    /**
+     * Recounts the terms of some or all languages right away instead of waiting for the next scheduled refresh.
+     *
+     * @param languages  The {@link Language#getPathName() client-side names} of the languages to recount; all languages
+     * are recounted if there is none. An unknown language results in a 400 response
+     * @param asyncResponse  The suspended response, which is resumed with a map from each recounted language to its
+     * new {@code count} and the time it was {@code takenAt}
+     */
+    @POST
+    @AdminOnly
+    @ManagedAsync
+    @Path("/statistics/refresh")
+    public void refreshStatistics(
+            @QueryParam("language") final List<String> languages,
+            @Suspended final AsyncResponse asyncResponse
+    ) {
+        Neo4JServlet.resume(asyncResponse, REFRESH_TIMEOUT_MILLIS, managedAsyncExecutor, () -> {
+            final List<Language> requestedLanguages = languages == null || languages.isEmpty()
+                    ? Arrays.asList(Language.values())
+                    : languages.stream().map(Language::ofClientValue).collect(Collectors.toList());
+
+            return languageStatistics.refresh(requestedLanguages).thenApply(AdminServlet::toJsonable);
+        });
+    }
+
+    /**
+     * Reloads the in-memory vocabulary graph right away instead of waiting for the next scheduled reload.
+     * <p>
+     * The graph is reloaded from its snapshot file, if one is configured, or from Neo4J. Expansions keep being answered
+     * from the previous graph until the new one has been loaded. Because a reload from Neo4J reads the whole graph,
+     * only operators may trigger one, and requests that arrive during a reload share it.
+     *
+     * @param asyncResponse  The suspended response, which is resumed with the number of {@code nodes} and
+     * {@code links} of the new graph and the time it was {@code loadedAt}, with 404 if the in-memory graph engine is
+     * disabled, or with 503 if it is not running, for example during shutdown
+     */
+    @POST
+    @AdminOnly
+    @ManagedAsync
+    @Path("/graph/reload")
+    public void reloadGraph(@Suspended final AsyncResponse asyncResponse) {
+        if (!graphEngine.isEnabled()) {
+            asyncResponse.resume(
+                    Response
+                            .status(Response.Status.NOT_FOUND)
+                            .entity("The in-memory graph engine is disabled")
+                            .build()
+            );
+            return;
+        }
+
+        Neo4JServlet.resume(
+                asyncResponse,
+                RELOAD_TIMEOUT_MILLIS,
+                managedAsyncExecutor,
+                () -> {
+                    try {
+                        return graphEngine.reload().thenApply(AdminServlet::toJsonable);
+                    } catch (final IllegalStateException exception) {
+                        return CompletableFuture.completedFuture(
+                                Response
+                                        .status(Response.Status.SERVICE_UNAVAILABLE)
+                                        .entity(exception.getMessage())
+                                        .build()
+                        );
+                    }
+                }
+        );
+    }
+
+    /**
+     * Converts a reloaded vocabulary graph into a JSON-serializable summary.
+     *
+     * @param graph  The reloaded graph
+     *
+     * @return a map with the number of nodes and links of the graph and the ISO-8601 time it was loaded at
+     */
+    @NotNull
+    static Map<String, Object> toJsonable(@NotNull final VocabularyGraph graph) {
+        final Map<String, Object> jsonable = new LinkedHashMap<>();
+        jsonable.put("nodes", graph.getNodeCount());
+        jsonable.put("links", graph.getLinkCount());
+        jsonable.put("loadedAt", graph.getLoadedAt().toString());
+        return jsonable;
+    }
+
+    /**
+     * Converts recounted term counts into a JSON-serializable map.
+     *
+     * @param counts  The new count of each recounted language
+     *
+     * @return a map from the client-side name of each language to its count and the ISO-8601 time it was taken at
+     */
+    @NotNull
+    static Map<String, Map<String, Object>> toJsonable(
+            @NotNull final Map<Language, LanguageStatistics.TermCount> counts
+    ) {
+        final Map<String, Map<String, Object>> jsonable = new LinkedHashMap<>();
+        counts.forEach((language, count) -> {
+            final Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", count.getCount());
+            entry.put("takenAt", count.getTakenAt().toString());
+            jsonable.put(language.getPathName(), entry);
+        });
+        return jsonable;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.endpoints;
+
+import com.paiondata.wilhelm.AdminOnly;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Objects;
+
+/**
+ * The Prometheus scrape endpoint, which exposes all metrics of the webservice in the Prometheus text format.
+ * <p>
+ * Besides the JVM, the metrics are
+ * <ul>
+ *     <li> {@code http_server_requests_seconds}, the latency of each endpoint
+ *     <li> {@code neo4j_statement_duration_seconds} and {@code neo4j_statement_records}, the round-trip time and the
+ *          number of records of each Cypher statement
+ *     <li> {@code neo4j_statement_available_after_seconds} and {@code neo4j_statement_consumed_after_seconds}, the
+ *          server-side time until the first record is available and until all records are consumed, of each Cypher
+ *          statement
+ *     <li> {@code graph_nodes} and {@code graph_links}, the size of expanded sub-graphs
+ *     <li> {@code language_check_rejections_total}, the number of requests for unsupported languages
+ *     <li> {@code neo4j_driver_connections_*}, the state of the Neo4J driver's connection pool, such as the number of
+ *          connections in use and idle and the time spent acquiring one
+ * </ul>
+ * Like {@link AdminServlet}, this endpoint should not be exposed to the public, and is {@link AdminOnly}: Prometheus
+ * has to scrape it with the configured admin token as its bearer token.
+ */
+@Singleton
+@Immutable
+@ThreadSafe
+@Path("/metrics")
+public class MetricsServlet {
+
+    /**
+     * The media type of version 0.0.4 of the Prometheus text format.
+     */
+    public static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final PrometheusMeterRegistry meterRegistry;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param meterRegistry  The application-scoped registry to expose
+     *
+     * @throws NullPointerException if {@code meterRegistry} is {@code null}
+     */
+    @Inject
+    public MetricsServlet(@NotNull final PrometheusMeterRegistry meterRegistry) {
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
+    }
+
+    /**
+     * Returns the current value of all metrics.
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    @GET
+    @AdminOnly
+    @Produces(PROMETHEUS_TEXT)
+    public String scrape() {
+        return meterRegistry.scrape();
+    }
+}
@@ -16,354 +16,831 @@
 package com.paiondata.wilhelm.web.endpoints;
 
 import org.aeonbits.owner.ConfigFactory;
-import org.neo4j.driver.AuthTokens;
-import org.neo4j.driver.Driver;
-import org.neo4j.driver.EagerResult;
-import org.neo4j.driver.GraphDatabase;
-import org.neo4j.driver.QueryConfig;
-import org.neo4j.driver.Value;
-import org.neo4j.driver.internal.types.InternalTypeSystem;
+import org.glassfish.jersey.server.ManagedAsync;
+import org.glassfish.jersey.server.ManagedAsyncExecutor;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.exceptions.SessionExpiredException;
+import org.neo4j.driver.exceptions.TransientException;
+import com.paiondata.wilhelm.ExpansionBatch;
+import com.paiondata.wilhelm.ExpansionRequest;
+import com.paiondata.wilhelm.Bulkhead;
 import com.paiondata.wilhelm.Graph;
+import com.paiondata.wilhelm.HttpCacheable;
+import com.paiondata.wilhelm.KeysetPage;
 import com.paiondata.wilhelm.Language;
 import com.paiondata.wilhelm.LanguageCheck;
-import com.paiondata.wilhelm.Link;
 import com.paiondata.wilhelm.Node;
+import com.paiondata.wilhelm.cache.CacheKey;
+import com.paiondata.wilhelm.cache.CachedEndpoint;
+import com.paiondata.wilhelm.cache.ResultCache;
 import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.graph.InMemoryGraphEngine;
+import com.paiondata.wilhelm.neo4j.BreadthFirstExpander;
+import com.paiondata.wilhelm.neo4j.ExpansionCoalescer;
+import com.paiondata.wilhelm.neo4j.CypherStatement;
+import com.paiondata.wilhelm.neo4j.FullTextSearch;
+import com.paiondata.wilhelm.neo4j.LanguageStatistics;
+import com.paiondata.wilhelm.neo4j.QueryExecutor;
+import com.paiondata.wilhelm.neo4j.RecordMapper;
+import com.paiondata.wilhelm.neo4j.VocabularyPaginator;
+import com.paiondata.wilhelm.tracing.RequestTrace;
+import com.paiondata.wilhelm.web.filters.EndpointClass;
+import com.paiondata.wilhelm.web.filters.HttpCachePolicy;
+import com.paiondata.wilhelm.web.providers.WireFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
 
-import java.util.AbstractMap;
-import java.util.HashSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * All endpoints against Neo4J database.
+ * <p>
+ * All endpoints are asynchronous: the request thread is released as soon as the query is sent, and the response is
+ * resumed once Neo4J answers. Each endpoint has a configurable timeout after which it answers 504 Gateway Timeout, and
+ * a Neo4J database that is unreachable or temporarily unable to serve results in 503 Service Unavailable.
+ * <p>
+ * Resource methods are {@link ManagedAsync managed}, so they run on the executor of the configured
+ * {@link com.paiondata.wilhelm.application.ExecutionMode} instead of the container's request threads.
+ * <p>
+ * Endpoints whose results can be large accept {@code stream=true}, which writes the result to the response record by
+ * record as Neo4J returns it instead of materializing it first; see {@link StreamingResults}. Streamed results bypass
+ * the {@link ResultCache} and the endpoint timeout.
+ * <p>
+ * All endpoints are {@link HttpCacheable}; see {@link com.paiondata.wilhelm.web.filters.HttpCacheFilter}.
+ * <p>
+ * All endpoints answer in JSON unless the request's {@code Accept} prefers one of the binary {@link WireFormat}s, CBOR
+ * or Smile, which are smaller and faster to parse for large sub-graphs.
+ * <p>
+ * Once the optional {@link InMemoryGraphEngine} has loaded the vocabulary graph, {@code /expand}, {@code /expandApoc},
+ * and {@code /expandDfs} are answered from memory without any round trip to Neo4J, and bypass the {@link ResultCache}.
+ * <p>
+ * The number of nodes and links of each sub-graph expanded from Neo4J is recorded in the {@value #GRAPH_NODES_METRIC}
+ * and {@value #GRAPH_LINKS_METRIC} distribution summaries, tagged with the expanding endpoint, so that the words
+ * behind slow expansions can be told apart from slow queries.
  */
 @Singleton
 @Immutable
 @ThreadSafe
 @Path("/neo4j")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({ MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE })
 public class Neo4JServlet {
 
+    /**
+     * The name of the distribution summary of the number of nodes of expanded sub-graphs.
+     */
+    public static final String GRAPH_NODES_METRIC = "graph.nodes";
+
+    /**
+     * The name of the distribution summary of the number of links of expanded sub-graphs.
+     */
+    public static final String GRAPH_LINKS_METRIC = "graph.links";
+
     private static final Logger LOG = LoggerFactory.getLogger(Neo4JServlet.class);
     private static final ApplicationConfig APPLICATION_CONFIG = ConfigFactory.create(ApplicationConfig.class);
-    private static final String NEO4J_URL = APPLICATION_CONFIG.neo4jUrl();
-    private static final String NEO4J_USERNAME = APPLICATION_CONFIG.neo4jUsername();
-    private static final String NEO4J_PASSWORD = APPLICATION_CONFIG.neo4jPassword();
-    private static final String NEO4J_DATABASE = APPLICATION_CONFIG.neo4jDatabase();
+    private static final int SEARCH_MAX_LIMIT = APPLICATION_CONFIG.searchMaxLimit();
+    private static final long COUNT_BY_LANGUAGE_TIMEOUT_MILLIS = APPLICATION_CONFIG.timeoutMillisCountByLanguage();
+    private static final long VOCABULARY_BY_LANGUAGE_TIMEOUT_MILLIS =
+            APPLICATION_CONFIG.timeoutMillisVocabularyByLanguage();
+    private static final long SEARCH_TIMEOUT_MILLIS = APPLICATION_CONFIG.timeoutMillisSearch();
+    private static final long EXPAND_TIMEOUT_MILLIS = APPLICATION_CONFIG.timeoutMillisExpand();
+    private static final int EXPAND_BATCH_MAX_WORDS = APPLICATION_CONFIG.expandBatchMaxWords();
+
+    private final QueryExecutor queryExecutor;
+    private final BreadthFirstExpander breadthFirstExpander;
+    private final ExpansionCoalescer expansionCoalescer;
+    private final FullTextSearch fullTextSearch;
+    private final VocabularyPaginator vocabularyPaginator;
+    private final LanguageStatistics languageStatistics;
+    private final ResultCache resultCache;
+    private final InMemoryGraphEngine graphEngine;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService managedAsyncExecutor;
 
     /**
      * Constructor for dependency injection.
+     *
+     * @param queryExecutor  The runner of all parameterized Cypher statements, which is backed by the
+     * application-scoped Neo4J driver shared by all requests
+     * @param breadthFirstExpander  The level-batched traversal engine behind {@code /expandDfs}
+     * @param expansionCoalescer  The query path of {@code /expand} and {@code /expandApoc}, which batches concurrent
+     * expansions
+     * @param fullTextSearch  The full-text index backed engine behind {@code /search}
+     * @param vocabularyPaginator  The keyset paginator behind the cursor mode of {@code /languages/{language}}
+     * @param languageStatistics  The precomputed term counts behind {@code /languages/{language}/count}
+     * @param resultCache  The two-tier cache of expanded sub-graphs and pages
+     * @param graphEngine  The in-memory vocabulary graph expansions are answered from once it is loaded
+     * @param meterRegistry  The application-scoped registry the sizes of expanded sub-graphs are recorded in
+     * @param managedAsyncExecutor  The executor of managed asynchronous resource methods, which responses are also
+     * resumed on
+     *
+     * @throws NullPointerException if any argument is {@code null}
      */
     @Inject
-    public Neo4JServlet() {
-        // intentionally left blank
+    public Neo4JServlet(
+            @NotNull final QueryExecutor queryExecutor,
+            @NotNull final BreadthFirstExpander breadthFirstExpander,
+            @NotNull final ExpansionCoalescer expansionCoalescer,
+            @NotNull final FullTextSearch fullTextSearch,
+            @NotNull final VocabularyPaginator vocabularyPaginator,
+            @NotNull final LanguageStatistics languageStatistics,
+            @NotNull final ResultCache resultCache,
+            @NotNull final InMemoryGraphEngine graphEngine,
+            @NotNull final MeterRegistry meterRegistry,
+            @NotNull @ManagedAsyncExecutor final ExecutorService managedAsyncExecutor
+    ) {
+        this.queryExecutor = Objects.requireNonNull(queryExecutor);
+        this.breadthFirstExpander = Objects.requireNonNull(breadthFirstExpander);
+        this.expansionCoalescer = Objects.requireNonNull(expansionCoalescer);
+        this.fullTextSearch = Objects.requireNonNull(fullTextSearch);
+        this.vocabularyPaginator = Objects.requireNonNull(vocabularyPaginator);
+        this.languageStatistics = Objects.requireNonNull(languageStatistics);
+        this.resultCache = Objects.requireNonNull(resultCache);
+        this.graphEngine = Objects.requireNonNull(graphEngine);
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
+        this.managedAsyncExecutor = Objects.requireNonNull(managedAsyncExecutor);
     }
 
     /**
      * Returns the total number of terms of a specified langauges.
+     * <p>
+     * The total is precomputed by {@link LanguageStatistics} rather than counted on each request. How stale it is is
+     * reported by the {@code Last-Modified} header, which is the time the terms were counted, and the {@code Age}
+     * header, which is the number of seconds since then.
      *
      * @param language  The language. Must be one of the valid return value of {@link Language#getPathName()}; otherwise
      * a 400 response is returned
-     *
-     * @return a list of one map entry, whose key is 'count' and value is the total
+     * @param asyncResponse  The suspended response, which is resumed with a list of one map entry, whose key is 'count'
+     * and value is the total
      */
     @GET
+    @ManagedAsync
     @LanguageCheck
+    @Bulkhead(EndpointClass.COUNT)
+    @HttpCacheable(HttpCachePolicy.COUNT)
     @Path("/languages/{language}/count")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getCountByLanguage(@NotNull @PathParam("language") final String language) {
+    @Produces({ MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE })
+    public void getCountByLanguage(
+            @NotNull @PathParam("language") final String language,
+            @Suspended final AsyncResponse asyncResponse
+    ) {
         final Language requestedLanguage = Language.ofClientValue(language);
 
-        final String query = String.format(
-                "MATCH (term:Term {language: '%s'}) RETURN count(*) as count", requestedLanguage.getDatabaseName()
+        resume(
+                asyncResponse,
+                COUNT_BY_LANGUAGE_TIMEOUT_MILLIS,
+                managedAsyncExecutor,
+                () -> languageStatistics.getCount(requestedLanguage)
+                        .thenApply(count -> toCountResponse(count, Instant.now()))
         );
+    }
 
+    /**
+     * Builds the response of {@code /languages/{language}/count} with the staleness of the count in its headers.
+     *
+     * @param count  The precomputed count
+     * @param now  The time the response is built at
+     *
+     * @return a 200 response with a list of one map entry, whose key is 'count' and value is the total
+     */
+    @NotNull
+    static Response toCountResponse(@NotNull final LanguageStatistics.TermCount count, @NotNull final Instant now) {
         return Response
                 .status(Response.Status.OK)
-                .entity(executeNonPathQuery(query))
+                .entity(Collections.singletonList(Collections.singletonMap("count", count.getCount())))
+                .lastModified(Date.from(count.getTakenAt()))
+                .header("Age", Math.max(Duration.between(count.getTakenAt(), now).toSeconds(), 0))
                 .build();
     }
 
     /**
      * Get paginated vocabularies of a language.
+     * <p>
+     * Two pagination modes are supported:
+     * <ul>
+     *     <li> cursor mode, when {@code page} is absent. The response is a {@link KeysetPage} whose {@code next} cursor
+     *          is passed as {@code after} to fetch the following page. Any page costs the same to fetch
+     *     <li> offset mode, when {@code page} is present. The response is the plain list of results. This mode is kept
+     *          for compatibility; deep pages are slow
+     * </ul>
+     * In both modes results are ordered by term so that pages are stable, and pages are served from the
+     * {@link ResultCache} when possible.
      *
      * @param language  The language. Must be one of the valid return value of {@link Language#getPathName()}; otherwise
      * a 400 response is returned
-     * @param perPage  Requested number of words to be displayed on each page of results
-     * @param page  Requested page of results desired
-     *
-     * @return the paginated Neo4J query results in JSON format
+     * @param perPage  Requested number of words to be displayed on each page of results; must be a positive integer,
+     * otherwise a 400 response is returned
+     * @param page  Requested page of results desired in offset mode; must be a positive integer, otherwise a 400
+     * response is returned
+     * @param after  The {@code next} cursor of the previous page in cursor mode; absent for the first page. Cannot be
+     * combined with {@code page}, and an invalid cursor results in a 400 response
+     * @param stream  Whether to stream the page instead of materializing it; only applies to offset mode
+     * @param asyncResponse  The suspended response, which is resumed with the paginated Neo4J query results in JSON
+     * format
      */
     @GET
+    @ManagedAsync
     @LanguageCheck
+    @Bulkhead(EndpointClass.VOCABULARY)
+    @HttpCacheable(HttpCachePolicy.VOCABULARY)
     @Path("/languages/{language}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getVocabularyByLanguagePaged(
+    @Produces({ MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE })
+    public void getVocabularyByLanguagePaged(
             @NotNull @PathParam("language") final String language,
             @NotNull @QueryParam("perPage") final String perPage,
-            @NotNull @QueryParam("page") final String page
+            @QueryParam("page") final String page,
+            @QueryParam("after") final String after,
+            @QueryParam("stream") @DefaultValue("false") final boolean stream,
+            @Suspended final AsyncResponse asyncResponse
     ) {
         final Language requestedLanguage = Language.ofClientValue(language);
 
-        final String query = String.format(
-                "MATCH (t:Term WHERE t.language = '%s')-[r]->(d:Definition) " +
-                "RETURN t.%s AS term, d.%s AS definition " +
-                "SKIP %s LIMIT %s",
-                requestedLanguage.getDatabaseName(),
-                Node.LABEL_ATTRIBUTE,
-                Node.LABEL_ATTRIBUTE,
-                (Integer.parseInt(page) - 1) * Integer.parseInt(perPage), perPage
-        );
+        final int limit;
+        final long skip;
+        try {
+            limit = parsePositive("perPage", perPage);
+            skip = page == null ? 0 : (parsePositive("page", page) - 1L) * limit;
+        } catch (final IllegalArgumentException exception) {
+            asyncResponse.resume(toErrorResponse(exception));
+            return;
+        }
 
-        return Response
-                .status(Response.Status.OK)
-                .entity(executeNonPathQuery(query))
-                .build();
+        if (page == null) {
+            resume(
+                    asyncResponse,
+                    VOCABULARY_BY_LANGUAGE_TIMEOUT_MILLIS,
+                    managedAsyncExecutor,
+                    () -> resultCache.get(
+                            new CacheKey(
+                                    CachedEndpoint.VOCABULARY_CURSOR,
+                                    requestedLanguage,
+                                    after == null ? "" : after,
+                                    limit
+                            ),
+                            KeysetPage.class,
+                            () -> vocabularyPaginator.page(requestedLanguage, after, limit)
+                    )
+            );
+            return;
+        }
+        if (after != null) {
+            asyncResponse.resume(
+                    Response
+                            .status(Response.Status.BAD_REQUEST)
+                            .entity("'page' and 'after' cannot be used together")
+                            .build()
+            );
+            return;
+        }
+
+        if (stream) {
+            asyncResponse.resume(
+                    Response
+                            .status(Response.Status.OK)
+                            .entity(StreamingResults.records(
+                                    queryExecutor,
+                                    CypherStatement.VOCABULARY_BY_LANGUAGE_PAGED,
+                                    requestedLanguage.getDatabaseName(),
+                                    skip,
+                                    limit
+                            ))
+                            .build()
+            );
+            return;
+        }
+
+        resume(
+                asyncResponse,
+                VOCABULARY_BY_LANGUAGE_TIMEOUT_MILLIS,
+                managedAsyncExecutor,
+                () -> resultCache.get(
+                        new CacheKey(CachedEndpoint.VOCABULARY_PAGE, requestedLanguage, skip, limit),
+                        Object.class,
+                        () -> executeNonPathQuery(
+                                CypherStatement.VOCABULARY_BY_LANGUAGE_PAGED,
+                                requestedLanguage.getDatabaseName(),
+                                skip,
+                                limit
+                        )
+                )
+        );
     }
 
     /**
-     * Search all nodes whose label contains a specified keyword.
+     * Search the nodes whose label best matches a specified keyword.
+     * <p>
+     * The search goes through a full-text index on the {@link Node#LABEL_ATTRIBUTE "label"} attribute and matches each
+     * token of the keyword as a whole word, a prefix, or an infix, regardless of case and of Latin-script diacritics.
+     * See {@link FullTextSearch} for details.
      *
      * @param keyword  The provided keyword
-     *
-     * @return all nodes whose {@link Node#LABEL_ATTRIBUTE "label"} attribute contains the search keyword
+     * @param limit  The maximum number of results; must be between 1 and the configured
+     * {@link ApplicationConfig#searchMaxLimit() maximum}, otherwise a 400 response is returned
+     * @param asyncResponse  The suspended response, which is resumed with a list of maps, each with the matching
+     * {@code node} and its relevance {@code score}, most relevant first
      */
     @GET
+    @ManagedAsync
+    @Bulkhead(EndpointClass.SEARCH)
+    @HttpCacheable(HttpCachePolicy.SEARCH)
     @Path("/search/{keyword}")
-    @Produces(MediaType.APPLICATION_JSON)
-    @SuppressWarnings("MultipleStringLiterals")
-    public Response search(@NotNull @PathParam("keyword") final String keyword) {
-        final String query = String.format(
-                "MATCH (node) WHERE node.%s =~ '.*%s.*' RETURN node",
-                Node.LABEL_ATTRIBUTE, keyword
+    @Produces({ MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE })
+    public void search(
+            @NotNull @PathParam("keyword") final String keyword,
+            @NotNull @QueryParam("limit") @DefaultValue("20") final String limit,
+            @Suspended final AsyncResponse asyncResponse
+    ) {
+        final int requestedLimit;
+        try {
+            requestedLimit = Integer.parseInt(limit);
+        } catch (final NumberFormatException exception) {
+            asyncResponse.resume(badSearchLimit(limit));
+            return;
+        }
+        if (requestedLimit < 1 || requestedLimit > SEARCH_MAX_LIMIT) {
+            asyncResponse.resume(badSearchLimit(limit));
+            return;
+        }
+
+        if (keyword.isBlank()) {
+            asyncResponse.resume(
+                    Response
+                            .status(Response.Status.OK)
+                            .entity(Collections.emptyList())
+                            .build()
+            );
+            return;
+        }
+
+        resume(
+                asyncResponse,
+                SEARCH_TIMEOUT_MILLIS,
+                managedAsyncExecutor,
+                () -> fullTextSearch.search(keyword, requestedLimit).thenApply(RecordMapper::toMaps)
         );
+    }
 
+    /**
+     * Returns a 400 response describing an invalid search limit.
+     *
+     * @param limit  The requested limit
+     *
+     * @return a response with a human-readable error message
+     */
+    private static Response badSearchLimit(final String limit) {
         return Response
-                .status(Response.Status.OK)
-                .entity(executeNonPathQuery(query))
+                .status(Response.Status.BAD_REQUEST)
+                .entity(String.format(
+                        "'%s' is not a valid limit. It must be between 1 and %d", limit, SEARCH_MAX_LIMIT
+                ))
                 .build();
     }
 
     /**
-     * Runs a cypher query against Neo4J database and return result as a JSON-serializable.
-     * <p>
-     * Use this method only if the {@code query} does not involve path, because this method cannot handle query result
-     * that has path object nested in it
+     * Parses a query parameter that must be a positive integer.
+     *
+     * @param name  The name of the parameter, for the error message
+     * @param value  The requested value, which is {@code null} if the parameter is absent
      *
-     * @param query  A standard cypher query string
+     * @return the parsed value
      *
-     * @return query's native result
+     * @throws IllegalArgumentException if {@code value} is not a positive integer
      */
-    private Object executeNonPathQuery(@NotNull final String query) {
-        return executeNativeQuery(query).records()
-                .stream()
-                .map(
-                        record -> record.keys()
-                                .stream()
-                                .map(key -> new AbstractMap.SimpleImmutableEntry<>(key, expand(record.get(key))))
-                                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-                )
-                .collect(Collectors.toList());
+    static int parsePositive(@NotNull final String name, final String value) {
+        final String message = String.format("'%s' is not a valid %s. It must be a positive integer", value, name);
+
+        final int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (final NumberFormatException exception) {
+            throw new IllegalArgumentException(message, exception);
+        }
+        if (parsed < 1) {
+            throw new IllegalArgumentException(message);
+        }
+
+        return parsed;
     }
 
     /**
-     * Transforms a Neo4J {@link Value} object into a Jackson-serializable Java object.
+     * Parses the max hops of an expansion.
      *
-     * See https://neo4j.com/docs/java-manual/current/data-types/ for more details
+     * @param maxHops  The requested max hops
      *
-     * @param value  An object graph. Cannot be {@code null}
+     * @return the max length of expanded paths, or {@code -1} for unlimitedly long paths
      *
-     * @return a {@link Map} representation of the object graph and can be Jackson-serialized
+     * @throws IllegalArgumentException if {@code maxHops} is not an integer of at least {@code -1}
      */
-    private static Object expand(@NotNull final Value value) {
-        if (isTerminalValue(value)) {
-            if (value.type().equals(InternalTypeSystem.TYPE_SYSTEM.INTEGER())) {
-                return value.asInt();
-            } else if (value.type().equals(InternalTypeSystem.TYPE_SYSTEM.BOOLEAN())) {
-                return value.asBoolean();
-            } else {
-                return value.asString();
-            }
+    static int parseMaxHops(final String maxHops) {
+        final String message = String.format(
+                "'%s' is not a valid maxHops. It must be -1 for unlimited hops or a non-negative integer", maxHops
+        );
+
+        final int parsed;
+        try {
+            parsed = Integer.parseInt(maxHops);
+        } catch (final NumberFormatException exception) {
+            throw new IllegalArgumentException(message, exception);
+        }
+        if (parsed < -1) {
+            throw new IllegalArgumentException(message);
         }
 
-        return StreamSupport.stream(value.keys().spliterator(), false)
-                .map(key -> new AbstractMap.SimpleImmutableEntry<>(key, expand(value.get(key))))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return parsed;
     }
 
     /**
-     * Returns whether or not a {@link Value} object is the "leaf" node in Jackson serialization.
+     * Resumes a suspended response with the asynchronous result of an endpoint, or with an error response.
      * <p>
-     * A "leaf" node is defined to be one of
+     * The response is resumed with
      * <ul>
-     *     <li> integer
-     *     <li> string
-     *     <li> boolean
+     *     <li> 200 and the result, if it completes within {@code timeoutMillis}; a result that is a {@link Response}
+     *          already is sent as is
+     *     <li> 504 Gateway Timeout, if it does not
+     *     <li> 400 Bad Request, if it fails with an {@link IllegalArgumentException}
+     *     <li> 503 Service Unavailable, if Neo4J is unreachable or temporarily unable to serve
+     *     <li> the failure itself, which Jersey turns into a 500, otherwise
      * </ul>
+     * It is resumed on {@code executor} rather than by the thread that completes the result, which is often an I/O
+     * thread of the Neo4J driver that must not run response filters and writers.
      *
-     * @param value  An object graph. Cannot be {@code null}
+     * @param asyncResponse  The suspended response
+     * @param timeoutMillis  The maximum amount of time, in milliseconds, to wait for the result
+     * @param executor  The executor the response is resumed on
+     * @param result  The computation of the result, which may also throw an {@link IllegalArgumentException} before
+     * returning a stage
+     */
+    static void resume(
+            @NotNull final AsyncResponse asyncResponse,
+            final long timeoutMillis,
+            @NotNull final Executor executor,
+            @NotNull final Supplier<CompletionStage<?>> result
+    ) {
+        asyncResponse.setTimeoutHandler(response -> response.resume(
+                Response
+                        .status(Response.Status.GATEWAY_TIMEOUT)
+                        .entity(String.format("Neo4J did not answer within %d ms", timeoutMillis))
+                        .build()
+        ));
+        asyncResponse.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+
+        CompletionStage<?> stage;
+        try {
+            stage = result.get();
+        } catch (final IllegalArgumentException exception) {
+            stage = CompletableFuture.failedFuture(exception);
+        }
+
+        stage.whenCompleteAsync((entity, error) -> {
+            if (error == null) {
+                asyncResponse.resume(
+                        entity instanceof Response
+                                ? entity
+                                : Response.status(Response.Status.OK).entity(entity).build()
+                );
+            } else {
+                asyncResponse.resume(toErrorResponse(unwrap(error)));
+            }
+        }, executor);
+    }
+
+    /**
+     * Maps the failure of an endpoint to a client or availability error, if it is one.
      *
-     * @return {@code true} if the object is simply a Jackson-serializable leaf node or {@code false} otherwise
+     * @param error  The failure
+     *
+     * @return an error response, or {@code error} itself to let Jersey answer with a server error
+     */
+    @NotNull
+    static Object toErrorResponse(@NotNull final Throwable error) {
+        if (error instanceof IllegalArgumentException) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(error.getMessage()).build();
+        }
+        if (error instanceof ServiceUnavailableException
+                || error instanceof SessionExpiredException
+                || error instanceof TransientException) {
+            LOG.warn("Answering 503 because Neo4J cannot serve the request", error);
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("Neo4J is unavailable").build();
+        }
+
+        LOG.error("Unable to serve request", error);
+        return error;
+    }
+
+    /**
+     * Strips the wrappers that {@link CompletionStage}s add around the actual failure.
+     *
+     * @param error  A failure reported by a {@link CompletionStage}
+     *
+     * @return the actual failure
+     */
+    @NotNull
+    static Throwable unwrap(@NotNull final Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Runs a cypher statement against Neo4J database and return result as a JSON-serializable.
+     * <p>
+     * Use this method only if the {@code statement} does not involve path, because this method cannot handle query
+     * result that has path object nested in it
+     *
+     * @param statement  A parameterized cypher statement
+     * @param arguments  The parameter values of the statement
+     *
+     * @return a stage that completes with the query's result in JSON-serializable form
      */
-    private static boolean isTerminalValue(@NotNull final Value value) {
-        return value.type().equals(InternalTypeSystem.TYPE_SYSTEM.INTEGER())
-                || value.type().equals(InternalTypeSystem.TYPE_SYSTEM.STRING())
-                || value.type().equals(InternalTypeSystem.TYPE_SYSTEM.BOOLEAN());
+    private CompletionStage<Object> executeNonPathQuery(
+            @NotNull final CypherStatement statement,
+            @NotNull final Object... arguments
+    ) {
+        return queryExecutor.executeAsync(statement, arguments).thenApply(RecordMapper::toMaps);
     }
 
     /**
      * Recursively find all related terms and definitions of a word.
      *
      * @param word  The word to expand
-     *
-     * @return a JSON representation of the expanded sub-graph
+     * @param stream  Whether to stream the sub-graph instead of materializing it
+     * @param asyncResponse  The suspended response, which is resumed with a JSON representation of the expanded
+     * sub-graph
      */
     @GET
+    @ManagedAsync
+    @Bulkhead(EndpointClass.EXPAND)
+    @HttpCacheable(HttpCachePolicy.EXPAND)
     @Path("/expand/{word}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({ MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE })
     @SuppressWarnings("MultipleStringLiterals")
-    public Response expand(@NotNull @PathParam("word") final String word) {
-        return expandApoc(word, "3");
+    public void expand(
+            @NotNull @PathParam("word") final String word,
+            @QueryParam("stream") @DefaultValue("false") final boolean stream,
+            @Suspended final AsyncResponse asyncResponse
+    ) {
+        expandApoc(word, "3", stream, asyncResponse);
     }
 
     /**
-     * Recursively find all related terms and definitions of a word using multiple Cypher queries with a plain BFS
-     * algorithm.
+     * Recursively find all related terms and definitions of many words at once.
      * <p>
-     * This is good for large sub-graph expand because it breaks huge memory consumption into sub-expand queries. But
-     * this endpoint sends multiple queries to database which incurs roundtrips and large Network I/O
+     * Each word is expanded like {@code /expandApoc/{word}} with the same max hops, but all of them by a single Cypher
+     * query, or from the {@link InMemoryGraphEngine} once it is loaded. Results are not cached.
      *
-     * @param word  The word to expand
+     * @param request  The words to expand, which must be at least one and at most
+     * {@link ApplicationConfig#expandBatchMaxWords() the configured number} of distinct words, and their max hops;
+     * otherwise a 400 response is returned
+     * @param asyncResponse  The suspended response, which is resumed with an {@link ExpansionBatch} of the sub-graphs
+     * of all distinct words
+     */
+    @POST
+    @ManagedAsync
+    @Bulkhead(EndpointClass.EXPAND)
+    @Path("/expand")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({ MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE })
+    public void expandBatch(final ExpansionRequest request, @Suspended final AsyncResponse asyncResponse) {
+        resume(asyncResponse, EXPAND_TIMEOUT_MILLIS, managedAsyncExecutor, () -> {
+            final List<String> words = distinctWords(request, EXPAND_BATCH_MAX_WORDS);
+
+            final Optional<Map<String, Graph>> inMemory = graphEngine.expandAll(words, request.getMaxHops());
+            if (inMemory.isPresent()) {
+                return CompletableFuture.completedFuture(ExpansionBatch.of(inMemory.get()));
+            }
+
+            return expandApocBatch(words, request.getMaxHops());
+        });
+    }
+
+    /**
+     * Validates the words of a batch expansion.
+     *
+     * @param request  The batch expansion request, which is {@code null} if the request has no body
+     * @param maxWords  The maximum number of distinct words
+     *
+     * @return the distinct words, in request order
      *
-     * @return a JSON representation of the expanded sub-graph
+     * @throws IllegalArgumentException if there are no words or too many distinct words
      */
-    @GET
-    @Path("/expandDfs/{word}")
-    @Produces(MediaType.APPLICATION_JSON)
-    @SuppressWarnings("MultipleStringLiterals")
-    public Response expandDfs(@NotNull @PathParam("word") final String word) {
-        return Response
-                .status(Response.Status.OK)
-                .entity(expandDfs(word, new HashSet<>()))
-                .build();
+    @NotNull
+    static List<String> distinctWords(final ExpansionRequest request, final int maxWords) {
+        if (request == null || request.getWords().isEmpty()) {
+            throw new IllegalArgumentException("At least one word is required");
+        }
+
+        final List<String> words = List.copyOf(new LinkedHashSet<>(request.getWords()));
+        if (words.size() > maxWords) {
+            throw new IllegalArgumentException(String.format(
+                    "At most %d distinct words can be expanded at once, but %d were requested", maxWords, words.size()
+            ));
+        }
+
+        return words;
     }
 
     /**
      * Recursively find all related terms and definitions of a word using multiple Cypher queries with a plain BFS
      * algorithm.
+     * <p>
+     * This is good for large sub-graph expand because it breaks huge memory consumption into sub-expand queries. Each
+     * BFS level costs a single round trip for all nodes on that level. The traversal is bounded by configurable depth
+     * and node budgets; see {@link BreadthFirstExpander}. Results are served from the {@link InMemoryGraphEngine} or
+     * the {@link ResultCache} when possible
      *
-     * @param label  The word to expand
-     * @param visited  A record that keeps track of visited nodes
-     *
-     * @return the expanded sub-graph
+     * @param word  The word to expand
+     * @param asyncResponse  The suspended response, which is resumed with a JSON representation of the expanded
+     * sub-graph
      */
-    private Graph expandDfs(@NotNull final String label, @NotNull final Set<String> visited) {
-        if (visited.contains(label)) {
-            return Graph.emptyGraph();
+    @GET
+    @ManagedAsync
+    @Bulkhead(EndpointClass.EXPAND_DFS)
+    @HttpCacheable(HttpCachePolicy.EXPAND)
+    @Path("/expandDfs/{word}")
+    @Produces({ MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE })
+    @SuppressWarnings("MultipleStringLiterals")
+    public void expandDfs(@NotNull @PathParam("word") final String word, @Suspended final AsyncResponse asyncResponse) {
+        final Optional<Graph> inMemory = graphEngine.expandBreadthFirst(word);
+        if (inMemory.isPresent()) {
+            resume(
+                    asyncResponse,
+                    EXPAND_TIMEOUT_MILLIS,
+                    managedAsyncExecutor,
+                    () -> CompletableFuture.completedFuture(inMemory.get())
+            );
+            return;
         }
 
-        visited.add(label);
-        final Graph oneHopExpand = (Graph) expandApoc(label, "1").getEntity();
-        final Node wordNode = oneHopExpand.getNodes().stream()
-                .filter(node -> label.equals(node.getLabel()))
-                .findFirst()
-                .orElseThrow(() -> {
-                    final String message = String.format("'%s' was not found in graph %s", label, oneHopExpand);
-                    LOG.error(message);
-                    return new IllegalArgumentException(message);
-                });
-        return oneHopExpand.getUndirectedNeighborsOf(wordNode).stream()
-                .map(neighbor -> expandDfs(neighbor.getLabel(), visited))
-                .reduce(oneHopExpand, Graph::merge);
+        resume(
+                asyncResponse,
+                EXPAND_TIMEOUT_MILLIS,
+                managedAsyncExecutor,
+                () -> resultCache.get(
+                        new CacheKey(CachedEndpoint.EXPAND_DFS, word),
+                        Graph.class,
+                        () -> breadthFirstExpander.expand(word)
+                                .thenApply(graph -> recordSize(CachedEndpoint.EXPAND_DFS, graph))
+                )
+        );
     }
 
     /**
      * Recursively find all related terms and definitions of a word using a single Cypher query with apoc extension.
      * <p>
      * This is bad for large sub-graph expand because it will exhaust memories allocated for the query in database. This
-     * is good for small-subgraph expand when WS and database are far away from each other.
+     * is good for small-subgraph expand when WS and database are far away from each other. Results are served from
+     * the {@link InMemoryGraphEngine} or the {@link ResultCache} when possible; a result served from memory is never
+     * streamed. Otherwise, concurrent expansions of other words may be sent to Neo4J together with this one by the
+     * {@link ExpansionCoalescer}
      *
      * @param word  The word to expand
-     * @param maxHops  The max length of expanded path. Use "-1" for unlimitedly long path.
-     *
-     * @return a JSON representation of the expanded sub-graph. The format of the JSON would be
+     * @param maxHops  The max length of expanded path. Use "-1" for unlimitedly long path. Anything but an integer of
+     * at least -1 results in a 400 response
+     * @param stream  Whether to stream the sub-graph instead of materializing it
+     * @param asyncResponse  The suspended response, which is resumed with a JSON representation of the expanded
+     * sub-graph
      */
     @GET
+    @ManagedAsync
+    @Bulkhead(EndpointClass.EXPAND)
+    @HttpCacheable(HttpCachePolicy.EXPAND)
     @Path("/expandApoc/{word}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({ MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE })
     @SuppressWarnings("MultipleStringLiterals")
-    public Response expandApoc(
+    public void expandApoc(
             @NotNull @PathParam("word") final String word,
-            @NotNull @QueryParam("maxHops") @DefaultValue("-1") final String maxHops
+            @NotNull @QueryParam("maxHops") @DefaultValue("-1") final String maxHops,
+            @QueryParam("stream") @DefaultValue("false") final boolean stream,
+            @Suspended final AsyncResponse asyncResponse
     ) {
-        LOG.info("apoc expanding '{}' with max hops of {}", word, maxHops);
-
-        final String query = String.format(
-                """
-                        MATCH (node{%s:'%s'})
-                        CALL apoc.path.expand(node, "LINK", null, 1, %s)
-                        YIELD path
-                        RETURN path, length(path) AS hops
-                        ORDER BY hops;
-                """,
-                Node.LABEL_ATTRIBUTE,
-                word.replace("'", "\\'"), maxHops
-        );
-
-        final EagerResult result = executeNativeQuery(query);
+        final int hops;
+        try {
+            hops = parseMaxHops(maxHops);
+        } catch (final IllegalArgumentException exception) {
+            asyncResponse.resume(toErrorResponse(exception));
+            return;
+        }
 
-        final Set<Node> nodes = new HashSet<>();
-        final Set<Link> links = new HashSet<>();
+        final Optional<Graph> inMemory = graphEngine.expand(word, hops);
+        if (inMemory.isPresent()) {
+            resume(
+                    asyncResponse,
+                    EXPAND_TIMEOUT_MILLIS,
+                    managedAsyncExecutor,
+                    () -> CompletableFuture.completedFuture(inMemory.get())
+            );
+            return;
+        }
 
-        result.records().stream()
-                .map(record -> record.get("path").asPath())
-                .forEach(path -> {
-                    path.nodes().forEach(node -> nodes.add(Node.valueOf(node)));
-                    path.relationships().forEach(relationship -> links.add(Link.valueOf(relationship)));
-                });
+        if (stream) {
+            LOG.info("apoc streaming '{}' with max hops of {}", word, hops);
+            asyncResponse.resume(
+                    Response
+                            .status(Response.Status.OK)
+                            .entity(StreamingResults.graph(
+                                    queryExecutor,
+                                    CypherStatement.EXPAND_APOC_NODES,
+                                    CypherStatement.EXPAND_APOC_LINKS,
+                                    word,
+                                    hops
+                            ))
+                            .build()
+            );
+            return;
+        }
 
-        return Response
-                .status(Response.Status.OK)
-                .entity(new Graph(nodes, links))
-                .build();
+        resume(
+                asyncResponse,
+                EXPAND_TIMEOUT_MILLIS,
+                managedAsyncExecutor,
+                () -> resultCache.get(
+                        new CacheKey(CachedEndpoint.EXPAND_APOC, word, hops),
+                        Graph.class,
+                        () -> expansionCoalescer.expand(word, hops)
+                                .thenApply(graph -> recordSize(CachedEndpoint.EXPAND_APOC, graph))
+                )
+        );
     }
 
     /**
-     * Runs a cypher query against Neo4J database and return the query result unmodified.
+     * Loads the expanded sub-graphs of many words from Neo4J with a single apoc path expansion query.
      *
-     * @param query  A standard cypher query string
+     * @param words  The distinct words to expand
+     * @param maxHops  The max length of expanded path, or -1 for unlimitedly long path
      *
-     * @return query's native result
+     * @return a stage that completes with the expanded sub-graph of each word
+     */
+    private CompletionStage<ExpansionBatch> expandApocBatch(@NotNull final List<String> words, final int maxHops) {
+        final RequestTrace trace = RequestTrace.current();
+        return expansionCoalescer.expandAll(words, maxHops).thenApply(graphs -> {
+            final long start = System.nanoTime();
+            final ExpansionBatch batch = ExpansionBatch.of(graphs);
+            trace.addPhase(RequestTrace.Phase.MAPPING, System.nanoTime() - start);
+            return batch;
+        });
+    }
+
+    /**
+     * Records the size of a sub-graph expanded from Neo4J.
      *
-     * @throws IllegalStateException if a query execution error occurs
+     * @param endpoint  The endpoint that expanded the sub-graph
+     * @param graph  The expanded sub-graph
+     *
+     * @return {@code graph}
      */
     @NotNull
-    private EagerResult executeNativeQuery(@NotNull final String query) {
-        try (Driver driver = GraphDatabase.driver(NEO4J_URL, AuthTokens.basic(NEO4J_USERNAME, NEO4J_PASSWORD))) {
-            driver.verifyConnectivity();
+    private Graph recordSize(@NotNull final CachedEndpoint endpoint, @NotNull final Graph graph) {
+        DistributionSummary.builder(GRAPH_NODES_METRIC)
+                .description("Number of nodes of sub-graphs expanded from Neo4J")
+                .tag("endpoint", endpoint.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(graph.getNodes().size());
+        DistributionSummary.builder(GRAPH_LINKS_METRIC)
+                .description("Number of links of sub-graphs expanded from Neo4J")
+                .tag("endpoint", endpoint.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(graph.getLinks().size());
 
-            return driver.executableQuery(query)
-                    .withConfig(QueryConfig.builder().withDatabase(NEO4J_DATABASE).build())
-                    .execute();
-        }
+        return graph;
     }
 }
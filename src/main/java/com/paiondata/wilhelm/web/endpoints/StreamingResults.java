@@ -0,0 +1,170 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.endpoints;
+
+import org.neo4j.driver.Record;
+import com.paiondata.wilhelm.Link;
+import com.paiondata.wilhelm.Node;
+import com.paiondata.wilhelm.neo4j.CypherStatement;
+import com.paiondata.wilhelm.neo4j.QueryExecutor;
+import com.paiondata.wilhelm.neo4j.RecordMapper;
+import com.paiondata.wilhelm.web.providers.StreamingEntity;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * {@link StreamingResults} writes query results straight to the response, record by record, while Neo4J streams them.
+ * <p>
+ * Unlike a materialized result, neither the records nor their converted form are collected; memory stays bounded by
+ * the driver's fetch size no matter how large the result is. The response format is the same as the materialized one,
+ * in JSON or any other negotiated {@link com.paiondata.wilhelm.web.providers.WireFormat}.
+ * <p>
+ * The queries run when Jersey writes the response, i.e. after the 200 status has been chosen. A query failure before
+ * the first byte is sent results in a 500; a failure after that truncates the response.
+ */
+@Immutable
+@ThreadSafe
+final class StreamingResults {
+
+    /**
+     * Constructor.
+     * <p>
+     * Suppress default constructor for noninstantiability.
+     *
+     * @throws AssertionError when called
+     */
+    private StreamingResults() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Streams the records of a non-path query as a list with one object per record.
+     *
+     * @param queryExecutor  The runner of the statement
+     * @param statement  A statement that does not return paths
+     * @param arguments  The parameter values of the statement
+     *
+     * @return a response entity in the format of a materialized non-path query result
+     */
+    @NotNull
+    static StreamingEntity records(
+            @NotNull final QueryExecutor queryExecutor,
+            @NotNull final CypherStatement statement,
+            @NotNull final Object... arguments
+    ) {
+        return generator -> {
+            generator.writeStartArray();
+            streamRecords(queryExecutor, statement, arguments, record -> {
+                generator.writeStartObject();
+                for (final String key : record.keys()) {
+                    generator.writeObjectField(key, RecordMapper.expand(record.get(key)));
+                }
+                generator.writeEndObject();
+            });
+            generator.writeEndArray();
+        };
+    }
+
+    /**
+     * Streams a sub-graph as an object of "nodes" and "links".
+     *
+     * @param queryExecutor  The runner of the statements
+     * @param nodesStatement  A statement that returns each distinct {@code node} of the sub-graph once
+     * @param linksStatement  A statement that returns each distinct {@code link} of the sub-graph once
+     * @param arguments  The parameter values of both statements
+     *
+     * @return a response entity in the format of {@link com.paiondata.wilhelm.Graph}
+     */
+    @NotNull
+    static StreamingEntity graph(
+            @NotNull final QueryExecutor queryExecutor,
+            @NotNull final CypherStatement nodesStatement,
+            @NotNull final CypherStatement linksStatement,
+            @NotNull final Object... arguments
+    ) {
+        return generator -> {
+            generator.writeStartObject();
+
+            generator.writeArrayFieldStart("nodes");
+            streamRecords(queryExecutor, nodesStatement, arguments, record ->
+                    generator.writeObject(Node.valueOf(record.get("node").asNode()))
+            );
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("links");
+            streamRecords(queryExecutor, linksStatement, arguments, record ->
+                    generator.writeObject(Link.valueOf(record.get("link").asRelationship()))
+            );
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        };
+    }
+
+    /**
+     * Streams the records of a statement into a writer of a single record.
+     *
+     * @param queryExecutor  The runner of the statement
+     * @param statement  The statement to run
+     * @param arguments  The parameter values of the statement
+     * @param writer  The writer of a single record
+     *
+     * @throws IOException if a record cannot be written
+     */
+    private static void streamRecords(
+            @NotNull final QueryExecutor queryExecutor,
+            @NotNull final CypherStatement statement,
+            @NotNull final Object[] arguments,
+            @NotNull final RecordWriter writer
+    ) throws IOException {
+        try {
+            queryExecutor.stream(
+                    statement,
+                    record -> {
+                        try {
+                            writer.write(record);
+                        } catch (final IOException exception) {
+                            throw new UncheckedIOException(exception);
+                        }
+                    },
+                    arguments
+            );
+        } catch (final UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Writes a single record into a generator.
+     */
+    @FunctionalInterface
+    private interface RecordWriter {
+
+        /**
+         * Writes a record.
+         *
+         * @param record  The record to write
+         *
+         * @throws IOException if the record cannot be written
+         */
+        void write(@NotNull Record record) throws IOException;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.time.Duration;
+
+/**
+ * A concurrency limit that adapts to the latency of the requests it admits.
+ * <p>
+ * The limit follows a gradient algorithm. Each successful request compares its latency with the long-term average
+ * latency of the requests before it. While it is no slower than {@value #TOLERANCE} times that average, the limit
+ * grows by the square root of itself, which leaves room for a short queue; once requests get slower, the limit shrinks
+ * in proportion, by at most half per request. Every change is smoothed so that a single slow request does not make the
+ * limit jump. A request that fails because the webservice is overloaded, i.e. with 503 or 504, multiplies the limit by
+ * {@value #BACKOFF_RATIO} instead, which is the multiplicative decrease of AIMD.
+ * <p>
+ * The limit is not increased while fewer than half of it are in flight, because such requests tell nothing about
+ * whether more of them could be served as fast. It always stays between its minimum and maximum.
+ */
+@ThreadSafe
+public class AdaptiveConcurrencyLimit {
+
+    /**
+     * How many times slower than the long-term average a request may be before the limit shrinks.
+     */
+    static final double TOLERANCE = 1.5;
+
+    /**
+     * The factor the limit is multiplied by when a request fails because of overload.
+     */
+    static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * The weight of a single request in the change of the limit.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * The weight of a single request in the long-term average latency, which spans about the last 600 requests.
+     */
+    private static final double LONG_TERM_WEIGHT = 2.0 / 601;
+
+    /**
+     * The lowest gradient, at which the limit shrinks by half.
+     */
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    @GuardedBy("this")
+    private double limit;
+    @GuardedBy("this")
+    private int inFlight;
+    @GuardedBy("this")
+    private double longTermNanos;
+
+    /**
+     * All-args constructor.
+     * <p>
+     * The limit starts at its maximum and is only lowered once requests show that it is too high.
+     *
+     * @param minLimit  The lowest the limit can get
+     * @param maxLimit  The highest the limit can get
+     *
+     * @throws IllegalArgumentException if {@code minLimit} is not positive or greater than {@code maxLimit}
+     */
+    public AdaptiveConcurrencyLimit(final int minLimit, final int maxLimit) {
+        if (minLimit <= 0 || minLimit > maxLimit) {
+            throw new IllegalArgumentException(String.format(
+                    "Concurrency limits must be positive and ordered: minLimit=%d, maxLimit=%d",
+                    minLimit,
+                    maxLimit
+            ));
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Admits a request if the limit has not been reached.
+     * <p>
+     * An admitted request must be reported exactly once, by {@link #onSuccess(long)}, {@link #onDropped()}, or
+     * {@link #onIgnored()}.
+     *
+     * @return {@code true} if the request is admitted, or {@code false} if it should be rejected
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= getLimit()) {
+            return false;
+        }
+
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Reports an admitted request that succeeded and adapts the limit to its latency.
+     *
+     * @param latencyNanos  The time the request took, in nanoseconds
+     */
+    public synchronized void onSuccess(final long latencyNanos) {
+        final int admitted = inFlight;
+        release();
+        if (latencyNanos <= 0) {
+            return;
+        }
+        if (longTermNanos == 0) {
+            longTermNanos = latencyNanos;
+            return;
+        }
+
+        longTermNanos = longTermNanos * (1 - LONG_TERM_WEIGHT) + latencyNanos * LONG_TERM_WEIGHT;
+        if (longTermNanos > 2 * latencyNanos) {
+            // latency has dropped well below its long-term average, e.g. after an overload; catch up with it faster
+            longTermNanos *= 0.95;
+        }
+
+        final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * longTermNanos / latencyNanos));
+        final double target = limit * gradient + Math.sqrt(limit);
+        if (target > limit && admitted < limit / 2) {
+            return;
+        }
+
+        setLimit(limit * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    /**
+     * Reports an admitted request that failed because the webservice or Neo4J is overloaded, and backs the limit off.
+     */
+    public synchronized void onDropped() {
+        release();
+        setLimit(limit * BACKOFF_RATIO);
+    }
+
+    /**
+     * Reports an admitted request whose outcome says nothing about load, e.g. a 400 response, without adapting the
+     * limit.
+     */
+    public synchronized void onIgnored() {
+        release();
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the maximum number of requests admitted at the same time
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns the number of admitted requests that have not been reported yet.
+     *
+     * @return a non-negative number
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Returns the long-term average latency of successful requests.
+     *
+     * @return a non-negative duration, which is zero until the first request succeeded
+     */
+    @NotNull
+    public synchronized Duration getLatency() {
+        return Duration.ofNanos((long) longTermNanos);
+    }
+
+    /**
+     * Frees the slot of a reported request.
+     */
+    @GuardedBy("this")
+    private void release() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+    }
+
+    /**
+     * Sets the limit, kept between its minimum and maximum.
+     *
+     * @param newLimit  The new limit
+     */
+    @GuardedBy("this")
+    private void setLimit(final double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.Resource;
+import com.paiondata.wilhelm.AdminOnly;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+
+import jakarta.annotation.Priority;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * {@link AdminAuthenticationFilter} is a Jersey request filter that restricts the endpoints marked {@link AdminOnly}
+ * to operators.
+ * <p>
+ * A request to such an endpoint is
+ * <ul>
+ *     <li> answered with 404 Not Found if no {@link ApplicationConfig#adminToken() admin token} is configured, so
+ *          that the endpoints do not exist unless they are explicitly enabled
+ *     <li> answered with 401 Unauthorized if it does not carry {@code Authorization: Bearer <admin token>}
+ *     <li> passed on otherwise
+ * </ul>
+ * The restriction applies to every method of the endpoint's path, including the {@code OPTIONS} of CORS preflight
+ * requests, which {@link CorsFilter} leaves to this filter.
+ */
+@Immutable
+@ThreadSafe
+@Priority(Priorities.AUTHENTICATION)
+public class AdminAuthenticationFilter implements ContainerRequestFilter {
+
+    private static final String BEARER = "Bearer";
+
+    private final byte[] token;
+
+    /**
+     * Constructor that loads the admin token from {@link ApplicationConfig}.
+     */
+    public AdminAuthenticationFilter() {
+        this(ConfigFactory.create(ApplicationConfig.class).adminToken());
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param token  The bearer token of operators, or {@code null} or empty to disable the {@link AdminOnly}
+     * endpoints
+     */
+    public AdminAuthenticationFilter(final String token) {
+        this.token = token == null || token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void filter(@NotNull final ContainerRequestContext request) {
+        if (!isAdminOnly(request)) {
+            return;
+        }
+
+        if (token == null) {
+            request.abortWith(Response.status(Response.Status.NOT_FOUND).build());
+            return;
+        }
+
+        if (!isAuthorized(request.getHeaderString(HttpHeaders.AUTHORIZATION))) {
+            request.abortWith(
+                    Response.status(Response.Status.UNAUTHORIZED).header(HttpHeaders.WWW_AUTHENTICATE, BEARER).build()
+            );
+        }
+    }
+
+    /**
+     * Returns whether a request was matched to the path of an {@link AdminOnly} resource method.
+     * <p>
+     * Any method of that path counts, so that the {@code OPTIONS} and {@code HEAD} methods Jersey adds to every path
+     * are restricted as well.
+     *
+     * @param request  The matched request
+     *
+     * @return {@code true} if any resource method of the matched path is annotated {@link AdminOnly}
+     */
+    static boolean isAdminOnly(@NotNull final ContainerRequestContext request) {
+        if (!(request.getUriInfo() instanceof ExtendedUriInfo)) {
+            return false;
+        }
+
+        final Resource resource = ((ExtendedUriInfo) request.getUriInfo()).getMatchedModelResource();
+        return resource != null && resource.getResourceMethods().stream()
+                .anyMatch(method -> method.getInvocable().getDefinitionMethod().isAnnotationPresent(AdminOnly.class));
+    }
+
+    /**
+     * Returns whether an {@code Authorization} header carries the admin token.
+     * <p>
+     * The token is compared in constant time, so that response times do not disclose how much of it was guessed.
+     *
+     * @param authorization  The header value, or {@code null} if the request has none
+     *
+     * @return {@code true} if the header is {@code Bearer} followed by the admin token
+     */
+    private boolean isAuthorized(final String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER + " ", 0, BEARER.length() + 1)) {
+            return false;
+        }
+
+        return MessageDigest.isEqual(
+                token,
+                authorization.substring(BEARER.length() + 1).trim().getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import com.paiondata.wilhelm.Bulkhead;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@link AdmissionControlFilter} sheds load before it piles up, by admitting the requests of each {@link EndpointClass}
+ * only up to its own {@link AdaptiveConcurrencyLimit}.
+ * <p>
+ * Each class is a bulkhead: a burst of deep {@code /expandDfs} traversals can use up its own limit, but not the threads
+ * and Neo4J connections that cheap {@code /languages/{language}/count} requests need. A request over the limit of its
+ * class is answered right away with 503 Service Unavailable and a {@code Retry-After} of the class's average latency,
+ * at least 1 second, instead of queueing until it times out. The limits start at their configured maximum and adapt
+ * to the latency and the overload failures of the requests they admitted.
+ * <p>
+ * An admitted request holds its slot until its response has been written, not just until its resource method returns:
+ * as the outermost writer interceptor, the filter releases the slot of a response with a body once the body has been
+ * written, so that streamed responses, which query Neo4J while they are written, count toward the limit of their class
+ * for as long as they stream. Responses without a body release their slot in the response filter.
+ * <p>
+ * Only requests to {@link Bulkhead} endpoints are limited. The current limit and number of in-flight requests of each
+ * class are exported as the {@value #LIMIT_METRIC} and {@value #IN_FLIGHT_METRIC} gauges, and rejected requests are
+ * counted by the {@value #REJECTIONS_METRIC} counter, all tagged with the class.
+ */
+@ThreadSafe
+@Priority(Priorities.AUTHENTICATION)
+public class AdmissionControlFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    /**
+     * The name of the gauge of the concurrency limit of each endpoint class.
+     */
+    public static final String LIMIT_METRIC = "admission.limit";
+
+    /**
+     * The name of the gauge of the number of admitted requests of each endpoint class that are still being served.
+     */
+    public static final String IN_FLIGHT_METRIC = "admission.in.flight";
+
+    /**
+     * The name of the counter of requests rejected because their endpoint class was at its limit.
+     */
+    public static final String REJECTIONS_METRIC = "admission.rejections";
+
+    private static final String ADMISSION_PROPERTY = AdmissionControlFilter.class.getName() + ".admission";
+    private static final String CLASS_TAG = "class";
+
+    private final boolean enabled;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits;
+    private final Map<EndpointClass, Counter> rejections;
+
+    /**
+     * Constructor for dependency injection.
+     * <p>
+     * The limits of all endpoint classes are loaded from {@link ApplicationConfig}.
+     *
+     * @param meterRegistry  The application-scoped registry the limits and rejections are recorded in
+     *
+     * @throws NullPointerException if {@code meterRegistry} is {@code null}
+     */
+    @Inject
+    public AdmissionControlFilter(@NotNull final MeterRegistry meterRegistry) {
+        this(ConfigFactory.create(ApplicationConfig.class), meterRegistry);
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param applicationConfig  The source of the switch and the limits of all endpoint classes
+     * @param meterRegistry  The registry the limits and rejections are recorded in
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if the configured limits of an endpoint class are not positive and ordered
+     */
+    public AdmissionControlFilter(
+            @NotNull final ApplicationConfig applicationConfig,
+            @NotNull final MeterRegistry meterRegistry
+    ) {
+        Objects.requireNonNull(meterRegistry);
+
+        this.enabled = applicationConfig.admissionControlEnabled();
+        this.limits = perClass(endpointClass -> {
+            final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(
+                    applicationConfig.admissionMinConcurrency(),
+                    endpointClass.getMaxConcurrency(applicationConfig)
+            );
+            Gauge.builder(LIMIT_METRIC, limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Adaptive concurrency limit of an endpoint class")
+                    .tag(CLASS_TAG, endpointClass.name())
+                    .register(meterRegistry);
+            Gauge.builder(IN_FLIGHT_METRIC, limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Admitted requests of an endpoint class that are still being served")
+                    .tag(CLASS_TAG, endpointClass.name())
+                    .register(meterRegistry);
+            return limit;
+        });
+        this.rejections = perClass(endpointClass -> Counter.builder(REJECTIONS_METRIC)
+                .description("Requests rejected because their endpoint class was at its concurrency limit")
+                .tag(CLASS_TAG, endpointClass.name())
+                .register(meterRegistry)
+        );
+    }
+
+    @Override
+    public void filter(@NotNull final ContainerRequestContext request) {
+        final Bulkhead bulkhead = getBulkhead(request);
+        if (!enabled || bulkhead == null) {
+            return;
+        }
+
+        final AdaptiveConcurrencyLimit limit = limits.get(bulkhead.value());
+        if (limit.tryAcquire()) {
+            request.setProperty(ADMISSION_PROPERTY, new Admission(limit));
+            return;
+        }
+
+        rejections.get(bulkhead.value()).increment();
+        request.abortWith(
+                Response
+                        .status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, getRetryAfterSeconds(limit.getLatency()))
+                        .entity("The webservice is overloaded; please retry later")
+                        .build()
+        );
+    }
+
+    @Override
+    public void filter(
+            @NotNull final ContainerRequestContext request,
+            @NotNull final ContainerResponseContext response
+    ) {
+        final Object admission = request.getProperty(ADMISSION_PROPERTY);
+        if (!(admission instanceof Admission)) {
+            return;
+        }
+
+        ((Admission) admission).setStatus(response.getStatus());
+        if (!response.hasEntity() || HttpMethod.HEAD.equals(request.getMethod())) {
+            request.removeProperty(ADMISSION_PROPERTY);
+            ((Admission) admission).release(false);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(@NotNull final WriterInterceptorContext context) throws IOException {
+        final Object admission = context.getProperty(ADMISSION_PROPERTY);
+        if (!(admission instanceof Admission)) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(ADMISSION_PROPERTY);
+
+        boolean written = false;
+        try {
+            context.proceed();
+            written = true;
+        } finally {
+            ((Admission) admission).release(!written);
+        }
+    }
+
+    /**
+     * Returns the concurrency limit of an endpoint class.
+     *
+     * @param endpointClass  The endpoint class
+     *
+     * @return the limit its requests are admitted under
+     */
+    @NotNull
+    AdaptiveConcurrencyLimit getLimit(@NotNull final EndpointClass endpointClass) {
+        return limits.get(endpointClass);
+    }
+
+    /**
+     * Returns the {@link Bulkhead} annotation of the resource method a request matched, if any.
+     *
+     * @param request  The request
+     *
+     * @return the annotation or {@code null} if the request was not matched to a {@link Bulkhead} method
+     */
+    static Bulkhead getBulkhead(@NotNull final ContainerRequestContext request) {
+        if (!(request.getUriInfo() instanceof ExtendedUriInfo)) {
+            return null;
+        }
+
+        final ResourceMethod resourceMethod = ((ExtendedUriInfo) request.getUriInfo()).getMatchedResourceMethod();
+        return resourceMethod == null
+                ? null
+                : resourceMethod.getInvocable().getDefinitionMethod().getAnnotation(Bulkhead.class);
+    }
+
+    /**
+     * Computes the {@code Retry-After} of a rejected request.
+     *
+     * @param latency  The average latency of the requests of its endpoint class
+     *
+     * @return the latency rounded up to whole seconds, and at least 1
+     */
+    static long getRetryAfterSeconds(@NotNull final Duration latency) {
+        final long seconds = latency.toSeconds();
+        return Math.max(1, latency.equals(Duration.ofSeconds(seconds)) ? seconds : seconds + 1);
+    }
+
+    /**
+     * The slot of an admitted request in the concurrency limit of its endpoint class.
+     */
+    @ThreadSafe
+    private static final class Admission {
+
+        private final AdaptiveConcurrencyLimit limit;
+        private final long admittedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile int status = Response.Status.OK.getStatusCode();
+
+        /**
+         * Constructor.
+         *
+         * @param limit  The limit the slot was acquired from
+         */
+        Admission(@NotNull final AdaptiveConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Records the status of the response to the request.
+         *
+         * @param status  The HTTP status code
+         */
+        void setStatus(final int status) {
+            this.status = status;
+        }
+
+        /**
+         * Returns the slot and reports the outcome of the request to the limit; later calls have no effect.
+         * <p>
+         * Overload failures, 503 and 504, back the limit off. The latency of other successful responses, up to the end
+         * of their body, adapts it. Client errors and responses that could not be written are ignored.
+         *
+         * @param failed  Whether writing the response failed
+         */
+        void release(final boolean failed) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (status == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()
+                    || status == Response.Status.GATEWAY_TIMEOUT.getStatusCode()) {
+                limit.onDropped();
+            } else if (!failed && status < Response.Status.BAD_REQUEST.getStatusCode()) {
+                limit.onSuccess(System.nanoTime() - admittedAt);
+            } else {
+                limit.onIgnored();
+            }
+        }
+    }
+
+    /**
+     * Creates an immutable map with a value for each endpoint class.
+     *
+     * @param valueOf  The factory of the value of an endpoint class
+     * @param <T>  The type of values
+     *
+     * @return an immutable map containing all endpoint classes
+     */
+    @NotNull
+    private static <T> Map<EndpointClass, T> perClass(@NotNull final Function<EndpointClass, T> valueOf) {
+        return Collections.unmodifiableMap(
+                Arrays.stream(EndpointClass.values())
+                        .collect(Collectors.toMap(
+                                Function.identity(),
+                                valueOf,
+                                (first, second) -> first,
+                                () -> new EnumMap<>(EndpointClass.class)
+                        ))
+        );
+    }
+}
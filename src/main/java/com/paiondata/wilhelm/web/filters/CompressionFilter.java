@@ -0,0 +1,256 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import org.aeonbits.owner.ConfigFactory;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+
+import jakarta.annotation.Priority;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * {@link CompressionFilter} gzips response bodies for clients that accept gzip.
+ * <p>
+ * As a response filter it negotiates the encoding: it adds {@code Vary: Accept-Encoding} to every response, so that
+ * shared caches keep compressed and uncompressed variants apart, and {@code Content-Encoding: gzip} if the request's
+ * {@code Accept-Encoding} allows gzip and the body is not known to be smaller than the minimum size. As a writer
+ * interceptor it then compresses the bodies marked so with a {@link ThresholdGzipOutputStream}, which still sends
+ * bodies that turn out to be smaller than the minimum size uncompressed, without the header. This includes streamed
+ * bodies, whose size is unknown up front.
+ * <p>
+ * A gzipped body is a different representation than the uncompressed one, so it must not share its strong
+ * {@code ETag}: the filter appends {@value #GZIP_ENTITY_TAG_SUFFIX} to the opaque value of the {@code ETag} of every
+ * response it marks, and removes it again if the body is sent uncompressed after all. {@link HttpCacheFilter} accepts
+ * both tags in {@code If-None-Match}.
+ * <p>
+ * Its {@link Priorities#ENTITY_CODER} priority makes it run after {@link HttpCacheFilter}, which serializes bodies into
+ * bytes of known size, and makes it the outermost writer interceptor, so that it compresses what all others write.
+ * <p>
+ * Brotli is not offered, because the JDK has no brotli encoder and the available ones are native libraries.
+ */
+@ThreadSafe
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionFilter implements ContainerResponseFilter, WriterInterceptor {
+
+    /**
+     * The content coding of gzip.
+     */
+    public static final String GZIP = "gzip";
+
+    /**
+     * The suffix of the opaque value of the {@code ETag} of a gzipped body.
+     */
+    public static final String GZIP_ENTITY_TAG_SUFFIX = "-" + GZIP;
+
+    private static final String X_GZIP = "x-gzip";
+    private static final String ANY = "*";
+    private static final String QUALITY = "q=";
+
+    private final int minSizeBytes;
+    private final DeflaterPool pool;
+
+    /**
+     * Constructor that loads the compression settings from {@link ApplicationConfig}.
+     */
+    public CompressionFilter() {
+        this(ConfigFactory.create(ApplicationConfig.class));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param applicationConfig  The source of the compression level, minimum size, and compressor pool size
+     *
+     * @throws NullPointerException if {@code applicationConfig} is {@code null}
+     * @throws IllegalArgumentException if any of the settings is out of range
+     */
+    public CompressionFilter(@NotNull final ApplicationConfig applicationConfig) {
+        this(
+                Objects.requireNonNull(applicationConfig).compressionLevel(),
+                applicationConfig.compressionMinSizeBytes(),
+                applicationConfig.compressionPoolSize()
+        );
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param level  The gzip compression level from {@code 1} to {@code 9}, or {@code 0} to disable compression
+     * @param minSizeBytes  The minimum size of a body to be compressed
+     * @param poolSize  The maximum number of idle compressors kept for reuse
+     *
+     * @throws IllegalArgumentException if {@code level} is not between {@code 0} and {@code 9}, {@code minSizeBytes}
+     * is negative, or {@code poolSize} is not positive
+     */
+    public CompressionFilter(final int level, final int minSizeBytes, final int poolSize) {
+        if (minSizeBytes < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Minimum compressed size must not be negative: %d", minSizeBytes)
+            );
+        }
+
+        this.minSizeBytes = minSizeBytes;
+        this.pool = level == 0 ? null : new DeflaterPool(level, poolSize);
+    }
+
+    @Override
+    public void filter(
+            @NotNull final ContainerRequestContext request,
+            @NotNull final ContainerResponseContext response
+    ) {
+        if (pool == null) {
+            return;
+        }
+
+        response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (!response.hasEntity()
+                || response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)
+                || !acceptsGzip(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING))
+                || (response.getEntity() instanceof byte[] && ((byte[]) response.getEntity()).length < minSizeBytes)) {
+            return;
+        }
+
+        response.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+        final EntityTag entityTag = response.getEntityTag();
+        if (entityTag != null) {
+            response.getHeaders().putSingle(HttpHeaders.ETAG, gzipped(entityTag));
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(@NotNull final WriterInterceptorContext context) throws IOException {
+        if (pool == null || !GZIP.equals(context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+            context.proceed();
+            return;
+        }
+
+        final ThresholdGzipOutputStream output = new ThresholdGzipOutputStream(
+                context.getOutputStream(),
+                pool,
+                minSizeBytes,
+                () -> sendUncompressed(context.getHeaders())
+        );
+        context.setOutputStream(output);
+        try {
+            context.proceed();
+            output.finish();
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Returns the {@code ETag} of the gzipped representation of a body.
+     *
+     * @param entityTag  The {@code ETag} of the uncompressed body
+     *
+     * @return a tag of the same strength whose opaque value ends with {@value #GZIP_ENTITY_TAG_SUFFIX}
+     */
+    @NotNull
+    public static EntityTag gzipped(@NotNull final EntityTag entityTag) {
+        return new EntityTag(entityTag.getValue() + GZIP_ENTITY_TAG_SUFFIX, entityTag.isWeak());
+    }
+
+    /**
+     * Reverts the headers of a response marked for compression whose body is sent uncompressed after all.
+     *
+     * @param headers  The headers of the response, which are not sent yet
+     */
+    private static void sendUncompressed(@NotNull final MultivaluedMap<String, Object> headers) {
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+
+        final Object entityTag = headers.getFirst(HttpHeaders.ETAG);
+        if (entityTag instanceof EntityTag && ((EntityTag) entityTag).getValue().endsWith(GZIP_ENTITY_TAG_SUFFIX)) {
+            final String value = ((EntityTag) entityTag).getValue();
+            headers.putSingle(
+                    HttpHeaders.ETAG,
+                    new EntityTag(
+                            value.substring(0, value.length() - GZIP_ENTITY_TAG_SUFFIX.length()),
+                            ((EntityTag) entityTag).isWeak()
+                    )
+            );
+        }
+    }
+
+    /**
+     * Returns whether an {@code Accept-Encoding} request header allows a gzip response.
+     * <p>
+     * An explicit {@code gzip} or {@code x-gzip} coding takes precedence over {@code *}. Codings with a quality of
+     * {@code 0}, or an unparsable one, are not acceptable.
+     *
+     * @param acceptEncoding  The header value, or {@code null} if the request has none
+     *
+     * @return {@code true} if gzip has a positive quality
+     */
+    static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (final String element : acceptEncoding.split(",")) {
+            final String[] parts = element.split(";");
+            final String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (GZIP.equals(coding) || X_GZIP.equals(coding)) {
+                gzipQuality = Math.max(gzipQuality == null ? 0 : gzipQuality, quality(parts));
+            } else if (ANY.equals(coding)) {
+                anyQuality = quality(parts);
+            }
+        }
+
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    /**
+     * Returns the quality of an {@code Accept-Encoding} element.
+     *
+     * @param parts  The coding and the parameters of the element
+     *
+     * @return the value of the {@code q} parameter, {@code 1} if there is none, or {@code 0} if it is unparsable
+     */
+    private static double quality(@NotNull final String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            final String parameter = parts[i].trim();
+            if (parameter.startsWith(QUALITY)) {
+                try {
+                    return Double.parseDouble(parameter.substring(QUALITY.length()));
+                } catch (final NumberFormatException exception) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
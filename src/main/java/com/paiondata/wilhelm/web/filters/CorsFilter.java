@@ -15,6 +15,8 @@
  */
 package com.paiondata.wilhelm.web.filters;
 
+import com.paiondata.wilhelm.AdminOnly;
+
 import jakarta.annotation.Priority;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.container.ContainerRequestContext;
@@ -42,6 +44,9 @@ import net.jcip.annotations.ThreadSafe;
  *          be attached to the response
  *     <li> If the request is neither preflight nor corss-origin, the response will be send back unmodified
  * </ul>
+ * Requests to {@link AdminOnly} endpoints are never allowed cross-origin: they are left to
+ * {@link AdminAuthenticationFilter} and their responses carry none of the headers above.
+ * <p>
  * For more information, see this <a href="https://stackoverflow.com/a/28067653">post</a>
  */
 @Immutable
@@ -51,7 +56,7 @@ public class CorsFilter implements ContainerRequestFilter, ContainerResponseFilt
 
     @Override
     public void filter(@NotNull final ContainerRequestContext request) {
-        if (isPreflightRequest(request)) {
+        if (isPreflightRequest(request) && !AdminAuthenticationFilter.isAdminOnly(request)) {
             request.abortWith(Response.ok().build());
         }
     }
@@ -61,7 +66,7 @@ public class CorsFilter implements ContainerRequestFilter, ContainerResponseFilt
             @NotNull final ContainerRequestContext request,
             @NotNull final ContainerResponseContext response
     ) {
-        if (!isCrossOriginRequest(request)) {
+        if (!isCrossOriginRequest(request) || AdminAuthenticationFilter.isAdminOnly(request)) {
             return;
         }
 
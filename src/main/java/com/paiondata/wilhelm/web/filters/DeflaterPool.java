@@ -0,0 +1,94 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * {@link DeflaterPool} is a bounded pool of raw {@link Deflater}s of one compression level.
+ * <p>
+ * A {@link Deflater} holds about 256 KB of native memory, which is allocated on creation and freed on
+ * {@link Deflater#end()}. Reusing them saves that allocation, and the finalization pressure of abandoned ones, on every
+ * compressed response. Borrowing never blocks: if no deflater is idle, a new one is created, and deflaters released
+ * into a full pool are ended.
+ */
+@ThreadSafe
+final class DeflaterPool {
+
+    private final int level;
+    private final BlockingQueue<Deflater> idle;
+
+    /**
+     * All-args constructor.
+     *
+     * @param level  The compression level of all deflaters, from {@link Deflater#BEST_SPEED} to
+     * {@link Deflater#BEST_COMPRESSION}
+     * @param capacity  The maximum number of idle deflaters kept
+     *
+     * @throws IllegalArgumentException if {@code level} is not a valid compression level or {@code capacity} is not
+     * positive
+     */
+    DeflaterPool(final int level, final int capacity) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException(String.format("Invalid compression level: %d", level));
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format("Compressor pool size must be positive: %d", capacity));
+        }
+
+        this.level = level;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Takes an idle deflater out of the pool, or creates one if there is none.
+     *
+     * @return a deflater that produces raw deflate data, without zlib header and trailer, as required by gzip
+     */
+    @NotNull
+    Deflater borrow() {
+        final Deflater deflater = idle.poll();
+        return deflater == null ? new Deflater(level, true) : deflater;
+    }
+
+    /**
+     * Resets a borrowed deflater and puts it back into the pool, or ends it if the pool is full.
+     * <p>
+     * The deflater must not be used by the caller afterwards.
+     *
+     * @param deflater  The borrowed deflater
+     */
+    void release(@NotNull final Deflater deflater) {
+        deflater.reset();
+        if (!idle.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns the number of idle deflaters in the pool.
+     *
+     * @return a number not greater than the capacity
+     */
+    int idleCount() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import com.paiondata.wilhelm.config.ApplicationConfig;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * The groups of endpoints that are admitted under separate concurrency limits, each with its own configurable maximum.
+ * <p>
+ * Endpoints are grouped by the cost of their requests, so that a burst of expensive requests only exhausts the limit of
+ * its own class and cheap requests keep being served.
+ */
+public enum EndpointClass {
+
+    /**
+     * {@code /expand/{word}}, {@code /expandApoc/{word}}, and the batch {@code POST /expand}.
+     */
+    EXPAND(ApplicationConfig::admissionMaxConcurrencyExpand),
+
+    /**
+     * {@code /expandDfs/{word}}, whose traversals take a Neo4J round trip per level.
+     */
+    EXPAND_DFS(ApplicationConfig::admissionMaxConcurrencyExpandDfs),
+
+    /**
+     * {@code /languages/{language}} in both pagination modes.
+     */
+    VOCABULARY(ApplicationConfig::admissionMaxConcurrencyVocabulary),
+
+    /**
+     * {@code /languages/{language}/count}.
+     */
+    COUNT(ApplicationConfig::admissionMaxConcurrencyCount),
+
+    /**
+     * {@code /search/{keyword}}.
+     */
+    SEARCH(ApplicationConfig::admissionMaxConcurrencySearch);
+
+    private final ToIntFunction<ApplicationConfig> maxConcurrency;
+
+    /**
+     * All-args constructor.
+     *
+     * @param maxConcurrency  The config value of the maximum number of concurrent requests of this class
+     */
+    EndpointClass(@NotNull final ToIntFunction<ApplicationConfig> maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Returns the configured maximum number of concurrent requests of this class.
+     *
+     * @param applicationConfig  The source of the configured maximum
+     *
+     * @return a positive number
+     */
+    public int getMaxConcurrency(@NotNull final ApplicationConfig applicationConfig) {
+        return maxConcurrency.applyAsInt(applicationConfig);
+    }
+}
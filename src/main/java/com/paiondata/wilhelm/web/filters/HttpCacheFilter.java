@@ -0,0 +1,210 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import org.aeonbits.owner.ConfigFactory;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import com.paiondata.wilhelm.HttpCacheable;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.tracing.RequestTrace;
+import com.paiondata.wilhelm.web.providers.StreamingEntity;
+import com.paiondata.wilhelm.web.providers.WireFormat;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@link HttpCacheFilter} is a Jersey response filter that makes the responses of {@link HttpCacheable} endpoints
+ * cacheable by browsers and shared caches such as a CDN.
+ * <p>
+ * For a successful {@code GET} or {@code HEAD} of such an endpoint it
+ * <ul>
+ *     <li> sets the {@code Cache-Control} configured for the endpoint's {@link HttpCachePolicy}, and
+ *          {@code Vary: Accept}, because the body depends on the negotiated {@link WireFormat}
+ *     <li> serializes the entity once, up front, in its negotiated {@link WireFormat}, and sets a strong {@code ETag}
+ *          computed from the SHA-256 hash of the serialized bytes. The bytes are then written as they are, so the
+ *          entity is not serialized twice. Each format thus has its own ETag. The time it takes counts as the
+ *          {@link RequestTrace.Phase#SERIALIZATION serialization} of the request
+ *     <li> answers 304 Not Modified without a body if the request's {@code If-None-Match} matches that ETag, or its
+ *          {@code If-Modified-Since} is not older than the response's {@code Last-Modified}. A match of the ETag
+ *          that {@link CompressionFilter} gives the gzipped body is answered with 304 and that ETag as well
+ * </ul>
+ * Streamed entities have no ETag, because they are not materialized; they still get their {@code Cache-Control}.
+ * Responses of other endpoints, other methods, and other statuses are left unmodified.
+ */
+@Immutable
+@ThreadSafe
+public class HttpCacheFilter implements ContainerResponseFilter {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Map<HttpCachePolicy, CacheControl> cacheControls;
+
+    /**
+     * Constructor that loads the {@code Cache-Control} of each policy from {@link ApplicationConfig}.
+     */
+    public HttpCacheFilter() {
+        this(ConfigFactory.create(ApplicationConfig.class));
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param applicationConfig  The source of the configured freshness of each {@link HttpCachePolicy}
+     *
+     * @throws NullPointerException if {@code applicationConfig} is {@code null}
+     */
+    public HttpCacheFilter(@NotNull final ApplicationConfig applicationConfig) {
+        Objects.requireNonNull(applicationConfig);
+        this.cacheControls = Collections.unmodifiableMap(
+                Arrays.stream(HttpCachePolicy.values())
+                        .collect(Collectors.toMap(
+                                Function.identity(),
+                                policy -> policy.getCacheControl(applicationConfig),
+                                (first, second) -> first,
+                                () -> new EnumMap<>(HttpCachePolicy.class)
+                        ))
+        );
+    }
+
+    @Override
+    public void filter(
+            @NotNull final ContainerRequestContext request,
+            @NotNull final ContainerResponseContext response
+    ) throws IOException {
+        final HttpCacheable cacheable = getCacheable(request);
+        if (cacheable == null
+                || response.getStatus() != Response.Status.OK.getStatusCode()
+                || !(HttpMethod.GET.equals(request.getMethod()) || HttpMethod.HEAD.equals(request.getMethod()))) {
+            return;
+        }
+
+        response.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, cacheControls.get(cacheable.value()));
+        response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        final WireFormat format = WireFormat.of(response.getMediaType());
+        if (!response.hasEntity()
+                || response.getEntity() instanceof StreamingOutput
+                || response.getEntity() instanceof StreamingEntity
+                || format == null) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final byte[] body = format.getMapper().writeValueAsBytes(response.getEntity());
+        TracingFilter.getTrace(request).addPhase(RequestTrace.Phase.SERIALIZATION, System.nanoTime() - start);
+        final EntityTag entityTag = new EntityTag(hash(body));
+        final EntityTag gzipEntityTag = CompressionFilter.gzipped(entityTag);
+
+        final Response.ResponseBuilder gzipPrecondition = request.getHeaderString(HttpHeaders.IF_NONE_MATCH) == null
+                ? null
+                : evaluatePreconditions(request, response, gzipEntityTag);
+        final boolean gzipMatched = gzipPrecondition != null
+                && gzipPrecondition.build().getStatus() == Response.Status.NOT_MODIFIED.getStatusCode();
+        response.getHeaders().putSingle(HttpHeaders.ETAG, gzipMatched ? gzipEntityTag : entityTag);
+
+        final Response.ResponseBuilder precondition = gzipMatched
+                ? gzipPrecondition
+                : evaluatePreconditions(request, response, entityTag);
+        if (precondition != null) {
+            response.setStatus(precondition.build().getStatus());
+            response.setEntity(null);
+            return;
+        }
+
+        response.setEntity(body, response.getEntityAnnotations(), response.getMediaType());
+    }
+
+    /**
+     * Returns the {@link HttpCacheable} annotation of the resource method that served a request, if any.
+     *
+     * @param request  The served request
+     *
+     * @return the annotation or {@code null} if the request was not matched to an {@link HttpCacheable} method
+     */
+    static HttpCacheable getCacheable(@NotNull final ContainerRequestContext request) {
+        if (!(request.getUriInfo() instanceof ExtendedUriInfo)) {
+            return null;
+        }
+
+        final ResourceMethod resourceMethod = ((ExtendedUriInfo) request.getUriInfo()).getMatchedResourceMethod();
+        return resourceMethod == null
+                ? null
+                : resourceMethod.getInvocable().getDefinitionMethod().getAnnotation(HttpCacheable.class);
+    }
+
+    /**
+     * Evaluates the conditional headers of a request against the validators of its response.
+     *
+     * @param request  The served request
+     * @param response  The response, with or without {@code Last-Modified}
+     * @param entityTag  The {@code ETag} of the response
+     *
+     * @return the builder of the response to answer with instead, or {@code null} if the preconditions are met
+     */
+    private static Response.ResponseBuilder evaluatePreconditions(
+            @NotNull final ContainerRequestContext request,
+            @NotNull final ContainerResponseContext response,
+            @NotNull final EntityTag entityTag
+    ) {
+        return response.getLastModified() == null
+                ? request.getRequest().evaluatePreconditions(entityTag)
+                : request.getRequest().evaluatePreconditions(response.getLastModified(), entityTag);
+    }
+
+    /**
+     * Computes the opaque value of a strong ETag out of a serialized entity.
+     *
+     * @param body  The serialized entity
+     *
+     * @return the URL-safe Base64 encoding of the SHA-256 hash of {@code body}
+     *
+     * @throws IllegalStateException if the platform does not support SHA-256, which every Java platform is required to
+     */
+    @NotNull
+    static String hash(@NotNull final byte[] body) {
+        try {
+            return Base64.getUrlEncoder()
+                    .withoutPadding()
+                    .encodeToString(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(body));
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import com.paiondata.wilhelm.config.ApplicationConfig;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.core.CacheControl;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * The groups of endpoints whose responses are cacheable over HTTP, each with its own configurable freshness.
+ */
+public enum HttpCachePolicy {
+
+    /**
+     * {@code /expand/{word}}, {@code /expandApoc/{word}}, and {@code /expandDfs/{word}}.
+     */
+    EXPAND(
+            ApplicationConfig::httpCacheMaxAgeSecondsExpand,
+            ApplicationConfig::httpCacheStaleWhileRevalidateSecondsExpand
+    ),
+
+    /**
+     * {@code /languages/{language}} in both pagination modes.
+     */
+    VOCABULARY(
+            ApplicationConfig::httpCacheMaxAgeSecondsVocabulary,
+            ApplicationConfig::httpCacheStaleWhileRevalidateSecondsVocabulary
+    ),
+
+    /**
+     * {@code /languages/{language}/count}.
+     */
+    COUNT(
+            ApplicationConfig::httpCacheMaxAgeSecondsCount,
+            ApplicationConfig::httpCacheStaleWhileRevalidateSecondsCount
+    ),
+
+    /**
+     * {@code /search/{keyword}}.
+     */
+    SEARCH(
+            ApplicationConfig::httpCacheMaxAgeSecondsSearch,
+            ApplicationConfig::httpCacheStaleWhileRevalidateSecondsSearch
+    );
+
+    private static final String STALE_WHILE_REVALIDATE = "stale-while-revalidate";
+
+    private final ToLongFunction<ApplicationConfig> maxAgeSeconds;
+    private final ToLongFunction<ApplicationConfig> staleWhileRevalidateSeconds;
+
+    /**
+     * All-args constructor.
+     *
+     * @param maxAgeSeconds  The config value of the time, in seconds, a response stays fresh
+     * @param staleWhileRevalidateSeconds  The config value of the time, in seconds, a stale response may still be
+     * served while it is revalidated in the background
+     */
+    HttpCachePolicy(
+            @NotNull final ToLongFunction<ApplicationConfig> maxAgeSeconds,
+            @NotNull final ToLongFunction<ApplicationConfig> staleWhileRevalidateSeconds
+    ) {
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+    }
+
+    /**
+     * Returns the configured {@code Cache-Control} of the responses under this policy.
+     * <p>
+     * A max-age of {@code 0} yields {@code no-cache}, so that responses are always revalidated with their ETag.
+     *
+     * @param applicationConfig  The source of the configured freshness
+     *
+     * @return a public cache control
+     */
+    @NotNull
+    public CacheControl getCacheControl(@NotNull final ApplicationConfig applicationConfig) {
+        final int maxAge = (int) Math.min(maxAgeSeconds.applyAsLong(applicationConfig), Integer.MAX_VALUE);
+        final long staleWhileRevalidate = staleWhileRevalidateSeconds.applyAsLong(applicationConfig);
+
+        final CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoTransform(false);
+        if (maxAge <= 0) {
+            cacheControl.setNoCache(true);
+            return cacheControl;
+        }
+
+        cacheControl.setMaxAge(maxAge);
+        if (staleWhileRevalidate > 0) {
+            cacheControl.getCacheExtension().put(STALE_WHILE_REVALIDATE, String.valueOf(staleWhileRevalidate));
+        }
+        return cacheControl;
+    }
+}
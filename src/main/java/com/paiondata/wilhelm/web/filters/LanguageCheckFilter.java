@@ -18,6 +18,10 @@ package com.paiondata.wilhelm.web.filters;
 import com.paiondata.wilhelm.Language;
 import com.paiondata.wilhelm.LanguageCheck;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.core.Response;
@@ -25,6 +29,8 @@ import jakarta.ws.rs.ext.Provider;
 import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
 
+import java.util.Objects;
+
 /**
  * A {@link ContainerRequestFilter} that validates the {@code language} path param in endpoint requests and only applies
  * to those with "languages/{language}" in the middle of its endpoint path, for example "/languages/{language}/count".
@@ -34,6 +40,7 @@ import net.jcip.annotations.ThreadSafe;
  *     <li> having a {@link jakarta.ws.rs.PathParam "language" @PathParam}
  *     <li> the resource/endpoint method has been annotated with {@link LanguageCheck}
  * </ol>
+ * Rejected requests are counted by the {@value #REJECTIONS_METRIC} counter.
  */
 @Immutable
 @ThreadSafe
@@ -41,6 +48,27 @@ import net.jcip.annotations.ThreadSafe;
 @LanguageCheck
 public class LanguageCheckFilter implements ContainerRequestFilter {
 
+    /**
+     * The name of the counter of requests rejected for an unsupported language.
+     */
+    public static final String REJECTIONS_METRIC = "language.check.rejections";
+
+    private final Counter rejections;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param meterRegistry  The application-scoped registry the rejections are counted in
+     *
+     * @throws NullPointerException if {@code meterRegistry} is {@code null}
+     */
+    @Inject
+    public LanguageCheckFilter(@NotNull final MeterRegistry meterRegistry) {
+        this.rejections = Counter.builder(REJECTIONS_METRIC)
+                .description("Requests rejected because their language is not supported")
+                .register(Objects.requireNonNull(meterRegistry));
+    }
+
     @Override
     public void filter(final ContainerRequestContext containerRequestContext) {
         final String requestedLanguage = containerRequestContext
@@ -51,6 +79,7 @@ public class LanguageCheckFilter implements ContainerRequestFilter {
         try {
             Language.ofClientValue(requestedLanguage);
         } catch (final IllegalArgumentException exception) {
+            rejections.increment();
             containerRequestContext.abortWith(
                     Response
                             .status(Response.Status.BAD_REQUEST)
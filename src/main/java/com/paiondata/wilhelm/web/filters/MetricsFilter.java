@@ -0,0 +1,138 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.uri.UriTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * {@link MetricsFilter} records the latency of every request in the {@value #REQUESTS_METRIC} timer, with a
+ * percentile histogram so that latency SLOs can be computed per endpoint.
+ * <p>
+ * Each request is tagged with its method, its status, and the URI template of the matched endpoint, for example
+ * {@code /neo4j/expand/{word}}, rather than its actual path, which keeps the number of time series bounded no matter
+ * how many words are requested. Requests that match no endpoint are tagged with {@value #UNMATCHED_URI}.
+ * <p>
+ * The latency is measured from before the request is matched to the last response filter, which includes the time an
+ * asynchronous endpoint is suspended but not the time the response body is written.
+ */
+@Immutable
+@ThreadSafe
+@PreMatching
+@Priority(Priorities.HEADER_DECORATOR)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /**
+     * The name of the timer of requests.
+     */
+    public static final String REQUESTS_METRIC = "http.server.requests";
+
+    /**
+     * The {@code uri} tag of requests that match no endpoint.
+     */
+    public static final String UNMATCHED_URI = "UNKNOWN";
+
+    private static final String SAMPLE_PROPERTY = MetricsFilter.class.getName() + ".sample";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param meterRegistry  The application-scoped registry the request latencies are recorded in
+     *
+     * @throws NullPointerException if {@code meterRegistry} is {@code null}
+     */
+    @Inject
+    public MetricsFilter(@NotNull final MeterRegistry meterRegistry) {
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
+    }
+
+    @Override
+    public void filter(@NotNull final ContainerRequestContext request) {
+        request.setProperty(SAMPLE_PROPERTY, Timer.start(meterRegistry));
+    }
+
+    @Override
+    public void filter(
+            @NotNull final ContainerRequestContext request,
+            @NotNull final ContainerResponseContext response
+    ) {
+        final Object sample = request.getProperty(SAMPLE_PROPERTY);
+        if (!(sample instanceof Timer.Sample)) {
+            return;
+        }
+
+        ((Timer.Sample) sample).stop(
+                Timer.builder(REQUESTS_METRIC)
+                        .description("Latency of HTTP requests per endpoint")
+                        .tag("method", request.getMethod())
+                        .tag("uri", getUriTemplate(request))
+                        .tag("status", String.valueOf(response.getStatus()))
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+        );
+    }
+
+    /**
+     * Returns the full URI template of the endpoint a request matched.
+     *
+     * @param request  The request
+     *
+     * @return the concatenated class-level and method-level templates, or {@value #UNMATCHED_URI}
+     */
+    @NotNull
+    static String getUriTemplate(@NotNull final ContainerRequestContext request) {
+        if (!(request.getUriInfo() instanceof ExtendedUriInfo)) {
+            return UNMATCHED_URI;
+        }
+
+        // matched templates are listed from the most specific, i.e. the method's, to the least specific
+        final List<UriTemplate> templates = new ArrayList<>(
+                ((ExtendedUriInfo) request.getUriInfo()).getMatchedTemplates()
+        );
+        if (templates.isEmpty()) {
+            return UNMATCHED_URI;
+        }
+        Collections.reverse(templates);
+
+        final String uri = templates.stream()
+                .map(UriTemplate::getTemplate)
+                .collect(Collectors.joining())
+                .replaceAll("//+", "/");
+        return uri.isEmpty() ? "/" : uri;
+    }
+}
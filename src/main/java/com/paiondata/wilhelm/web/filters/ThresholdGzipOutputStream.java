@@ -0,0 +1,227 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import jakarta.validation.constraints.NotNull;
+import net.jcip.annotations.NotThreadSafe;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * {@link ThresholdGzipOutputStream} gzips everything written to it once it exceeds a minimum size, and passes smaller
+ * contents through as they are.
+ * <p>
+ * Up to the minimum size, bytes are held back, and {@link #flush()} does nothing, because whether to compress is not
+ * known yet. If the stream is finished before that, the held-back bytes are written uncompressed after notifying the
+ * owner, who can still revert its {@code Content-Encoding} and {@code ETag} headers at that point. Otherwise the bytes
+ * are compressed with a deflater borrowed from a {@link DeflaterPool}, which is released as soon as the gzip trailer is
+ * written.
+ */
+@NotThreadSafe
+final class ThresholdGzipOutputStream extends OutputStream {
+
+    /**
+     * The gzip member header without optional fields, as written by {@link java.util.zip.GZIPOutputStream}.
+     */
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final DeflaterPool pool;
+    private final Runnable onUncompressed;
+    private final byte[] pending;
+    private final CRC32 crc = new CRC32();
+
+    private int pendingCount;
+    private Deflater deflater;
+    private byte[] buffer;
+    private boolean finished;
+
+    /**
+     * All-args constructor.
+     *
+     * @param out  The stream the possibly compressed bytes are written to
+     * @param pool  The pool the deflater is borrowed from, once the minimum size is exceeded
+     * @param minSizeBytes  The minimum number of bytes written for them to be compressed
+     * @param onUncompressed  The callback run right before the bytes are written uncompressed
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    ThresholdGzipOutputStream(
+            @NotNull final OutputStream out,
+            @NotNull final DeflaterPool pool,
+            final int minSizeBytes,
+            @NotNull final Runnable onUncompressed
+    ) {
+        this.out = Objects.requireNonNull(out);
+        this.pool = Objects.requireNonNull(pool);
+        this.onUncompressed = Objects.requireNonNull(onUncompressed);
+        this.pending = new byte[Math.max(0, minSizeBytes - 1)];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(@NotNull final byte[] bytes, final int offset, final int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        if (finished) {
+            throw new IOException("Stream already finished");
+        }
+
+        if (deflater == null) {
+            if (pendingCount + length <= pending.length) {
+                System.arraycopy(bytes, offset, pending, pendingCount, length);
+                pendingCount += length;
+                return;
+            }
+
+            startCompression();
+        }
+
+        deflate(bytes, offset, length);
+    }
+
+    /**
+     * Pushes all compressed bytes written so far to the underlying stream and flushes it.
+     * <p>
+     * Before the minimum size is exceeded this does nothing.
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    @Override
+    public void flush() throws IOException {
+        if (deflater == null || finished) {
+            return;
+        }
+
+        int length;
+        do {
+            length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            out.write(buffer, 0, length);
+        } while (length == buffer.length);
+        out.flush();
+    }
+
+    /**
+     * Writes all remaining bytes, and the gzip trailer if they are compressed, without closing the underlying stream.
+     * <p>
+     * Calling this more than once has no further effect.
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+
+        if (deflater == null) {
+            finished = true;
+            onUncompressed.run();
+            out.write(pending, 0, pendingCount);
+            return;
+        }
+
+        deflater.finish();
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer, 0, buffer.length));
+        }
+        writeIntLittleEndian((int) crc.getValue());
+        writeIntLittleEndian((int) deflater.getBytesRead());
+        release();
+    }
+
+    /**
+     * Returns the deflater, if any, to its pool and refuses further writes.
+     * <p>
+     * This is meant for giving up on a failed response; a response that is not {@link #finish() finished} first is
+     * truncated.
+     */
+    void release() {
+        finished = true;
+        if (deflater != null) {
+            pool.release(deflater);
+            deflater = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            release();
+            out.close();
+        }
+    }
+
+    /**
+     * Borrows a deflater, writes the gzip header, and compresses the held-back bytes.
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    private void startCompression() throws IOException {
+        deflater = pool.borrow();
+        buffer = new byte[BUFFER_SIZE];
+        out.write(HEADER);
+        deflate(pending, 0, pendingCount);
+        pendingCount = 0;
+    }
+
+    /**
+     * Compresses bytes, writing out compressed data whenever the deflater has some.
+     *
+     * @param bytes  The uncompressed bytes
+     * @param offset  The start of the bytes in {@code bytes}
+     * @param length  The number of bytes
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    private void deflate(@NotNull final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+
+        crc.update(bytes, offset, length);
+        deflater.setInput(bytes, offset, length);
+        while (!deflater.needsInput()) {
+            final int compressed = deflater.deflate(buffer, 0, buffer.length);
+            if (compressed > 0) {
+                out.write(buffer, 0, compressed);
+            }
+        }
+    }
+
+    /**
+     * Writes a 32-bit value in the little-endian byte order of the gzip trailer.
+     *
+     * @param value  The value
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    private void writeIntLittleEndian(final int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        out.write((value >>> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+}
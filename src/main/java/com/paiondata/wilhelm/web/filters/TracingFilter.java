@@ -0,0 +1,204 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters;
+
+import org.aeonbits.owner.ConfigFactory;
+import com.paiondata.wilhelm.config.ApplicationConfig;
+import com.paiondata.wilhelm.tracing.RequestTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import jakarta.annotation.Priority;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link TracingFilter} starts a {@link RequestTrace} for every request and reports it once the response is ready.
+ * <p>
+ * The trace is kept as a request property, from which {@link #getTrace(ContainerRequestContext)} reads it, and is
+ * bound to the thread of the resource method by {@link com.paiondata.wilhelm.application.RequestTracingListener}. Once
+ * the other response filters, including the serialization by {@link HttpCacheFilter}, are done, the request is
+ * <ul>
+ *     <li> logged with the time it spent in each {@link RequestTrace.Phase} in the logging {@link MDC}, so that the
+ *          Logstash log has them as separate fields
+ *     <li> logged again as a warning, with the Cypher, parameters, and number of records of each of its queries, if it
+ *          took at least {@link ApplicationConfig#slowRequestThresholdMillis() the slow request threshold}
+ *     <li> answered with a {@value #SERVER_TIMING} header, if {@link ApplicationConfig#tracingServerTimingEnabled()
+ *          enabled}
+ * </ul>
+ * The time it takes to write the response body is not included; neither are the queries of a streamed response,
+ * which run while the body is written.
+ */
+@Immutable
+@ThreadSafe
+@PreMatching
+@Priority(Priorities.HEADER_DECORATOR)
+public class TracingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /**
+     * The name of the request property that holds the trace of the request.
+     */
+    public static final String TRACE_PROPERTY = RequestTrace.class.getName();
+
+    /**
+     * The name of the response header with the duration of each phase.
+     */
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    /**
+     * The logging context key of the request ID.
+     */
+    public static final String REQUEST_ID = "requestId";
+
+    private static final Logger LOG = LoggerFactory.getLogger(TracingFilter.class);
+    private static final String PHASE_KEY_FORMAT = "%sMillis";
+    private static final String TOTAL_KEY = "totalMillis";
+
+    private final boolean serverTimingEnabled;
+    private final long slowRequestThresholdMillis;
+
+    /**
+     * Constructor that loads the {@code Server-Timing} switch and the slow request threshold from
+     * {@link ApplicationConfig}.
+     */
+    public TracingFilter() {
+        this(
+                ConfigFactory.create(ApplicationConfig.class).tracingServerTimingEnabled(),
+                ConfigFactory.create(ApplicationConfig.class).slowRequestThresholdMillis()
+        );
+    }
+
+    /**
+     * All-args constructor.
+     *
+     * @param serverTimingEnabled  Whether to send the {@value #SERVER_TIMING} header
+     * @param slowRequestThresholdMillis  The duration from which requests are logged as slow, or {@code 0} to log none
+     *
+     * @throws IllegalArgumentException if {@code slowRequestThresholdMillis} is negative
+     */
+    public TracingFilter(final boolean serverTimingEnabled, final long slowRequestThresholdMillis) {
+        if (slowRequestThresholdMillis < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Slow request threshold must not be negative: %d", slowRequestThresholdMillis)
+            );
+        }
+
+        this.serverTimingEnabled = serverTimingEnabled;
+        this.slowRequestThresholdMillis = slowRequestThresholdMillis;
+    }
+
+    /**
+     * Returns the trace of a request.
+     *
+     * @param request  The request
+     *
+     * @return the trace started by this filter, or a trace that discards everything if the request has none
+     */
+    @NotNull
+    public static RequestTrace getTrace(@NotNull final ContainerRequestContext request) {
+        final Object trace = request.getProperty(TRACE_PROPERTY);
+        return trace instanceof RequestTrace ? (RequestTrace) trace : RequestTrace.current();
+    }
+
+    @Override
+    public void filter(@NotNull final ContainerRequestContext request) {
+        request.setProperty(TRACE_PROPERTY, new RequestTrace());
+    }
+
+    @Override
+    public void filter(
+            @NotNull final ContainerRequestContext request,
+            @NotNull final ContainerResponseContext response
+    ) {
+        final RequestTrace trace = getTrace(request);
+        if (!trace.isRecording()) {
+            return;
+        }
+
+        if (serverTimingEnabled) {
+            response.getHeaders().add(SERVER_TIMING, trace.toServerTiming());
+        }
+
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(trace.getElapsedNanos());
+        final Map<String, String> fields = toLoggingContext(trace, elapsedMillis);
+        final Map<String, String> previousContext = MDC.getCopyOfContextMap();
+        fields.forEach(MDC::put);
+        try {
+            LOG.info(
+                    "{} /{} answered {} in {} ms",
+                    request.getMethod(),
+                    request.getUriInfo().getPath(),
+                    response.getStatus(),
+                    elapsedMillis
+            );
+
+            if (slowRequestThresholdMillis > 0 && elapsedMillis >= slowRequestThresholdMillis) {
+                LOG.warn(
+                        "Slow request {} /{} took {} ms, threshold is {} ms; queries:{}",
+                        request.getMethod(),
+                        request.getUriInfo().getPath(),
+                        elapsedMillis,
+                        slowRequestThresholdMillis,
+                        trace.getQueries().stream()
+                                .map(query -> System.lineSeparator() + "    " + query)
+                                .collect(Collectors.joining())
+                );
+            }
+        } finally {
+            if (previousContext == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(previousContext);
+            }
+        }
+    }
+
+    /**
+     * Flattens a trace into logging context fields.
+     *
+     * @param trace  The trace of a request
+     * @param elapsedMillis  The duration of the request
+     *
+     * @return the request ID, the duration, the number of queries, and the duration of each phase
+     */
+    @NotNull
+    static Map<String, String> toLoggingContext(@NotNull final RequestTrace trace, final long elapsedMillis) {
+        final Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(REQUEST_ID, trace.getId());
+        fields.put(TOTAL_KEY, String.valueOf(elapsedMillis));
+        fields.put("queries", String.valueOf(trace.getQueries().size()));
+        for (final RequestTrace.Phase phase : RequestTrace.Phase.values()) {
+            fields.put(
+                    String.format(PHASE_KEY_FORMAT, phase.getName()),
+                    String.valueOf(TimeUnit.NANOSECONDS.toMillis(trace.getPhaseNanos(phase)))
+            );
+        }
+        return fields;
+    }
+}
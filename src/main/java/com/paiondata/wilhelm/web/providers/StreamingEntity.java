@@ -0,0 +1,58 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.providers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A response entity that writes itself token by token into a Jackson generator, so that it can be streamed in any
+ * {@link WireFormat}.
+ * <p>
+ * It is deliberately not a {@link jakarta.ws.rs.core.StreamingOutput}: Jersey would write that with its own provider,
+ * i.e. always in JSON, whatever format was negotiated. {@link WireFormatWriter} writes it in the negotiated format
+ * instead, JSON included.
+ */
+@FunctionalInterface
+public interface StreamingEntity {
+
+    /**
+     * Writes this entity.
+     *
+     * @param generator  The generator of the response format, which is closed by the caller
+     *
+     * @throws IOException if the entity cannot be written
+     */
+    void write(@NotNull JsonGenerator generator) throws IOException;
+
+    /**
+     * Writes this entity to a stream in a format.
+     *
+     * @param output  The stream to write to, which is left open
+     * @param format  The format to write in
+     *
+     * @throws IOException if the entity cannot be written
+     */
+    default void writeTo(@NotNull final OutputStream output, @NotNull final WireFormat format) throws IOException {
+        try (JsonGenerator generator = format.getMapper().createGenerator(output)) {
+            write(generator);
+        }
+    }
+}
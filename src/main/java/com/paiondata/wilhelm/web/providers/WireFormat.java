@@ -0,0 +1,120 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.providers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.Arrays;
+
+/**
+ * The encodings a response body can be sent in, each negotiated by its media type in the request's {@code Accept}.
+ * <p>
+ * All of them are Jackson data formats, so {@link com.paiondata.wilhelm.Graph}, {@link com.paiondata.wilhelm.Node},
+ * and {@link com.paiondata.wilhelm.Link} have the same structure in each, and clients decode them with the same data
+ * model. The binary ones are smaller and cheaper to parse than JSON, mostly because they skip number and string
+ * escaping; Smile additionally writes each repeated string, such as an element ID, only once.
+ */
+public enum WireFormat {
+
+    /**
+     * JSON, the default for browsers and any client that does not ask for another format.
+     */
+    JSON(
+            MediaType.APPLICATION_JSON_TYPE,
+            JsonMapper.builder().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).build()
+    ),
+
+    /**
+     * <a href="https://www.rfc-editor.org/rfc/rfc8949">CBOR</a>.
+     */
+    CBOR(
+            MediaType.valueOf(WireFormat.APPLICATION_CBOR),
+            CBORMapper.builder().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).build()
+    ),
+
+    /**
+     * <a href="https://github.com/FasterXML/smile-format-specification">Smile</a>, with back references to both
+     * repeated property names and repeated string values.
+     */
+    SMILE(
+            MediaType.valueOf(WireFormat.APPLICATION_SMILE),
+            SmileMapper
+                    .builder(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build())
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .build()
+    );
+
+    /**
+     * The media type of CBOR.
+     */
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    /**
+     * The media type of Smile.
+     */
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    private final MediaType mediaType;
+    private final ObjectMapper mapper;
+
+    /**
+     * All-args constructor.
+     *
+     * @param mediaType  The media type that selects this format
+     * @param mapper  The serializer of this format, which leaves the output stream open
+     */
+    WireFormat(@NotNull final MediaType mediaType, @NotNull final ObjectMapper mapper) {
+        this.mediaType = mediaType;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Returns the format of a response media type.
+     *
+     * @param mediaType  The media type of a response, which may be {@code null}
+     *
+     * @return the format or {@code null} if {@code mediaType} is not one of a {@link WireFormat}
+     */
+    public static WireFormat of(final MediaType mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+
+        return Arrays.stream(values())
+                .filter(format -> format.mediaType.isCompatible(mediaType))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @NotNull
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    @NotNull
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+}
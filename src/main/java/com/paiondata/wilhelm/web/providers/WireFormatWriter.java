@@ -0,0 +1,90 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.providers;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import net.jcip.annotations.Immutable;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * {@link WireFormatWriter} writes response entities in the binary {@link WireFormat}s, and {@link StreamingEntity}s in
+ * every format.
+ * <p>
+ * Other JSON entities are left to Jersey's Jackson provider. Entities that are already bytes or text, such as the
+ * bodies serialized by {@link com.paiondata.wilhelm.web.filters.HttpCacheFilter}, are left to Jersey's built-in
+ * writers; a plain {@link StreamingOutput} is too, because it writes its own bytes. A {@link StreamingEntity} is
+ * streamed in the negotiated format.
+ */
+@Immutable
+@ThreadSafe
+@Provider
+@Produces({ MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE })
+public class WireFormatWriter implements MessageBodyWriter<Object> {
+
+    @Override
+    public boolean isWriteable(
+            @NotNull final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType
+    ) {
+        final WireFormat format = WireFormat.of(mediaType);
+        if (format == null) {
+            return false;
+        }
+        if (StreamingEntity.class.isAssignableFrom(type)) {
+            return true;
+        }
+
+        return format != WireFormat.JSON
+                && !(type == byte[].class
+                        || type == String.class
+                        || InputStream.class.isAssignableFrom(type)
+                        || StreamingOutput.class.isAssignableFrom(type));
+    }
+
+    @Override
+    public void writeTo(
+            @NotNull final Object entity,
+            @NotNull final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            @NotNull final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            @NotNull final OutputStream entityStream
+    ) throws IOException {
+        final WireFormat format = WireFormat.of(mediaType);
+
+        if (entity instanceof StreamingEntity) {
+            ((StreamingEntity) entity).writeTo(entityStream, format);
+            return;
+        }
+
+        format.getMapper().writeValue(entityStream, entity);
+    }
+}
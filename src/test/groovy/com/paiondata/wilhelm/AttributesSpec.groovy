@@ -0,0 +1,76 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm
+
+import spock.lang.Specification
+
+class AttributesSpec extends Specification {
+
+    def "Compact attributes behave like a regular map"() {
+        when:
+        Map<String, Object> attributes = Attributes.of([language: "German", gender: "feminine", count: 3])
+
+        then:
+        attributes == [language: "German", gender: "feminine", count: 3]
+        attributes.hashCode() == [language: "German", gender: "feminine", count: 3].hashCode()
+        attributes.size() == 3
+        attributes.language == "German"
+        attributes.containsKey("count")
+        !attributes.containsKey("label")
+        attributes.get("label") == null
+    }
+
+    def "Keys can be left out"() {
+        expect:
+        Attributes.of([label: "Haus", language: "German"], "label") == [language: "German"]
+        Attributes.of([label: "Haus", foldedLabel: "haus", language: "German"], "label", "foldedLabel") ==
+                [language: "German"]
+    }
+
+    def "Maps with the same keys share their key table"() {
+        when:
+        Attributes first = Attributes.of([language: "German", gender: "feminine"])
+        Attributes second = Attributes.of([gender: "masculine", language: "Latin"])
+
+        then:
+        first.@keyTable.is(second.@keyTable)
+    }
+
+    def "String values are interned"() {
+        when:
+        Attributes first = Attributes.of([language: new String("German")])
+        Attributes second = Attributes.of([language: new String("German")])
+
+        then:
+        first.language.is(second.language)
+    }
+
+    def "Compact attributes cannot be modified"() {
+        when:
+        Attributes.of([language: "German"]).put("language", "Latin")
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "Null values are rejected"() {
+        when:
+        Attributes.of([language: null])
+
+        then:
+        thrown(NullPointerException)
+    }
+}
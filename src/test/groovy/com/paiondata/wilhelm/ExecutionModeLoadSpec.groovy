@@ -0,0 +1,109 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm
+
+import org.eclipse.jetty.server.Server
+import org.glassfish.jersey.server.ResourceConfig
+import com.paiondata.wilhelm.application.ExecutionMode
+import com.paiondata.wilhelm.application.ManagedAsyncExecutorProvider
+
+import spock.lang.Requires
+import spock.lang.Specification
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * A load test that compares the throughput and p99 latency of slow, blocking requests between execution modes.
+ * <p>
+ * It is skipped unless the JVM supports virtual threads and the {@code bertok.loadTest} system property is set:
+ *
+ * <pre>
+ * {@code
+ * mvn test -Dtest=ExecutionModeLoadSpec -Dbertok.loadTest=true
+ * }
+ * </pre>
+ */
+@Requires({ System.getProperty("bertok.loadTest") && ExecutionMode.VIRTUAL.isSupported() })
+class ExecutionModeLoadSpec extends Specification {
+
+    static final int PORT = 8081
+    static final int PLATFORM_THREADS = 200
+    static final int REQUESTS = 2000
+    static final long BLOCKING_MILLIS = 100
+    static final String ENDPOINT_RESOURCE_PACKAGE = "com.paiondata.wilhelm.resource"
+
+    final HttpClient client = HttpClient.newHttpClient()
+
+    def "Virtual threads serve slow requests with higher throughput and lower p99 than platform threads"() {
+        when: "the same burst of slow requests is sent in each mode"
+        Map<String, Number> platform = measure(ExecutionMode.PLATFORM)
+        Map<String, Number> virtual = measure(ExecutionMode.VIRTUAL)
+
+        println("PLATFORM: ${platform}")
+        println("VIRTUAL:  ${virtual}")
+
+        then: "virtual threads do not queue requests behind a bounded pool"
+        virtual.throughput > platform.throughput
+        virtual.p99Millis < platform.p99Millis
+    }
+
+    /**
+     * Starts a server in an execution mode, sends {@link #REQUESTS} concurrent requests to its slow endpoint, and
+     * measures the result.
+     *
+     * @param executionMode  The kind of threads of both Jetty and the managed resource methods
+     *
+     * @return the number of requests served per second and the p99 latency in milliseconds
+     */
+    Map<String, Number> measure(ExecutionMode executionMode) {
+        ResourceConfig resourceConfig = new ResourceConfig()
+                .packages(ENDPOINT_RESOURCE_PACKAGE)
+                .register(new ManagedAsyncExecutorProvider(executionMode, PLATFORM_THREADS))
+        Server server = JettyServerFactory.newInstance(PORT, "/v1/*", resourceConfig, executionMode)
+        server.start()
+
+        try {
+            HttpRequest request = HttpRequest
+                    .newBuilder(URI.create("http://localhost:${PORT}/v1/v1/example/slow?millis=${BLOCKING_MILLIS}"))
+                    .build()
+
+            // warm up
+            client.send(request, HttpResponse.BodyHandlers.ofString())
+
+            long start = System.nanoTime()
+            List<CompletableFuture<Long>> latencies = (1..REQUESTS).collect {
+                long sent = System.nanoTime()
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply { response ->
+                    assert response.statusCode() == 200
+                    System.nanoTime() - sent
+                }
+            }
+            List<Long> sorted = latencies.collect { it.join() }.sort()
+            long elapsed = System.nanoTime() - start
+
+            return [
+                    throughput: REQUESTS / (elapsed / TimeUnit.SECONDS.toNanos(1)),
+                    p99Millis: TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.ceil(REQUESTS * 0.99) - 1])
+            ]
+        } finally {
+            server.stop()
+        }
+    }
+}
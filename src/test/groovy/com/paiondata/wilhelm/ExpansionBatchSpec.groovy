@@ -0,0 +1,70 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm
+
+import com.fasterxml.jackson.databind.ObjectMapper
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+class ExpansionBatchSpec extends Specification {
+
+    def "Overlapping sub-graphs share one node and link table and each word refers to its own part"() {
+        given: "2 words whose sub-graphs share the node 'b'"
+        Node a = Node.of("a", "Haus", [:])
+        Node b = Node.of("b", "house", [:])
+        Node c = Node.of("c", "Häuser", [:])
+        Link ab = Link.of("ab", "definition", "a", "b", [:])
+        Link cb = Link.of("cb", "definition", "c", "b", [:])
+
+        when:
+        ExpansionBatch batch = ExpansionBatch.of([
+                Haus: new Graph([a, b] as Set, [ab] as Set),
+                Häuser: new Graph([c, b] as Set, [cb] as Set),
+                Maus: Graph.emptyGraph()
+        ])
+
+        then: "each node and link is sent once"
+        batch.nodes*.id as Set == ["a", "b", "c"] as Set
+        batch.links*.id as Set == ["ab", "cb"] as Set
+
+        and: "every word, including unknown ones, is answered in request order"
+        batch.words.keySet() as List == ["Haus", "Häuser", "Maus"]
+        batch.words["Haus"].nodeIds as Set == ["a", "b"] as Set
+        batch.words["Haus"].linkIds == ["ab"]
+        batch.words["Maus"].nodeIds.isEmpty()
+    }
+
+    def "JSON serialization of a batch includes the shared tables and the sub-graph of each word"() {
+        when:
+        def actual = new JsonSlurper().parseText(new ObjectMapper().writeValueAsString(
+                ExpansionBatch.of([Haus: new Graph([Node.of("a", "Haus", [:])] as Set, [] as Set)])
+        ))
+
+        then:
+        actual.keySet() == ["nodes", "links", "words"] as Set
+        actual.words == [Haus: [nodeIds: ["a"], linkIds: []]]
+    }
+
+    def "A request without max hops expands as far as /expand does"() {
+        when:
+        ExpansionRequest request = new ObjectMapper().readValue('{"words": ["Haus"]}', ExpansionRequest)
+
+        then:
+        request.words == ["Haus"]
+        request.maxHops == ExpansionRequest.DEFAULT_MAX_HOPS
+    }
+}
@@ -22,6 +22,17 @@ import spock.lang.Specification
 
 class GraphSpec extends Specification {
 
+    /**
+     * A triangle a-b-c with a self-loop on c, a pendant node d hanging off a, and an isolated node e.
+     */
+    @SuppressWarnings('GroovyAccessibility')
+    static final Map<String, Node> NODES = ["a", "b", "c", "d", "e"].collectEntries { [(it): new Node(it, it, [:])] }
+    @SuppressWarnings('GroovyAccessibility')
+    static final List<Link> LINKS = [["a", "b"], ["b", "c"], ["c", "a"], ["c", "c"], ["d", "a"]].collect {
+        new Link(it.join("-"), it.join("-"), it[0], it[1], [:])
+    }
+    static final Graph GRAPH = new Graph(NODES.values() as Set, LINKS as Set)
+
     def "JSON serialization of Graph includes 2 attributes - nodes and links"() {
         when: "a Graph object is serialized to a JSON"
         def actual = new JsonSlurper().parseText(
@@ -48,8 +59,8 @@ class GraphSpec extends Specification {
         Node neighbor1 = new Node( "neighbor1", "neighbor1", [:])
         Node neighbor2 = new Node( "neighbor2", "neighbor2", [:])
 
-        Link link1 = new Link("pointing from node to neighbor1", "node", "neighbor1", [:])
-        Link link2 = new Link("pointing from neighbor2 to node", "neighbor2", "node", [:])
+        Link link1 = new Link("link1", "pointing from node to neighbor1", "node", "neighbor1", [:])
+        Link link2 = new Link("link2", "pointing from neighbor2 to node", "neighbor2", "node", [:])
 
         and: "the 4 nodes and 2 links belong to a graph under test"
         Graph graph = new Graph([isolated, node, neighbor1, neighbor2] as Set, [link1, link2] as Set)
@@ -64,14 +75,148 @@ class GraphSpec extends Specification {
     @SuppressWarnings('GroovyAccessibility')
     def "Merging 2 graphs combines their nodes and links"() {
         given: "2 graphs to be merged"
-        Graph graph1 = new Graph([new Node( "node1", "node1", [:])] as Set, [new Link("link1", "", "", [:])] as Set)
-        Graph graph2 = new Graph([new Node( "node2", "node2", [:])] as Set, [new Link("link2", "", "", [:])] as Set)
+        Graph graph1 = new Graph([new Node( "node1", "node1", [:])] as Set, [new Link("link1", "link1", "", "", [:])] as Set)
+        Graph graph2 = new Graph([new Node( "node2", "node2", [:])] as Set, [new Link("link2", "link2", "", "", [:])] as Set)
 
         when: "2 graphs are merged"
         Graph actual = graph1.merge(graph2)
 
         then: "the new graph contains all nodes and links from both graph1 and graph2"
         actual.nodes == [new Node( "node1", "node1", [:]), new Node( "node2", "node2", [:])] as Set
-        actual.links == [new Link("link1", "", "", [:]), new Link("link2", "", "", [:])] as Set
+        actual.links == [new Link("link1", "link1", "", "", [:]), new Link("link2", "link2", "", "", [:])] as Set
+    }
+
+    def "Neighbors ignore link direction and self-loops"() {
+        expect:
+        GRAPH.getUndirectedNeighborsOf(NODES[node]) == neighbors.collect { NODES[it] } as Set
+
+        where:
+        node | neighbors
+        "a"  | ["b", "c", "d"]
+        "c"  | ["a", "b"]
+        "d"  | ["a"]
+        "e"  | []
+    }
+
+    def "Neighbors only include nodes of the graph"() {
+        given: "a link to a node that is not part of the graph"
+        Graph graph = new Graph([NODES.a] as Set, [LINKS[0]] as Set)
+
+        expect:
+        graph.getUndirectedNeighborsOf(NODES.a).isEmpty()
+    }
+
+    def "Degree and incident links count each link at a node once"() {
+        expect:
+        GRAPH.getDegree(NODES[node]) == degree
+        GRAPH.getIncidentLinksOf(NODES[node]) == incidentLinks.collect { LINKS[it] } as Set
+
+        where:
+        node | degree | incidentLinks
+        "a"  | 3      | [0, 2, 4]
+        "c"  | 3      | [1, 2, 3]
+        "e"  | 0      | []
+    }
+
+    def "Nodes are looked up by ID"() {
+        expect:
+        GRAPH.getNodeById("b") == Optional.of(NODES.b)
+        GRAPH.getNodeById("unknown") == Optional.empty()
+    }
+
+    def "Induced subgraph keeps exactly the links between its nodes"() {
+        when:
+        Graph subgraph = GRAPH.getInducedSubgraph(["a", "c", "d", "unknown"])
+
+        then:
+        subgraph.nodes == [NODES.a, NODES.c, NODES.d] as Set
+        subgraph.links == [LINKS[2], LINKS[3], LINKS[4]] as Set
+    }
+
+    def "Adjacency index does not change the JSON shape"() {
+        given:
+        GRAPH.getDegree(NODES.a)
+
+        expect:
+        new JsonSlurper().parseText(GRAPH.toString()).keySet() == ["nodes", "links"] as Set
+    }
+
+    def "Builder collects nodes and links without duplicates"() {
+        when:
+        Graph graph = Graph.builder()
+                .addNode(NODES.a)
+                .addNodes([NODES.a, NODES.b])
+                .addLink(LINKS[0])
+                .addLinks([LINKS[0]])
+                .build()
+
+        then:
+        graph.nodes == [NODES.a, NODES.b] as Set
+        graph.links == [LINKS[0]] as Set
+    }
+
+    def "A built builder cannot be changed or built again"() {
+        given:
+        Graph.Builder builder = Graph.builder().addNode(NODES.a)
+        Graph graph = builder.build()
+
+        when:
+        operation(builder)
+
+        then:
+        thrown(IllegalStateException)
+
+        and: "the built graph is unaffected"
+        graph.nodes == [NODES.a] as Set
+
+        where:
+        operation << [
+                { it.addNode(NODES.b) },
+                { it.addLink(LINKS[0]) },
+                { it.addGraph(GRAPH) },
+                { it.build() }
+        ]
+    }
+
+    def "Nodes and links of a graph cannot be modified"() {
+        when:
+        GRAPH.nodes.add(NODES.a)
+
+        then:
+        thrown(UnsupportedOperationException)
+
+        when:
+        GRAPH.links.clear()
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "Graphs constructed from sets do not change with those sets"() {
+        given:
+        Set<Node> nodes = [NODES.a] as Set
+        Graph graph = new Graph(nodes, [] as Set)
+
+        when:
+        nodes.add(NODES.b)
+
+        then:
+        graph.nodes == [NODES.a] as Set
+    }
+
+    def "Merging any number of graphs combines all their nodes and links"() {
+        when:
+        Graph merged = Graph.mergeAll([
+                GRAPH.getInducedSubgraph(["a", "b"]),
+                GRAPH.getInducedSubgraph(["b", "c"]),
+                GRAPH.getInducedSubgraph(["a", "d", "e"])
+        ])
+
+        then:
+        merged.nodes == NODES.values() as Set
+        merged.links == [LINKS[0], LINKS[1], LINKS[3], LINKS[4]] as Set
+
+        and:
+        Graph.mergeAll([]).isEmpty()
     }
 }
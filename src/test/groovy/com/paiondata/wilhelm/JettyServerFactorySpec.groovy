@@ -17,11 +17,14 @@ package com.paiondata.wilhelm
 
 import org.eclipse.jetty.server.Server
 import org.glassfish.jersey.server.ResourceConfig
+import com.paiondata.wilhelm.application.ExecutionMode
+import com.paiondata.wilhelm.application.ManagedAsyncExecutorProvider
 
 import io.restassured.RestAssured
 import jakarta.inject.Inject
 import jakarta.ws.rs.ApplicationPath
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class JettyServerFactorySpec extends Specification {
 
@@ -68,4 +71,33 @@ class JettyServerFactorySpec extends Specification {
         cleanup:
         server.stop()
     }
+
+    @Unroll
+    def "Factory produces Jersey-Jetty applications serving managed async requests in #executionMode mode"() {
+        setup:
+        Server server = JettyServerFactory.newInstance(
+                PORT,
+                "/v1/*",
+                new TestResourceConfig().register(new ManagedAsyncExecutorProvider(executionMode, 2)),
+                executionMode
+        )
+        server.start()
+
+        expect:
+        RestAssured
+                .given()
+                .queryParam("millis", 10)
+                .when()
+                .get("/v1/example/slow")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString() == "SUCCESS"
+
+        cleanup:
+        server.stop()
+
+        where:
+        executionMode << ExecutionMode.values()
+    }
 }
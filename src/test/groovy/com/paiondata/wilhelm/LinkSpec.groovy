@@ -25,22 +25,23 @@ import spock.lang.Specification
 class LinkSpec extends Specification {
 
     @SuppressWarnings('GroovyAccessibility')
-    def "JSON serialization of Link includes 4 attributes, one of them is '#attribute'"() {
+    def "JSON serialization of Link includes 5 attributes, one of them is '#attribute'"() {
         when: "a Node object is serialized to a JSON"
         def actual = new JsonSlurper().parseText(
                 new ObjectMapper().writeValueAsString(
-                        new Link( "my link", "node1", "node2", [type: "follows"])
+                        new Link("link1", "my link", "node1", "node2", [type: "follows"])
                 )
         )
 
-        then: "the JSON has 4 fields"
-        actual.size() == 4
+        then: "the JSON has 5 fields"
+        actual.size() == 5
 
         and: "the fields contains one of the required fields"
         actual.keySet().contains(attribute)
 
         where:
         _ | attribute
+        _ | "id"
         _ | "label"
         _ | "sourceNodeId"
         _ | "targetNodeId"
@@ -65,14 +66,51 @@ class LinkSpec extends Specification {
                     label: "my node",
                     type: "follows"
             ]
+            elementId() >> "link1"
             startNodeElementId() >> "node1"
             endNodeElementId() >> "node2"
         })
 
         then: "the transparent link is fully initialized"
+        actual.id == "link1"
         actual.label == "my node"
         actual.sourceNodeId == "node1"
         actual.targetNodeId == "node2"
         actual.attributes == [type: "follows"]
     }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "Links are identified by their relationship element ID only"() {
+        expect: "parallel links with the same ends, label, and attributes are different links"
+        new Link("link1", "my link", "node1", "node2", [:]) != new Link("link2", "my link", "node1", "node2", [:])
+
+        and: "a link equals any link with the same ID"
+        new Link("link1", "my link", "node1", "node2", [:]) == new Link("link1", "other", "node3", "node4", [a: 1])
+        new Link("link1", "my link", "node1", "node2", [:]).hashCode() == "link1".hashCode()
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "Links round-trip through JSON"() {
+        given:
+        Link link = new Link("link1", "my link", "node1", "node2", [type: "follows"])
+        ObjectMapper objectMapper = new ObjectMapper()
+
+        when:
+        Link actual = objectMapper.readValue(objectMapper.writeValueAsString(link), Link)
+
+        then:
+        actual == link
+        actual.label == link.label
+        actual.attributes == link.attributes
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "Link ends share their string instances with equal node IDs"() {
+        when:
+        Link link = new Link("link1", "my link", new String("node1"), new String("node2"), [:])
+        Node node = new Node(new String("node1"), "node", [:])
+
+        then:
+        link.sourceNodeId.is(node.id)
+    }
 }
@@ -71,4 +71,16 @@ class NodeSpec extends Specification {
         actual.label == "my node"
         actual.attributes == [color: "blue", size: "medium"]
     }
+
+    def "The folded label of a Neo4J node is not an attribute"() {
+        when:
+        Node actual = Node.valueOf(Mock(org.neo4j.driver.types.Node) {
+            asMap() >> [label: "λόγος", foldedLabel: "λογος", language: "Ancient Greek"]
+            elementId() >> "my id"
+        })
+
+        then:
+        actual.label == "λόγος"
+        actual.attributes == [language: "Ancient Greek"]
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application
+
+import spock.lang.Requires
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.ThreadPoolExecutor
+
+class ExecutionModeSpec extends Specification {
+
+    def "Platform mode runs on a bounded pool of platform threads"() {
+        when:
+        ExecutorService executorService = ExecutionMode.PLATFORM.newExecutorService(3)
+
+        then:
+        executorService instanceof ThreadPoolExecutor
+        ((ThreadPoolExecutor) executorService).maximumPoolSize == 3
+
+        cleanup:
+        executorService?.shutdown()
+    }
+
+    @Requires({ ExecutionMode.VIRTUAL.isSupported() })
+    def "Virtual mode runs each task on a virtual thread"() {
+        when:
+        ExecutorService executorService = ExecutionMode.VIRTUAL.newExecutorService(3)
+
+        then:
+        executorService.submit({ Thread.currentThread().isVirtual() } as Callable<Boolean>).get()
+
+        cleanup:
+        executorService?.shutdown()
+    }
+
+    @Requires({ !ExecutionMode.VIRTUAL.isSupported() })
+    def "Virtual mode falls back to platform threads on a JVM without virtual threads"() {
+        when:
+        ExecutorService executorService = ExecutionMode.VIRTUAL.newExecutorService(3)
+
+        then:
+        executorService instanceof ThreadPoolExecutor
+        ((ThreadPoolExecutor) executorService).maximumPoolSize == 3
+
+        cleanup:
+        executorService?.shutdown()
+    }
+
+    def "Platform mode is always supported"() {
+        expect:
+        ExecutionMode.PLATFORM.isSupported()
+    }
+
+    @Unroll
+    def "#executionMode mode rejects a non-positive number (#platformThreads) of platform threads"() {
+        when:
+        executionMode.newExecutorService(platformThreads)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        [executionMode, platformThreads] << [ExecutionMode.values(), [0, -1]].combinations()
+    }
+}
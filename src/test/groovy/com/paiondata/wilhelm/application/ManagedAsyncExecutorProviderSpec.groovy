@@ -0,0 +1,62 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application
+
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+
+class ManagedAsyncExecutorProviderSpec extends Specification {
+
+    def "Default execution mode is platform threads"() {
+        expect:
+        new ManagedAsyncExecutorProvider().executionMode == ExecutionMode.PLATFORM
+    }
+
+    def "Provided executor runs tasks and is shut down on disposal"() {
+        given:
+        ManagedAsyncExecutorProvider provider = new ManagedAsyncExecutorProvider(ExecutionMode.PLATFORM, 2)
+
+        when:
+        ExecutorService executorService = provider.executorService
+
+        then:
+        executorService.submit({ "SUCCESS" } as Callable<String>).get() == "SUCCESS"
+
+        when:
+        provider.dispose(executorService)
+
+        then:
+        executorService.isShutdown()
+    }
+
+    def "Number of platform threads must be positive"() {
+        when:
+        new ManagedAsyncExecutorProvider(ExecutionMode.VIRTUAL, 0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Execution mode is required"() {
+        when:
+        new ManagedAsyncExecutorProvider(null, 1)
+
+        then:
+        thrown(NullPointerException)
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.application
+
+import org.neo4j.driver.Config
+import org.neo4j.driver.Driver
+import com.paiondata.wilhelm.config.ApplicationConfig
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.TimeUnit
+
+class Neo4JDriverFactorySpec extends Specification {
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "Connection pool settings are translated into driver config"() {
+        given: "a set of pool settings"
+        ApplicationConfig applicationConfig = Mock(ApplicationConfig) {
+            neo4jMaxConnectionPoolSize() >> 42
+            neo4jConnectionAcquisitionTimeoutSeconds() >> 5
+            neo4jMaxConnectionLifetimeSeconds() >> 600
+            neo4jIdleTimeBeforeConnectionTestSeconds() >> 30
+        }
+
+        when: "driver config is built"
+        Config config = Neo4JDriverFactory.buildDriverConfig(applicationConfig)
+
+        then: "every setting is honored"
+        config.maxConnectionPoolSize() == 42
+        config.connectionAcquisitionTimeoutMillis() == TimeUnit.SECONDS.toMillis(5)
+        config.maxConnectionLifetimeMillis() == TimeUnit.SECONDS.toMillis(600)
+        config.idleTimeBeforeConnectionTest() == TimeUnit.SECONDS.toMillis(30)
+
+        and: "connection pool metrics are published to Micrometer"
+        config.isMetricsEnabled()
+    }
+
+    @Unroll
+    @SuppressWarnings('GroovyAccessibility')
+    def "Idle liveness check of #idleTime seconds #isOrNot enabled"() {
+        given:
+        ApplicationConfig applicationConfig = Mock(ApplicationConfig) {
+            neo4jMaxConnectionPoolSize() >> 100
+            neo4jConnectionAcquisitionTimeoutSeconds() >> 60
+            neo4jMaxConnectionLifetimeSeconds() >> 3600
+            neo4jIdleTimeBeforeConnectionTestSeconds() >> idleTime
+        }
+
+        expect:
+        Neo4JDriverFactory.buildDriverConfig(applicationConfig).idleTimeBeforeConnectionTest() >= 0 == enabled
+
+        where:
+        idleTime || enabled
+        -1       || false
+        0        || true
+        10       || true
+
+        isOrNot = enabled ? "is" : "is not"
+    }
+
+    def "Disposing the shared driver closes it"() {
+        given:
+        Driver driver = Mock(Driver)
+
+        when: "the application shuts down"
+        new Neo4JDriverFactory(Mock(ApplicationConfig)).dispose(driver)
+
+        then: "the driver, and therefore its connection pool, is closed"
+        1 * driver.close()
+    }
+}
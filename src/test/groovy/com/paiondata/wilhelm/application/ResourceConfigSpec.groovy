@@ -17,13 +17,27 @@ package com.paiondata.wilhelm.application
 
 
 import org.glassfish.jersey.internal.inject.Binder
+import com.paiondata.wilhelm.web.filters.AdminAuthenticationFilter
+import com.paiondata.wilhelm.web.filters.AdmissionControlFilter
+import com.paiondata.wilhelm.web.filters.CompressionFilter
 import com.paiondata.wilhelm.web.filters.CorsFilter
+import com.paiondata.wilhelm.web.filters.HttpCacheFilter
+import com.paiondata.wilhelm.web.filters.MetricsFilter
+import com.paiondata.wilhelm.web.filters.TracingFilter
 
 import spock.lang.Specification
 
 class ResourceConfigSpec extends Specification {
 
-    static final Set<Class> ALWAYS_REGISTERED_FILTERS = [CorsFilter] as Set
+    static final Set<Class> ALWAYS_REGISTERED_FILTERS = [
+            CorsFilter,
+            MetricsFilter,
+            TracingFilter,
+            AdminAuthenticationFilter,
+            AdmissionControlFilter,
+            HttpCacheFilter,
+            CompressionFilter
+    ] as Set
 
     @SuppressWarnings('GroovyAccessibility')
     def "Instantiation triggers initialization and binding lifecycles"() {
@@ -36,5 +50,11 @@ class ResourceConfigSpec extends Specification {
 
         then: "all request & response filters are injected"
         resourceConfig.classes.containsAll(ALWAYS_REGISTERED_FILTERS)
+
+        and: "the trace of each request follows it to its resource method"
+        resourceConfig.classes.contains(RequestTracingListener)
+
+        and: "resource methods run on the executor of the configured execution mode"
+        resourceConfig.instances.any { it instanceof ManagedAsyncExecutorProvider }
     }
 }
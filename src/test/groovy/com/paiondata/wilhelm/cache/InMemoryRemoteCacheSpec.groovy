@@ -0,0 +1,72 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.cache
+
+import com.github.benmanes.caffeine.cache.Ticker
+
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicLong
+
+class InMemoryRemoteCacheSpec extends Specification {
+
+    AtomicLong now = new AtomicLong()
+    InMemoryRemoteCache cache = new InMemoryRemoteCache({ now.get() } as Ticker)
+
+    def "A value is readable until it expires"() {
+        when:
+        cache.put("key", "value".bytes, Duration.ofSeconds(10))
+
+        then:
+        new String(cache.get("key").get()) == "value"
+
+        when:
+        now.addAndGet(Duration.ofSeconds(10).toNanos())
+
+        then:
+        !cache.get("key").isPresent()
+        cache.size() == 0
+    }
+
+    def "Putting a key again replaces its value and TTL"() {
+        when:
+        cache.put("key", "old".bytes, Duration.ofSeconds(1))
+        cache.put("key", "new".bytes, Duration.ofSeconds(10))
+        now.addAndGet(Duration.ofSeconds(5).toNanos())
+
+        then:
+        new String(cache.get("key").get()) == "new"
+    }
+
+    def "Stored values cannot be modified through the arrays passed in or handed out"() {
+        given:
+        byte[] value = "value".bytes
+        cache.put("key", value, Duration.ofSeconds(10))
+
+        when:
+        value[0] = (byte) 'X'
+        cache.get("key").get()[1] = (byte) 'X'
+
+        then:
+        new String(cache.get("key").get()) == "value"
+    }
+
+    def "Unknown key misses"() {
+        expect:
+        !cache.get("unknown").isPresent()
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.cache
+
+import org.neo4j.driver.Values
+import org.neo4j.driver.internal.InternalNode
+import org.neo4j.driver.internal.InternalRelationship
+import com.github.benmanes.caffeine.cache.Ticker
+import com.paiondata.wilhelm.Graph
+import com.paiondata.wilhelm.KeysetPage
+import com.paiondata.wilhelm.Link
+import com.paiondata.wilhelm.Node
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+class ResultCacheSpec extends Specification {
+
+    static final CacheKey KEY = new CacheKey(CachedEndpoint.EXPAND_APOC, "Hund", 3)
+    static final Duration LOCAL_TTL = Duration.ofMinutes(10)
+    static final Map<CachedEndpoint, Duration> TTLS = CachedEndpoint.values().collectEntries {
+        [(it): Duration.ofHours(1)]
+    }
+
+    AtomicLong now = new AtomicLong()
+    Ticker ticker = { now.get() } as Ticker
+    InMemoryRemoteCache remoteCache = new InMemoryRemoteCache(ticker)
+    AtomicInteger loads = new AtomicInteger()
+
+    def "Repeated requests for the same result are loaded once and then served locally"() {
+        given:
+        ResultCache cache = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+
+        when:
+        3.times { get(cache, KEY, Graph, graphOf(2)) }
+
+        then:
+        loads.get() == 1
+        cache.statistics.hitCount() == 2
+        cache.statistics.missCount() == 1
+        cache.remoteMissCount == 1
+    }
+
+    @Unroll
+    def "#key is cached separately from EXPAND_APOC[Hund, 3]"() {
+        given:
+        ResultCache cache = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+        get(cache, KEY, Graph, graphOf(1))
+
+        expect:
+        get(cache, key, Graph, graphOf(2)).nodes.size() == 2
+
+        where:
+        _ | key
+        _ | new CacheKey(CachedEndpoint.EXPAND_DFS, "Hund", 3)
+        _ | new CacheKey(CachedEndpoint.EXPAND_APOC, "Katze", 3)
+        _ | new CacheKey(CachedEndpoint.EXPAND_APOC, "Hund", 2)
+    }
+
+    def "A result loaded by one instance is served to the others by the shared remote cache"() {
+        given: "two webservice instances sharing one remote cache"
+        ResultCache instance1 = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+        ResultCache instance2 = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+        Graph graph = graphWithLink()
+
+        when: "the first instance loads a sub-graph"
+        get(instance1, KEY, Graph, graph)
+
+        and: "the second instance is asked for the same sub-graph"
+        Graph cached = get(instance2, KEY, Graph, Graph.emptyGraph())
+
+        then: "it is read back from the remote cache instead of being loaded again"
+        loads.get() == 1
+        instance2.remoteHitCount == 1
+        cached.nodes == graph.nodes
+        cached.toString() == graph.toString()
+    }
+
+    @Unroll
+    def "#type.simpleName results survive the remote cache round trip"() {
+        given:
+        ResultCache instance1 = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+        ResultCache instance2 = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+        CacheKey key = new CacheKey(endpoint, "German", 10)
+        get(instance1, key, type, value)
+
+        expect:
+        get(instance2, key, type, null).properties == value.properties
+
+        where:
+        endpoint                         | type       | value
+        CachedEndpoint.VOCABULARY_PAGE   | Object     | [[term: "Hund", definition: "dog"]]
+        CachedEndpoint.VOCABULARY_CURSOR | KeysetPage | new KeysetPage([[term: "Hund", definition: "dog"]], "abc")
+    }
+
+    def "Results expire by the TTL of their endpoint, locally and remotely"() {
+        given:
+        Map<CachedEndpoint, Duration> ttls = new HashMap<>(TTLS)
+        ttls[CachedEndpoint.VOCABULARY_PAGE] = Duration.ofMinutes(1)
+        ResultCache cache = new ResultCache(remoteCache, 100, LOCAL_TTL, ttls, 2, 100, ticker)
+        CacheKey pageKey = new CacheKey(CachedEndpoint.VOCABULARY_PAGE, "German", 0, 10)
+
+        when:
+        get(cache, pageKey, Object, [[term: "Hund"]])
+        get(cache, KEY, Graph, graphOf(1))
+        now.addAndGet(TimeUnit.MINUTES.toNanos(2))
+        get(cache, pageKey, Object, [[term: "Hund"]])
+        get(cache, KEY, Graph, graphOf(1))
+
+        then: "the page with a TTL of 1 minute is reloaded while the sub-graph is not"
+        loads.get() == 3
+        cache.statistics.hitCount() == 1
+    }
+
+    def "Local tier expires by the local TTL, after which the remote tier is consulted"() {
+        given:
+        ResultCache cache = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+
+        when:
+        get(cache, KEY, Graph, graphOf(1))
+        now.addAndGet(LOCAL_TTL.plusMinutes(1).toNanos())
+        get(cache, KEY, Graph, graphOf(1))
+
+        then:
+        loads.get() == 1
+        cache.statistics.missCount() == 2
+        cache.remoteHitCount == 1
+    }
+
+    def "Concurrent misses on the same key share a single pending load"() {
+        given:
+        ResultCache cache = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+        CompletableFuture<Graph> pending = new CompletableFuture<>()
+
+        when: "several requests for the same key arrive while its load is still pending"
+        List<CompletionStage<Graph>> results = (1..8).collect {
+            cache.get(KEY, Graph, () -> { loads.incrementAndGet(); pending })
+        }
+
+        and: "the load completes"
+        pending.complete(graphOf(3))
+
+        then: "all of them get the result of the single load"
+        results.every { it.toCompletableFuture().get(10, TimeUnit.SECONDS).nodes.size() == 3 }
+        loads.get() == 1
+    }
+
+    def "Local tier is bounded by the total weight of its results"() {
+        given:
+        ResultCache cache = new ResultCache(RemoteCache.NONE, 10, LOCAL_TTL, TTLS, 2, 100, ticker)
+
+        when:
+        (1..5).each { get(cache, new CacheKey(CachedEndpoint.EXPAND_DFS, "word" + it), Graph, graphOf(4)) }
+        cache.cleanUp()
+
+        then:
+        cache.size() <= 2
+        cache.statistics.evictionCount() >= 3
+        cache.statistics.evictionWeight() >= 12
+    }
+
+    @Unroll
+    def "A load that #fails is cached in neither tier"() {
+        given:
+        ResultCache cache = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+
+        when:
+        cache.get(KEY, Graph, loader).toCompletableFuture().join()
+
+        then:
+        CompletionException exception = thrown()
+        exception.cause instanceof IllegalStateException
+        remoteCache.size() == 0
+
+        expect:
+        get(cache, KEY, Graph, graphOf(1)).nodes.size() == 1
+
+        where:
+        fails                   | loader
+        "completes erroneously" | { -> CompletableFuture.failedFuture(new IllegalStateException("Neo4J is down")) }
+        "throws"                | { -> throw new IllegalStateException("Neo4J is down") }
+    }
+
+    def "An unreadable remote entry is reloaded"() {
+        given:
+        remoteCache.put(KEY.toRemoteKey(), "not json".bytes, Duration.ofHours(1))
+        ResultCache cache = new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+
+        expect:
+        get(cache, KEY, Graph, graphOf(2)).nodes.size() == 2
+        cache.remoteMissCount == 1
+    }
+
+    def "The remote tier is read and written on the cache's own threads"() {
+        given:
+        List<String> threads = new CopyOnWriteArrayList<>()
+        RemoteCache recordingRemoteCache = new RemoteCache() {
+            @Override
+            Optional<byte[]> get(String key) {
+                threads << Thread.currentThread().name
+                Optional.empty()
+            }
+
+            @Override
+            void put(String key, byte[] value, Duration timeToLive) {
+                threads << Thread.currentThread().name
+            }
+        }
+        ResultCache cache = new ResultCache(recordingRemoteCache, 100, LOCAL_TTL, TTLS, 2, 100, ticker)
+
+        when:
+        get(cache, KEY, Graph, graphOf(1))
+
+        then: "one read and one write, neither on the common pool"
+        threads.size() == 2
+        threads.every { it.startsWith("result-cache-remote-") }
+
+        cleanup:
+        cache.stop()
+    }
+
+    @Unroll
+    def "#value weighs #weight"() {
+        expect:
+        ResultCache.weigh(KEY, value) == weight
+
+        where:
+        value                                  || weight
+        Graph.emptyGraph()                     || 1
+        graphOf(3)                             || 3
+        graphWithLink()                        || 3
+        [[count: 1], [count: 2]]               || 2
+        new KeysetPage([[term: "a"]] * 5, "x") || 5
+        "anything else"                        || 1
+    }
+
+    def "Every endpoint needs a positive TTL"() {
+        when:
+        new ResultCache(
+                remoteCache,
+                100,
+                LOCAL_TTL,
+                [(CachedEndpoint.EXPAND_APOC): Duration.ofMinutes(1)],
+                2,
+                100,
+                ticker
+        )
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        new ResultCache(remoteCache, 100, Duration.ZERO, TTLS, 2, 100, ticker)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "The remote tier needs at least one thread and room for a waiting read or write"() {
+        when:
+        new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 0, 100, ticker)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        new ResultCache(remoteCache, 100, LOCAL_TTL, TTLS, 2, 0, ticker)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Remote reads and writes are skipped rather than queued once the remote tier falls behind"() {
+        given: "a remote tier whose reads hang"
+        CountDownLatch reading = new CountDownLatch(1)
+        CountDownLatch release = new CountDownLatch(1)
+        RemoteCache hangingRemoteCache = new RemoteCache() {
+            @Override
+            Optional<byte[]> get(String key) {
+                reading.countDown()
+                release.await()
+                Optional.empty()
+            }
+
+            @Override
+            void put(String key, byte[] value, Duration timeToLive) {
+            }
+        }
+        ResultCache cache = new ResultCache(hangingRemoteCache, 100, LOCAL_TTL, TTLS, 1, 1, ticker)
+
+        and: "its only thread is busy and one more read is waiting"
+        cache.get(new CacheKey(CachedEndpoint.EXPAND_APOC, "Hund", 3), Graph, {
+            CompletableFuture.completedFuture(graphOf(1))
+        })
+        reading.await(10, TimeUnit.SECONDS)
+        cache.get(new CacheKey(CachedEndpoint.EXPAND_APOC, "Katze", 3), Graph, {
+            CompletableFuture.completedFuture(graphOf(1))
+        })
+
+        when:
+        Graph graph = get(cache, new CacheKey(CachedEndpoint.EXPAND_APOC, "Maus", 3), Graph, graphOf(2))
+
+        then: "the result is loaded without waiting for the remote tier"
+        graph.nodes.size() == 2
+        loads.get() == 1
+        cache.remoteSkipCount == 2
+
+        cleanup:
+        release.countDown()
+        cache.stop()
+    }
+
+    /**
+     * Gets a result from a cache and waits for it, counting the loads.
+     */
+    <T> T get(ResultCache cache, CacheKey key, Class<T> type, T value) {
+        cache.get(key, type, () -> {
+            loads.incrementAndGet()
+            CompletableFuture.completedFuture(value)
+        }).toCompletableFuture().get(10, TimeUnit.SECONDS)
+    }
+
+    static Graph graphOf(int size) {
+        Set<Node> nodes = (0..<size).collect {
+            Node.valueOf(new InternalNode(it, "node" + it, ["Term"], [label: Values.value("node" + it)]))
+        } as Set
+        new Graph(nodes, [] as Set)
+    }
+
+    static Graph graphWithLink() {
+        Graph graph = graphOf(2)
+        Link link = Link.valueOf(new InternalRelationship(
+                0, "link0", 0, "node0", 1, "node1", "LINK", [label: Values.value("definition")]
+        ))
+        new Graph(graph.nodes, [link] as Set)
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.graph
+
+import org.neo4j.driver.Values
+import org.neo4j.driver.internal.InternalNode
+import org.neo4j.driver.internal.InternalRelationship
+import com.paiondata.wilhelm.Graph
+import com.paiondata.wilhelm.Link
+import com.paiondata.wilhelm.Node
+
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Instant
+
+class GraphSnapshotSpec extends Specification {
+
+    static final Instant LOADED_AT = Instant.parse("2024-05-01T10:15:30Z")
+
+    @TempDir
+    Path directory
+
+    VocabularyGraph graph
+
+    def setup() {
+        VocabularyGraph.Builder builder = VocabularyGraph.builder(LOADED_AT)
+        ["Haus", "Häuser", "house", "Maus"].withIndex().each { label, i ->
+            builder.addNode(Node.valueOf(new InternalNode(
+                    i, label, ["Term"], [label: Values.value(label), language: Values.value("German")]
+            )))
+        }
+        builder.addNode(Node.valueOf(new InternalNode(4, "definition", ["Definition"], [label: Values.value("Haus")])))
+        [["Haus", "Häuser"], ["Haus", "house"]].withIndex().each { pair, i ->
+            builder.addLink(Link.valueOf(new InternalRelationship(
+                    i, "link" + i,
+                    0, pair[0],
+                    0, pair[1],
+                    "LINK", [label: Values.value("definition"), weight: Values.value(i)]
+            )))
+        }
+        graph = builder.build()
+    }
+
+    @Unroll
+    def "A snapshot answers expanding '#label' exactly like the graph it was written from"() {
+        given:
+        Path path = directory.resolve("vocabulary.graph")
+        GraphSnapshot.write(graph, path)
+
+        when:
+        VocabularyGraph opened = GraphSnapshot.open(path)
+
+        then:
+        opened.nodeCount == graph.nodeCount
+        opened.linkCount == graph.linkCount
+        opened.loadedAt == LOADED_AT
+        sameGraph(opened.expand(label, -1), graph.expand(label, -1))
+        sameGraph(opened.expandBreadthFirst(label, 10, 10), graph.expandBreadthFirst(label, 10, 10))
+
+        where:
+        label << ["Haus", "Häuser", "Maus", "nothing"]
+    }
+
+    def "Nodes and links are decoded with their attributes"() {
+        given:
+        Path path = directory.resolve("vocabulary.graph")
+        GraphSnapshot.write(graph, path)
+
+        when:
+        Graph expanded = GraphSnapshot.open(path).expand("Häuser", 1)
+
+        then:
+        expanded.nodes.find { it.label == "Häuser" }.attributes == [language: "German"]
+        expanded.links*.sourceNodeId == ["Haus"]
+        expanded.links*.targetNodeId == ["Häuser"]
+        expanded.links*.attributes == [[weight: 0]]
+    }
+
+    def "Writing replaces an existing snapshot"() {
+        given:
+        Path path = directory.resolve("vocabulary.graph")
+        GraphSnapshot.write(VocabularyGraph.builder(Instant.EPOCH).build(), path)
+
+        when:
+        GraphSnapshot.write(graph, path)
+
+        then:
+        GraphSnapshot.open(path).nodeCount == 5
+        Files.list(directory).count() == 1
+    }
+
+    def "A file that is not a snapshot of the supported version is rejected"() {
+        given:
+        Path path = directory.resolve("vocabulary.graph")
+        GraphSnapshot.write(graph, path)
+        byte[] bytes = Files.readAllBytes(path)
+        ByteBuffer.wrap(bytes).putInt(offset, value)
+        Files.write(path, bytes)
+
+        when:
+        GraphSnapshot.open(path)
+
+        then:
+        IOException exception = thrown()
+        exception.message.contains(message)
+
+        where:
+        offset | value                     || message
+        0      | 0                         || "is not a vocabulary graph snapshot"
+        4      | GraphSnapshot.VERSION + 1 || "is a version 2 snapshot"
+        16     | 6                         || "is truncated or corrupt"
+    }
+
+    static boolean sameGraph(Graph actual, Graph expected) {
+        actual.nodes*.id as Set == expected.nodes*.id as Set
+                && actual.links*.id as Set == expected.links*.id as Set
+                && actual.nodes.collectEntries { [(it.id): it.attributes] } ==
+                        expected.nodes.collectEntries { [(it.id): it.attributes] }
+    }
+}
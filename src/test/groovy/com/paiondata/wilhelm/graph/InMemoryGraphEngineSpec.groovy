@@ -0,0 +1,107 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.graph
+
+import com.paiondata.wilhelm.neo4j.QueryExecutor
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+
+class InMemoryGraphEngineSpec extends Specification {
+
+    static final Instant EXPORTED_AT = Instant.parse("2024-05-01T10:15:30Z")
+
+    @TempDir
+    Path directory
+
+    Path snapshotPath
+    InMemoryGraphEngine engine
+
+    def setup() {
+        snapshotPath = directory.resolve("vocabulary.graph")
+        GraphSnapshot.write(VocabularyGraph.builder(EXPORTED_AT).build(), snapshotPath)
+        engine = new InMemoryGraphEngine(
+                Mock(QueryExecutor),
+                true,
+                snapshotPath,
+                Duration.ZERO,
+                3,
+                100,
+                Clock.systemUTC()
+        )
+    }
+
+    def cleanup() {
+        engine.stop()
+    }
+
+    def "Reloads are rejected unless the engine is running"() {
+        when: "the engine has not been started"
+        engine.reload()
+
+        then:
+        thrown(IllegalStateException)
+
+        when: "the engine has been stopped"
+        engine.start()
+        engine.stop()
+        engine.reload()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "An unchanged snapshot file is not mapped again"() {
+        given:
+        engine.start()
+        VocabularyGraph first = reload()
+
+        expect:
+        reload().is(first)
+        first.loadedAt == EXPORTED_AT
+    }
+
+    def "A replaced snapshot file is mapped again"() {
+        given:
+        engine.start()
+        VocabularyGraph first = reload()
+
+        when:
+        GraphSnapshot.write(VocabularyGraph.builder(EXPORTED_AT.plusSeconds(3600)).build(), snapshotPath)
+        Files.setLastModifiedTime(snapshotPath, FileTime.from(Instant.now().plusSeconds(60)))
+        VocabularyGraph second = reload()
+
+        then:
+        !second.is(first)
+        second.loadedAt == EXPORTED_AT.plusSeconds(3600)
+        engine.snapshot.get().is(second)
+    }
+
+    /**
+     * Reloads the engine and waits for the reloaded snapshot.
+     */
+    VocabularyGraph reload() {
+        engine.reload().toCompletableFuture().get(10, TimeUnit.SECONDS)
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.graph
+
+import org.neo4j.driver.Values
+import org.neo4j.driver.internal.InternalNode
+import org.neo4j.driver.internal.InternalRelationship
+import com.paiondata.wilhelm.Graph
+import com.paiondata.wilhelm.Link
+import com.paiondata.wilhelm.Node
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Instant
+
+class VocabularyGraphSpec extends Specification {
+
+    /**
+     * A chain of 5 nodes, a -> b <- c -> d -> e, and a node z without any link
+     */
+    static final Map<String, InternalNode> NODES = ["a", "b", "c", "d", "e", "z"]
+            .withIndex()
+            .collectEntries { label, i ->
+                [(label): new InternalNode(i, label, ["Term"], [label: Values.value(label)])]
+            }
+    static final List<InternalRelationship> LINKS = [["a", "b"], ["c", "b"], ["c", "d"], ["d", "e"]]
+            .withIndex()
+            .collect { pair, i ->
+                new InternalRelationship(
+                        i, "link" + i,
+                        NODES[pair[0]].id(), pair[0],
+                        NODES[pair[1]].id(), pair[1],
+                        "LINK", [label: Values.value(pair.join("-"))]
+                )
+            }
+
+    VocabularyGraph graph
+
+    def setup() {
+        VocabularyGraph.Builder builder = VocabularyGraph.builder(Instant.parse("2024-05-01T10:15:30Z"))
+        LINKS.each { builder.addLink(Link.valueOf(it)) }
+        NODES.values().each { builder.addNode(Node.valueOf(it)) }
+        graph = builder.build()
+    }
+
+    @Unroll
+    def "Expanding '#label' by at most #maxHops hops reaches #nodes over #links, regardless of link direction"() {
+        when:
+        Graph expanded = graph.expand(label, maxHops)
+
+        then:
+        expanded.nodes*.id as Set == nodes as Set
+        expanded.links*.label as Set == links as Set
+
+        where:
+        label | maxHops || nodes                          | links
+        "a"   | -1      || ["a", "b", "c", "d", "e"]      | ["a-b", "c-b", "c-d", "d-e"]
+        "a"   | 1       || ["a", "b"]                     | ["a-b"]
+        "b"   | 2       || ["a", "b", "c", "d"]           | ["a-b", "c-b", "c-d"]
+        "a"   | 0       || []                             | []
+        "z"   | -1      || []                             | []
+        "x"   | -1      || []                             | []
+    }
+
+    def "Breadth-first expansion stays within its depth budget"() {
+        when:
+        Graph expanded = graph.expandBreadthFirst("a", 1, 100)
+
+        then:
+        expanded.nodes*.id as Set == ["a", "b"] as Set
+        expanded.links*.label as Set == ["a-b"] as Set
+    }
+
+    def "Breadth-first expansion stays within its node budget and only keeps links between collected nodes"() {
+        when:
+        Graph expanded = graph.expandBreadthFirst("c", 100, 2)
+
+        then:
+        expanded.nodes*.id as Set == ["c", "b"] as Set
+        expanded.links*.label as Set == ["c-b"] as Set
+    }
+
+    def "Breadth-first expansion keeps the starting node even if it has no link"() {
+        expect:
+        graph.expandBreadthFirst("z", 100, 100).nodes*.id == ["z"]
+        graph.expandBreadthFirst("x", 100, 100).nodes.isEmpty()
+    }
+
+    def "Links to nodes that were not added are left out"() {
+        given:
+        VocabularyGraph.Builder builder = VocabularyGraph.builder(Instant.EPOCH)
+                .addNode(Node.valueOf(NODES["a"]))
+                .addNode(Node.valueOf(NODES["b"]))
+                .addNode(Node.valueOf(NODES["a"]))
+        LINKS.each { builder.addLink(Link.valueOf(it)) }
+
+        when:
+        VocabularyGraph partial = builder.build()
+
+        then:
+        partial.nodeCount == 2
+        partial.linkCount == 1
+        builder.danglingLinks == 3
+    }
+}
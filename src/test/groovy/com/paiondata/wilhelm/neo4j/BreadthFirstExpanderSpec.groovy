@@ -0,0 +1,126 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j
+
+import org.neo4j.driver.Record
+import org.neo4j.driver.Value
+import org.neo4j.driver.Values
+import org.neo4j.driver.internal.InternalNode
+import org.neo4j.driver.internal.InternalRecord
+import org.neo4j.driver.internal.InternalRelationship
+import org.neo4j.driver.internal.value.NodeValue
+import org.neo4j.driver.internal.value.RelationshipValue
+import com.paiondata.wilhelm.Graph
+
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionStage
+
+class BreadthFirstExpanderSpec extends Specification {
+
+    /**
+     * A chain of 5 nodes: a -> b <- c -> d -> e
+     */
+    static final Map<String, InternalNode> NODES = ["a", "b", "c", "d", "e"].withIndex().collectEntries { label, i ->
+        [(label): new InternalNode(i, label, ["Term"], [label: Values.value(label)])]
+    }
+    static final List<InternalRelationship> LINKS = [["a", "b"], ["c", "b"], ["c", "d"], ["d", "e"]]
+            .withIndex()
+            .collect { pair, i ->
+                new InternalRelationship(
+                        i, "link" + i,
+                        NODES[pair[0]].id(), pair[0],
+                        NODES[pair[1]].id(), pair[1],
+                        "LINK", [label: Values.value(pair.join("-"))]
+                )
+            }
+
+    QueryExecutor queryExecutor = Mock(QueryExecutor)
+    List<List<String>> frontiers = []
+
+    def setup() {
+        queryExecutor.executeAsync(CypherStatement.FIND_BY_LABEL, _) >> { CypherStatement statement, Object[] arguments ->
+            result(NODES.containsKey(arguments[0]) ? [record(["node"], [new NodeValue(NODES[arguments[0]])])] : [])
+        }
+        queryExecutor.executeAsync(CypherStatement.EXPAND_FRONTIER, _) >> { CypherStatement statement, Object[] arguments ->
+            List<String> ids = arguments[0] as List<String>
+            frontiers << ids
+            result(ids.collectMany { id ->
+                LINKS.findAll { it.startNodeElementId() == id || it.endNodeElementId() == id }.collect { link ->
+                    String neighbor = link.startNodeElementId() == id ? link.endNodeElementId() : link.startNodeElementId()
+                    record(
+                            ["node", "link", "neighbor"],
+                            [new NodeValue(NODES[id]), new RelationshipValue(link), new NodeValue(NODES[neighbor])]
+                    )
+                }
+            })
+        }
+    }
+
+    def "Whole component is expanded with one round trip per BFS level"() {
+        when: "expanding from one end of the chain"
+        Graph graph = new BreadthFirstExpander(queryExecutor, 100, 100).expand("a").toCompletableFuture().join()
+
+        then: "all nodes and links of the component are collected"
+        graph.nodes*.id as Set == ["a", "b", "c", "d", "e"] as Set
+        graph.links.size() == 4
+
+        and: "each level is sent as a single frontier"
+        frontiers == [["a"], ["b"], ["c"], ["d"], ["e"]]
+    }
+
+    def "Traversal stops at its depth budget"() {
+        when:
+        Graph graph = new BreadthFirstExpander(queryExecutor, 2, 100).expand("a").toCompletableFuture().join()
+
+        then: "only nodes within 2 hops are returned"
+        graph.nodes*.id as Set == ["a", "b", "c"] as Set
+        graph.links.size() == 2
+        frontiers.size() == 2
+    }
+
+    def "Traversal stops at its node budget and drops links to nodes left out"() {
+        when: "expanding from the middle of the chain with a budget of 3 nodes"
+        Graph graph = new BreadthFirstExpander(queryExecutor, 100, 3).expand("c").toCompletableFuture().join()
+
+        then:
+        graph.nodes*.id as Set == ["c", "b", "d"] as Set
+        graph.links.every { link -> graph.nodes*.id.containsAll([link.sourceNodeId, link.targetNodeId]) }
+    }
+
+    def "Expanding an unknown word results in an empty graph without traversing"() {
+        expect:
+        new BreadthFirstExpander(queryExecutor, 100, 100).expand("unknown").toCompletableFuture().join().isEmpty()
+        frontiers.isEmpty()
+    }
+
+    def "Budgets must be positive"() {
+        when:
+        new BreadthFirstExpander(queryExecutor, 0, 100)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    static CompletionStage<List<Record>> result(List<Record> records) {
+        CompletableFuture.completedFuture(records)
+    }
+
+    static Record record(List<String> keys, List<Value> values) {
+        new InternalRecord(keys, values as Value[])
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CypherStatementSpec extends Specification {
+
+    @Unroll
+    def "#statement references every one of its declared parameters and nothing is formatted into its text"() {
+        expect: "each declared parameter appears as a placeholder"
+        statement.parameterNames.every { statement.text.contains('$' + it) }
+
+        and: "no placeholder for String.format is left in the text"
+        !statement.text.contains("%s")
+
+        where:
+        statement << CypherStatement.values()
+    }
+
+    def "Arguments are bound to parameters by position"() {
+        expect:
+        CypherStatement.VOCABULARY_BY_LANGUAGE_PAGED.bind("German", 20, 10) == [language: "German", skip: 20, limit: 10]
+    }
+
+    def "Binding the wrong number of arguments is an error"() {
+        when:
+        CypherStatement.EXPAND_APOC.bind("dreißig")
+
+        then:
+        Exception exception = thrown(IllegalArgumentException)
+        exception.message == "EXPAND_APOC expects parameters [label, maxHops] but got [dreißig]"
+    }
+}
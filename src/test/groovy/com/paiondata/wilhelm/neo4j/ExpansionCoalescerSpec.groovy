@@ -0,0 +1,172 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j
+
+import org.neo4j.driver.Record
+import org.neo4j.driver.Value
+import org.neo4j.driver.Values
+import org.neo4j.driver.exceptions.ServiceUnavailableException
+import org.neo4j.driver.internal.InternalNode
+import org.neo4j.driver.internal.InternalPath
+import org.neo4j.driver.internal.InternalRecord
+import org.neo4j.driver.internal.InternalRelationship
+import org.neo4j.driver.internal.value.PathValue
+import com.paiondata.wilhelm.Graph
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.TimeUnit
+
+class ExpansionCoalescerSpec extends Specification {
+
+    /**
+     * 2 nodes a and c, both linked to b: a -> b <- c
+     */
+    static final Map<String, InternalNode> NODES = ["a", "b", "c"].withIndex().collectEntries { label, i ->
+        [(label): new InternalNode(i, label, ["Term"], [label: Values.value(label)])]
+    }
+    static final Map<String, InternalRelationship> LINKS = ["a", "c"].withIndex().collectEntries { label, i ->
+        [(label): new InternalRelationship(
+                i, label + "-b",
+                NODES[label].id(), label,
+                NODES["b"].id(), "b",
+                "LINK", [label: Values.value("definition")]
+        )]
+    }
+    static final Duration LONG_WINDOW = Duration.ofHours(1)
+
+    QueryExecutor queryExecutor = Mock(QueryExecutor)
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    def "Concurrent expansions of different words are sent as a single query once the batch is full"() {
+        given:
+        ExpansionCoalescer coalescer = new ExpansionCoalescer(queryExecutor, LONG_WINDOW, 2, meterRegistry)
+
+        when:
+        CompletionStage<Graph> a = coalescer.expand("a", 1)
+        CompletionStage<Graph> c = coalescer.expand("c", 1)
+
+        then: "one query is sent for both words"
+        1 * queryExecutor.executeAsync(CypherStatement.EXPAND_APOC_BATCH, ["a", "c"], 1) >> result(
+                ["a", "c"].collect { record(["label", "path"], [Values.value(it), path(it)]) }
+        )
+        0 * queryExecutor._
+
+        and: "each expansion gets its own sub-graph"
+        a.toCompletableFuture().join().links*.id == ["a-b"]
+        c.toCompletableFuture().join().links*.id == ["c-b"]
+
+        and:
+        meterRegistry.summary(ExpansionCoalescer.BATCH_SIZE_METRIC).count() == 1
+        meterRegistry.summary(ExpansionCoalescer.BATCH_SIZE_METRIC).totalAmount() == 2
+        meterRegistry.timer(ExpansionCoalescer.DELAY_METRIC).count() == 2
+    }
+
+    def "Expansions of the same word share one result and expansions of different max hops are batched apart"() {
+        given:
+        ExpansionCoalescer coalescer = new ExpansionCoalescer(queryExecutor, LONG_WINDOW, 2, meterRegistry)
+
+        when:
+        CompletionStage<Graph> first = coalescer.expand("a", 1)
+        CompletionStage<Graph> second = coalescer.expand("a", 1)
+        CompletionStage<Graph> deeper = coalescer.expand("c", 2)
+        CompletionStage<Graph> unknown = coalescer.expand("x", 1)
+
+        then:
+        1 * queryExecutor.executeAsync(CypherStatement.EXPAND_APOC_BATCH, ["a", "x"], 1) >> result(
+                [record(["label", "path"], [Values.value("a"), path("a")])]
+        )
+        0 * queryExecutor._
+
+        and:
+        first.toCompletableFuture().join().is(second.toCompletableFuture().join())
+        first.toCompletableFuture().join().nodes*.id as Set == ["a", "b"] as Set
+        unknown.toCompletableFuture().join().isEmpty()
+        !deeper.toCompletableFuture().isDone()
+    }
+
+    def "A batch is sent once its window ends, as a plain query if it has a single word"() {
+        given:
+        ExpansionCoalescer coalescer = new ExpansionCoalescer(queryExecutor, Duration.ofMillis(10), 100, meterRegistry)
+        queryExecutor.executeAsync(CypherStatement.EXPAND_APOC, "a", 1) >> result([record(["path"], [path("a")])])
+
+        expect:
+        coalescer.expand("a", 1).toCompletableFuture().join().links*.id == ["a-b"]
+        meterRegistry.timer(ExpansionCoalescer.DELAY_METRIC).totalTime(TimeUnit.MILLISECONDS) >= 10
+    }
+
+    def "Without a window every expansion is sent right away"() {
+        given:
+        ExpansionCoalescer coalescer = new ExpansionCoalescer(queryExecutor, Duration.ZERO, 100, meterRegistry)
+
+        when:
+        Graph graph = coalescer.expand("c", 1).toCompletableFuture().join()
+
+        then:
+        1 * queryExecutor.executeAsync(CypherStatement.EXPAND_APOC, "c", 1) >> result([record(["path"], [path("c")])])
+        graph.links*.id == ["c-b"]
+        meterRegistry.summary(ExpansionCoalescer.BATCH_SIZE_METRIC).count() == 0
+    }
+
+    def "A failed batch query fails all expansions of the batch"() {
+        given:
+        ExpansionCoalescer coalescer = new ExpansionCoalescer(queryExecutor, LONG_WINDOW, 2, meterRegistry)
+        queryExecutor.executeAsync(CypherStatement.EXPAND_APOC_BATCH, *_) >> CompletableFuture.failedFuture(
+                new ServiceUnavailableException("down")
+        )
+
+        when:
+        CompletionStage<Graph> a = coalescer.expand("a", 1)
+        CompletionStage<Graph> c = coalescer.expand("c", 1)
+        a.toCompletableFuture().join()
+
+        then:
+        CompletionException exception = thrown()
+        exception.cause instanceof ServiceUnavailableException
+        c.toCompletableFuture().isCompletedExceptionally()
+    }
+
+    def "Window must not be negative and batch size must be positive"() {
+        when:
+        new ExpansionCoalescer(queryExecutor, window, maxBatchSize, meterRegistry)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        window                | maxBatchSize
+        Duration.ofMillis(-1) | 10
+        LONG_WINDOW           | 0
+    }
+
+    static Value path(String label) {
+        new PathValue(new InternalPath(NODES[label], LINKS[label], NODES["b"]))
+    }
+
+    static CompletionStage<List<Record>> result(List<Record> records) {
+        CompletableFuture.completedFuture(records)
+    }
+
+    static Record record(List<String> keys, List<Value> values) {
+        new InternalRecord(keys, values as Value[])
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j
+
+import static com.paiondata.wilhelm.neo4j.FullTextSearchSpec.result
+
+import spock.lang.Specification
+
+class FullTextIndexMigrationSpec extends Specification {
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "An index that does not index folded labels is recreated"() {
+        given:
+        QueryExecutor queryExecutor = Mock(QueryExecutor)
+        queryExecutor.execute(CypherStatement.FIND_LABELS) >> result()
+
+        when:
+        FullTextIndexMigration.migrate(queryExecutor, new FullTextSearch(queryExecutor, 10))
+
+        then:
+        1 * queryExecutor.execute(CypherStatement.DESCRIBE_FULLTEXT_INDEX, FullTextSearch.INDEX_NAME) >> result(
+                [state: "ONLINE", analyzer: FullTextSearch.ANALYZER, properties: ["label"]]
+        )
+
+        then:
+        1 * queryExecutor.execute(CypherStatement.DROP_FULLTEXT_INDEX)
+
+        then: "the index is created again"
+        1 * queryExecutor.execute(CypherStatement.DESCRIBE_FULLTEXT_INDEX, FullTextSearch.INDEX_NAME) >> result(
+                [state: "POPULATING", analyzer: FullTextSearch.ANALYZER, properties: ["label", "foldedLabel"]]
+        )
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "An index that indexes folded labels is kept"() {
+        given:
+        QueryExecutor queryExecutor = Mock(QueryExecutor)
+        queryExecutor.execute(CypherStatement.FIND_LABELS) >> result()
+        queryExecutor.execute(CypherStatement.DESCRIBE_FULLTEXT_INDEX, _) >> result(
+                [state: "ONLINE", analyzer: FullTextSearch.ANALYZER, properties: ["label", "foldedLabel"]]
+        )
+
+        when:
+        FullTextIndexMigration.migrate(queryExecutor, new FullTextSearch(queryExecutor, 10))
+
+        then:
+        0 * queryExecutor.execute(CypherStatement.DROP_FULLTEXT_INDEX)
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "Missing and stale folded labels are folded the same way as queries, in batches"() {
+        given:
+        QueryExecutor queryExecutor = Mock(QueryExecutor)
+        List<Map<String, Object>> missing = (1..FullTextIndexMigration.FOLD_BATCH_SIZE).collect {
+            [id: "node-" + it, label: "Größe", foldedLabel: null] as Map<String, Object>
+        }
+        queryExecutor.execute(CypherStatement.FIND_LABELS) >> result(
+                *missing,
+                [id: "stale", label: "λόγος", foldedLabel: "λογοι"],
+                [id: "current", label: "Haus", foldedLabel: "haus"]
+        )
+
+        when:
+        int folded = FullTextIndexMigration.foldLabels(queryExecutor)
+
+        then:
+        1 * queryExecutor.execute(
+                CypherStatement.SET_FOLDED_LABELS,
+                { it.size() == FullTextIndexMigration.FOLD_BATCH_SIZE && it.every { it.foldedLabel == "grosse" } }
+        )
+
+        then:
+        1 * queryExecutor.execute(CypherStatement.SET_FOLDED_LABELS, [[id: "stale", foldedLabel: "λογος"]])
+
+        and:
+        folded == FullTextIndexMigration.FOLD_BATCH_SIZE + 1
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j
+
+import org.neo4j.driver.EagerResult
+import org.neo4j.driver.Value
+import org.neo4j.driver.Values
+import org.neo4j.driver.internal.InternalRecord
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FullTextSearchSpec extends Specification {
+
+    @Unroll
+    @SuppressWarnings('GroovyAccessibility')
+    def "'#token' folds into '#folded'"() {
+        expect:
+        FullTextSearch.fold(token) == folded
+
+        where:
+        token       || folded
+        "Größe"     || "grosse"
+        "GROẞE"     || "grosse"
+        "Mädchen"   || "madchen"
+        "rosā"      || "rosa"
+        "λόγος"     || "λογος"
+        "plain"     || "plain"
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "Each keyword token is matched as whole word, prefix and infix, in both original and folded form"() {
+        expect:
+        FullTextSearch.toLuceneQuery("Größe") ==
+                "(größe^4 OR größe*^2 OR *größe* OR grosse^4 OR grosse*^2 OR *grosse*)"
+
+        and: "all tokens must match"
+        FullTextSearch.toLuceneQuery(" der  Hund ") == "(der^4 OR der*^2 OR *der*) AND (hund^4 OR hund*^2 OR *hund*)"
+
+        and: "a blank keyword has no tokens"
+        FullTextSearch.toLuceneQuery("   ") == ""
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "User input cannot inject Lucene query syntax"() {
+        expect:
+        FullTextSearch.toLuceneQuery('a:b*') == '(a\\:b\\*^4 OR a\\:b\\**^2 OR *a\\:b\\**)'
+        FullTextSearch.toLuceneQuery('OR') == '(or^4 OR or*^2 OR *or*)'
+    }
+
+    def "Search sends the translated query and limit as parameters"() {
+        given:
+        QueryExecutor queryExecutor = Mock(QueryExecutor)
+
+        when:
+        new FullTextSearch(queryExecutor, 10).search("Hund", 5)
+
+        then:
+        1 * queryExecutor.executeAsync(CypherStatement.SEARCH_FULLTEXT, "(hund^4 OR hund*^2 OR *hund*)", 5)
+    }
+
+    def "Ensuring the index creates it, waits for it and verifies it"() {
+        given:
+        QueryExecutor queryExecutor = Mock(QueryExecutor)
+
+        when:
+        new FullTextSearch(queryExecutor, 10).ensureIndex()
+
+        then:
+        1 * queryExecutor.execute(CypherStatement.CREATE_FULLTEXT_INDEX)
+
+        then:
+        1 * queryExecutor.execute(CypherStatement.AWAIT_INDEX, FullTextSearch.INDEX_NAME, 10L)
+
+        then:
+        1 * queryExecutor.execute(CypherStatement.DESCRIBE_FULLTEXT_INDEX, FullTextSearch.INDEX_NAME) >> result(
+                [state: "ONLINE", analyzer: FullTextSearch.ANALYZER, properties: ["label", "foldedLabel"]]
+        )
+        0 * queryExecutor._
+    }
+
+    def "Ensuring an index that does not index folded labels neither drops it nor writes to the database"() {
+        given:
+        QueryExecutor queryExecutor = Mock(QueryExecutor)
+
+        when:
+        new FullTextSearch(queryExecutor, 10).ensureIndex()
+
+        then:
+        1 * queryExecutor.execute(CypherStatement.DESCRIBE_FULLTEXT_INDEX, FullTextSearch.INDEX_NAME) >> result(
+                [state: "ONLINE", analyzer: FullTextSearch.ANALYZER, properties: ["label"]]
+        )
+        0 * queryExecutor.execute(CypherStatement.DROP_FULLTEXT_INDEX)
+        0 * queryExecutor.execute(CypherStatement.SET_FOLDED_LABELS, *_)
+    }
+
+    def "A missing index after creation is an error"() {
+        given:
+        QueryExecutor queryExecutor = Mock(QueryExecutor)
+        queryExecutor.execute(CypherStatement.DESCRIBE_FULLTEXT_INDEX, _) >> ([records: { [] }] as EagerResult)
+
+        when:
+        new FullTextSearch(queryExecutor, 10).ensureIndex()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    static EagerResult result(Map<String, Object>... rows) {
+        List<InternalRecord> records = rows.collect { row ->
+            new InternalRecord(row.keySet() as List, row.values().collect { Values.value(it) } as Value[])
+        }
+        [records: { records }] as EagerResult
+    }
+}
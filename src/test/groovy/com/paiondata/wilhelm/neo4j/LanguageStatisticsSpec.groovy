@@ -0,0 +1,158 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j
+
+import org.neo4j.driver.Record
+import org.neo4j.driver.Value
+import org.neo4j.driver.Values
+import org.neo4j.driver.exceptions.ServiceUnavailableException
+import org.neo4j.driver.internal.InternalRecord
+import com.paiondata.wilhelm.Language
+
+import spock.lang.Specification
+
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneOffset
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+
+class LanguageStatisticsSpec extends Specification {
+
+    static final Instant NOW = Instant.parse("2024-05-01T10:15:30Z")
+
+    QueryExecutor queryExecutor = Mock(QueryExecutor)
+    LanguageStatistics statistics = new LanguageStatistics(queryExecutor, Duration.ZERO, Clock.fixed(NOW, ZoneOffset.UTC))
+
+    static CompletableFuture<List<Record>> count(long count) {
+        CompletableFuture.completedFuture([new InternalRecord(["count"], [Values.value(count)] as Value[])])
+    }
+
+    def "Counts are taken once and then served from memory"() {
+        when: "all languages are counted at startup"
+        statistics.start()
+
+        then:
+        1 * queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "German") >> count(42)
+        1 * queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "Ancient Greek") >> count(7)
+        1 * queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "Latin") >> count(3)
+
+        when: "a count is requested twice"
+        LanguageStatistics.TermCount first = statistics.getCount(Language.GERMAN).toCompletableFuture().join()
+        LanguageStatistics.TermCount second = statistics.getCount(Language.GERMAN).toCompletableFuture().join()
+
+        then: "Neo4J is not asked again"
+        0 * queryExecutor._
+        first == new LanguageStatistics.TermCount(42, NOW)
+        second == first
+
+        cleanup:
+        statistics.stop()
+    }
+
+    def "A count requested before the first one is taken triggers it"() {
+        when:
+        LanguageStatistics.TermCount actual = statistics.getCount(Language.LATIN).toCompletableFuture().join()
+
+        then:
+        1 * queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "Latin") >> count(3)
+        actual.count == 3
+        actual.takenAt == NOW
+    }
+
+    def "A single language can be refreshed"() {
+        given:
+        queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "German") >>> [count(42), count(43)]
+        statistics.getCount(Language.GERMAN).toCompletableFuture().join()
+
+        when:
+        Map<Language, LanguageStatistics.TermCount> refreshed = statistics.refresh([Language.GERMAN])
+                .toCompletableFuture()
+                .join()
+
+        then: "only that language is recounted"
+        0 * queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "Latin")
+        refreshed.keySet() == [Language.GERMAN] as Set
+        statistics.getCount(Language.GERMAN).toCompletableFuture().join().count == 43
+    }
+
+    def "Concurrent refreshes of a language share a single query"() {
+        given:
+        CompletableFuture<List<Record>> pending = new CompletableFuture<>()
+
+        when:
+        CompletableFuture<?> first = statistics.refresh([Language.GERMAN]).toCompletableFuture()
+        CompletableFuture<?> second = statistics.refresh([Language.GERMAN]).toCompletableFuture()
+        pending.complete(count(42).join())
+
+        then:
+        1 * queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "German") >> pending
+        first.join() == second.join()
+
+        when: "the next refresh comes after the shared one has completed"
+        statistics.refresh([Language.GERMAN]).toCompletableFuture().join()
+
+        then: "it runs a new query"
+        1 * queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "German") >> count(43)
+    }
+
+    def "A failed refresh keeps the previous count"() {
+        given:
+        queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "German") >>> [
+                count(42),
+                CompletableFuture.failedFuture(new ServiceUnavailableException("Neo4J is down"))
+        ]
+        statistics.getCount(Language.GERMAN).toCompletableFuture().join()
+
+        when:
+        statistics.refresh([Language.GERMAN]).toCompletableFuture().join()
+
+        then:
+        CompletionException exception = thrown()
+        exception.cause instanceof ServiceUnavailableException
+        statistics.getCount(Language.GERMAN).toCompletableFuture().join().count == 42
+    }
+
+    def "A language without terms counts 0"() {
+        when:
+        LanguageStatistics.TermCount actual = statistics.getCount(Language.LATIN).toCompletableFuture().join()
+
+        then:
+        1 * queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "Latin") >> CompletableFuture.completedFuture([])
+        actual.count == 0
+    }
+
+    def "Counts are refreshed on schedule"() {
+        given:
+        LanguageStatistics scheduled = new LanguageStatistics(queryExecutor, Duration.ofMillis(50), Clock.systemUTC())
+        int germanCounts = 0
+        queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, _) >> { CypherStatement statement, Object[] arguments ->
+            if (arguments[0] == "German") {
+                germanCounts++
+            }
+            count(germanCounts)
+        }
+
+        when:
+        scheduled.start()
+        Thread.sleep(500)
+        scheduled.stop()
+
+        then:
+        germanCounts > 1
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class PageCursorSpec extends Specification {
+
+    @Unroll
+    def "Cursor (#term, #link) survives a round trip through its opaque form"() {
+        when:
+        String encoded = new PageCursor(term, link).encode()
+
+        then: "the opaque form is URL-safe"
+        encoded ==~ /[A-Za-z0-9_-]*/
+
+        and: "decoding restores the cursor"
+        PageCursor.decode(encoded) == new PageCursor(term, link)
+
+        where:
+        term         | link
+        ""           | ""
+        "Hund"       | "5:f4c3b2a1:42"
+        "dreißig"    | "5:f4c3b2a1:7"
+        "12:odd:one" | "5:f4c3b2a1:7"
+    }
+
+    @Unroll
+    def "'#encoded' is rejected as a cursor"() {
+        when:
+        PageCursor.decode(encoded)
+
+        then:
+        Exception exception = thrown(IllegalArgumentException)
+        exception.message == "'${encoded}' is not a valid cursor"
+
+        where:
+        _ | encoded
+        _ | "not base64!"
+        _ | Base64.urlEncoder.encodeToString("no delimiter".bytes)
+        _ | Base64.urlEncoder.encodeToString("x:abc".bytes)
+        _ | Base64.urlEncoder.encodeToString("99:abc".bytes)
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+
+import org.neo4j.driver.Driver
+import org.neo4j.driver.EagerResult
+import org.neo4j.driver.ExecutableQuery
+import org.neo4j.driver.Record
+import org.neo4j.driver.Result
+import org.neo4j.driver.Session
+import org.neo4j.driver.SessionConfig
+import org.neo4j.driver.Value
+import org.neo4j.driver.Values
+import org.neo4j.driver.async.AsyncSession
+import org.neo4j.driver.async.AsyncTransactionCallback
+import org.neo4j.driver.async.AsyncTransactionContext
+import org.neo4j.driver.async.ResultCursor
+import org.neo4j.driver.exceptions.ServiceUnavailableException
+import org.neo4j.driver.internal.InternalRecord
+import org.neo4j.driver.summary.ResultSummary
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Timer
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.TimeUnit
+
+class QueryExecutorSpec extends Specification {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    def "Statements are sent with constant text and bound parameters, and their timing is recorded"() {
+        given: "a Neo4J database that answers any query"
+        EagerResult result = Mock(EagerResult) {
+            records() >> []
+            summary() >> Mock(ResultSummary) {
+                resultAvailableAfter(TimeUnit.MILLISECONDS) >> 3
+                resultConsumedAfter(TimeUnit.MILLISECONDS) >> 2
+            }
+        }
+        ExecutableQuery executableQuery = Mock(ExecutableQuery)
+        Driver driver = Mock(Driver)
+
+        QueryExecutor queryExecutor = new QueryExecutor(driver, "neo4j", meterRegistry)
+
+        when: "a statement is executed twice with different arguments"
+        queryExecutor.execute(CypherStatement.COUNT_BY_LANGUAGE, "German")
+        queryExecutor.execute(CypherStatement.COUNT_BY_LANGUAGE, "Latin")
+
+        then: "the query text is the same for both executions and arguments go into parameters"
+        2 * driver.executableQuery(CypherStatement.COUNT_BY_LANGUAGE.text) >> executableQuery
+        1 * executableQuery.withParameters([language: "German"]) >> executableQuery
+        1 * executableQuery.withParameters([language: "Latin"]) >> executableQuery
+        2 * executableQuery.withConfig(_) >> executableQuery
+        2 * executableQuery.execute() >> result
+
+        and: "server-side timing is recorded per statement"
+        timer(QueryExecutor.DURATION_METRIC, CypherStatement.COUNT_BY_LANGUAGE).count() == 2
+        timer(QueryExecutor.AVAILABLE_AFTER_METRIC, CypherStatement.COUNT_BY_LANGUAGE).totalTime(MILLISECONDS) == 6
+        timer(QueryExecutor.CONSUMED_AFTER_METRIC, CypherStatement.COUNT_BY_LANGUAGE).totalTime(MILLISECONDS) == 4
+        timer(QueryExecutor.DURATION_METRIC, CypherStatement.EXPAND_APOC).count() == 0
+    }
+
+    def "Asynchronous statements run in their own session, which is closed afterwards"() {
+        given: "a Neo4J database that answers with one record"
+        List<Record> records = [new InternalRecord(["count"], [Values.value(42)] as Value[])]
+        ResultCursor cursor = Mock(ResultCursor) {
+            listAsync() >> CompletableFuture.completedFuture(records)
+            consumeAsync() >> CompletableFuture.completedFuture(Mock(ResultSummary) {
+                resultAvailableAfter(TimeUnit.MILLISECONDS) >> 3
+                resultConsumedAfter(TimeUnit.MILLISECONDS) >> 2
+            })
+        }
+        AsyncTransactionContext transaction = Mock(AsyncTransactionContext)
+        AsyncSession session = Mock(AsyncSession)
+        Driver driver = Mock(Driver)
+
+        QueryExecutor queryExecutor = new QueryExecutor(driver, "neo4j", meterRegistry)
+
+        when: "a statement is executed asynchronously"
+        List<Record> result = queryExecutor.executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "German")
+                .toCompletableFuture()
+                .join()
+
+        then: "a session on the configured database runs it as a read transaction with bound parameters"
+        1 * driver.session(AsyncSession, SessionConfig.forDatabase("neo4j")) >> session
+        1 * session.executeReadAsync(_ as AsyncTransactionCallback) >> { AsyncTransactionCallback callback ->
+            callback.execute(transaction)
+        }
+        1 * transaction.runAsync(CypherStatement.COUNT_BY_LANGUAGE.text, [language: "German"]) >>
+                CompletableFuture.completedFuture(cursor)
+
+        and: "the session is closed"
+        1 * session.closeAsync() >> CompletableFuture.completedFuture(null)
+
+        and: "all records are returned and the timing is recorded"
+        result == records
+        timer(QueryExecutor.DURATION_METRIC, CypherStatement.COUNT_BY_LANGUAGE).count() == 1
+        timer(QueryExecutor.AVAILABLE_AFTER_METRIC, CypherStatement.COUNT_BY_LANGUAGE).totalTime(MILLISECONDS) == 3
+    }
+
+    def "A failed asynchronous statement still closes its session"() {
+        given:
+        AsyncSession session = Mock(AsyncSession)
+        Driver driver = Mock(Driver)
+
+        when:
+        new QueryExecutor(driver, "neo4j").executeAsync(CypherStatement.COUNT_BY_LANGUAGE, "German")
+                .toCompletableFuture()
+                .join()
+
+        then:
+        1 * driver.session(AsyncSession, _ as SessionConfig) >> session
+        1 * session.executeReadAsync(_ as AsyncTransactionCallback) >>
+                CompletableFuture.failedFuture(new ServiceUnavailableException("Neo4J is down"))
+        1 * session.closeAsync() >> CompletableFuture.completedFuture(null)
+
+        and:
+        CompletionException exception = thrown()
+        exception.cause instanceof ServiceUnavailableException
+    }
+
+    def "Streamed statements hand out records one at a time and close their session"() {
+        given: "a Neo4J database that answers with two records"
+        List<Record> records = [
+                new InternalRecord(["count"], [Values.value(1)] as Value[]),
+                new InternalRecord(["count"], [Values.value(2)] as Value[])
+        ]
+        Iterator<Record> remaining = records.iterator()
+        Result result = Mock(Result) {
+            hasNext() >> { remaining.hasNext() }
+            next() >> { remaining.next() }
+            consume() >> Mock(ResultSummary)
+        }
+        Session session = Mock(Session)
+        Driver driver = Mock(Driver)
+
+        QueryExecutor queryExecutor = new QueryExecutor(driver, "neo4j", meterRegistry)
+        List<Record> consumed = []
+
+        when: "a statement is streamed"
+        queryExecutor.stream(CypherStatement.COUNT_BY_LANGUAGE, { consumed << it }, "German")
+
+        then: "it runs in a session on the configured database with bound parameters"
+        1 * driver.session(Session, SessionConfig.forDatabase("neo4j")) >> session
+        1 * session.run(CypherStatement.COUNT_BY_LANGUAGE.text, [language: "German"]) >> result
+
+        and: "the session is closed"
+        1 * session.close()
+
+        and: "all records are consumed in order and the timing is recorded"
+        consumed == records
+        timer(QueryExecutor.DURATION_METRIC, CypherStatement.COUNT_BY_LANGUAGE).count() == 1
+    }
+
+    /**
+     * Finds the timer of a statement.
+     */
+    Timer timer(String name, CypherStatement statement) {
+        meterRegistry.get(name).tag("statement", statement.name()).timer()
+    }
+}
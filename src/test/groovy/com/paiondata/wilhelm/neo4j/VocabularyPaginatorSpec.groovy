@@ -0,0 +1,85 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.neo4j
+
+import org.neo4j.driver.Record
+import org.neo4j.driver.Value
+import org.neo4j.driver.Values
+import org.neo4j.driver.internal.InternalRecord
+import com.paiondata.wilhelm.KeysetPage
+import com.paiondata.wilhelm.Language
+
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionStage
+
+class VocabularyPaginatorSpec extends Specification {
+
+    QueryExecutor queryExecutor = Mock(QueryExecutor)
+
+    def "First page starts before the first pair and hands out a cursor to the next page"() {
+        when: "fetching a page of 2"
+        KeysetPage page = new VocabularyPaginator(queryExecutor)
+                .page(Language.GERMAN, null, 2)
+                .toCompletableFuture()
+                .join()
+
+        then: "one extra pair is requested, starting from the very beginning"
+        1 * queryExecutor.executeAsync(CypherStatement.VOCABULARY_BY_LANGUAGE_AFTER, "German", "", "", 3) >> result([
+                ["Apfel", "apple", "link1"],
+                ["Baum", "tree", "link2"],
+                ["Hund", "dog", "link3"]
+        ])
+
+        and: "only the requested number of pairs is returned, without the internal link ID"
+        page.items == [[term: "Apfel", definition: "apple"], [term: "Baum", definition: "tree"]]
+
+        and: "the next page resumes after the last returned pair"
+        PageCursor.decode(page.next) == new PageCursor("Baum", "link2")
+    }
+
+    def "Following a cursor resumes after it, and the last page has no next cursor"() {
+        when:
+        KeysetPage page = new VocabularyPaginator(queryExecutor).page(
+                Language.LATIN,
+                new PageCursor("Baum", "link2").encode(),
+                2
+        ).toCompletableFuture().join()
+
+        then:
+        1 * queryExecutor.executeAsync(CypherStatement.VOCABULARY_BY_LANGUAGE_AFTER, "Latin", "Baum", "link2", 3) >> result([
+                ["Hund", "dog", "link3"]
+        ])
+        page.items == [[term: "Hund", definition: "dog"]]
+        page.next == null
+    }
+
+    def "Page size must be positive"() {
+        when:
+        new VocabularyPaginator(queryExecutor).page(Language.LATIN, null, 0)
+
+        then:
+        thrown(IllegalArgumentException)
+        0 * queryExecutor.executeAsync(*_)
+    }
+
+    static CompletionStage<List<Record>> result(List<List<String>> rows) {
+        CompletableFuture.completedFuture(rows.collect { row ->
+            new InternalRecord(["term", "definition", "link"], row.collect { Values.value(it) } as Value[])
+        } as List<Record>)
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.tracing
+
+import spock.lang.Specification
+
+class RequestTraceSpec extends Specification {
+
+    def "Code running outside any request records into a trace that discards everything"() {
+        when:
+        RequestTrace.current().addQuery("COUNT_BY_LANGUAGE", "MATCH (term) RETURN count(term)", [:], 1, 1_000_000)
+
+        then:
+        !RequestTrace.current().recording
+        RequestTrace.current().queries.isEmpty()
+        RequestTrace.current().getPhaseNanos(RequestTrace.Phase.NEO4J) == 0
+    }
+
+    def "A bound trace is current until its scope is closed, after which the previous one is current again"() {
+        given:
+        RequestTrace outer = new RequestTrace()
+        RequestTrace inner = new RequestTrace()
+
+        when:
+        RequestTrace.Scope outerScope = outer.bind()
+        RequestTrace.Scope innerScope = inner.bind()
+
+        then:
+        RequestTrace.current().is(inner)
+
+        when:
+        innerScope.close()
+
+        then:
+        RequestTrace.current().is(outer)
+
+        when:
+        outerScope.close()
+
+        then:
+        !RequestTrace.current().recording
+    }
+
+    def "Queries count toward the Neo4J phase and are truncated in logs"() {
+        given:
+        RequestTrace trace = new RequestTrace()
+
+        when:
+        trace.addQuery("EXPAND_FRONTIER", "UNWIND \$ids AS id\n  MATCH (node)", [ids: ["x" * 1000]], 42, 2_000_000)
+        trace.addQuery("EXPAND_FRONTIER", "UNWIND \$ids AS id\n  MATCH (node)", [ids: ["y"]], 0, 1_000_000)
+
+        then:
+        trace.getPhaseNanos(RequestTrace.Phase.NEO4J) == 3_000_000
+        trace.queries*.records == [42, 0]
+        trace.queries[0].toString().contains("... returned 42 records in 2 ms: UNWIND \$ids AS id MATCH (node)")
+        trace.queries[1].toString() ==
+                "EXPAND_FRONTIER {ids=[y]} returned 0 records in 1 ms: UNWIND \$ids AS id MATCH (node)"
+    }
+
+    def "Server-Timing lists the phases the request went through, followed by the total"() {
+        given:
+        RequestTrace trace = new RequestTrace()
+        trace.addPhase(RequestTrace.Phase.SERIALIZATION, 1_250_000)
+
+        expect:
+        trace.toServerTiming() ==~ /serialization;dur=1\.3;desc="Serializing the response", total;dur=\d+\.\d/
+    }
+}
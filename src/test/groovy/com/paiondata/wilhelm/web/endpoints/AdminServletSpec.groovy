@@ -0,0 +1,62 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.endpoints
+
+import com.paiondata.wilhelm.AdminOnly
+import com.paiondata.wilhelm.Language
+import com.paiondata.wilhelm.graph.VocabularyGraph
+import com.paiondata.wilhelm.neo4j.LanguageStatistics
+
+import jakarta.ws.rs.POST
+import spock.lang.Specification
+
+import java.time.Instant
+
+class AdminServletSpec extends Specification {
+
+    def "Every admin endpoint is restricted to operators"() {
+        expect:
+        AdminServlet.declaredMethods
+                .findAll { it.isAnnotationPresent(POST) }
+                .collect { it.name }
+                .sort() == ["refreshStatistics", "reloadGraph"]
+        AdminServlet.declaredMethods
+                .findAll { it.isAnnotationPresent(POST) }
+                .every { it.isAnnotationPresent(AdminOnly) }
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "Refreshed counts are keyed by client-side language name"() {
+        given:
+        Instant takenAt = Instant.parse("2024-05-01T10:15:30Z")
+
+        expect:
+        AdminServlet.toJsonable([
+                (Language.GERMAN): new LanguageStatistics.TermCount(42, takenAt),
+                (Language.ANCIENT_GREEK): new LanguageStatistics.TermCount(7, takenAt)
+        ]) == [
+                german: [count: 42, takenAt: "2024-05-01T10:15:30Z"],
+                ancientGreek: [count: 7, takenAt: "2024-05-01T10:15:30Z"]
+        ]
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "Reloaded graph is summarized by its size and load time"() {
+        expect:
+        AdminServlet.toJsonable(VocabularyGraph.builder(Instant.parse("2024-05-01T10:15:30Z")).build()) ==
+                [nodes: 0, links: 0, loadedAt: "2024-05-01T10:15:30Z"]
+    }
+}
@@ -17,9 +17,11 @@ package com.paiondata.wilhelm.web.endpoints
 
 import static org.hamcrest.Matchers.equalTo
 import static org.hamcrest.Matchers.greaterThan
+import static org.hamcrest.Matchers.greaterThanOrEqualTo
 import static org.hamcrest.Matchers.hasKey
 import static org.hamcrest.Matchers.matchesPattern
 import static org.hamcrest.Matchers.matchesRegex
+import static org.hamcrest.Matchers.notNullValue
 
 import org.hamcrest.Description
 import org.hamcrest.Matcher
@@ -96,9 +98,26 @@ class Neo4JServletITSpec extends Specification {
                 .get("/neo4j/languages/german/count")
                 .then()
                 .statusCode(200)
+                .header("Last-Modified", notNullValue())
+                .header("Age", matchesPattern("\\d+"))
                 .body("[0].count", greaterThan(1))
     }
 
+    def "Refreshing statistics recounts the requested languages"() {
+        expect:
+        RestAssured
+                .given()
+                .accept(MediaType.APPLICATION_JSON)
+                .queryParam("language", "german")
+                .when()
+                .post("/admin/statistics/refresh")
+                .then()
+                .statusCode(200)
+                .body("german.count", greaterThan(1))
+                .body("german.takenAt", notNullValue())
+                .body("\$", Matchers.not(hasKey("latin")))
+    }
+
     def "Get vocabulary by language returns a list of map, with each entry containing 'term' and 'definition' keys"() {
         expect:
         RestAssured
@@ -114,6 +133,34 @@ class Neo4JServletITSpec extends Specification {
                 .body("[0]", hasKey("definition"))
     }
 
+    def "Get vocabulary by language without 'page' returns a page of items and a cursor to the next page"() {
+        when: "fetching the first page"
+        def firstPage = RestAssured
+                .given()
+                .accept(MediaType.APPLICATION_JSON)
+                .queryParams([perPage: "10"])
+                .when()
+                .get("/neo4j/languages/german")
+                .then()
+                .statusCode(200)
+                .body("items.size()", equalTo(10))
+                .body("items[0]", hasKey("term"))
+                .body("items[0]", hasKey("definition"))
+                .extract()
+                .jsonPath()
+
+        then: "the next page starts after the last item of the first page"
+        RestAssured
+                .given()
+                .accept(MediaType.APPLICATION_JSON)
+                .queryParams([perPage: "10", after: firstPage.getString("next")])
+                .when()
+                .get("/neo4j/languages/german")
+                .then()
+                .statusCode(200)
+                .body("items[0].term", greaterThanOrEqualTo(firstPage.getString("items[9].term")))
+    }
+
     @Unroll
     def "When #endpoint receives a invalid language, a 404 error response is sent with details"() {
         expect:
@@ -149,4 +196,47 @@ class Neo4JServletITSpec extends Specification {
                 .body("links[0]", hasKey("sourceNodeId"))
                 .body("links[0]", hasKey("targetNodeId"))
     }
+
+    def "Streaming an expansion returns the same sub-graph as materializing it"() {
+        when:
+        def materialized = RestAssured
+                .given()
+                .accept(MediaType.APPLICATION_JSON)
+                .when()
+                .get("/neo4j/expand/dreißig")
+                .then()
+                .statusCode(200)
+                .extract()
+                .jsonPath()
+        def streamed = RestAssured
+                .given()
+                .accept(MediaType.APPLICATION_JSON)
+                .queryParams([stream: "true"])
+                .when()
+                .get("/neo4j/expand/dreißig")
+                .then()
+                .statusCode(200)
+                .extract()
+                .jsonPath()
+
+        then:
+        (streamed.getList("nodes.id") as Set) == (materialized.getList("nodes.id") as Set)
+        (streamed.getList("links") as Set) == (materialized.getList("links") as Set)
+    }
+
+    def "Search returns at most 'limit' nodes, each with a relevance score"() {
+        expect:
+        RestAssured
+                .given()
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .queryParams([limit: "5"])
+                .when()
+                .get("/neo4j/search/dreis")
+                .then()
+                .statusCode(200)
+                .body("size()", Matchers.lessThanOrEqualTo(5))
+                .body("[0]", hasKey("node"))
+                .body("[0]", hasKey("score"))
+    }
 }
@@ -16,74 +16,168 @@
 package com.paiondata.wilhelm.web.endpoints
 
 
-import org.neo4j.driver.Value
-import org.neo4j.driver.internal.types.InternalTypeSystem
+import org.neo4j.driver.exceptions.ClientException
+import org.neo4j.driver.exceptions.ServiceUnavailableException
+import org.neo4j.driver.exceptions.SessionExpiredException
+import org.neo4j.driver.exceptions.TransientException
+import com.paiondata.wilhelm.ExpansionRequest
+import com.paiondata.wilhelm.neo4j.LanguageStatistics
 
+import jakarta.ws.rs.container.AsyncResponse
+import jakarta.ws.rs.core.Response
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import java.time.Instant
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+
 class Neo4JServletSpec extends Specification {
 
+    @Unroll
+    @SuppressWarnings('GroovyAccessibility')
+    def "#error.class.simpleName is answered with #status"() {
+        expect:
+        (Neo4JServlet.toErrorResponse(error) as Response).status == status
+
+        where:
+        error                                                || status
+        new IllegalArgumentException("bad cursor")           || 400
+        new ServiceUnavailableException("down")              || 503
+        new SessionExpiredException("expired")               || 503
+        new TransientException("Neo.TransientError", "busy") || 503
+    }
+
     @SuppressWarnings('GroovyAccessibility')
-    def "Embedded Neo4J Value objects are recursively expanded to become plain JSONable map"() {
-        given: "a 2-level nested result object"
-        Value value = Mock(Value) {
-            type() >> InternalTypeSystem.TYPE_SYSTEM.NODE()
-            keys() >> ["term", "definition"]
-            get("term") >> Mock(Value) {
-                type() >> InternalTypeSystem.TYPE_SYSTEM.NODE()
-                keys() >> ["label", "language"]
-                get("label") >> Mock(Value) {
-                    type() >> InternalTypeSystem.TYPE_SYSTEM.STRING()
-                    asString() >> "Hallo"
-                }
-                get("language") >> Mock(Value) {
-                    type() >> InternalTypeSystem.TYPE_SYSTEM.STRING()
-                    asString() >> "German"
-                }
-            }
-            get("definition") >> Mock(Value) {
-                type() >> InternalTypeSystem.TYPE_SYSTEM.NODE()
-                keys() >> ["label"]
-                get("label") >> Mock(Value) {
-                    type() >> InternalTypeSystem.TYPE_SYSTEM.STRING()
-                    asString() >> "Hello"
-                }
-            }
-        }
+    def "Other failures are left to Jersey"() {
+        given:
+        Throwable error = new ClientException("syntax error")
 
         expect:
-        Neo4JServlet.expand(value) == [
-                term: [
-                    label: "Hallo",
-                    language: "German"
-                ],
-                definition: [
-                    label: "Hello"
-                ]
-        ]
+        Neo4JServlet.toErrorResponse(error).is(error)
     }
 
-    @Unroll
     @SuppressWarnings('GroovyAccessibility')
-    def "Value of type '#valueType' #isOrNot terminal type"() {
+    def "Failures are unwrapped from their CompletionStage wrappers"() {
         given:
-        Value value = Mock(Value) {
-            type() >> valueType
-        }
+        Throwable cause = new IllegalStateException()
 
         expect:
-        Neo4JServlet.isTerminalValue(value) == isTerminalType
+        Neo4JServlet.unwrap(new CompletionException(new ExecutionException(cause))).is(cause)
+        Neo4JServlet.unwrap(cause).is(cause)
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "Responses are resumed on the given executor rather than on the thread that completes the result"() {
+        given:
+        CompletableFuture<Object> result = new CompletableFuture<>()
+        AsyncResponse asyncResponse = Mock(AsyncResponse)
+        List<Runnable> handedOff = []
+        Executor executor = { Runnable task -> handedOff << task } as Executor
+
+        when: "the result completes"
+        Neo4JServlet.resume(asyncResponse, 1000, executor, { result })
+        result.complete([word: "Haus"])
+
+        then: "the response is not resumed by the completing thread"
+        0 * asyncResponse.resume(_)
+        handedOff.size() == 1
+
+        when: "the executor runs the hand-off"
+        handedOff[0].run()
+
+        then:
+        1 * asyncResponse.resume({ Response response -> response.status == 200 && response.entity == [word: "Haus"] })
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "A precomputed count is answered with its staleness"() {
+        given:
+        Instant takenAt = Instant.parse("2024-05-01T10:15:30Z")
+
+        when:
+        Response response = Neo4JServlet.toCountResponse(
+                new LanguageStatistics.TermCount(42, takenAt),
+                takenAt.plusSeconds(90)
+        )
+
+        then:
+        response.status == 200
+        response.entity == [[count: 42]]
+        response.lastModified.toInstant() == takenAt
+        response.getHeaderString("Age") == "90"
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    def "A batch expansion is deduplicated, keeping the order of the words"() {
+        expect:
+        Neo4JServlet.distinctWords(new ExpansionRequest(["Haus", "Maus", "Haus"], 2), 2) == ["Haus", "Maus"]
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    @Unroll
+    def "A batch expansion of #words is rejected"() {
+        when:
+        Neo4JServlet.distinctWords(words == null ? null : new ExpansionRequest(words, null), 2)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        words << [null, [], ["Haus", "Maus", "Laus"]]
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    @Unroll
+    def "'#value' is parsed as a positive integer: #expected"() {
+        expect:
+        Neo4JServlet.parsePositive("perPage", value) == expected
+
+        where:
+        value || expected
+        "1"   || 1
+        "25"  || 25
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    @Unroll
+    def "'#value' is not a positive integer"() {
+        when:
+        Neo4JServlet.parsePositive("perPage", value)
+
+        then:
+        IllegalArgumentException exception = thrown()
+        exception.message == "'${value}' is not a valid perPage. It must be a positive integer"
+
+        where:
+        value << [null, "", "abc", "0", "-3", "99999999999"]
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    @Unroll
+    def "maxHops '#maxHops' is parsed as #expected"() {
+        expect:
+        Neo4JServlet.parseMaxHops(maxHops) == expected
+
+        where:
+        maxHops || expected
+        "-1"    || -1
+        "0"     || 0
+        "3"     || 3
+    }
+
+    @SuppressWarnings('GroovyAccessibility')
+    @Unroll
+    def "maxHops '#maxHops' is rejected"() {
+        when:
+        Neo4JServlet.parseMaxHops(maxHops)
+
+        then:
+        thrown(IllegalArgumentException)
 
         where:
-        valueType                                || isTerminalType
-        InternalTypeSystem.TYPE_SYSTEM.INTEGER() || true
-        InternalTypeSystem.TYPE_SYSTEM.BOOLEAN() || true
-        InternalTypeSystem.TYPE_SYSTEM.STRING()  || true
-        InternalTypeSystem.TYPE_SYSTEM.LIST()    || false
-        InternalTypeSystem.TYPE_SYSTEM.MAP()     || false
-        InternalTypeSystem.TYPE_SYSTEM.NODE()    || false
-
-        isOrNot = isTerminalType ? "is" : "is not"
+        maxHops << [null, "three", "-2"]
     }
 }
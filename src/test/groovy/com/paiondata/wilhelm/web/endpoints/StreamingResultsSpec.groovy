@@ -0,0 +1,135 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.endpoints
+
+import org.neo4j.driver.Record
+import org.neo4j.driver.Value
+import org.neo4j.driver.Values
+import org.neo4j.driver.internal.InternalNode
+import org.neo4j.driver.internal.InternalRecord
+import org.neo4j.driver.internal.InternalRelationship
+import org.neo4j.driver.internal.value.NodeValue
+import org.neo4j.driver.internal.value.RelationshipValue
+import org.neo4j.driver.exceptions.ServiceUnavailableException
+import com.paiondata.wilhelm.neo4j.CypherStatement
+import com.paiondata.wilhelm.neo4j.QueryExecutor
+import com.paiondata.wilhelm.web.providers.StreamingEntity
+import com.paiondata.wilhelm.web.providers.WireFormat
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+import java.util.function.Consumer
+
+class StreamingResultsSpec extends Specification {
+
+    QueryExecutor queryExecutor = Mock(QueryExecutor)
+
+    def "Records of a non-path query are written as a list of objects, one at a time"() {
+        given: "a query of two records"
+        List<Record> records = [
+                new InternalRecord(["term", "definition"], [Values.value("Haus"), Values.value("house")] as Value[]),
+                new InternalRecord(["term", "definition"], [Values.value("Hund"), Values.value("dog")] as Value[])
+        ]
+        queryExecutor.stream(CypherStatement.VOCABULARY_BY_LANGUAGE_PAGED, _, _) >> {
+            CypherStatement statement, Consumer<Record> consumer, Object[] arguments ->
+                assert arguments as List == ["German", 0, 2]
+                records.each { consumer.accept(it) }
+        }
+
+        when:
+        String json = write(
+                StreamingResults.records(queryExecutor, CypherStatement.VOCABULARY_BY_LANGUAGE_PAGED, "German", 0, 2)
+        )
+
+        then:
+        new JsonSlurper().parseText(json) == [
+                [term: "Haus", definition: "house"],
+                [term: "Hund", definition: "dog"]
+        ]
+    }
+
+    def "An empty result is written as an empty list"() {
+        given:
+        queryExecutor.stream(CypherStatement.COUNT_BY_LANGUAGE, _, _) >> { }
+
+        expect:
+        write(StreamingResults.records(queryExecutor, CypherStatement.COUNT_BY_LANGUAGE, "German")) == "[]"
+    }
+
+    def "A sub-graph is written as its nodes followed by its links"() {
+        given: "a sub-graph of two nodes and a link between them"
+        InternalNode haus = new InternalNode(0, "n0", ["Term"], [label: Values.value("Haus")])
+        InternalNode house = new InternalNode(1, "n1", ["Definition"], [label: Values.value("house")])
+        InternalRelationship link = new InternalRelationship(
+                0, "r0", 0, "n0", 1, "n1", "LINK", [label: Values.value("definition")]
+        )
+
+        queryExecutor.stream(CypherStatement.EXPAND_APOC_NODES, _, _) >> {
+            CypherStatement statement, Consumer<Record> consumer, Object[] arguments ->
+                [haus, house].each {
+                    consumer.accept(new InternalRecord(["node"], [new NodeValue(it)] as Value[]))
+                }
+        }
+        queryExecutor.stream(CypherStatement.EXPAND_APOC_LINKS, _, _) >> {
+            CypherStatement statement, Consumer<Record> consumer, Object[] arguments ->
+                consumer.accept(new InternalRecord(["link"], [new RelationshipValue(link)] as Value[]))
+        }
+
+        when:
+        Map<String, Object> graph = new JsonSlurper().parseText(write(StreamingResults.graph(
+                queryExecutor,
+                CypherStatement.EXPAND_APOC_NODES,
+                CypherStatement.EXPAND_APOC_LINKS,
+                "Haus",
+                3
+        ))) as Map<String, Object>
+
+        then:
+        graph.keySet() as List == ["nodes", "links"]
+        graph.nodes == [
+                [id: "n0", label: "Haus", attributes: [:]],
+                [id: "n1", label: "house", attributes: [:]]
+        ]
+        graph.links == [[id: "r0", label: "definition", sourceNodeId: "n0", targetNodeId: "n1", attributes: [:]]]
+    }
+
+    def "A query failure is propagated to the writer of the response"() {
+        given:
+        queryExecutor.stream(CypherStatement.COUNT_BY_LANGUAGE, _, _) >> {
+            throw new ServiceUnavailableException("Neo4J is down")
+        }
+
+        when:
+        write(StreamingResults.records(queryExecutor, CypherStatement.COUNT_BY_LANGUAGE, "German"))
+
+        then:
+        thrown(ServiceUnavailableException)
+    }
+
+    /**
+     * Writes a streaming entity into a JSON string.
+     *
+     * @param entity  The streaming entity to write
+     *
+     * @return the written JSON
+     */
+    static String write(StreamingEntity entity) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+        entity.writeTo(outputStream, WireFormat.JSON)
+        return outputStream.toString("UTF-8")
+    }
+}
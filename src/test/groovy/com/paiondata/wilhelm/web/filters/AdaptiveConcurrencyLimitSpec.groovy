@@ -0,0 +1,111 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class AdaptiveConcurrencyLimitSpec extends Specification {
+
+    static final long FAST = 10_000_000
+    static final long SLOW = 100_000_000
+
+    /**
+     * Admits as many requests as the limit allows and reports them all with the same latency.
+     */
+    static void serveAtCapacity(AdaptiveConcurrencyLimit limit, long latencyNanos, int rounds) {
+        rounds.times {
+            int admitted = 0
+            while (limit.tryAcquire()) {
+                admitted++
+            }
+            admitted.times { limit.onSuccess(latencyNanos) }
+        }
+    }
+
+    def "Requests are admitted up to the limit, which starts at its maximum"() {
+        given:
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 3)
+
+        expect:
+        (1..3).every { limit.tryAcquire() }
+        !limit.tryAcquire()
+        limit.inFlight == 3
+
+        when:
+        limit.onIgnored()
+
+        then:
+        limit.tryAcquire()
+    }
+
+    def "The limit shrinks once requests get slower than usual, but not below its minimum"() {
+        given:
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(5, 100)
+        serveAtCapacity(limit, FAST, 20)
+
+        expect:
+        limit.limit == 100
+
+        when:
+        serveAtCapacity(limit, SLOW, 5)
+
+        then:
+        limit.limit < 100
+        limit.limit >= 5
+    }
+
+    def "A backed-off limit only recovers while it is used to capacity"() {
+        given:
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 100)
+        serveAtCapacity(limit, FAST, 1)
+        5.times {
+            limit.tryAcquire()
+            limit.onDropped()
+        }
+        int backedOff = limit.limit
+
+        when: "a single request at a time succeeds"
+        10.times {
+            limit.tryAcquire()
+            limit.onSuccess(FAST)
+        }
+
+        then:
+        backedOff < 100
+        limit.limit == backedOff
+
+        when: "the limit is used to capacity"
+        serveAtCapacity(limit, FAST, 20)
+
+        then:
+        limit.limit > backedOff
+    }
+
+    @Unroll
+    def "Limits #minLimit..#maxLimit are rejected"() {
+        when:
+        new AdaptiveConcurrencyLimit(minLimit, maxLimit)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        minLimit | maxLimit
+        0        | 10
+        10       | 5
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate
+import org.glassfish.jersey.server.ApplicationHandler
+import org.glassfish.jersey.server.ContainerRequest
+import org.glassfish.jersey.server.ContainerResponse
+import org.glassfish.jersey.server.ResourceConfig
+import com.paiondata.wilhelm.AdminOnly
+
+import jakarta.ws.rs.GET
+import jakarta.ws.rs.POST
+import jakarta.ws.rs.Path
+import jakarta.ws.rs.core.HttpHeaders
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class AdminAuthenticationFilterSpec extends Specification {
+
+    static final String TOKEN = "s3cr3t"
+
+    @Path("/")
+    static class TestResource {
+
+        @POST
+        @AdminOnly
+        @Path("/admin")
+        String admin() {
+            "ok"
+        }
+
+        @GET
+        @Path("/public")
+        String open() {
+            "ok"
+        }
+    }
+
+    static ContainerResponse request(String token, String method, String path, Map<String, String> headers = [:]) {
+        ApplicationHandler application = new ApplicationHandler(
+                new ResourceConfig(TestResource).register(new AdminAuthenticationFilter(token)).register(CorsFilter)
+        )
+        ContainerRequest request = new ContainerRequest(
+                URI.create("http://localhost/"),
+                URI.create("http://localhost" + path),
+                method,
+                null,
+                new MapPropertiesDelegate(),
+                null
+        )
+        headers.findAll { it.value != null }.each { name, value -> request.header(name, value) }
+
+        application.apply(request, new ByteArrayOutputStream()).get()
+    }
+
+    @Unroll
+    def "Admin endpoints answer #expectedStatus to Authorization '#authorization'"() {
+        when:
+        ContainerResponse response = request(TOKEN, "POST", "/admin", [(HttpHeaders.AUTHORIZATION): authorization])
+
+        then:
+        response.status == expectedStatus
+        response.getHeaderString(HttpHeaders.WWW_AUTHENTICATE) == (expectedStatus == 401 ? "Bearer" : null)
+
+        where:
+        authorization      || expectedStatus
+        null               || 401
+        "Bearer"           || 401
+        "Bearer wrong"     || 401
+        "Basic " + TOKEN   || 401
+        "Bearer " + TOKEN  || 200
+        "bearer " + TOKEN  || 200
+    }
+
+    @Unroll
+    def "Admin endpoints are disabled without a configured token '#token'"() {
+        when:
+        ContainerResponse response = request(token, "POST", "/admin", [(HttpHeaders.AUTHORIZATION): "Bearer " + TOKEN])
+
+        then:
+        response.status == 404
+
+        where:
+        token << [null, ""]
+    }
+
+    def "Other endpoints are served without a token"() {
+        expect:
+        request(TOKEN, "GET", "/public").status == 200
+    }
+
+    def "Admin endpoints are never allowed cross-origin"() {
+        when: "a browser sends a preflight request for an admin endpoint"
+        ContainerResponse preflight = request(
+                TOKEN,
+                "OPTIONS",
+                "/admin",
+                ["Origin": "https://example.com", "Access-Control-Request-Method": "POST"]
+        )
+
+        then: "it is rejected without any CORS headers"
+        preflight.status == 401
+        preflight.getHeaderString("Access-Control-Allow-Origin") == null
+
+        when: "an authorized cross-origin request is sent anyway"
+        ContainerResponse response = request(
+                TOKEN,
+                "POST",
+                "/admin",
+                ["Origin": "https://example.com", (HttpHeaders.AUTHORIZATION): "Bearer " + TOKEN]
+        )
+
+        then: "the browser is not allowed to read the response"
+        response.status == 200
+        response.getHeaderString("Access-Control-Allow-Origin") == null
+
+        and: "other endpoints still are"
+        request(TOKEN, "GET", "/public", ["Origin": "https://example.com"])
+                .getHeaderString("Access-Control-Allow-Origin") == "*"
+    }
+}
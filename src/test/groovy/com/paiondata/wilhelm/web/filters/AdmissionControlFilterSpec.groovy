@@ -0,0 +1,219 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate
+import org.glassfish.jersey.server.ApplicationHandler
+import org.glassfish.jersey.server.ContainerRequest
+import org.glassfish.jersey.server.ContainerResponse
+import org.glassfish.jersey.server.ResourceConfig
+import com.paiondata.wilhelm.Bulkhead
+import com.paiondata.wilhelm.config.ApplicationConfig
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import jakarta.ws.rs.GET
+import jakarta.ws.rs.Path
+import jakarta.ws.rs.container.AsyncResponse
+import jakarta.ws.rs.container.Suspended
+import jakarta.ws.rs.core.HttpHeaders
+import jakarta.ws.rs.core.Response
+import jakarta.ws.rs.core.StreamingOutput
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+
+class AdmissionControlFilterSpec extends Specification {
+
+    static final List<AsyncResponse> SUSPENDED = new CopyOnWriteArrayList<>()
+    static CountDownLatch streaming
+    static CountDownLatch streamed
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    @Path("/")
+    static class TestResource {
+
+        @GET
+        @Path("/deep")
+        @Bulkhead(EndpointClass.EXPAND_DFS)
+        void deep(@Suspended AsyncResponse asyncResponse) {
+            SUSPENDED << asyncResponse
+        }
+
+        @GET
+        @Path("/streamed")
+        @Bulkhead(EndpointClass.EXPAND_DFS)
+        StreamingOutput streamed() {
+            { OutputStream output ->
+                output.write('{"nodes":['.bytes)
+                streaming.countDown()
+                streamed.await(10, TimeUnit.SECONDS)
+                output.write(']}'.bytes)
+            } as StreamingOutput
+        }
+
+        @GET
+        @Path("/count")
+        @Bulkhead(EndpointClass.COUNT)
+        String count() {
+            "42"
+        }
+
+        @GET
+        @Path("/timeout")
+        @Bulkhead(EndpointClass.EXPAND)
+        Response timeout() {
+            Response.status(Response.Status.GATEWAY_TIMEOUT).build()
+        }
+
+        @GET
+        @Path("/admin")
+        String admin() {
+            "ok"
+        }
+    }
+
+    def setup() {
+        SUSPENDED.clear()
+        streaming = new CountDownLatch(1)
+        streamed = new CountDownLatch(1)
+    }
+
+    AdmissionControlFilter filter(boolean enabled) {
+        new AdmissionControlFilter(
+                Mock(ApplicationConfig) {
+                    admissionControlEnabled() >> enabled
+                    admissionMinConcurrency() >> 1
+                    admissionMaxConcurrencyExpand() >> 10
+                    admissionMaxConcurrencyExpandDfs() >> 1
+                    admissionMaxConcurrencyVocabulary() >> 10
+                    admissionMaxConcurrencyCount() >> 10
+                    admissionMaxConcurrencySearch() >> 10
+                },
+                meterRegistry
+        )
+    }
+
+    static Future<ContainerResponse> call(ApplicationHandler application, String path) {
+        application.apply(
+                new ContainerRequest(
+                        URI.create("http://localhost/"),
+                        URI.create("http://localhost" + path),
+                        "GET",
+                        null,
+                        new MapPropertiesDelegate(),
+                        null
+                ),
+                new ByteArrayOutputStream()
+        )
+    }
+
+    def "A saturated endpoint class is shed right away without affecting other classes"() {
+        given: "the only deep expansion admitted is in flight"
+        ApplicationHandler application = new ApplicationHandler(
+                new ResourceConfig(TestResource).register(filter(true))
+        )
+        Future<ContainerResponse> inFlight = call(application, "/deep")
+
+        when: "another deep expansion arrives"
+        ContainerResponse rejected = call(application, "/deep").get()
+
+        then: "it is rejected with a hint when to retry"
+        !inFlight.done
+        rejected.status == 503
+        rejected.getHeaderString(HttpHeaders.RETRY_AFTER) == "1"
+        meterRegistry.counter(AdmissionControlFilter.REJECTIONS_METRIC, "class", "EXPAND_DFS").count() == 1
+
+        and: "cheap requests and requests outside any bulkhead are still served"
+        call(application, "/count").get().status == 200
+        call(application, "/admin").get().status == 200
+
+        when: "the deep expansion in flight completes"
+        SUSPENDED[0].resume("done")
+
+        then: "the next one is admitted"
+        inFlight.get().status == 200
+        call(application, "/deep").done == false
+        SUSPENDED.size() == 2
+    }
+
+    def "A streamed response holds its slot until it has been written"() {
+        given:
+        AdmissionControlFilter filter = filter(true)
+        ApplicationHandler application = new ApplicationHandler(new ResourceConfig(TestResource).register(filter))
+
+        when: "a response is still streaming after its resource method returned"
+        Thread writer = Thread.start { call(application, "/streamed").get() }
+        streaming.await(10, TimeUnit.SECONDS)
+
+        then: "it counts toward the limit of its class"
+        filter.getLimit(EndpointClass.EXPAND_DFS).inFlight == 1
+        call(application, "/deep").get().status == 503
+
+        when: "it has been written"
+        streamed.countDown()
+        writer.join(10000)
+
+        then: "its slot is released"
+        filter.getLimit(EndpointClass.EXPAND_DFS).inFlight == 0
+    }
+
+    def "Requests failing because of overload back the limit of their class off"() {
+        given:
+        AdmissionControlFilter filter = filter(true)
+        ApplicationHandler application = new ApplicationHandler(new ResourceConfig(TestResource).register(filter))
+
+        when:
+        call(application, "/timeout").get()
+
+        then:
+        filter.getLimit(EndpointClass.EXPAND).limit == 9
+        filter.getLimit(EndpointClass.EXPAND).inFlight == 0
+        meterRegistry.get(AdmissionControlFilter.LIMIT_METRIC).tag("class", "EXPAND").gauge().value() == 9
+    }
+
+    def "Disabled admission control admits every request"() {
+        given:
+        ApplicationHandler application = new ApplicationHandler(
+                new ResourceConfig(TestResource).register(filter(false))
+        )
+
+        when:
+        call(application, "/deep")
+        call(application, "/deep")
+
+        then:
+        SUSPENDED.size() == 2
+    }
+
+    @Unroll
+    def "An average latency of #latency is retried after #expected seconds"() {
+        expect:
+        AdmissionControlFilter.getRetryAfterSeconds(latency) == expected
+
+        where:
+        latency                  || expected
+        Duration.ZERO            || 1
+        Duration.ofMillis(1200)  || 2
+        Duration.ofSeconds(3)    || 3
+    }
+}
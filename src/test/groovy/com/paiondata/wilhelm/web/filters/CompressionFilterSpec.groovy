@@ -0,0 +1,238 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate
+import org.glassfish.jersey.server.ApplicationHandler
+import org.glassfish.jersey.server.ContainerRequest
+import org.glassfish.jersey.server.ContainerResponse
+import org.glassfish.jersey.server.ResourceConfig
+
+import jakarta.ws.rs.GET
+import jakarta.ws.rs.Path
+import jakarta.ws.rs.Produces
+import jakarta.ws.rs.core.EntityTag
+import jakarta.ws.rs.core.HttpHeaders
+import jakarta.ws.rs.core.MediaType
+import jakarta.ws.rs.core.Response
+import jakarta.ws.rs.core.StreamingOutput
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.zip.GZIPInputStream
+
+class CompressionFilterSpec extends Specification {
+
+    static final int MIN_SIZE_BYTES = 256
+    static final String LARGE_BODY = '"4:uuid:123",' * 100
+    static final String SMALL_BODY = '"4:uuid:123"'
+
+    @Path("/")
+    @Produces(MediaType.APPLICATION_JSON)
+    static class TestResource {
+
+        @GET
+        @Path("/large")
+        byte[] large() {
+            LARGE_BODY.bytes
+        }
+
+        @GET
+        @Path("/small")
+        byte[] small() {
+            SMALL_BODY.bytes
+        }
+
+        @GET
+        @Path("/tagged/large")
+        Response taggedLarge() {
+            Response.ok(LARGE_BODY.bytes).tag(new EntityTag("abc")).build()
+        }
+
+        @GET
+        @Path("/tagged/small")
+        Response taggedSmall() {
+            Response.ok(SMALL_BODY.bytes).tag(new EntityTag("abc")).build()
+        }
+
+        @GET
+        @Path("/tagged/streamed/small")
+        Response taggedStreamedSmall() {
+            Response.ok(streamedSmall()).tag(new EntityTag("abc")).build()
+        }
+
+        @GET
+        @Path("/streamed/large")
+        StreamingOutput streamedLarge() {
+            { OutputStream output ->
+                LARGE_BODY.bytes.each { output.write(it) }
+                output.flush()
+            } as StreamingOutput
+        }
+
+        @GET
+        @Path("/streamed/small")
+        StreamingOutput streamedSmall() {
+            { OutputStream output ->
+                output.write(SMALL_BODY.bytes)
+                output.flush()
+            } as StreamingOutput
+        }
+    }
+
+    Map<String, Object> request(CompressionFilter filter, String path, String acceptEncoding) {
+        ApplicationHandler application = new ApplicationHandler(new ResourceConfig(TestResource).register(filter))
+        ContainerRequest request = new ContainerRequest(
+                URI.create("http://localhost/"),
+                URI.create("http://localhost" + path),
+                "GET",
+                null,
+                new MapPropertiesDelegate(),
+                null
+        )
+        request.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream()
+        ContainerResponse response = application.apply(request, body).get()
+        [response: response, body: body.toByteArray()]
+    }
+
+    @Unroll
+    def "#path is gzipped for a client that accepts gzip"() {
+        when:
+        Map<String, Object> result = request(new CompressionFilter(6, MIN_SIZE_BYTES, 2), path, "gzip, deflate, br")
+        ContainerResponse response = result.response as ContainerResponse
+
+        then:
+        response.status == 200
+        response.getHeaderString(HttpHeaders.CONTENT_ENCODING) == CompressionFilter.GZIP
+        response.getHeaderString(HttpHeaders.VARY) == HttpHeaders.ACCEPT_ENCODING
+
+        and: "the body is smaller and decompresses to the original"
+        (result.body as byte[]).length < LARGE_BODY.length()
+        new GZIPInputStream(new ByteArrayInputStream(result.body as byte[])).bytes == LARGE_BODY.bytes
+
+        where:
+        path << ["/large", "/streamed/large"]
+    }
+
+    @Unroll
+    def "#path below the minimum size is sent uncompressed"() {
+        when:
+        Map<String, Object> result = request(new CompressionFilter(6, MIN_SIZE_BYTES, 2), path, "gzip")
+        ContainerResponse response = result.response as ContainerResponse
+
+        then:
+        response.getHeaderString(HttpHeaders.CONTENT_ENCODING) == null
+        response.getHeaderString(HttpHeaders.VARY) == HttpHeaders.ACCEPT_ENCODING
+        result.body == SMALL_BODY.bytes
+
+        where:
+        path << ["/small", "/streamed/small"]
+    }
+
+    def "Responses to clients that do not accept gzip are sent uncompressed"() {
+        when:
+        Map<String, Object> result = request(new CompressionFilter(6, MIN_SIZE_BYTES, 2), "/large", null)
+        ContainerResponse response = result.response as ContainerResponse
+
+        then:
+        response.getHeaderString(HttpHeaders.CONTENT_ENCODING) == null
+        response.getHeaderString(HttpHeaders.VARY) == HttpHeaders.ACCEPT_ENCODING
+        result.body == LARGE_BODY.bytes
+    }
+
+    @Unroll
+    def "#path with Accept-Encoding '#acceptEncoding' carries the ETag #expectedEntityTag"() {
+        when:
+        Map<String, Object> result = request(new CompressionFilter(6, MIN_SIZE_BYTES, 2), path, acceptEncoding)
+        ContainerResponse response = result.response as ContainerResponse
+
+        then: "the gzipped representation has its own strong ETag"
+        response.getHeaderString(HttpHeaders.ETAG) == expectedEntityTag
+
+        where:
+        path                     | acceptEncoding || expectedEntityTag
+        "/tagged/large"          | "gzip"         || '"abc-gzip"'
+        "/tagged/large"          | null           || '"abc"'
+        "/tagged/small"          | "gzip"         || '"abc"'
+        "/tagged/streamed/small" | "gzip"         || '"abc"'
+    }
+
+    def "Level 0 disables compression"() {
+        when:
+        Map<String, Object> result = request(new CompressionFilter(0, MIN_SIZE_BYTES, 2), "/large", "gzip")
+        ContainerResponse response = result.response as ContainerResponse
+
+        then:
+        response.getHeaderString(HttpHeaders.CONTENT_ENCODING) == null
+        response.getHeaderString(HttpHeaders.VARY) == null
+        result.body == LARGE_BODY.bytes
+    }
+
+    def "Compressors are returned to the pool after each response"() {
+        given:
+        CompressionFilter filter = new CompressionFilter(6, MIN_SIZE_BYTES, 2)
+
+        when:
+        3.times { request(filter, "/large", "gzip") }
+
+        then:
+        filter.pool.idleCount() == 1
+    }
+
+    @Unroll
+    def "Accept-Encoding '#acceptEncoding' #allowsOrNot gzip"() {
+        expect:
+        CompressionFilter.acceptsGzip(acceptEncoding) == accepts
+
+        where:
+        acceptEncoding             || accepts
+        null                       || false
+        ""                         || false
+        "identity"                 || false
+        "gzip"                     || true
+        "GZIP"                     || true
+        "x-gzip"                   || true
+        "deflate, gzip;q=0.5"      || true
+        "gzip;q=0"                 || false
+        "gzip;q=abc"               || false
+        "*"                        || true
+        "*;q=0"                    || false
+        "*, gzip;q=0"              || false
+        "gzip;q=0.1, *;q=0"        || true
+
+        allowsOrNot = accepts ? "allows" : "does not allow"
+    }
+
+    def "Invalid settings are rejected"() {
+        when:
+        new CompressionFilter(level, minSizeBytes, poolSize)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        level | minSizeBytes | poolSize
+        10    | 0            | 1
+        -1    | 0            | 1
+        6     | -1           | 1
+        6     | 0            | 0
+    }
+}
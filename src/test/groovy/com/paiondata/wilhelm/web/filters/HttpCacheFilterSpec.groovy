@@ -0,0 +1,203 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate
+import org.glassfish.jersey.server.ApplicationHandler
+import org.glassfish.jersey.server.ContainerRequest
+import org.glassfish.jersey.server.ContainerResponse
+import org.glassfish.jersey.server.ResourceConfig
+import com.paiondata.wilhelm.HttpCacheable
+import com.paiondata.wilhelm.config.ApplicationConfig
+
+import jakarta.ws.rs.GET
+import jakarta.ws.rs.POST
+import jakarta.ws.rs.Path
+import jakarta.ws.rs.Produces
+import jakarta.ws.rs.core.HttpHeaders
+import jakarta.ws.rs.core.MediaType
+import jakarta.ws.rs.core.Response
+import jakarta.ws.rs.core.StreamingOutput
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class HttpCacheFilterSpec extends Specification {
+
+    static final Date LAST_MODIFIED = new Date(1714558530000L)
+
+    ApplicationConfig applicationConfig = Mock(ApplicationConfig) {
+        httpCacheMaxAgeSecondsExpand() >> 3600
+        httpCacheStaleWhileRevalidateSecondsExpand() >> 600
+        httpCacheMaxAgeSecondsCount() >> 0
+        httpCacheStaleWhileRevalidateSecondsCount() >> 600
+    }
+    ApplicationHandler application = new ApplicationHandler(
+            new ResourceConfig(TestResource).register(new HttpCacheFilter(applicationConfig))
+    )
+
+    @Path("/")
+    @Produces(MediaType.APPLICATION_JSON)
+    static class TestResource {
+
+        @GET
+        @Path("/cacheable")
+        @HttpCacheable(HttpCachePolicy.EXPAND)
+        Map<String, Object> cacheable() {
+            [word: "Haus", count: 3]
+        }
+
+        @GET
+        @Path("/dated")
+        @HttpCacheable(HttpCachePolicy.COUNT)
+        Response dated() {
+            Response.ok([count: 3]).lastModified(LAST_MODIFIED).build()
+        }
+
+        @GET
+        @Path("/streamed")
+        @HttpCacheable(HttpCachePolicy.EXPAND)
+        StreamingOutput streamed() {
+            { OutputStream output -> output.write('{"word":"Haus"}'.bytes) } as StreamingOutput
+        }
+
+        @GET
+        @Path("/missing")
+        @HttpCacheable(HttpCachePolicy.EXPAND)
+        Response missing() {
+            Response.status(Response.Status.NOT_FOUND).entity([error: "missing"]).build()
+        }
+
+        @GET
+        @Path("/uncacheable")
+        Map<String, Object> uncacheable() {
+            [word: "Haus"]
+        }
+
+        @POST
+        @Path("/cacheable")
+        @HttpCacheable(HttpCachePolicy.EXPAND)
+        Map<String, Object> post() {
+            [word: "Haus"]
+        }
+    }
+
+    ContainerResponse call(String method, String path, Map<String, String> headers = [:]) {
+        ContainerRequest request = new ContainerRequest(
+                URI.create("http://localhost/"),
+                URI.create("http://localhost" + path),
+                method,
+                null,
+                new MapPropertiesDelegate(),
+                null
+        )
+        request.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+        headers.each { name, value -> request.header(name, value) }
+
+        application.apply(request, new ByteArrayOutputStream()).get()
+    }
+
+    def "Cacheable responses carry the Cache-Control of their policy and a strong ETag of their body"() {
+        when:
+        ContainerResponse response = call("GET", "/cacheable")
+
+        then:
+        response.status == 200
+        response.getHeaderString(HttpHeaders.CACHE_CONTROL) == "max-age=3600, stale-while-revalidate=600"
+        response.getHeaderString(HttpHeaders.VARY) == HttpHeaders.ACCEPT
+        response.entityTag.value == HttpCacheFilter.hash('{"word":"Haus","count":3}'.bytes)
+        !response.entityTag.weak
+
+        and: "the body is serialized once, by the filter"
+        response.entity == '{"word":"Haus","count":3}'.bytes
+    }
+
+    def "A matching If-None-Match is answered with 304 and no body"() {
+        given:
+        String entityTag = call("GET", "/cacheable").getHeaderString(HttpHeaders.ETAG)
+
+        when:
+        ContainerResponse response = call("GET", "/cacheable", [(HttpHeaders.IF_NONE_MATCH): entityTag])
+
+        then:
+        response.status == 304
+        !response.hasEntity()
+        response.getHeaderString(HttpHeaders.ETAG) == entityTag
+        response.getHeaderString(HttpHeaders.CACHE_CONTROL) == "max-age=3600, stale-while-revalidate=600"
+    }
+
+    def "An If-None-Match of the gzipped representation is answered with 304 and its ETag"() {
+        given:
+        String entityTag = '"' + HttpCacheFilter.hash('{"word":"Haus","count":3}'.bytes) + '-gzip"'
+
+        when:
+        ContainerResponse response = call("GET", "/cacheable", [(HttpHeaders.IF_NONE_MATCH): entityTag])
+
+        then:
+        response.status == 304
+        !response.hasEntity()
+        response.getHeaderString(HttpHeaders.ETAG) == entityTag
+    }
+
+    def "A stale If-None-Match is answered with the full response"() {
+        when:
+        ContainerResponse response = call("GET", "/cacheable", [(HttpHeaders.IF_NONE_MATCH): '"outdated"'])
+
+        then:
+        response.status == 200
+        response.hasEntity()
+    }
+
+    def "A response with Last-Modified is also validated by If-Modified-Since"() {
+        when:
+        ContainerResponse response = call(
+                "GET",
+                "/dated",
+                [(HttpHeaders.IF_MODIFIED_SINCE): "Wed, 01 May 2024 10:15:30 GMT"]
+        )
+
+        then:
+        response.status == 304
+
+        and: "a max-age of 0 makes clients revalidate on every use"
+        response.getHeaderString(HttpHeaders.CACHE_CONTROL) == "no-cache"
+    }
+
+    def "Streamed responses are cacheable but have no ETag"() {
+        when:
+        ContainerResponse response = call("GET", "/streamed")
+
+        then:
+        response.status == 200
+        response.getHeaderString(HttpHeaders.CACHE_CONTROL) == "max-age=3600, stale-while-revalidate=600"
+        response.entityTag == null
+    }
+
+    @Unroll
+    def "#method #path is left unmodified"() {
+        when:
+        ContainerResponse response = call(method, path)
+
+        then:
+        response.getHeaderString(HttpHeaders.CACHE_CONTROL) == null
+        response.entityTag == null
+
+        where:
+        method | path
+        "GET"  | "/uncacheable"
+        "GET"  | "/missing"
+        "POST" | "/cacheable"
+    }
+}
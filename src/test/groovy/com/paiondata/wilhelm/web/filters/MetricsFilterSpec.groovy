@@ -0,0 +1,87 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate
+import org.glassfish.jersey.server.ApplicationHandler
+import org.glassfish.jersey.server.ContainerRequest
+import org.glassfish.jersey.server.ContainerResponse
+import org.glassfish.jersey.server.ResourceConfig
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Timer
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import jakarta.ws.rs.GET
+import jakarta.ws.rs.Path
+import jakarta.ws.rs.PathParam
+import jakarta.ws.rs.Produces
+import jakarta.ws.rs.core.MediaType
+import spock.lang.Specification
+
+class MetricsFilterSpec extends Specification {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+    ApplicationHandler application = new ApplicationHandler(
+            new ResourceConfig(TestResource).register(new MetricsFilter(meterRegistry))
+    )
+
+    @Path("/words")
+    @Produces(MediaType.APPLICATION_JSON)
+    static class TestResource {
+
+        @GET
+        @Path("/{word}")
+        Map<String, Object> word(@PathParam("word") String word) {
+            [word: word]
+        }
+    }
+
+    ContainerResponse get(String path) {
+        application.apply(new ContainerRequest(
+                URI.create("http://localhost/"),
+                URI.create("http://localhost" + path),
+                "GET",
+                null,
+                new MapPropertiesDelegate(),
+                null
+        )).get()
+    }
+
+    def "Requests are timed per endpoint template rather than per word"() {
+        when: "the same endpoint is requested with different words"
+        get("/words/Haus")
+        get("/words/Stadt")
+
+        then: "both are recorded in a single timer of the endpoint's template"
+        Timer timer = meterRegistry.find(MetricsFilter.REQUESTS_METRIC)
+                .tags("method", "GET", "uri", "/words/{word}", "status", "200")
+                .timer()
+        timer.count() == 2
+        meterRegistry.find(MetricsFilter.REQUESTS_METRIC).timers().size() == 1
+    }
+
+    def "Requests that match no endpoint are tagged as unknown"() {
+        when: "an unknown path is requested"
+        ContainerResponse response = get("/nowhere")
+
+        then: "it is recorded under the unknown URI with its status"
+        response.status == 404
+        meterRegistry.find(MetricsFilter.REQUESTS_METRIC)
+                .tags("uri", MetricsFilter.UNMATCHED_URI, "status", "404")
+                .timer()
+                .count() == 1
+    }
+}
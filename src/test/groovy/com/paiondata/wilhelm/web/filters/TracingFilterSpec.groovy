@@ -0,0 +1,118 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.filters
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate
+import org.glassfish.jersey.server.ApplicationHandler
+import org.glassfish.jersey.server.ContainerRequest
+import org.glassfish.jersey.server.ContainerResponse
+import org.glassfish.jersey.server.ManagedAsync
+import org.glassfish.jersey.server.ResourceConfig
+import com.paiondata.wilhelm.HttpCacheable
+import com.paiondata.wilhelm.application.RequestTracingListener
+import com.paiondata.wilhelm.config.ApplicationConfig
+import com.paiondata.wilhelm.tracing.RequestTrace
+
+import jakarta.ws.rs.GET
+import jakarta.ws.rs.Path
+import jakarta.ws.rs.Produces
+import jakarta.ws.rs.container.AsyncResponse
+import jakarta.ws.rs.container.Suspended
+import jakarta.ws.rs.core.MediaType
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class TracingFilterSpec extends Specification {
+
+    @Path("/")
+    @Produces(MediaType.APPLICATION_JSON)
+    static class TestResource {
+
+        @GET
+        @ManagedAsync
+        @Path("/traced")
+        @HttpCacheable(HttpCachePolicy.EXPAND)
+        void traced(@Suspended AsyncResponse asyncResponse) {
+            RequestTrace.current().addQuery("FIND_BY_LABEL", "MATCH (node) RETURN node", [label: "Haus"], 2, 3_000_000)
+            RequestTrace.current().addPhase(RequestTrace.Phase.MAPPING, 1_000_000)
+            asyncResponse.resume([word: "Haus"])
+        }
+    }
+
+    ApplicationHandler application(TracingFilter tracingFilter) {
+        new ApplicationHandler(
+                new ResourceConfig(TestResource)
+                        .register(tracingFilter)
+                        .register(RequestTracingListener)
+                        .register(new HttpCacheFilter(Mock(ApplicationConfig) {
+                            httpCacheMaxAgeSecondsExpand() >> 3600
+                        }))
+        )
+    }
+
+    static ContainerResponse get(ApplicationHandler application) {
+        application.apply(new ContainerRequest(
+                URI.create("http://localhost/"),
+                URI.create("http://localhost/traced"),
+                "GET",
+                null,
+                new MapPropertiesDelegate(),
+                null
+        )).get(5, TimeUnit.SECONDS)
+    }
+
+    def "Phases recorded by a managed asynchronous resource method are reported in Server-Timing"() {
+        when: "a traced endpoint is requested"
+        ContainerResponse response = get(application(new TracingFilter(true, 0)))
+
+        then: "the query and mapping recorded on the resource method's thread, and the serialization, are reported"
+        response.status == 200
+        String serverTiming = response.getHeaderString(TracingFilter.SERVER_TIMING)
+        serverTiming.startsWith('neo4j;dur=3.0;desc="Neo4J queries", mapping;dur=1.0;desc="Mapping records", ')
+        serverTiming.contains("serialization;dur=")
+        serverTiming.contains("total;dur=")
+    }
+
+    def "Server-Timing is only sent when enabled"() {
+        expect:
+        get(application(new TracingFilter(false, 0))).getHeaderString(TracingFilter.SERVER_TIMING) == null
+    }
+
+    def "Logging context has the request ID and the duration of each phase"() {
+        given:
+        RequestTrace trace = new RequestTrace()
+        trace.addQuery("EXPAND_APOC", "CALL apoc.path.expand", [word: "Haus"], 10, 5_000_000)
+
+        expect:
+        TracingFilter.toLoggingContext(trace, 7) == [
+                requestId: trace.id,
+                totalMillis: "7",
+                queries: "1",
+                neo4jMillis: "5",
+                mappingMillis: "0",
+                serializationMillis: "0"
+        ]
+    }
+
+    def "Slow request threshold cannot be negative"() {
+        when:
+        new TracingFilter(true, -1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
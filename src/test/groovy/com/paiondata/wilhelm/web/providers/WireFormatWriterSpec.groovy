@@ -0,0 +1,138 @@
+/*
+ * Copyright Jiaqi Liu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paiondata.wilhelm.web.providers
+
+import com.fasterxml.jackson.core.JsonGenerator
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate
+import org.glassfish.jersey.server.ApplicationHandler
+import org.glassfish.jersey.server.ContainerRequest
+import org.glassfish.jersey.server.ContainerResponse
+import org.glassfish.jersey.server.ResourceConfig
+import com.paiondata.wilhelm.HttpCacheable
+import com.paiondata.wilhelm.config.ApplicationConfig
+import com.paiondata.wilhelm.web.filters.HttpCacheFilter
+import com.paiondata.wilhelm.web.filters.HttpCachePolicy
+
+import jakarta.ws.rs.GET
+import jakarta.ws.rs.Path
+import jakarta.ws.rs.Produces
+import jakarta.ws.rs.core.HttpHeaders
+import jakarta.ws.rs.core.MediaType
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class WireFormatWriterSpec extends Specification {
+
+    static final Map<String, Object> GRAPH = [
+            nodes: [[id: "4:uuid:1", fields: [name: "Haus"]], [id: "4:uuid:2", fields: [name: "house"]]],
+            links: [[sourceNodeId: "4:uuid:1", targetNodeId: "4:uuid:2", fields: [name: "definition"]]]
+    ]
+
+    ApplicationHandler application = new ApplicationHandler(
+            new ResourceConfig(TestResource)
+                    .register(WireFormatWriter)
+                    .register(new HttpCacheFilter(Mock(ApplicationConfig) {
+                        httpCacheMaxAgeSecondsExpand() >> 3600
+                    }))
+    )
+
+    @Path("/")
+    @Produces([MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE])
+    static class TestResource {
+
+        @GET
+        @Path("/graph")
+        Map<String, Object> graph() {
+            GRAPH
+        }
+
+        @GET
+        @Path("/cached")
+        @HttpCacheable(HttpCachePolicy.EXPAND)
+        Map<String, Object> cached() {
+            GRAPH
+        }
+
+        @GET
+        @Path("/streamed")
+        StreamingEntity streamed() {
+            new StreamingEntity() {
+                @Override
+                void write(JsonGenerator generator) {
+                    generator.writeObject(GRAPH)
+                }
+            }
+        }
+    }
+
+    Map<String, Object> request(String path, String accept) {
+        ContainerRequest request = new ContainerRequest(
+                URI.create("http://localhost/"),
+                URI.create("http://localhost" + path),
+                "GET",
+                null,
+                new MapPropertiesDelegate(),
+                null
+        )
+        request.header(HttpHeaders.ACCEPT, accept)
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream()
+        ContainerResponse response = application.apply(request, body).get()
+        [response: response, body: body.toByteArray()]
+    }
+
+    @Unroll
+    def "#path is sent as #format for Accept '#accept'"() {
+        when:
+        Map<String, Object> result = request(path, accept)
+        ContainerResponse response = result.response as ContainerResponse
+
+        then:
+        response.status == 200
+        WireFormat.of(response.mediaType) == format
+        format.mapper.readValue(result.body as byte[], Map) == GRAPH
+
+        where:
+        path        | accept                                            || format
+        "/graph"    | WireFormat.APPLICATION_CBOR                       || WireFormat.CBOR
+        "/graph"    | WireFormat.APPLICATION_SMILE                      || WireFormat.SMILE
+        "/graph"    | MediaType.APPLICATION_JSON                        || WireFormat.JSON
+        "/graph"    | "text/html,application/xhtml+xml,*/*;q=0.8"       || WireFormat.JSON
+        "/graph"    | "application/cbor, application/json;q=0.5"       || WireFormat.CBOR
+        "/cached"   | WireFormat.APPLICATION_CBOR                       || WireFormat.CBOR
+        "/cached"   | WireFormat.APPLICATION_SMILE                      || WireFormat.SMILE
+        "/streamed" | WireFormat.APPLICATION_CBOR                       || WireFormat.CBOR
+        "/streamed" | WireFormat.APPLICATION_SMILE                      || WireFormat.SMILE
+        "/streamed" | MediaType.APPLICATION_JSON                        || WireFormat.JSON
+    }
+
+    def "Binary formats are smaller than JSON"() {
+        expect:
+        (request("/graph", WireFormat.APPLICATION_SMILE).body as byte[]).length <
+                (request("/graph", MediaType.APPLICATION_JSON).body as byte[]).length
+        (request("/graph", WireFormat.APPLICATION_CBOR).body as byte[]).length <
+                (request("/graph", MediaType.APPLICATION_JSON).body as byte[]).length
+    }
+
+    def "Each format of a cacheable response has its own ETag"() {
+        expect:
+        [MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR, WireFormat.APPLICATION_SMILE]
+                .collect { (request("/cached", it).response as ContainerResponse).getHeaderString(HttpHeaders.ETAG) }
+                .toSet()
+                .size() == 3
+    }
+}
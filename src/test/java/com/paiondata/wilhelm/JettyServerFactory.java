@@ -16,10 +16,14 @@
 package com.paiondata.wilhelm;
 
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.servlet.ServletContainer;
+import com.paiondata.wilhelm.application.ExecutionMode;
 
 import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
@@ -78,13 +82,50 @@ public final class JettyServerFactory {
      * @throws NullPointerException if {@code pathSpec} or {@code resourceConfig} is {@code null}
      */
     public static Server newInstance(final int port, final String pathSpec, final ResourceConfig resourceConfig) {
+        return newInstance(port, pathSpec, resourceConfig, ExecutionMode.PLATFORM);
+    }
+
+    /**
+     * Returns a embedded Jersey-Jetty server whose request threads are of a specified kind.
+     * <p>
+     * In {@link ExecutionMode#VIRTUAL} mode, Jetty runs blocking work on virtual threads if the JVM supports them.
+     * Note that this only concerns Jetty's own threads; resource methods annotated with
+     * {@link org.glassfish.jersey.server.ManagedAsync} run on whatever executor {@code resourceConfig} registers.
+     *
+     * @param port  The port number serving all testing requests on the embedded Jetty
+     * @param pathSpec  The common path of all API's, e.g. "/v1/*"
+     * @param resourceConfig  A Jersey subclass of JAX-RS {@link jakarta.ws.rs.core.Application}; see
+     * {@link #newInstance(int, String, ResourceConfig)} for its caveat on {@code @ApplicationPath}
+     * @param executionMode  The kind of threads Jetty serves requests on
+     *
+     * @return the embedded Jetty server for local testing purposes
+     *
+     * @throws NullPointerException if {@code pathSpec}, {@code resourceConfig}, or {@code executionMode} is
+     * {@code null}
+     */
+    public static Server newInstance(
+            final int port,
+            final String pathSpec,
+            final ResourceConfig resourceConfig,
+            final ExecutionMode executionMode
+    ) {
         Objects.requireNonNull(pathSpec, "pathSpec");
         Objects.requireNonNull(resourceConfig, "resourceConfig");
+        Objects.requireNonNull(executionMode, "executionMode");
+
+        final QueuedThreadPool threadPool = new QueuedThreadPool();
+        if (executionMode == ExecutionMode.VIRTUAL && VirtualThreads.areSupported()) {
+            threadPool.setVirtualThreadsExecutor(VirtualThreads.getDefaultVirtualThreadsExecutor());
+        }
 
-        final Server server = new Server(port);
+        final Server server = new Server(threadPool);
+        final ServerConnector connector = new ServerConnector(server);
+        connector.setPort(port);
+        server.addConnector(connector);
 
         final ServletContainer servletContainer = new ServletContainer(resourceConfig);
         final ServletHolder servletHolder = new ServletHolder(servletContainer);
+        servletHolder.setAsyncSupported(true);
         final ServletContextHandler servletContextHandler = new ServletContextHandler(ServletContextHandler.SESSIONS);
         servletContextHandler.addServlet(servletHolder, pathSpec);
         server.setHandler(servletContextHandler);
@@ -15,12 +15,16 @@
  */
 package com.paiondata.wilhelm.resource;
 
+import org.glassfish.jersey.server.ManagedAsync;
 import org.glassfish.jersey.server.ResourceConfig;
 import com.paiondata.wilhelm.JettyServerFactory;
 
 import jakarta.inject.Singleton;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.Response;
 import net.jcip.annotations.Immutable;
 import net.jcip.annotations.ThreadSafe;
@@ -37,6 +41,8 @@ import net.jcip.annotations.ThreadSafe;
 @Path("/v1/example")
 public class TestEndpoint {
 
+    private static final String SUCCESS = "SUCCESS";
+
     /**
      * A sanity check endpoint that simply returns a 200 response.
      *
@@ -47,7 +53,27 @@ public class TestEndpoint {
     public Response test() {
         return Response
                 .status(Response.Status.OK)
-                .entity("SUCCESS")
+                .entity(SUCCESS)
                 .build();
     }
+
+    /**
+     * An endpoint that blocks its thread for a while before answering, the way a synchronous Neo4J call does.
+     * <p>
+     * The method is {@link ManagedAsync managed}, so it occupies a thread of the registered managed async executor
+     * rather than a container thread.
+     *
+     * @param millis  The amount of time, in milliseconds, to block
+     * @param asyncResponse  The suspended response, which is resumed with "SUCCESS"
+     *
+     * @throws InterruptedException if the blocked thread is interrupted
+     */
+    @GET
+    @ManagedAsync
+    @Path("/slow")
+    public void slow(@QueryParam("millis") final long millis, @Suspended final AsyncResponse asyncResponse)
+            throws InterruptedException {
+        Thread.sleep(millis);
+        asyncResponse.resume(SUCCESS);
+    }
 }